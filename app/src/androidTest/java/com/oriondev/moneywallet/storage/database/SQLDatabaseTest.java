@@ -32,12 +32,14 @@ import androidx.test.platform.app.InstrumentationRegistry;
 
 import com.oriondev.moneywallet.R;
 import com.oriondev.moneywallet.model.Money;
+import com.oriondev.moneywallet.storage.database.json.JSONLedgerWriter;
 import com.oriondev.moneywallet.utils.DateUtils;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
@@ -470,6 +472,8 @@ public class SQLDatabaseTest {
 
     private void checkBudgetId(long id, int type, Long categoryId, Date startDate, Date endDate,
                                long money, String currency, Long[] walletIds, String tag, long progress) {
+        // the content provider refreshes the progress at the end of each write
+        mDatabase.refreshBudgetProgress(mDatabase.getWritableDatabase());
         Cursor cursor = mDatabase.getBudget(id, null);
         assertNotNull(cursor);
         assertEquals(1, cursor.getCount());
@@ -645,6 +649,14 @@ public class SQLDatabaseTest {
         return mDatabase.updateTransaction(id, contentValues);
     }
 
+    private void checkWalletBalance(long walletId, Date date, long expected) {
+        Cursor cursor = mDatabase.getWalletBalance(walletId, DateUtils.getSQLDateTimeString(date), null);
+        assertNotNull(cursor);
+        assertEquals(true, cursor.moveToFirst());
+        assertEquals(expected, cursor.getLong(cursor.getColumnIndex(Contract.WalletBalance.MONEY)));
+        cursor.close();
+    }
+
     private void checkTransferId(long id, String description, Date datetime, long walletFromId,
                                  long walletToId, Long walletTaxId, long moneyFrom,
                                  long moneyTo, long moneyTax, String note, Long placeId,
@@ -997,6 +1009,35 @@ public class SQLDatabaseTest {
         checkCursorSize(mDatabase.getTransactions(null, null, null, null), 0);
     }
 
+    @Test
+    public void getWalletBalance() throws Exception {
+        long wallet = insertWallet("Test wallet 1", "encoded-icon-1", "EUR", "note-wallet-1", true, 2000L, false, "tag-wallet-1");
+        long category = insertCategory("Test category 1", "encoded-icon-1", Contract.CategoryType.INCOME.getValue(), null, true, "tag-category-1");
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.MONTH, -3);
+        Date firstDate = calendar.getTime();
+        calendar.add(Calendar.MONTH, 1);
+        Date middleDate = calendar.getTime();
+        calendar.add(Calendar.MONTH, 1);
+        Date secondDate = calendar.getTime();
+        Date now = new Date();
+        long id1 = insertTransaction(500L, firstDate, "desc", category, Contract.Direction.INCOME, 0, wallet, null, null, null, null, null, true, true, null, null, "tag");
+        long id2 = insertTransaction(200L, secondDate, "desc", category, Contract.Direction.EXPENSE, 0, wallet, null, null, null, null, null, true, true, null, null, "tag");
+        // the balance only contains the transactions until the requested date
+        checkWalletBalance(wallet, new Date(firstDate.getTime() - 1000L), 2000L);
+        checkWalletBalance(wallet, middleDate, 2500L);
+        checkWalletBalance(wallet, now, 2300L);
+        // every write must update the monthly balance
+        assertEquals(1, updateTransaction(id2, 300L, secondDate, "desc", category, Contract.Direction.EXPENSE, 0, wallet, null, null, null, null, null, true, true, null, null, "tag"));
+        assertEquals(1, mDatabase.deleteTransaction(id1));
+        checkWalletBalance(wallet, middleDate, 2000L);
+        checkWalletBalance(wallet, now, 1700L);
+        // the balance computed from scratch must be the same
+        mDatabase.rebuildWalletBalance(mDatabase.getWritableDatabase());
+        checkWalletBalance(wallet, middleDate, 2000L);
+        checkWalletBalance(wallet, now, 1700L);
+    }
+
     @Test
     public void insertTransfer() throws Exception {
         long id1 = insertWallet("Test wallet 1", "encoded-icon-1", "EUR", "note-wallet-1", true, 2000L, false, "tag-wallet-1");
@@ -1585,6 +1626,43 @@ public class SQLDatabaseTest {
         checkBudgetId(expenseBudget, Schema.BudgetType.EXPENSES, null, startDate, endDate, 5000L, "EUR", wallets, "tag-1", expectedProgress);
     }
 
+    @Test
+    public void cachedBudgetProgressMatchesRebuild() throws Exception {
+        // Setup wallets
+        long wallet1 = insertWallet("Test wallet 1", "encoded-icon-1", "EUR", "note-wallet-1", true, 2000L, false, "tag-wallet-1");
+        long wallet2 = insertWallet("Test wallet 2", "encoded-icon-2", "EUR", "note-wallet-2", true, 3000L, false, "tag-wallet-2");
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.MONTH, -3);
+        Date startDate = calendar.getTime();
+        calendar.add(Calendar.MONTH, 6);
+        Date endDate = calendar.getTime();
+        Long[] wallets = new Long[] {wallet1, wallet2};
+
+        // Setup budgets
+        long parentCategory = insertCategory("Test category 1", "encoded-icon", 1, null, true, "category-tag-1");
+        long childCategory = insertCategory("Test category 2", "encoded-icon", 1, parentCategory, true, "category-tag-2");
+        long expenseBudget = insertBudget(Schema.BudgetType.EXPENSES, null, startDate, endDate, 5000L, "EUR", wallets, "tag-1");
+        long categoryBudget = insertBudget(Schema.BudgetType.CATEGORY, parentCategory, startDate, endDate, 5000L, "EUR", wallets, "tag-2");
+
+        // Setup transactions and read the progress to fill the cache
+        insertTransaction(100, startDate, null, parentCategory, Contract.Direction.EXPENSE, Contract.TransactionType.STANDARD, wallet1, null, null, null, null, null, true, true, null, null, "tag");
+        long transaction = insertTransaction(200, startDate, null, childCategory, Contract.Direction.EXPENSE, Contract.TransactionType.STANDARD, wallet2, null, null, null, null, null, true, true, null, null, "tag");
+        checkBudgetId(expenseBudget, Schema.BudgetType.EXPENSES, null, startDate, endDate, 5000L, "EUR", wallets, "tag-1", 300L);
+        checkBudgetId(categoryBudget, Schema.BudgetType.CATEGORY, parentCategory, startDate, endDate, 5000L, "EUR", wallets, "tag-2", -300L);
+
+        // Every write must invalidate the cached progress
+        insertTransaction(50, startDate, null, childCategory, Contract.Direction.EXPENSE, Contract.TransactionType.STANDARD, wallet1, null, null, null, null, null, true, true, null, null, "tag");
+        assertEquals(1, mDatabase.deleteTransaction(transaction));
+        checkBudgetId(expenseBudget, Schema.BudgetType.EXPENSES, null, startDate, endDate, 5000L, "EUR", wallets, "tag-1", 150L);
+        checkBudgetId(categoryBudget, Schema.BudgetType.CATEGORY, parentCategory, startDate, endDate, 5000L, "EUR", wallets, "tag-2", -150L);
+
+        // The progress computed from scratch must be the same
+        mDatabase.rebuildBudgetProgress(mDatabase.getWritableDatabase());
+        checkBudgetId(expenseBudget, Schema.BudgetType.EXPENSES, null, startDate, endDate, 5000L, "EUR", wallets, "tag-1", 150L);
+        checkBudgetId(categoryBudget, Schema.BudgetType.CATEGORY, parentCategory, startDate, endDate, 5000L, "EUR", wallets, "tag-2", -150L);
+    }
+
     @Test
     public void getBudgetTransactions() throws Exception {
         // Setup wallets
@@ -1924,4 +2002,57 @@ public class SQLDatabaseTest {
         checkCursorSize(mDatabase.getAttachments(null, null, null, null), 0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void generateLedger() throws Exception {
+        Date endDate = DateUtils.getDateFromSQLDateString("2018-10-31");
+        LedgerGenerator generator = new LedgerGenerator.Builder(42L)
+                .setWalletCount(3)
+                .setTransactionCount(500)
+                .setTransferCount(20)
+                .setEndDate(endDate)
+                .build();
+        SQLDatabaseLedgerWriter writer = new SQLDatabaseLedgerWriter(mDatabase);
+        generator.generate(mContext, writer);
+        writer.close();
+        checkCursorSize(mDatabase.getWallets(null, null, null, null), 3);
+        checkCursorSize(mDatabase.getTransactions(null, null, null, null), (int) generator.getGeneratedTransactionCount());
+        assertEquals(20, countRows(Schema.Transfer.TABLE, Schema.Transfer.RECURRENCE + " IS NULL"));
+        // the system categories are reused and not inserted twice
+        assertEquals(1, countRows(Schema.Category.TABLE, Schema.Category.TAG + " = '" + Schema.CategoryTag.TRANSFER + "'"));
+    }
+
+    @Test
+    public void generateLedgerWithSameSeed() throws Exception {
+        // the same seed always generates the same objects, while another seed does not
+        byte[] ledger1 = generateJSONLedger(42L);
+        byte[] ledger2 = generateJSONLedger(42L);
+        byte[] ledger3 = generateJSONLedger(43L);
+        assertEquals(true, ledger1.length > 0);
+        assertEquals(true, Arrays.equals(ledger1, ledger2));
+        assertEquals(false, Arrays.equals(ledger1, ledger3));
+    }
+
+    private byte[] generateJSONLedger(long seed) throws Exception {
+        LedgerGenerator generator = new LedgerGenerator.Builder(seed)
+                .setWalletCount(3)
+                .setTransactionCount(500)
+                .setTransferCount(20)
+                .setEndDate(DateUtils.getDateFromSQLDateString("2018-10-31"))
+                .build();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JSONLedgerWriter writer = new JSONLedgerWriter(outputStream);
+        generator.generate(mContext, writer);
+        writer.close();
+        return outputStream.toByteArray();
+    }
+
+    private long countRows(String table, String selection) {
+        Cursor cursor = mDatabase.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + table + " WHERE " + selection, null);
+        assertNotNull(cursor);
+        assertEquals(true, cursor.moveToFirst());
+        long count = cursor.getLong(0);
+        cursor.close();
+        return count;
+    }
+
+}
@@ -24,9 +24,12 @@ import android.content.Context;
 
 import androidx.multidex.MultiDex;
 
+import com.oriondev.moneywallet.background.QueryExecutor;
 import com.oriondev.moneywallet.broadcast.AutoBackupBroadcastReceiver;
 import com.oriondev.moneywallet.broadcast.DailyBroadcastReceiver;
 import com.oriondev.moneywallet.broadcast.RecurrenceBroadcastReceiver;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.database.QueryProfiler;
 import com.oriondev.moneywallet.storage.preference.BackendManager;
 import com.oriondev.moneywallet.storage.preference.PreferenceManager;
 import com.oriondev.moneywallet.ui.notification.NotificationContract;
@@ -39,15 +42,90 @@ import com.oriondev.moneywallet.utils.CurrencyManager;
  */
 public class App extends Application {
 
+    private static final String INITIALIZER_PREFERENCES = "preferences";
+    private static final String INITIALIZER_QUERY_PROFILER = "query_profiler";
+    private static final String INITIALIZER_BACKENDS = "backends";
+    private static final String INITIALIZER_THEME = "theme";
+    private static final String INITIALIZER_CURRENCIES = "currencies";
+    private static final String INITIALIZER_NOTIFICATION_CHANNELS = "notification_channels";
+    private static final String INITIALIZER_SCHEDULED_TIMERS = "scheduled_timers";
+    private static final String INITIALIZER_TIME_DEPENDENT_DATA = "time_dependent_data";
+
     @Override
     public void onCreate() {
         super.onCreate();
-        PreferenceManager.initialize(this);
-        BackendManager.initialize(this);
-        ThemeEngine.initialize(this);
-        CurrencyManager.initialize(this);
-        NotificationContract.initializeNotificationChannels(this);
-        initializeScheduledTimers();
+        // only the initializers that are needed by the first activity (or by a component started
+        // together with the process) run in the main thread: the currencies are loaded in
+        // background and, until they are loaded, the main thread reads the platform currencies
+        new AppInitializer(this)
+                .add(INITIALIZER_PREFERENCES, true, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        PreferenceManager.initialize(context);
+                    }
+
+                })
+                .add(INITIALIZER_QUERY_PROFILER, true, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        QueryProfiler.setEnabled(PreferenceManager.isQueryProfilingEnabled());
+                    }
+
+                }, INITIALIZER_PREFERENCES)
+                .add(INITIALIZER_BACKENDS, true, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        BackendManager.initialize(context);
+                    }
+
+                })
+                .add(INITIALIZER_THEME, true, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        ThemeEngine.initialize(context);
+                    }
+
+                }, INITIALIZER_PREFERENCES)
+                .add(INITIALIZER_CURRENCIES, false, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        CurrencyManager.initialize(context);
+                    }
+
+                }, INITIALIZER_QUERY_PROFILER)
+                .add(INITIALIZER_NOTIFICATION_CHANNELS, true, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        // a service started with the process may post a notification at any
+                        // time, so the channels must exist before it is created
+                        NotificationContract.initializeNotificationChannels(context);
+                    }
+
+                })
+                .add(INITIALIZER_SCHEDULED_TIMERS, false, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        initializeScheduledTimers();
+                    }
+
+                }, INITIALIZER_PREFERENCES, INITIALIZER_QUERY_PROFILER, INITIALIZER_BACKENDS)
+                .add(INITIALIZER_TIME_DEPENDENT_DATA, false, new AppInitializer.Initializer() {
+
+                    @Override
+                    public void initialize(Context context) {
+                        // the daily task may have been missed while the application was killed
+                        DataContentProvider.refreshTimeDependentData(context);
+                    }
+
+                }, INITIALIZER_PREFERENCES, INITIALIZER_QUERY_PROFILER)
+                .start(QueryExecutor.getInstance().getExecutor(QueryExecutor.Lane.MAINTENANCE));
     }
 
     private void initializeScheduledTimers() {
@@ -55,6 +133,7 @@ public class App extends Application {
         // every kind of reasons. When the application is killed all the scheduled operations are
         // canceled by the OS. This is the best place where all those things can be scheduled again.
         DailyBroadcastReceiver.scheduleDailyNotification(this);
+        DailyBroadcastReceiver.scheduleDailyTask(this);
         RecurrenceBroadcastReceiver.scheduleRecurrenceTask(this);
         AutoBackupBroadcastReceiver.scheduleAutoBackupTask(this);
     }
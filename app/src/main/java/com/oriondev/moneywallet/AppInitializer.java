@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * This class runs the initializers of the application in the order of their dependencies.
+ * The initializers needed to draw the first frame run in the main thread while the application
+ * is created, all the others run in the same order inside a single background thread. The time
+ * spent by each initializer is logged. If an initializer fails, the initializers that depend on
+ * it are skipped.
+ */
+/*package-local*/ class AppInitializer {
+
+    /*package-local*/ interface Initializer {
+
+        void initialize(Context context);
+    }
+
+    private final Context mContext;
+    private final Map<String, Node> mNodes = new LinkedHashMap<>();
+
+    /*package-local*/ AppInitializer(Context context) {
+        mContext = context;
+    }
+
+    /**
+     * Add an initializer. The dependencies must be added before calling {@link #start}, in any
+     * order. An initializer of the main thread can depend only on other initializers of the
+     * main thread.
+     * @param name unique name of the initializer.
+     * @param mainThread true if the initializer must complete before the first frame.
+     * @param dependencies names of the initializers that must complete before this one.
+     */
+    /*package-local*/ AppInitializer add(String name, boolean mainThread, Initializer initializer, String... dependencies) {
+        if (mNodes.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicated initializer: " + name);
+        }
+        mNodes.put(name, new Node(name, mainThread, initializer, dependencies));
+        return this;
+    }
+
+    /**
+     * Run the initializers of the main thread and post the other ones to the executor.
+     * @param executor where the background initializers are executed in sequence.
+     */
+    /*package-local*/ void start(Executor executor) {
+        List<Node> order = sort();
+        final List<Node> backgroundNodes = new ArrayList<>();
+        long startTime = SystemClock.elapsedRealtimeNanos();
+        for (Node node : order) {
+            if (node.mMainThread) {
+                run(node);
+            } else {
+                backgroundNodes.add(node);
+            }
+        }
+        log("main thread", (SystemClock.elapsedRealtimeNanos() - startTime) / 1000L);
+        if (!backgroundNodes.isEmpty()) {
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    long startTime = SystemClock.elapsedRealtimeNanos();
+                    for (Node node : backgroundNodes) {
+                        AppInitializer.this.run(node);
+                    }
+                    log("background", (SystemClock.elapsedRealtimeNanos() - startTime) / 1000L);
+                }
+
+            });
+        }
+    }
+
+    /**
+     * @return the initializers sorted so that each one follows all its dependencies.
+     */
+    private List<Node> sort() {
+        List<Node> order = new ArrayList<>(mNodes.size());
+        Set<String> visited = new HashSet<>();
+        Set<String> visiting = new HashSet<>();
+        for (Node node : mNodes.values()) {
+            visit(node, order, visited, visiting);
+        }
+        return order;
+    }
+
+    private void visit(Node node, List<Node> order, Set<String> visited, Set<String> visiting) {
+        if (visited.contains(node.mName)) {
+            return;
+        }
+        if (!visiting.add(node.mName)) {
+            throw new IllegalStateException("Cyclic dependency of initializer: " + node.mName);
+        }
+        for (String dependency : node.mDependencies) {
+            Node dependencyNode = mNodes.get(dependency);
+            if (dependencyNode == null) {
+                throw new IllegalStateException("Initializer " + node.mName + " depends on unknown initializer: " + dependency);
+            }
+            if (node.mMainThread && !dependencyNode.mMainThread) {
+                throw new IllegalStateException("Initializer " + node.mName + " of the main thread depends on background initializer: " + dependency);
+            }
+            visit(dependencyNode, order, visited, visiting);
+        }
+        visiting.remove(node.mName);
+        visited.add(node.mName);
+        order.add(node);
+    }
+
+    private void run(Node node) {
+        for (String dependency : node.mDependencies) {
+            if (mNodes.get(dependency).mFailed) {
+                node.mFailed = true;
+                log(node.mName + " skipped", 0L);
+                return;
+            }
+        }
+        long startTime = SystemClock.elapsedRealtimeNanos();
+        try {
+            node.mInitializer.initialize(mContext);
+        } catch (RuntimeException e) {
+            if (node.mMainThread) {
+                throw e;
+            }
+            // a background initializer can not crash the application
+            e.printStackTrace();
+            node.mFailed = true;
+        }
+        log(node.mName, (SystemClock.elapsedRealtimeNanos() - startTime) / 1000L);
+    }
+
+    private static void log(String phase, long micros) {
+        System.out.println(String.format(Locale.ENGLISH, "[AppInitializer] %s: %d.%03d ms", phase, micros / 1000L, micros % 1000L));
+    }
+
+    private static class Node {
+
+        private final String mName;
+        private final boolean mMainThread;
+        private final Initializer mInitializer;
+        private final String[] mDependencies;
+        private volatile boolean mFailed;
+
+        private Node(String name, boolean mainThread, Initializer initializer, String[] dependencies) {
+            mName = name;
+            mMainThread = mainThread;
+            mInitializer = initializer;
+            mDependencies = dependencies;
+        }
+    }
+}
@@ -20,14 +20,23 @@
 package com.oriondev.moneywallet.background;
 
 import android.content.Context;
+import android.net.Uri;
+import android.os.CancellationSignal;
+import androidx.annotation.NonNull;
+import androidx.core.os.OperationCanceledException;
 import androidx.loader.content.AsyncTaskLoader;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
 /**
  * Created by andrea on 06/04/18.
  */
 public abstract class AbstractGenericLoader<T> extends AsyncTaskLoader<T> {
 
     private T mGenericData;
+    private CancellationSignal mCancellationSignal;
+    private ForceLoadContentObserver mContentObserver;
 
     public AbstractGenericLoader(Context context) {
         super(context);
@@ -36,6 +45,92 @@ public abstract class AbstractGenericLoader<T> extends AsyncTaskLoader<T> {
     @Override
     public abstract T loadInBackground();
 
+    /**
+     * Wraps the background work with a cancellation signal that is canceled when the loader is
+     * restarted or stopped. The framework exception thrown by a canceled query is converted in
+     * the one expected by the {@link AsyncTaskLoader}.
+     */
+    @Override
+    protected T onLoadInBackground() {
+        synchronized (this) {
+            if (isLoadInBackgroundCanceled()) {
+                throw new OperationCanceledException();
+            }
+            mCancellationSignal = new CancellationSignal();
+        }
+        try {
+            String key = getDeduplicationKey();
+            if (key != null) {
+                return QueryExecutor.getInstance().executeDeduplicated(key, new Callable<T>() {
+
+                    @Override
+                    public T call() {
+                        return loadInBackground();
+                    }
+                });
+            }
+            return loadInBackground();
+        } catch (android.os.OperationCanceledException e) {
+            throw new OperationCanceledException();
+        } finally {
+            synchronized (this) {
+                mCancellationSignal = null;
+            }
+        }
+    }
+
+    @Override
+    public void cancelLoadInBackground() {
+        super.cancelLoadInBackground();
+        synchronized (this) {
+            if (mCancellationSignal != null) {
+                mCancellationSignal.cancel();
+            }
+        }
+    }
+
+    @NonNull
+    @Override
+    protected Executor getExecutor() {
+        return QueryExecutor.getInstance().getExecutor(getLane());
+    }
+
+    /**
+     * @return the lane of the {@link QueryExecutor} that should run this loader.
+     */
+    protected QueryExecutor.Lane getLane() {
+        return QueryExecutor.Lane.INTERACTIVE;
+    }
+
+    /**
+     * Loaders that return the same data when created with the same parameters can provide a key
+     * that identifies the query: an identical load that is already running will be reused.
+     * @return the key of the query or null if it should not be deduplicated.
+     */
+    protected String getDeduplicationKey() {
+        return null;
+    }
+
+    /**
+     * Loaders that are not restarted by their owner when the data changes can observe the uris
+     * of the data they read: a change of one of them, or of one of their descendants, loads the
+     * data again.
+     * @return the observed uris or null if the loader does not observe the data.
+     */
+    protected Uri[] getObservedUris() {
+        return null;
+    }
+
+    /**
+     * @return the signal that should be passed to the queries executed by
+     * {@link #loadInBackground()}. It is null outside of the background work.
+     */
+    protected CancellationSignal getCancellationSignal() {
+        synchronized (this) {
+            return mCancellationSignal;
+        }
+    }
+
     /* Runs on the UI thread */
     @Override
     public void deliverResult(T genericData) {
@@ -54,6 +149,15 @@ public abstract class AbstractGenericLoader<T> extends AsyncTaskLoader<T> {
      */
     @Override
     protected void onStartLoading() {
+        if (mContentObserver == null) {
+            Uri[] uris = getObservedUris();
+            if (uris != null) {
+                mContentObserver = new ForceLoadContentObserver();
+                for (Uri uri : uris) {
+                    getContext().getContentResolver().registerContentObserver(uri, true, mContentObserver);
+                }
+            }
+        }
         if (mGenericData != null) {
             deliverResult(mGenericData);
         }
@@ -77,5 +181,9 @@ public abstract class AbstractGenericLoader<T> extends AsyncTaskLoader<T> {
         // Ensure the loader is stopped
         onStopLoading();
         mGenericData = null;
+        if (mContentObserver != null) {
+            getContext().getContentResolver().unregisterContentObserver(mContentObserver);
+            mContentObserver = null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.background;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Color;
+import android.net.Uri;
+import android.util.Log;
+
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.interfaces.datasets.ILineDataSet;
+import com.oriondev.moneywallet.model.CashFlowForecast;
+import com.oriondev.moneywallet.model.CurrencyUnit;
+import com.oriondev.moneywallet.model.ForecastData;
+import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+import com.oriondev.moneywallet.utils.CurrencyManager;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This loader projects the balance of the selected wallets for the next months, starting from
+ * the current balance and adding the upcoming occurrences of the recurrent transactions and
+ * transfers, the transactions already stored in the future and, optionally, the average of the
+ * other transactions of the last months.
+ *
+ * The recurrences are expanded inside a forecast shared by all the loaders: each load reads
+ * them again but only the ones that changed since the last load are expanded.
+ */
+public class ForecastDataLoader extends AbstractGenericLoader<ForecastData> {
+
+    private static final String TAG = "ForecastDataLoader";
+
+    public static final int MIN_MONTHS = 3;
+    public static final int MAX_MONTHS = 12;
+
+    private static final int AVERAGE_MONTHS = 3;
+
+    private final static int[] COLOR_PALETTE = new int[] {
+            Color.parseColor("#D32F2F"),
+            Color.parseColor("#FF5722"),
+            Color.parseColor("#FDD835"),
+            Color.parseColor("#4CAF50"),
+            Color.parseColor("#039BE5"),
+            Color.parseColor("#673AB7")
+    };
+
+    private static final CashFlowForecast mForecast = new CashFlowForecast(MAX_MONTHS * 31);
+
+    private final int mMonths;
+    private final boolean mIncludeAverages;
+
+    /**
+     * @param months length of the forecast, between {@link #MIN_MONTHS} and {@link #MAX_MONTHS}.
+     * @param includeAverages true if the average of the last months must be part of the forecast.
+     */
+    public ForecastDataLoader(Context context, int months, boolean includeAverages) {
+        super(context);
+        mMonths = Math.max(MIN_MONTHS, Math.min(months, MAX_MONTHS));
+        mIncludeAverages = includeAverages;
+    }
+
+    @Override
+    protected QueryExecutor.Lane getLane() {
+        return QueryExecutor.Lane.REPORT;
+    }
+
+    /**
+     * The chart is not restarted by the overview when the data is edited, so the loader
+     * observes all the data that is part of the forecast.
+     */
+    @Override
+    protected Uri[] getObservedUris() {
+        return new Uri[] {
+                DataContentProvider.CONTENT_WALLETS,
+                DataContentProvider.CONTENT_TRANSACTIONS,
+                DataContentProvider.CONTENT_TRANSFERS,
+                DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS,
+                DataContentProvider.CONTENT_RECURRENT_TRANSFERS
+        };
+    }
+
+    @Override
+    protected String getDeduplicationKey() {
+        return String.format(Locale.ENGLISH, "forecast:%d:%d:%b",
+                PreferenceManager.getCurrentWallet(),
+                mMonths,
+                mIncludeAverages);
+    }
+
+    @Override
+    public ForecastData loadInBackground() {
+        Calendar calendar = Calendar.getInstance();
+        Date now = calendar.getTime();
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        Date startDate = calendar.getTime();
+        calendar.add(Calendar.MONTH, mMonths);
+        int dayCount = (int) Math.round((calendar.getTimeInMillis() - startDate.getTime()) / 86400000d);
+        Date endDate = new Date(calendar.getTimeInMillis() - 1L);
+        long currentWallet = PreferenceManager.getCurrentWallet();
+        Map<String, List<Long>> currencyWallets = new LinkedHashMap<>();
+        long[][] projections;
+        synchronized (mForecast) {
+            // the forecast contains all the wallets, so it is not reset when the current wallet
+            // is changed: only the wallets that are selected are part of the chart
+            Cursor cursor = getWalletBalances(now);
+            if (cursor == null) {
+                return new ForecastData(null, startDate, dayCount);
+            }
+            try {
+                int indexWalletId = cursor.getColumnIndex(Contract.WalletBalance.WALLET_ID);
+                int indexCurrency = cursor.getColumnIndex(Contract.WalletBalance.WALLET_CURRENCY);
+                int indexCountInTotal = cursor.getColumnIndex(Contract.WalletBalance.WALLET_COUNT_IN_TOTAL);
+                int indexMoney = cursor.getColumnIndex(Contract.WalletBalance.MONEY);
+                long[] walletIds = new long[cursor.getCount()];
+                for (int i = 0; cursor.moveToNext(); i++) {
+                    walletIds[i] = cursor.getLong(indexWalletId);
+                }
+                mForecast.beginUpdate(startDate, walletIds);
+                cursor.moveToPosition(-1);
+                while (cursor.moveToNext()) {
+                    long walletId = cursor.getLong(indexWalletId);
+                    mForecast.setBalance(walletId, cursor.getLong(indexMoney));
+                    boolean selected = currentWallet == PreferenceManager.TOTAL_WALLET_ID
+                            ? cursor.getInt(indexCountInTotal) == 1 : walletId == currentWallet;
+                    if (selected) {
+                        String currency = cursor.getString(indexCurrency);
+                        List<Long> wallets = currencyWallets.get(currency);
+                        if (wallets == null) {
+                            wallets = new ArrayList<>();
+                            currencyWallets.put(currency, wallets);
+                        }
+                        wallets.add(walletId);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+            loadRecurrentTransactions();
+            loadRecurrentTransfers();
+            mForecast.endUpdate();
+            loadScheduledTransactions(now, endDate);
+            if (mIncludeAverages) {
+                loadAverages(now);
+            }
+            projections = new long[currencyWallets.size()][];
+            int index = 0;
+            for (List<Long> wallets : currencyWallets.values()) {
+                long[] walletIds = new long[wallets.size()];
+                for (int i = 0; i < walletIds.length; i++) {
+                    walletIds[i] = wallets.get(i);
+                }
+                projections[index++] = mForecast.getProjectedBalances(walletIds);
+            }
+        }
+        // generate one data set for each currency
+        List<ILineDataSet> lineDataSets = new ArrayList<>();
+        int index = 0;
+        for (String currency : currencyWallets.keySet()) {
+            CurrencyUnit currencyUnit = CurrencyManager.getCurrency(currency);
+            double divider = Math.pow(10, currencyUnit != null ? currencyUnit.getDecimals() : 2);
+            long[] projection = projections[index++];
+            List<Entry> entries = new ArrayList<>(dayCount);
+            for (int day = 0; day < dayCount; day++) {
+                entries.add(new Entry(day, (float) ((double) projection[day] / divider)));
+            }
+            int color = COLOR_PALETTE[lineDataSets.size() % COLOR_PALETTE.length];
+            LineDataSet lineDataSet = new LineDataSet(entries, currency);
+            lineDataSet.setColor(color);
+            lineDataSet.setDrawCircles(false);
+            lineDataSet.setDrawValues(false);
+            lineDataSet.setLineWidth(1f);
+            lineDataSets.add(lineDataSet);
+        }
+        LineData lineData = null;
+        if (!lineDataSets.isEmpty()) {
+            lineData = new LineData(lineDataSets);
+        }
+        return new ForecastData(lineData, startDate, dayCount);
+    }
+
+    private Cursor getWalletBalances(Date date) {
+        Uri uri = DataContentProvider.CONTENT_WALLET_BALANCES.buildUpon()
+                .appendQueryParameter(DataContentProvider.PARAMETER_BALANCE_DATE, DateUtils.getSQLDateTimeString(date))
+                .build();
+        String[] projection = new String[] {
+                Contract.WalletBalance.WALLET_ID,
+                Contract.WalletBalance.WALLET_CURRENCY,
+                Contract.WalletBalance.WALLET_COUNT_IN_TOTAL,
+                Contract.WalletBalance.MONEY
+        };
+        return getContext().getContentResolver().query(uri, projection, null, null, null, getCancellationSignal());
+    }
+
+    private void loadRecurrentTransactions() {
+        ContentResolver contentResolver = getContext().getContentResolver();
+        String[] projection = new String[] {
+                Contract.RecurrentTransaction.ID,
+                Contract.RecurrentTransaction.WALLET_ID,
+                Contract.RecurrentTransaction.DIRECTION,
+                Contract.RecurrentTransaction.MONEY,
+                Contract.RecurrentTransaction.NEXT_OCCURRENCE,
+                Contract.RecurrentTransaction.RULE
+        };
+        String selection = Contract.RecurrentTransaction.NEXT_OCCURRENCE + " IS NOT NULL AND "
+                + Contract.RecurrentTransaction.CONFIRMED + " = 1 AND "
+                + Contract.RecurrentTransaction.COUNT_IN_TOTAL + " = 1";
+        Cursor cursor = contentResolver.query(DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS, projection, selection, null, null, getCancellationSignal());
+        if (cursor != null) {
+            int indexId = cursor.getColumnIndex(Contract.RecurrentTransaction.ID);
+            int indexWalletId = cursor.getColumnIndex(Contract.RecurrentTransaction.WALLET_ID);
+            int indexDirection = cursor.getColumnIndex(Contract.RecurrentTransaction.DIRECTION);
+            int indexMoney = cursor.getColumnIndex(Contract.RecurrentTransaction.MONEY);
+            int indexNextOccurrence = cursor.getColumnIndex(Contract.RecurrentTransaction.NEXT_OCCURRENCE);
+            int indexRule = cursor.getColumnIndex(Contract.RecurrentTransaction.RULE);
+            while (cursor.moveToNext()) {
+                Date nextOccurrence = DateUtils.getDateFromSQLDateString(cursor.getString(indexNextOccurrence));
+                if (nextOccurrence == null) {
+                    continue;
+                }
+                long money = cursor.getLong(indexMoney);
+                if (cursor.getInt(indexDirection) == Contract.Direction.EXPENSE) {
+                    money *= -1;
+                }
+                String key = "t:" + cursor.getLong(indexId);
+                try {
+                    mForecast.setRecurrence(key, cursor.getString(indexRule), nextOccurrence, cursor.getLong(indexWalletId), money, 0L, 0L);
+                } catch (InvalidRecurrenceRuleException e) {
+                    // the rules are validated when they are stored: a damaged one is left out
+                    // of the forecast instead of hiding the whole chart
+                    Log.w(TAG, "Invalid rule of the recurrent transaction " + key, e);
+                }
+            }
+            cursor.close();
+        }
+    }
+
+    private void loadRecurrentTransfers() {
+        ContentResolver contentResolver = getContext().getContentResolver();
+        String[] projection = new String[] {
+                Contract.RecurrentTransfer.ID,
+                Contract.RecurrentTransfer.WALLET_FROM_ID,
+                Contract.RecurrentTransfer.WALLET_TO_ID,
+                Contract.RecurrentTransfer.MONEY_FROM,
+                Contract.RecurrentTransfer.MONEY_TO,
+                Contract.RecurrentTransfer.MONEY_TAX,
+                Contract.RecurrentTransfer.NEXT_OCCURRENCE,
+                Contract.RecurrentTransfer.RULE
+        };
+        String selection = Contract.RecurrentTransfer.NEXT_OCCURRENCE + " IS NOT NULL AND "
+                + Contract.RecurrentTransfer.CONFIRMED + " = 1 AND "
+                + Contract.RecurrentTransfer.COUNT_IN_TOTAL + " = 1";
+        Cursor cursor = contentResolver.query(DataContentProvider.CONTENT_RECURRENT_TRANSFERS, projection, selection, null, null, getCancellationSignal());
+        if (cursor != null) {
+            int indexId = cursor.getColumnIndex(Contract.RecurrentTransfer.ID);
+            int indexWalletFrom = cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_FROM_ID);
+            int indexWalletTo = cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_TO_ID);
+            int indexMoneyFrom = cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_FROM);
+            int indexMoneyTo = cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_TO);
+            int indexMoneyTax = cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_TAX);
+            int indexNextOccurrence = cursor.getColumnIndex(Contract.RecurrentTransfer.NEXT_OCCURRENCE);
+            int indexRule = cursor.getColumnIndex(Contract.RecurrentTransfer.RULE);
+            while (cursor.moveToNext()) {
+                Date nextOccurrence = DateUtils.getDateFromSQLDateString(cursor.getString(indexNextOccurrence));
+                if (nextOccurrence == null) {
+                    continue;
+                }
+                // the tax of the transfer is paid by the source wallet
+                long moneyFrom = cursor.getLong(indexMoneyFrom) + cursor.getLong(indexMoneyTax);
+                long moneyTo = cursor.getLong(indexMoneyTo);
+                String key = "f:" + cursor.getLong(indexId);
+                try {
+                    mForecast.setRecurrence(key, cursor.getString(indexRule), nextOccurrence,
+                            cursor.getLong(indexWalletFrom), -moneyFrom, cursor.getLong(indexWalletTo), moneyTo);
+                } catch (InvalidRecurrenceRuleException e) {
+                    Log.w(TAG, "Invalid rule of the recurrent transfer " + key, e);
+                }
+            }
+            cursor.close();
+        }
+    }
+
+    /**
+     * The transactions stored in the future are not part of the current balance. The transfers
+     * are stored as two transactions, so they are read from the same query.
+     */
+    private void loadScheduledTransactions(Date now, Date endDate) {
+        String[] projection = new String[] {
+                Contract.Transaction.WALLET_ID,
+                Contract.Transaction.DATE,
+                Contract.Transaction.DIRECTION,
+                Contract.Transaction.MONEY
+        };
+        String selection = Contract.Transaction.CONFIRMED + " = '1' AND " + Contract.Transaction.COUNT_IN_TOTAL + " = '1'";
+        selection += " AND DATETIME(" + Contract.Transaction.DATE + ") > DATETIME('" + DateUtils.getSQLDateTimeString(now) + "')";
+        selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('" + DateUtils.getSQLDateTimeString(endDate) + "')";
+        Cursor cursor = getContext().getContentResolver().query(DataContentProvider.CONTENT_TRANSACTIONS, projection, selection, null, null, getCancellationSignal());
+        if (cursor != null) {
+            int indexWalletId = cursor.getColumnIndex(Contract.Transaction.WALLET_ID);
+            int indexDate = cursor.getColumnIndex(Contract.Transaction.DATE);
+            int indexDirection = cursor.getColumnIndex(Contract.Transaction.DIRECTION);
+            int indexMoney = cursor.getColumnIndex(Contract.Transaction.MONEY);
+            while (cursor.moveToNext()) {
+                Date date = DateUtils.getDateFromSQLDateTimeString(cursor.getString(indexDate));
+                if (date == null) {
+                    continue;
+                }
+                long money = cursor.getLong(indexMoney);
+                if (cursor.getInt(indexDirection) == Contract.Direction.EXPENSE) {
+                    money *= -1;
+                }
+                mForecast.addScheduled(cursor.getLong(indexWalletId), date, money);
+            }
+            cursor.close();
+        }
+    }
+
+    /**
+     * The average of the last months is computed from the transactions that are not generated
+     * by a recurrence (the recurrences are already part of the forecast) and that are not
+     * transfers, debts or savings, that only move money between the wallets of the user.
+     */
+    private void loadAverages(Date now) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(now);
+        calendar.add(Calendar.MONTH, -AVERAGE_MONTHS);
+        Date startDate = calendar.getTime();
+        int days = DateUtils.getDaysBetween(startDate, now);
+        String[] projection = new String[] {
+                Contract.Transaction.WALLET_ID,
+                Contract.Transaction.DIRECTION,
+                Contract.Transaction.MONEY
+        };
+        String selection = Contract.Transaction.CONFIRMED + " = '1' AND " + Contract.Transaction.COUNT_IN_TOTAL + " = '1'";
+        selection += " AND " + Contract.Transaction.TYPE + " = " + Contract.TransactionType.STANDARD;
+        selection += " AND " + Contract.Transaction.CATEGORY_TYPE + " != " + Contract.CategoryType.SYSTEM.getValue();
+        selection += " AND " + Contract.Transaction.RECURRENCE_ID + " IS NULL";
+        selection += " AND " + Contract.Transaction.FUTURE + " = '0'";
+        selection += " AND DATETIME(" + Contract.Transaction.DATE + ") >= DATETIME('" + DateUtils.getSQLDateTimeString(startDate) + "')";
+        Cursor cursor = getContext().getContentResolver().query(DataContentProvider.CONTENT_TRANSACTIONS, projection, selection, null, null, getCancellationSignal());
+        if (cursor != null) {
+            int indexWalletId = cursor.getColumnIndex(Contract.Transaction.WALLET_ID);
+            int indexDirection = cursor.getColumnIndex(Contract.Transaction.DIRECTION);
+            int indexMoney = cursor.getColumnIndex(Contract.Transaction.MONEY);
+            Map<Long, Long> totals = new LinkedHashMap<>();
+            while (cursor.moveToNext()) {
+                long walletId = cursor.getLong(indexWalletId);
+                long money = cursor.getLong(indexMoney);
+                if (cursor.getInt(indexDirection) == Contract.Direction.EXPENSE) {
+                    money *= -1;
+                }
+                Long total = totals.get(walletId);
+                totals.put(walletId, total != null ? total + money : money);
+            }
+            cursor.close();
+            for (Map.Entry<Long, Long> entry : totals.entrySet()) {
+                mForecast.setAverage(entry.getKey(), entry.getValue(), days);
+            }
+        }
+    }
+}
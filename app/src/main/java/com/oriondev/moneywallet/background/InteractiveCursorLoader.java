@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.background;
+
+import android.content.Context;
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.loader.content.CursorLoader;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Cursor loader that runs inside the interactive lane of the {@link QueryExecutor} instead of
+ * the shared pool of the support library.
+ */
+public class InteractiveCursorLoader extends CursorLoader {
+
+    public InteractiveCursorLoader(@NonNull Context context, @NonNull Uri uri, @Nullable String[] projection,
+                                   @Nullable String selection, @Nullable String[] selectionArgs,
+                                   @Nullable String sortOrder) {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    @NonNull
+    @Override
+    protected Executor getExecutor() {
+        return QueryExecutor.getInstance().getExecutor(QueryExecutor.Lane.INTERACTIVE);
+    }
+}
@@ -19,6 +19,7 @@
 
 package com.oriondev.moneywallet.background;
 
+import android.content.ContentUris;
 import android.content.Context;
 import android.database.Cursor;
 import android.graphics.Color;
@@ -51,6 +52,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Created by andrea on 17/08/18.
@@ -73,10 +75,29 @@ public class OverviewDataLoader extends AbstractGenericLoader<OverviewData> {
         mOverviewSetting = overviewSetting;
     }
 
+    @Override
+    protected QueryExecutor.Lane getLane() {
+        return QueryExecutor.Lane.REPORT;
+    }
+
+    @Override
+    protected String getDeduplicationKey() {
+        return String.format(Locale.ENGLISH, "overview:%d:%d:%d:%s:%s:%s:%d",
+                PreferenceManager.getCurrentWallet(),
+                mOverviewSetting.getStartDate().getTime(),
+                mOverviewSetting.getEndDate().getTime(),
+                mOverviewSetting.getGroupType(),
+                mOverviewSetting.getType(),
+                mOverviewSetting.getCashFlow(),
+                mOverviewSetting.getCategoryId());
+    }
+
     @Override
     public OverviewData loadInBackground() {
         Money totalNetIncomes = new Money();
         List<PeriodMoney> periodMoneyList = new ArrayList<>();
+        boolean netWorth = mOverviewSetting.getType() == OverviewSetting.Type.CASH_FLOW
+                && mOverviewSetting.getCashFlow() == OverviewSetting.CashFlow.NET_WORTH;
         Uri uri = DataContentProvider.CONTENT_TRANSACTIONS;
         String[] projection = new String[] {
                 Contract.Transaction.DATE,
@@ -95,8 +116,11 @@ public class OverviewDataLoader extends AbstractGenericLoader<OverviewData> {
             selectionArgs = new String[] {String.valueOf(currentWallet)};
         }
         selection += " AND " + Contract.Transaction.CONFIRMED + " = '1' AND " + Contract.Transaction.COUNT_IN_TOTAL + " = '1'";
-        selection += " AND " + Contract.Transaction.CATEGORY_SHOW_REPORT + " = '1'";
-        selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('now', 'localtime')";
+        if (!netWorth) {
+            // the net worth must include all the transactions that are part of the balance
+            selection += " AND " + Contract.Transaction.CATEGORY_SHOW_REPORT + " = '1'";
+        }
+        selection += " AND " + Contract.Transaction.FUTURE + " = '0'";
         selection += " AND DATETIME(" + Contract.Transaction.DATE + ") >= DATETIME('" + DateUtils.getSQLDateTimeString(mOverviewSetting.getStartDate()) + "')";
         selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('" + DateUtils.getSQLDateTimeString(mOverviewSetting.getEndDate()) + "')";
         switch (mOverviewSetting.getType()) {
@@ -113,12 +137,13 @@ public class OverviewDataLoader extends AbstractGenericLoader<OverviewData> {
                 }
                 break;
             case CATEGORY:
-                selection += " AND (" + Contract.Transaction.CATEGORY_ID + " = ? OR " + Contract.Transaction.CATEGORY_PARENT_ID + " = ?)";
-                selectionArgs = appendSelectionArgs(selectionArgs, String.valueOf(mOverviewSetting.getCategoryId()), String.valueOf(mOverviewSetting.getCategoryId()));
+                // the category sub-tree is resolved by the provider through the closure table
+                uri = ContentUris.withAppendedId(DataContentProvider.CONTENT_CATEGORIES, mOverviewSetting.getCategoryId());
+                uri = Uri.withAppendedPath(uri, "transactions");
                 break;
         }
         String sortOrder = Contract.Transaction.DATE + " ASC";
-        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder);
+        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder, getCancellationSignal());
         if (cursor != null) {
             cursor.moveToFirst();
             PeriodMoney currentPeriod = null;
@@ -147,11 +172,17 @@ public class OverviewDataLoader extends AbstractGenericLoader<OverviewData> {
             }
             cursor.close();
         }
+        // the net worth chart starts from the balance at the start date, that is read from
+        // the balance checkpoints without iterating the whole history of the wallets
+        Money openingBalance = netWorth ? getOpeningBalance(currentWallet) : new Money();
+        Money chartCurrencies = new Money();
+        chartCurrencies.addMoney(totalNetIncomes);
+        chartCurrencies.addMoney(openingBalance);
         // generate chart data
         List<IBarDataSet> barDataSets = new ArrayList<>();
         List<ILineDataSet> lineDataSets = new ArrayList<>();
         List<IRadarDataSet> radarDataSets = new ArrayList<>();
-        for (String currency : totalNetIncomes.getCurrencies()) {
+        for (String currency : chartCurrencies.getCurrencies()) {
             // for each currency we have to iterate the list of period money and generate
             // a valid chart data set for each chart types.
             List<BarEntry> barEntryList = new ArrayList<>();
@@ -160,9 +191,14 @@ public class OverviewDataLoader extends AbstractGenericLoader<OverviewData> {
             // iterate period money items
             CurrencyUnit currencyUnit = CurrencyManager.getCurrency(currency);
             double divider = Math.pow(10, currencyUnit.getDecimals());
+            long balance = openingBalance.getMoney(currency);
             for (int i = 0; i < periodMoneyList.size(); i++) {
                 PeriodMoney periodMoney = periodMoneyList.get(i);
                 long money = periodMoney.getNetIncomes().getMoney(currency);
+                if (netWorth) {
+                    balance += money;
+                    money = balance;
+                }
                 float value = (float) ((double) money / divider);
                 barEntryList.add(new BarEntry(i, value));
                 lineEntryList.add(new Entry(i, value));
@@ -207,6 +243,44 @@ public class OverviewDataLoader extends AbstractGenericLoader<OverviewData> {
         return new OverviewData(barData, lineData, radarData, periodMoneyList);
     }
 
+    /**
+     * Sum the balance of the wallets at the start date (not included), grouped by currency.
+     * Transactions in the future are not part of the chart, so the balance is never computed
+     * after the current time.
+     * @param currentWallet id of the selected wallet or the total wallet id.
+     * @return the opening balance of the chart.
+     */
+    private Money getOpeningBalance(long currentWallet) {
+        Money openingBalance = new Money();
+        long openingTime = Math.min(mOverviewSetting.getStartDate().getTime() - 1000L, System.currentTimeMillis());
+        Uri uri = DataContentProvider.CONTENT_WALLET_BALANCES.buildUpon()
+                .appendQueryParameter(DataContentProvider.PARAMETER_BALANCE_DATE, DateUtils.getSQLDateTimeString(openingTime))
+                .build();
+        String[] projection = new String[] {
+                Contract.WalletBalance.WALLET_CURRENCY,
+                Contract.WalletBalance.MONEY
+        };
+        String selection;
+        String[] selectionArgs;
+        if (currentWallet == PreferenceManager.TOTAL_WALLET_ID) {
+            selection = Contract.WalletBalance.WALLET_COUNT_IN_TOTAL + " = 1";
+            selectionArgs = null;
+        } else {
+            selection = Contract.WalletBalance.WALLET_ID + " = ?";
+            selectionArgs = new String[] {String.valueOf(currentWallet)};
+        }
+        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, null, getCancellationSignal());
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                String currency = cursor.getString(cursor.getColumnIndex(Contract.WalletBalance.WALLET_CURRENCY));
+                long money = cursor.getLong(cursor.getColumnIndex(Contract.WalletBalance.MONEY));
+                openingBalance.addMoney(currency, money);
+            }
+            cursor.close();
+        }
+        return openingBalance;
+    }
+
     private String[] appendSelectionArgs(String[] oldArgs, String... newArgs) {
         String[] finalArgs = new String[(oldArgs != null ? oldArgs.length : 0) + newArgs.length];
         if (oldArgs != null) {
@@ -42,6 +42,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -77,6 +78,17 @@ public class PeriodDetailFlowLoader extends AbstractGenericLoader<PeriodDetailFl
         mIncomes = incomes;
     }
 
+    @Override
+    protected QueryExecutor.Lane getLane() {
+        return QueryExecutor.Lane.REPORT;
+    }
+
+    @Override
+    protected String getDeduplicationKey() {
+        return String.format(Locale.ENGLISH, "period-flow:%d:%d:%d:%b",
+                PreferenceManager.getCurrentWallet(), mStartDate.getTime(), mEndDate.getTime(), mIncomes);
+    }
+
     @Override @SuppressLint("UseSparseArrays")
     public PeriodDetailFlowData loadInBackground() {
         Money totalMoney = new Money();
@@ -102,7 +114,7 @@ public class PeriodDetailFlowLoader extends AbstractGenericLoader<PeriodDetailFl
             selectionArgs = new String[] {String.valueOf(currentWallet)};
         }
         selection += " AND " + Contract.Transaction.CONFIRMED + " = '1' AND " + Contract.Transaction.COUNT_IN_TOTAL + " = '1'";
-        selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('now', 'localtime')";
+        selection += " AND " + Contract.Transaction.FUTURE + " = '0'";
         selection += " AND " + Contract.Transaction.DIRECTION + " = " + (mIncomes ? Contract.Direction.INCOME : Contract.Direction.EXPENSE);
         if (mStartDate != null) {
             selection += " AND DATETIME(" + Contract.Transaction.DATE + ") >= DATETIME('" + DateUtils.getSQLDateTimeString(mStartDate) + "')";
@@ -111,7 +123,7 @@ public class PeriodDetailFlowLoader extends AbstractGenericLoader<PeriodDetailFl
             selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('" + DateUtils.getSQLDateTimeString(mEndDate) + "')";
         }
         String sortOrder = Contract.Transaction.CATEGORY_ID;
-        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder);
+        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder, getCancellationSignal());
         if (cursor != null) {
             if (cursor.moveToFirst()) {
                 do {
@@ -205,7 +217,7 @@ public class PeriodDetailFlowLoader extends AbstractGenericLoader<PeriodDetailFl
         };
         String selection = Contract.Category.PARENT + " IS NULL AND " +
                 Contract.Category.SHOW_REPORT + " = '1'";
-        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, null, null);
+        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, null, null, getCancellationSignal());
         if (cursor != null) {
             if (cursor.moveToFirst()) {
                 do {
@@ -41,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Created by andrea on 14/08/18.
@@ -64,6 +65,17 @@ public class PeriodDetailSummaryLoader extends AbstractGenericLoader<PeriodDetai
         mGroupType = groupType;
     }
 
+    @Override
+    protected QueryExecutor.Lane getLane() {
+        return QueryExecutor.Lane.REPORT;
+    }
+
+    @Override
+    protected String getDeduplicationKey() {
+        return String.format(Locale.ENGLISH, "period-summary:%d:%d:%d:%d",
+                PreferenceManager.getCurrentWallet(), mStartDate.getTime(), mEndDate.getTime(), mGroupType);
+    }
+
     @Override
     public PeriodDetailSummaryData loadInBackground() {
         Money totalNetIncomes = new Money();
@@ -86,11 +98,11 @@ public class PeriodDetailSummaryLoader extends AbstractGenericLoader<PeriodDetai
             selectionArgs = new String[] {String.valueOf(currentWallet)};
         }
         selection += " AND " + Contract.Transaction.CONFIRMED + " = '1' AND " + Contract.Transaction.COUNT_IN_TOTAL + " = '1'";
-        selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('now', 'localtime')";
+        selection += " AND " + Contract.Transaction.FUTURE + " = '0'";
         selection += " AND DATETIME(" + Contract.Transaction.DATE + ") >= DATETIME('" + DateUtils.getSQLDateTimeString(mStartDate) + "')";
         selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('" + DateUtils.getSQLDateTimeString(mEndDate) + "')";
         String sortOrder = Contract.Transaction.DATE + " ASC";
-        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder);
+        Cursor cursor = getContext().getContentResolver().query(uri, projection, selection, selectionArgs, sortOrder, getCancellationSignal());
         if (cursor != null) {
             cursor.moveToFirst();
             PeriodMoney currentPeriod = null;
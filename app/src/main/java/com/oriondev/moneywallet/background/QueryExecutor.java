@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.background;
+
+import android.os.Process;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class contains the executors used by the loaders to run the queries. The work is split
+ * in separate lanes so that the heavy reports can not delay the lists that the user is looking
+ * at. Each lane has a bounded number of threads that depends on the number of cores of the
+ * device and keeps track of the queue depth and of the latency of the executed tasks.
+ */
+public class QueryExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    private static QueryExecutor sInstance;
+
+    public static synchronized QueryExecutor getInstance() {
+        if (sInstance == null) {
+            sInstance = new QueryExecutor();
+        }
+        return sInstance;
+    }
+
+    private final Map<Lane, LaneExecutor> mLaneExecutors = new EnumMap<>(Lane.class);
+    private final Map<String, InFlightTask<?>> mInFlightTasks = new HashMap<>();
+    private final AtomicLong mDeduplicatedCount = new AtomicLong();
+    private final AtomicLong mDataGeneration = new AtomicLong();
+
+    private QueryExecutor() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        mLaneExecutors.put(Lane.INTERACTIVE, new LaneExecutor(Lane.INTERACTIVE,
+                Math.max(2, Math.min(cores - 1, 4)),
+                Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE));
+        mLaneExecutors.put(Lane.REPORT, new LaneExecutor(Lane.REPORT,
+                Math.max(1, Math.min(cores / 2, 2)),
+                Process.THREAD_PRIORITY_BACKGROUND));
+        mLaneExecutors.put(Lane.MAINTENANCE, new LaneExecutor(Lane.MAINTENANCE, 1,
+                Process.THREAD_PRIORITY_LOWEST));
+    }
+
+    /**
+     * @return the executor that runs the tasks of the given lane.
+     */
+    public Executor getExecutor(Lane lane) {
+        return mLaneExecutors.get(lane);
+    }
+
+    /**
+     * This method must be called every time the data read by the queries is changed, before the
+     * observers are notified: the tasks started before the change are not joined anymore.
+     */
+    public void onDataChanged() {
+        mDataGeneration.incrementAndGet();
+    }
+
+    /**
+     * Execute the callable in the current thread unless an identical task (with the same key)
+     * is already running and it has been started after the last data change: in that case the
+     * result of the running task is returned. If the running task has been canceled, the
+     * callable is executed anyway.
+     * @param key that identifies the task.
+     * @param callable to execute.
+     * @return the result of the callable.
+     */
+    public <T> T executeDeduplicated(String key, Callable<T> callable) {
+        InFlightTask<T> inFlightTask;
+        boolean owner = false;
+        synchronized (mInFlightTasks) {
+            long generation = mDataGeneration.get();
+            //noinspection unchecked
+            inFlightTask = (InFlightTask<T>) mInFlightTasks.get(key);
+            if (inFlightTask == null || inFlightTask.mGeneration != generation) {
+                // a task started before the last change may return stale data: it is replaced
+                inFlightTask = new InFlightTask<>(new FutureTask<>(callable), generation);
+                mInFlightTasks.put(key, inFlightTask);
+                owner = true;
+            }
+        }
+        FutureTask<T> task = inFlightTask.mTask;
+        if (owner) {
+            try {
+                task.run();
+            } finally {
+                synchronized (mInFlightTasks) {
+                    // the entry may have been replaced by a task started after a change
+                    if (mInFlightTasks.get(key) == inFlightTask) {
+                        mInFlightTasks.remove(key);
+                    }
+                }
+            }
+        } else {
+            mDeduplicatedCount.incrementAndGet();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!owner && isCancellation(cause)) {
+                return callDirectly(callable);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static boolean isCancellation(Throwable throwable) {
+        return throwable instanceof android.os.OperationCanceledException ||
+                throwable instanceof androidx.core.os.OperationCanceledException;
+    }
+
+    private static <T> T callDirectly(Callable<T> callable) {
+        try {
+            return callable.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return a snapshot of the metrics of the given lane.
+     */
+    public LaneMetrics getMetrics(Lane lane) {
+        return mLaneExecutors.get(lane).getMetrics();
+    }
+
+    /**
+     * @return the number of tasks that have reused the result of an identical running task.
+     */
+    public long getDeduplicatedCount() {
+        return mDeduplicatedCount.get();
+    }
+
+    private static class InFlightTask<T> {
+
+        private final FutureTask<T> mTask;
+        private final long mGeneration;
+
+        private InFlightTask(FutureTask<T> task, long generation) {
+            mTask = task;
+            mGeneration = generation;
+        }
+    }
+
+    public enum Lane {
+
+        /**
+         * Queries of the lists and of the details the user is looking at.
+         */
+        INTERACTIVE,
+
+        /**
+         * Aggregations used by the charts and by the reports.
+         */
+        REPORT,
+
+        /**
+         * Background work that is not visible to the user.
+         */
+        MAINTENANCE
+    }
+
+    public static class LaneMetrics {
+
+        private final int mQueueDepth;
+        private final int mActiveCount;
+        private final long mCompletedCount;
+        private final long mAverageWaitMillis;
+        private final long mAverageRunMillis;
+        private final long mMaxRunMillis;
+
+        private LaneMetrics(int queueDepth, int activeCount, long completedCount,
+                            long averageWaitMillis, long averageRunMillis, long maxRunMillis) {
+            mQueueDepth = queueDepth;
+            mActiveCount = activeCount;
+            mCompletedCount = completedCount;
+            mAverageWaitMillis = averageWaitMillis;
+            mAverageRunMillis = averageRunMillis;
+            mMaxRunMillis = maxRunMillis;
+        }
+
+        public int getQueueDepth() {
+            return mQueueDepth;
+        }
+
+        public int getActiveCount() {
+            return mActiveCount;
+        }
+
+        public long getCompletedCount() {
+            return mCompletedCount;
+        }
+
+        public long getAverageWaitMillis() {
+            return mAverageWaitMillis;
+        }
+
+        public long getAverageRunMillis() {
+            return mAverageRunMillis;
+        }
+
+        public long getMaxRunMillis() {
+            return mMaxRunMillis;
+        }
+    }
+
+    private static class LaneExecutor extends ThreadPoolExecutor {
+
+        private final AtomicLong mCompletedCount = new AtomicLong();
+        private final AtomicLong mTotalWaitMillis = new AtomicLong();
+        private final AtomicLong mTotalRunMillis = new AtomicLong();
+        private final AtomicLong mMaxRunMillis = new AtomicLong();
+
+        private LaneExecutor(Lane lane, int threads, int threadPriority) {
+            super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory(lane, threadPriority));
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            super.execute(new TimedRunnable(command));
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable runnable) {
+            super.beforeExecute(thread, runnable);
+            ((TimedRunnable) runnable).onStart();
+        }
+
+        @Override
+        protected void afterExecute(Runnable runnable, Throwable throwable) {
+            super.afterExecute(runnable, throwable);
+            TimedRunnable timedRunnable = (TimedRunnable) runnable;
+            long runMillis = SystemClock.elapsedRealtime() - timedRunnable.mStartTime;
+            mCompletedCount.incrementAndGet();
+            mTotalWaitMillis.addAndGet(timedRunnable.mStartTime - timedRunnable.mEnqueueTime);
+            mTotalRunMillis.addAndGet(runMillis);
+            long maxRunMillis;
+            do {
+                maxRunMillis = mMaxRunMillis.get();
+            } while (runMillis > maxRunMillis && !mMaxRunMillis.compareAndSet(maxRunMillis, runMillis));
+        }
+
+        private LaneMetrics getMetrics() {
+            long completedCount = mCompletedCount.get();
+            long averageWaitMillis = completedCount > 0 ? mTotalWaitMillis.get() / completedCount : 0L;
+            long averageRunMillis = completedCount > 0 ? mTotalRunMillis.get() / completedCount : 0L;
+            return new LaneMetrics(getQueue().size(), getActiveCount(), completedCount,
+                    averageWaitMillis, averageRunMillis, mMaxRunMillis.get());
+        }
+    }
+
+    private static class TimedRunnable implements Runnable {
+
+        private final Runnable mRunnable;
+        private final long mEnqueueTime;
+        private long mStartTime;
+
+        private TimedRunnable(Runnable runnable) {
+            mRunnable = runnable;
+            mEnqueueTime = SystemClock.elapsedRealtime();
+        }
+
+        private void onStart() {
+            mStartTime = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void run() {
+            mRunnable.run();
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final String mName;
+        private final int mThreadPriority;
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        private LaneThreadFactory(Lane lane, int threadPriority) {
+            mName = "QueryExecutor-" + lane.name().toLowerCase(Locale.ENGLISH) + "-";
+            mThreadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull final Runnable runnable) {
+            return new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    Process.setThreadPriority(mThreadPriority);
+                    runnable.run();
+                }
+
+            }, mName + mCount.incrementAndGet());
+        }
+    }
+}
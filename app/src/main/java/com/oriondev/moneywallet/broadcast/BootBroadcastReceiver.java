@@ -23,6 +23,8 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 
+import com.oriondev.moneywallet.service.DailyTaskIntentService;
+
 /**
  * Created by andrea on 29/07/18.
  */
@@ -34,8 +36,11 @@ public class BootBroadcastReceiver extends BroadcastReceiver {
     public void onReceive(Context context, Intent intent) {
         if (ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
             DailyBroadcastReceiver.scheduleDailyNotification(context);
+            DailyBroadcastReceiver.scheduleDailyTask(context);
             RecurrenceBroadcastReceiver.scheduleRecurrenceTask(context);
             AutoBackupBroadcastReceiver.scheduleAutoBackupTask(context);
+            // the daily task of the days when the device was off has been lost
+            DailyTaskIntentService.enqueueWork(context, new Intent());
         }
     }
 }
\ No newline at end of file
@@ -29,6 +29,7 @@ import android.content.Intent;
 import androidx.core.app.NotificationCompat;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.service.DailyTaskIntentService;
 import com.oriondev.moneywallet.storage.preference.PreferenceManager;
 import com.oriondev.moneywallet.ui.activity.NewEditTransactionActivity;
 import com.oriondev.moneywallet.ui.notification.NotificationContract;
@@ -41,6 +42,8 @@ import java.util.Calendar;
  */
 public class DailyBroadcastReceiver extends BroadcastReceiver {
 
+    private static final String ACTION_DAILY_TASK = "com.oriondev.moneywallet.action.DAILY_TASK";
+
     public static void scheduleDailyNotification(Context context) {
         int hour = PreferenceManager.getCurrentDailyReminder();
         if (hour != PreferenceManager.DAILY_REMINDER_DISABLED) {
@@ -72,6 +75,27 @@ public class DailyBroadcastReceiver extends BroadcastReceiver {
         }
     }
 
+    public static void scheduleDailyTask(Context context) {
+        PendingIntent pendingIntent = createTaskIntent(context);
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Service.ALARM_SERVICE);
+        if (alarmManager != null) {
+            // the task must run as soon as possible after midnight
+            Calendar calendar = Calendar.getInstance();
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            alarmManager.setInexactRepeating(AlarmManager.RTC, calendar.getTimeInMillis(), AlarmManager.INTERVAL_DAY, pendingIntent);
+        }
+    }
+
+    private static PendingIntent createTaskIntent(Context context) {
+        Intent intent = new Intent(context, DailyBroadcastReceiver.class);
+        intent.setAction(ACTION_DAILY_TASK);
+        return PendingIntent.getBroadcast(context, 1, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
     private static PendingIntent createNotificationIntent(Context context) {
         Intent intent = new Intent(context, DailyBroadcastReceiver.class);
         return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
@@ -79,6 +103,10 @@ public class DailyBroadcastReceiver extends BroadcastReceiver {
 
     @Override
     public void onReceive(Context context, Intent intent) {
+        if (ACTION_DAILY_TASK.equals(intent.getAction())) {
+            DailyTaskIntentService.enqueueWork(context, new Intent());
+            return;
+        }
         Intent i = new Intent(context, NewEditTransactionActivity.class);
         PendingIntent pending = PendingIntent.getActivity(context, 0, i, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
         NotificationCompat.Builder builder = new NotificationCompat.Builder(context, NotificationContract.NOTIFICATION_CHANNEL_REMINDER)
@@ -40,6 +40,7 @@ public class LocalAction {
     public static final String ACTION_LEGACY_EDITION_UPGRADE_FINISHED = "LocalBroadCast::LegacyEditionUpgradeFinished";
     public static final String ACTION_LEGACY_EDITION_UPGRADE_FAILED = "LocalBroadCast::LegacyEditionUpgradeFailed";
     public static final String ACTION_IMPORT_SERVICE_STARTED = "LocalBroadCast::ImportServiceStarted";
+    public static final String ACTION_IMPORT_SERVICE_RUNNING = "LocalBroadCast::ImportServiceRunning";
     public static final String ACTION_IMPORT_SERVICE_FINISHED = "LocalBroadCast::ImportServiceFinished";
     public static final String ACTION_IMPORT_SERVICE_FAILED = "LocalBroadCast::ImportServiceFailed";
     public static final String ACTION_EXPORT_SERVICE_STARTED = "LocalBroadCast::ExportServiceStarted";
@@ -44,10 +44,7 @@ public class RecurrenceBroadcastReceiver extends BroadcastReceiver {
 
     public static void scheduleRecurrenceTask(Context context) {
         cancelPendingIntent(context);
-        ContentResolver contentResolver = context.getContentResolver();
-        Date nextOccurrence1 = getMinNextRecurrentTransactionOccurrence(contentResolver);
-        Date nextOccurrence2 = getMinNextRecurrentTransferOccurrence(contentResolver);
-        Date nextOccurrence = getMinDate(nextOccurrence1, nextOccurrence2);
+        Date nextOccurrence = getMinNextOccurrence(context.getContentResolver());
         if (nextOccurrence != null) {
             System.out.println("[ALARM] Next occurrence is at: " + nextOccurrence.toString());
             if (DateUtils.isBeforeNow(nextOccurrence)) {
@@ -58,57 +55,27 @@ public class RecurrenceBroadcastReceiver extends BroadcastReceiver {
         }
     }
 
-    private static Date getMinNextRecurrentTransactionOccurrence(ContentResolver contentResolver) {
-        Uri uri = DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS;
+    /**
+     * The first occurrence of the recurrences is read from the index of the upcoming occurrences,
+     * that contains both the recurrent transactions and the recurrent transfers.
+     */
+    private static Date getMinNextOccurrence(ContentResolver contentResolver) {
+        Uri uri = DataContentProvider.CONTENT_RECURRENCE_OCCURRENCES;
         String[] projection = new String[] {
-                "MIN(" + Contract.RecurrentTransaction.NEXT_OCCURRENCE + ")"
+                "MIN(" + Contract.RecurrenceOccurrence.DATE + ")"
         };
-        String selection = Contract.RecurrentTransaction.NEXT_OCCURRENCE  + " IS NOT NULL";
-        Cursor cursor = contentResolver.query(uri, projection, selection, null, null);
+        Cursor cursor = contentResolver.query(uri, projection, null, null, null);
         if (cursor != null) {
-            if (cursor.moveToFirst()) {
-                String nextOccurrenceString = cursor.getString(0);
-                if (!TextUtils.isEmpty(nextOccurrenceString)) {
-                    return DateUtils.getDateFromSQLDateString(nextOccurrenceString);
+            try {
+                if (cursor.moveToFirst()) {
+                    String nextOccurrenceString = cursor.getString(0);
+                    if (!TextUtils.isEmpty(nextOccurrenceString)) {
+                        return DateUtils.getDateFromSQLDateString(nextOccurrenceString);
+                    }
                 }
+            } finally {
+                cursor.close();
             }
-            cursor.close();
-        }
-        return null;
-    }
-
-    private static Date getMinNextRecurrentTransferOccurrence(ContentResolver contentResolver) {
-        Uri uri = DataContentProvider.CONTENT_RECURRENT_TRANSFERS;
-        String[] projection = new String[] {
-                "MIN(" + Contract.RecurrentTransfer.NEXT_OCCURRENCE + ")"
-        };
-        String selection = Contract.RecurrentTransfer.NEXT_OCCURRENCE  + " IS NOT NULL";
-        Cursor cursor = contentResolver.query(uri, projection, selection, null, null);
-        if (cursor != null) {
-            if (cursor.moveToFirst()) {
-                String nextOccurrenceString = cursor.getString(0);
-                if (!TextUtils.isEmpty(nextOccurrenceString)) {
-                    return DateUtils.getDateFromSQLDateString(nextOccurrenceString);
-                }
-            }
-            cursor.close();
-        }
-        return null;
-    }
-
-    private static Date getMinDate(Date date1, Date date2) {
-        if (date1 != null) {
-            if (date2 != null) {
-                if (DateUtils.isBefore(date1, date2)) {
-                    return date1;
-                } else {
-                    return date2;
-                }
-            } else {
-                return date1;
-            }
-        } else if (date2 != null) {
-            return date2;
         }
         return null;
     }
@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.model;
+
+import com.oriondev.moneywallet.storage.cache.RecurrenceRuleCache;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Projection of the balance of the wallets for the next days. The money of each wallet is kept
+ * inside daily buckets of a flat array (one row of days for each wallet), so the projected
+ * balance is a running sum over the buckets.
+ *
+ * The recurrences are expanded once and each one remembers the buckets it has filled: when the
+ * forecast is updated only the recurrences that changed are expanded again, the old ones are
+ * subtracted from their buckets and the removed ones are dropped. The balances, the scheduled
+ * transactions and the daily averages are cheap to read, so they are replaced at each update.
+ *
+ * The forecast is not thread safe: the owner must synchronize the updates and the reads.
+ */
+public class CashFlowForecast {
+
+    /**
+     * Upper bound of the instances of a single recurrence, to protect the forecast from rules
+     * that repeat more than once a day.
+     */
+    private static final int MAX_INSTANCES = 4096;
+
+    private final int mDayCount;
+
+    private long mStartDay = Long.MIN_VALUE;
+    private long[] mWalletIds = new long[0];
+    private long[] mBalances = new long[0];
+    private double[] mDailyAverages = new double[0];
+    private long[] mRecurrenceBuckets = new long[0];
+    private long[] mScheduledBuckets = new long[0];
+
+    private final Map<String, Recurrence> mRecurrences = new HashMap<>();
+    private int mGeneration;
+
+    /**
+     * @param dayCount number of days of the forecast, the first one is the start date.
+     */
+    public CashFlowForecast(int dayCount) {
+        if (dayCount <= 0) {
+            throw new IllegalArgumentException("invalid day count: " + dayCount);
+        }
+        mDayCount = dayCount;
+    }
+
+    public int getDayCount() {
+        return mDayCount;
+    }
+
+    /**
+     * Start an update of the forecast. The balances, the scheduled transactions and the averages
+     * are cleared, while the recurrences are kept if the start day and the wallets are the same
+     * of the last update. All the recurrences must be set again before calling
+     * {@link #endUpdate()}: the ones that are not set are removed.
+     *
+     * @param startDate first day of the forecast.
+     * @param walletIds ids of the wallets of the forecast.
+     * @return true if the forecast has been reset and all the recurrences will be expanded.
+     */
+    public boolean beginUpdate(Date startDate, long[] walletIds) {
+        long startDay = getEpochDay(startDate);
+        long[] sortedWalletIds = walletIds.clone();
+        Arrays.sort(sortedWalletIds);
+        mGeneration++;
+        boolean reset = startDay != mStartDay || !Arrays.equals(sortedWalletIds, mWalletIds);
+        if (reset) {
+            mStartDay = startDay;
+            mWalletIds = sortedWalletIds;
+            mBalances = new long[sortedWalletIds.length];
+            mDailyAverages = new double[sortedWalletIds.length];
+            mRecurrenceBuckets = new long[sortedWalletIds.length * mDayCount];
+            mScheduledBuckets = new long[sortedWalletIds.length * mDayCount];
+            mRecurrences.clear();
+        } else {
+            Arrays.fill(mBalances, 0L);
+            Arrays.fill(mDailyAverages, 0d);
+            Arrays.fill(mScheduledBuckets, 0L);
+        }
+        return reset;
+    }
+
+    /**
+     * Remove the recurrences that have not been set since the last {@link #beginUpdate}.
+     */
+    public void endUpdate() {
+        Iterator<Recurrence> iterator = mRecurrences.values().iterator();
+        while (iterator.hasNext()) {
+            Recurrence recurrence = iterator.next();
+            if (recurrence.mGeneration != mGeneration) {
+                apply(recurrence, -1L);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Set the balance of the wallet at the start date.
+     */
+    public void setBalance(long walletId, long money) {
+        int index = getWalletIndex(walletId);
+        if (index >= 0) {
+            mBalances[index] = money;
+        }
+    }
+
+    /**
+     * Set the money that the wallet gains (or loses if negative) on average every day.
+     * @param money total money of the period.
+     * @param days length of the period.
+     */
+    public void setAverage(long walletId, long money, int days) {
+        int index = getWalletIndex(walletId);
+        if (index >= 0 && days > 0) {
+            mDailyAverages[index] = (double) money / days;
+        }
+    }
+
+    /**
+     * Add a single transaction that is already stored in the future. The transactions before
+     * the start date are added to the first day.
+     * @param money signed money of the transaction.
+     */
+    public void addScheduled(long walletId, Date date, long money) {
+        int index = getWalletIndex(walletId);
+        if (index >= 0) {
+            long day = getEpochDay(date) - mStartDay;
+            if (day < mDayCount) {
+                mScheduledBuckets[index * mDayCount + (int) Math.max(day, 0L)] += money;
+            }
+        }
+    }
+
+    /**
+     * Set a recurrence that moves money between one or two wallets. The recurrence is expanded
+     * again only if one of the parameters is changed since the last update.
+     *
+     * @param key unique key of the recurrence.
+     * @param rule text of the recurrence rule.
+     * @param nextOccurrence date of the next occurrence: the overdue ones are added to the
+     *                       first day of the forecast.
+     * @param walletId first wallet of the recurrence.
+     * @param money signed money added to the first wallet at each occurrence.
+     * @param otherWalletId second wallet of the recurrence (a transfer) or 0.
+     * @param otherMoney signed money added to the second wallet at each occurrence.
+     * @return true if the recurrence has been expanded.
+     * @throws InvalidRecurrenceRuleException if the rule cannot be parsed. The forecast is not
+     * changed, so a recurrence with the same key is removed by {@link #endUpdate()}.
+     */
+    public boolean setRecurrence(String key, String rule, Date nextOccurrence, long walletId, long money, long otherWalletId, long otherMoney) throws InvalidRecurrenceRuleException {
+        String signature = rule + ';' + nextOccurrence.getTime() + ';' + walletId + ';' + money + ';' + otherWalletId + ';' + otherMoney;
+        Recurrence recurrence = mRecurrences.get(key);
+        if (recurrence != null) {
+            if (recurrence.mSignature.equals(signature)) {
+                recurrence.mGeneration = mGeneration;
+                return false;
+            }
+        }
+        int[] days = expand(rule, nextOccurrence);
+        if (recurrence != null) {
+            apply(recurrence, -1L);
+        }
+        recurrence = new Recurrence(signature, getWalletIndex(walletId), money, getWalletIndex(otherWalletId), otherMoney);
+        recurrence.mGeneration = mGeneration;
+        recurrence.mDays = days;
+        apply(recurrence, 1L);
+        mRecurrences.put(key, recurrence);
+        return true;
+    }
+
+    /**
+     * @return the number of recurrences of the forecast.
+     */
+    public int getRecurrenceCount() {
+        return mRecurrences.size();
+    }
+
+    /**
+     * Compute the projected balance at the end of each day as the sum of the given wallets.
+     * The wallets that are not part of the forecast are ignored.
+     */
+    public long[] getProjectedBalances(long[] walletIds) {
+        long[] projection = new long[mDayCount];
+        for (long walletId : walletIds) {
+            int index = getWalletIndex(walletId);
+            if (index < 0) {
+                continue;
+            }
+            int offset = index * mDayCount;
+            double dailyAverage = mDailyAverages[index];
+            long balance = mBalances[index];
+            for (int day = 0; day < mDayCount; day++) {
+                balance += mRecurrenceBuckets[offset + day] + mScheduledBuckets[offset + day];
+                projection[day] += balance + Math.round(dailyAverage * (day + 1));
+            }
+        }
+        return projection;
+    }
+
+    private int getWalletIndex(long walletId) {
+        return Arrays.binarySearch(mWalletIds, walletId);
+    }
+
+    private void apply(Recurrence recurrence, long sign) {
+        for (int day : recurrence.mDays) {
+            if (recurrence.mWalletIndex >= 0) {
+                mRecurrenceBuckets[recurrence.mWalletIndex * mDayCount + day] += sign * recurrence.mMoney;
+            }
+            if (recurrence.mOtherWalletIndex >= 0) {
+                mRecurrenceBuckets[recurrence.mOtherWalletIndex * mDayCount + day] += sign * recurrence.mOtherMoney;
+            }
+        }
+    }
+
+    /**
+     * @return the days of the occurrences that are part of the forecast, relative to the start
+     * day.
+     */
+    private int[] expand(String rule, Date nextOccurrence) throws InvalidRecurrenceRuleException {
+        RecurrenceRuleIterator iterator = RecurrenceRuleCache.get(rule).iterator(DateUtils.getFixedDateTime(nextOccurrence));
+        int[] days = new int[16];
+        int count = 0;
+        while (iterator.hasNext() && count < MAX_INSTANCES) {
+            DateTime instance = iterator.nextDateTime();
+            long day = getEpochDay(instance.getYear(), instance.getMonth(), instance.getDayOfMonth()) - mStartDay;
+            if (day >= mDayCount) {
+                break;
+            }
+            if (count == days.length) {
+                days = Arrays.copyOf(days, count * 2);
+            }
+            days[count++] = (int) Math.max(day, 0L);
+        }
+        return Arrays.copyOf(days, count);
+    }
+
+    private static long getEpochDay(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        return getEpochDay(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    /**
+     * Count the days of the proleptic gregorian calendar without creating a calendar for each
+     * occurrence. Only the difference between two days is meaningful.
+     * @param month zero based month, as returned by the calendar.
+     */
+    /*package-local*/ static long getEpochDay(int year, int month, int day) {
+        long y = year;
+        long m = month + 1;
+        long total = 365L * y + (y + 3L) / 4L - (y + 99L) / 100L + (y + 399L) / 400L;
+        total += (367L * m - 362L) / 12L;
+        total += day - 1;
+        if (m > 2L) {
+            total--;
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            if (!leap) {
+                total--;
+            }
+        }
+        return total;
+    }
+
+    private static class Recurrence {
+
+        private final String mSignature;
+        private final int mWalletIndex;
+        private final long mMoney;
+        private final int mOtherWalletIndex;
+        private final long mOtherMoney;
+        private int[] mDays;
+        private int mGeneration;
+
+        private Recurrence(String signature, int walletIndex, long money, int otherWalletIndex, long otherMoney) {
+            mSignature = signature;
+            mWalletIndex = walletIndex;
+            mMoney = money;
+            mOtherWalletIndex = otherWalletIndex;
+            mOtherMoney = otherMoney;
+        }
+    }
+}
@@ -6,5 +6,6 @@ package com.oriondev.moneywallet.model;
 public enum DataFormat {
     CSV,
     XLS,
+    XLSX,
     PDF
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.model;
+
+import com.github.mikephil.charting.data.LineData;
+
+import java.util.Date;
+
+/**
+ * Projected balance of the selected wallets, with one data set for each currency. The x value
+ * of each entry is the index of the day starting from the start date.
+ */
+public class ForecastData {
+
+    private final LineData mLineData;
+    private final Date mStartDate;
+    private final int mDayCount;
+
+    public ForecastData(LineData lineData, Date startDate, int dayCount) {
+        mLineData = lineData;
+        mStartDate = startDate;
+        mDayCount = dayCount;
+    }
+
+    public LineData getLineData() {
+        return mLineData;
+    }
+
+    public Date getStartDate() {
+        return mStartDate;
+    }
+
+    public int getDayCount() {
+        return mDayCount;
+    }
+}
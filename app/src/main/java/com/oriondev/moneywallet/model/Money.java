@@ -19,8 +19,6 @@
 
 package com.oriondev.moneywallet.model;
 
-import android.text.TextUtils;
-
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -109,7 +107,7 @@ public class Money {
 
     public static Money parse(String string) {
         Money money = new Money();
-        if (!TextUtils.isEmpty(string)) {
+        if (string != null && !string.isEmpty()) {
             String[] currencies = string.split(",");
             for (String currency : currencies) {
                 String[] parts = currency.split(" ");
@@ -126,6 +126,7 @@ public class OverviewSetting implements Parcelable {
     public enum CashFlow {
         INCOMES,
         EXPENSES,
-        NET_INCOMES
+        NET_INCOMES,
+        NET_WORTH
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import android.os.Parcel;
 import android.os.Parcelable;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.storage.cache.RecurrenceRuleCache;
 import com.oriondev.moneywallet.utils.DateFormatter;
 import com.oriondev.moneywallet.utils.DateUtils;
 
@@ -56,6 +57,7 @@ public class RecurrenceSetting implements Parcelable {
     public static final int END_FOR = 3;
 
     private Date mStartDate;
+    // the rule parsed from a string is shared with the cache, so it must never be modified
     private RecurrenceRule mRecurrenceRule;
 
     public RecurrenceSetting(Date startDate, int type) {
@@ -66,15 +68,14 @@ public class RecurrenceSetting implements Parcelable {
     public RecurrenceSetting(Date startDate, String rule) {
         mStartDate = startDate;
         try {
-            mRecurrenceRule = new RecurrenceRule(rule);
+            mRecurrenceRule = RecurrenceRuleCache.get(rule);
         } catch (InvalidRecurrenceRuleException ignore) {
             mRecurrenceRule = new RecurrenceRule(Freq.DAILY);
         }
     }
 
     public static RecurrenceSetting build(Date startDate, String rule) throws InvalidRecurrenceRuleException {
-        RecurrenceRule recurrenceRule = new RecurrenceRule(rule);
-        return new RecurrenceSetting(startDate, rule);
+        return new RecurrenceSetting(startDate, RecurrenceRuleCache.get(rule));
     }
 
     private RecurrenceSetting(Date startDate, RecurrenceRule recurrenceRule) {
@@ -85,7 +86,7 @@ public class RecurrenceSetting implements Parcelable {
     private RecurrenceSetting(Parcel in) {
         try {
             mStartDate = (Date) in.readSerializable();
-            mRecurrenceRule = new RecurrenceRule(in.readString());
+            mRecurrenceRule = RecurrenceRuleCache.get(in.readString());
         } catch (InvalidRecurrenceRuleException e) {
             throw new RuntimeException(e);
         }
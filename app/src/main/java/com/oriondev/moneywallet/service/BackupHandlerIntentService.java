@@ -287,7 +287,8 @@ public class BackupHandlerIntentService extends IntentService {
                 notifyTaskProgress(ACTION_RESTORE, STATUS_BACKUP_RESTORING, 100);
                 DataContentProvider.notifyDatabaseIsChanged(this);
                 PreferenceManager.setLastTimeDataIsChanged(0L);
-                CurrencyManager.invalidateCache(this);
+                // the currencies of the new data must be visible before the task is finished
+                CurrencyManager.invalidateCacheAndWait(this);
                 RecurrenceBroadcastReceiver.scheduleRecurrenceTask(this);
                 AutoBackupBroadcastReceiver.scheduleAutoBackupTask(this);
                 notifyTaskFinished(ACTION_RESTORE);
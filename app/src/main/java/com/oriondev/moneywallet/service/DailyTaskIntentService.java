@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.service;
+
+import android.content.Context;
+import android.content.Intent;
+import androidx.annotation.NonNull;
+import androidx.core.app.JobIntentService;
+
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+
+/**
+ * This service is started once a day, right after midnight, and when the device boots to
+ * update all the data that depends on the current date (for example the progress of debts and savings that must
+ * include the transactions that were in the future until yesterday).
+ */
+public class DailyTaskIntentService extends JobIntentService {
+
+    private static final int JOB_ID = 3565;
+
+    public static void enqueueWork(Context context, Intent intent) {
+        enqueueWork(context, DailyTaskIntentService.class, JOB_ID, intent);
+    }
+
+    @Override
+    protected void onHandleWork(@NonNull Intent intent) {
+        DataContentProvider.refreshTimeDependentData(this);
+    }
+}
@@ -14,19 +14,19 @@ import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.model.DataFormat;
 import com.oriondev.moneywallet.model.Wallet;
-import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
 import com.oriondev.moneywallet.storage.database.data.AbstractDataImporter;
+import com.oriondev.moneywallet.storage.database.data.ImportError;
 import com.oriondev.moneywallet.storage.database.data.csv.CSVDataExporter;
 import com.oriondev.moneywallet.storage.database.data.csv.CSVDataImporter;
 import com.oriondev.moneywallet.storage.database.data.pdf.PDFDataExporter;
 import com.oriondev.moneywallet.storage.database.data.xls.XLSDataExporter;
+import com.oriondev.moneywallet.storage.database.data.xlsx.XLSXDataExporter;
 import com.oriondev.moneywallet.utils.DateUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -45,10 +45,17 @@ public class ImportExportIntentService extends IntentService {
     public static final String UNIQUE_WALLET = "ImportExportIntentService::Arguments::UniqueWallet";
     public static final String OPTIONAL_COLUMNS = "ImportExportIntentService::Arguments::OptionalColumns";
 
+    public static final String PROGRESS_ROWS = "ImportExportIntentService::Progress::Rows";
+    public static final String PROGRESS_ROWS_PER_SECOND = "ImportExportIntentService::Progress::RowsPerSecond";
+
     public static final String RESULT_FILE_URI = "ImportExportIntentService::Results::FileUri";
     public static final String RESULT_FILE_TYPE = "ImportExportIntentService::Results::FileType";
+    public static final String RESULT_SKIPPED_ROW_COUNT = "ImportExportIntentService::Results::SkippedRowCount";
+    public static final String RESULT_SKIPPED_ROWS = "ImportExportIntentService::Results::SkippedRows";
     public static final String EXCEPTION = "ImportExportIntentService::Results::Exception";
 
+    private static final int MAX_REPORTED_SKIPPED_ROWS = 20;
+
     public static final int MODE_EXPORT = 0;
     public static final int MODE_IMPORT = 1;
 
@@ -88,12 +95,27 @@ public class ImportExportIntentService extends IntentService {
             }
             // initialize the correct data importer
             AbstractDataImporter dataImporter = getDataImporter(dataFormat, file);
+            dataImporter.setProgressListener(new AbstractDataImporter.ProgressListener() {
+
+                @Override
+                public void onProgress(long rows, long rowsPerSecond) {
+                    notifyImportProgress(rows, rowsPerSecond);
+                }
+
+            });
+            // the whole file is imported inside a single transaction: the rows that are not
+            // valid are skipped, but if the import fails none of the rows is left inside
+            // the database
+            boolean successful = false;
+            DataContentProvider.beginWriteTransaction(this);
             try {
                 dataImporter.importData();
+                successful = true;
             } finally {
+                DataContentProvider.endWriteTransaction(this, successful);
                 dataImporter.close();
             }
-            notifyTaskFinished(LocalAction.ACTION_IMPORT_SERVICE_FINISHED);
+            notifyImportFinished(dataImporter.getErrors());
         } catch (Exception e) {
             notifyTaskFailed(LocalAction.ACTION_IMPORT_SERVICE_FAILED, e);
         }
@@ -123,23 +145,20 @@ public class ImportExportIntentService extends IntentService {
             // initialize the correct data exporter
             AbstractDataExporter dataExporter = getDataExporter(dataFormat, folder);
             ContentResolver contentResolver = getContentResolver();
-            Uri uri = DataContentProvider.CONTENT_TRANSACTIONS;
-            // initialize the selection builder with common variables
-            StringBuilder selectionBuilder = new StringBuilder();
-            List<String> selectionArguments = new ArrayList<>();
+            // the export uri only reads the columns used by the exporters and it streams the
+            // rows of any number of transactions sorted by date (newest first)
+            Uri.Builder uriBuilder = DataContentProvider.CONTENT_TRANSACTION_EXPORT.buildUpon();
             // append rule to limit to the end date or to the current date
-            selectionBuilder.append("DATE (" + Contract.Transaction.DATE + ") <= DATE(?)");
-            selectionArguments.add(DateUtils.getSQLDateString(getFixedEndDate(endDate)));
+            uriBuilder.appendQueryParameter(DataContentProvider.PARAMETER_EXPORT_END_DATE, DateUtils.getSQLDateString(getFixedEndDate(endDate)));
             // if provided, apply a rule to the start date
             if (startDate != null) {
-                selectionBuilder.append(" AND DATE (" + Contract.Transaction.DATE + ") >= DATE(?)");
-                selectionArguments.add(DateUtils.getSQLDateString(startDate));
+                uriBuilder.appendQueryParameter(DataContentProvider.PARAMETER_EXPORT_START_DATE, DateUtils.getSQLDateString(startDate));
             }
-            String sortOrder = Contract.Transaction.DATE + " DESC";
             // check if we should create a unique wallet or if we can export each wallet
             // in a separate way
             boolean multiWallet = wallets.length > 1 && dataExporter.isMultiWalletSupported() && !uniqueWallet;
             String[] columns = dataExporter.getColumns(!multiWallet, optionalColumns);
+            String[] projection = AbstractDataExporter.getProjection(optionalColumns);
             // before starting with the export logic, check if the exporter should
             // store the people names into his internal cache to speedup the procedure
             if (dataExporter.shouldLoadPeople()) {
@@ -151,13 +170,13 @@ public class ImportExportIntentService extends IntentService {
             }
             // handle the export logic differently
             if (multiWallet) {
-                // execute a query for each wallet: we should clone the original builder
-                // to avoid mistakes during each successive query
+                // execute a query for each wallet: the builder is copied to avoid mixing
+                // the wallets of each successive query
                 for (Wallet wallet : wallets) {
-                    String selection = selectionBuilder + " AND " + Contract.Transaction.WALLET_ID + " = ?";
-                    String[] arguments = selectionArguments.toArray(new String[selectionArguments.size() + 1]);
-                    arguments[arguments.length - 1] = String.valueOf(wallet.getId());
-                    Cursor cursor = contentResolver.query(uri, null, selection, arguments, sortOrder);
+                    Uri uri = uriBuilder.build().buildUpon()
+                            .appendQueryParameter(DataContentProvider.PARAMETER_EXPORT_WALLETS, String.valueOf(wallet.getId()))
+                            .build();
+                    Cursor cursor = contentResolver.query(uri, projection, null, null, null);
                     if (cursor != null) {
                         dataExporter.exportData(cursor, columns, wallet);
                         cursor.close();
@@ -165,16 +184,15 @@ public class ImportExportIntentService extends IntentService {
                 }
             } else {
                 // execute only a large query: we can modify the original builder here
-                selectionBuilder.append(" AND (");
+                StringBuilder walletIds = new StringBuilder();
                 for (int i = 0; i < wallets.length; i++) {
                     if (i != 0) {
-                        selectionBuilder.append(" OR ");
+                        walletIds.append(",");
                     }
-                    selectionBuilder.append(Contract.Transaction.WALLET_ID + " = ?");
-                    selectionArguments.add(String.valueOf(wallets[i].getId()));
+                    walletIds.append(wallets[i].getId());
                 }
-                selectionBuilder.append(")");
-                Cursor cursor = contentResolver.query(uri, null, selectionBuilder.toString(), selectionArguments.toArray(new String[selectionArguments.size()]), sortOrder);
+                uriBuilder.appendQueryParameter(DataContentProvider.PARAMETER_EXPORT_WALLETS, walletIds.toString());
+                Cursor cursor = contentResolver.query(uriBuilder.build(), projection, null, null, null);
                 if (cursor != null) {
                     dataExporter.exportData(cursor, columns, wallets);
                     cursor.close();
@@ -211,8 +229,23 @@ public class ImportExportIntentService extends IntentService {
         mBroadcastManager.sendBroadcast(intent);
     }
 
-    private void notifyTaskFinished(String action) {
-        Intent intent = new Intent(action);
+    private void notifyImportProgress(long rows, long rowsPerSecond) {
+        Intent intent = new Intent(LocalAction.ACTION_IMPORT_SERVICE_RUNNING);
+        intent.putExtra(PROGRESS_ROWS, rows);
+        intent.putExtra(PROGRESS_ROWS_PER_SECOND, rowsPerSecond);
+        mBroadcastManager.sendBroadcast(intent);
+    }
+
+    private void notifyImportFinished(List<ImportError> errors) {
+        Intent intent = new Intent(LocalAction.ACTION_IMPORT_SERVICE_FINISHED);
+        if (!errors.isEmpty()) {
+            String[] skippedRows = new String[Math.min(errors.size(), MAX_REPORTED_SKIPPED_ROWS)];
+            for (int i = 0; i < skippedRows.length; i++) {
+                skippedRows[i] = errors.get(i).toString();
+            }
+            intent.putExtra(RESULT_SKIPPED_ROW_COUNT, errors.size());
+            intent.putExtra(RESULT_SKIPPED_ROWS, skippedRows);
+        }
         mBroadcastManager.sendBroadcast(intent);
     }
 
@@ -244,6 +277,8 @@ public class ImportExportIntentService extends IntentService {
                 return new CSVDataExporter(this, folder);
             case XLS:
                 return new XLSDataExporter(this, folder);
+            case XLSX:
+                return new XLSXDataExporter(this, folder);
             case PDF:
                 return new PDFDataExporter(this, folder);
             default:
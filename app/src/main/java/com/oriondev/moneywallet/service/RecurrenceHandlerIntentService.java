@@ -19,16 +19,20 @@
 
 package com.oriondev.moneywallet.service;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.RemoteException;
 import androidx.annotation.NonNull;
 import androidx.core.app.JobIntentService;
 
 import com.oriondev.moneywallet.broadcast.RecurrenceBroadcastReceiver;
+import com.oriondev.moneywallet.storage.cache.RecurrenceRuleCache;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.utils.DateUtils;
@@ -38,7 +42,9 @@ import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
 import org.dmfs.rfc5545.recur.RecurrenceRule;
 import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Created by andrea on 11/11/18.
@@ -53,52 +59,76 @@ public class RecurrenceHandlerIntentService extends JobIntentService {
 
     @Override
     protected void onHandleWork(@NonNull Intent intent) {
-        addMissingRecurrentTransactionOccurrences();
-        addMissingRecurrentTransferOccurrences();
+        // all the missing occurrences are generated in memory and then written together with
+        // the updated recurrences inside a single transaction, that is notified only once
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        addMissingRecurrentTransactionOccurrences(operations);
+        addMissingRecurrentTransferOccurrences(operations);
+        if (!operations.isEmpty()) {
+            try {
+                getContentResolver().applyBatch(DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS.getAuthority(), operations);
+            } catch (RemoteException | OperationApplicationException e) {
+                // nothing has been written: the same occurrences will be added the next time
+                e.printStackTrace();
+            }
+        }
         RecurrenceBroadcastReceiver.scheduleRecurrenceTask(this);
     }
 
-    private void addMissingRecurrentTransactionOccurrences() {
+    private void addMissingRecurrentTransactionOccurrences(List<ContentProviderOperation> operations) {
         Uri uri = DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS;
         String selection = Contract.RecurrentTransaction.NEXT_OCCURRENCE + " IS NOT NULL AND DATE(" + Contract.RecurrentTransaction.NEXT_OCCURRENCE + ") <= DATE('now', 'localtime')";
         Cursor cursor = getContentResolver().query(uri, null, selection, null, null);
         if (cursor != null) {
+            int indexId = cursor.getColumnIndex(Contract.RecurrentTransaction.ID);
+            int indexNextOccurrence = cursor.getColumnIndex(Contract.RecurrentTransaction.NEXT_OCCURRENCE);
+            int indexRule = cursor.getColumnIndex(Contract.RecurrentTransaction.RULE);
+            int indexMoney = cursor.getColumnIndex(Contract.RecurrentTransaction.MONEY);
+            int indexDescription = cursor.getColumnIndex(Contract.RecurrentTransaction.DESCRIPTION);
+            int indexCategoryId = cursor.getColumnIndex(Contract.RecurrentTransaction.CATEGORY_ID);
+            int indexDirection = cursor.getColumnIndex(Contract.RecurrentTransaction.DIRECTION);
+            int indexWalletId = cursor.getColumnIndex(Contract.RecurrentTransaction.WALLET_ID);
+            int indexNote = cursor.getColumnIndex(Contract.RecurrentTransaction.NOTE);
+            int indexPlaceId = cursor.getColumnIndex(Contract.RecurrentTransaction.PLACE_ID);
+            int indexEventId = cursor.getColumnIndex(Contract.RecurrentTransaction.EVENT_ID);
+            int indexConfirmed = cursor.getColumnIndex(Contract.RecurrentTransaction.CONFIRMED);
+            int indexCountInTotal = cursor.getColumnIndex(Contract.RecurrentTransaction.COUNT_IN_TOTAL);
+            DateTime currentDateTime = DateUtils.getFixedDateTime(new Date());
             while (cursor.moveToNext()) {
                 // get basic information about the recurrence entity
-                long transactionId = cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransaction.ID));
-                String firstOccurrenceDateString = cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransaction.NEXT_OCCURRENCE));
-                Date firstOccurrenceDate = DateUtils.getDateFromSQLDateString(firstOccurrenceDateString);
-                DateTime currentDateTime = DateUtils.getFixedDateTime(new Date());
+                long transactionId = cursor.getLong(indexId);
+                Date firstOccurrenceDate = DateUtils.getDateFromSQLDateString(cursor.getString(indexNextOccurrence));
                 DateTime startDateTime = DateUtils.getFixedDateTime(firstOccurrenceDate);
                 DateTime lastOccurrence = DateUtils.getFixedDateTime(firstOccurrenceDate);
                 DateTime nextOccurrence = null;
-                RecurrenceRule recurrenceRule;
                 try {
-                    recurrenceRule = new RecurrenceRule(cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransaction.RULE)));
+                    RecurrenceRule recurrenceRule = RecurrenceRuleCache.get(cursor.getString(indexRule));
                     RecurrenceRuleIterator iterator = recurrenceRule.iterator(startDateTime);
+                    // the values in common between all the occurrences are read only once
+                    ContentValues template = new ContentValues();
+                    template.put(Contract.Transaction.MONEY, cursor.getLong(indexMoney));
+                    template.put(Contract.Transaction.DESCRIPTION, cursor.getString(indexDescription));
+                    template.put(Contract.Transaction.CATEGORY_ID, cursor.getLong(indexCategoryId));
+                    template.put(Contract.Transaction.DIRECTION, cursor.getInt(indexDirection));
+                    template.put(Contract.Transaction.TYPE, Contract.TransactionType.STANDARD);
+                    template.put(Contract.Transaction.WALLET_ID, cursor.getLong(indexWalletId));
+                    template.put(Contract.Transaction.NOTE, cursor.getString(indexNote));
+                    if (!cursor.isNull(indexPlaceId)) {
+                        template.put(Contract.Transaction.PLACE_ID, cursor.getLong(indexPlaceId));
+                    }
+                    if (!cursor.isNull(indexEventId)) {
+                        template.put(Contract.Transaction.EVENT_ID, cursor.getLong(indexEventId));
+                    }
+                    template.put(Contract.Transaction.RECURRENCE_ID, transactionId);
+                    template.put(Contract.Transaction.CONFIRMED, cursor.getInt(indexConfirmed) == 1);
+                    template.put(Contract.Transaction.COUNT_IN_TOTAL, cursor.getInt(indexCountInTotal) == 1);
                     while (iterator.hasNext()) {
                         DateTime nextInstance = iterator.nextDateTime();
                         if (!nextInstance.after(currentDateTime)) {
                             Date transactionDate = DateUtils.getFixedDate(nextInstance);
-                            ContentValues contentValues = new ContentValues();
-                            contentValues.put(Contract.Transaction.MONEY, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransaction.MONEY)));
+                            ContentValues contentValues = new ContentValues(template);
                             contentValues.put(Contract.Transaction.DATE, DateUtils.getSQLDateTimeString(transactionDate));
-                            contentValues.put(Contract.Transaction.DESCRIPTION, cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransaction.DESCRIPTION)));
-                            contentValues.put(Contract.Transaction.CATEGORY_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransaction.CATEGORY_ID)));
-                            contentValues.put(Contract.Transaction.DIRECTION, cursor.getInt(cursor.getColumnIndex(Contract.RecurrentTransaction.DIRECTION)));
-                            contentValues.put(Contract.Transaction.TYPE, Contract.TransactionType.STANDARD);
-                            contentValues.put(Contract.Transaction.WALLET_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransaction.WALLET_ID)));
-                            contentValues.put(Contract.Transaction.NOTE, cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransaction.NOTE)));
-                            if (!cursor.isNull(cursor.getColumnIndex(Contract.RecurrentTransaction.PLACE_ID))) {
-                                contentValues.put(Contract.Transaction.PLACE_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransaction.PLACE_ID)));
-                            }
-                            if (!cursor.isNull(cursor.getColumnIndex(Contract.RecurrentTransaction.EVENT_ID))) {
-                                contentValues.put(Contract.Transaction.EVENT_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransaction.EVENT_ID)));
-                            }
-                            contentValues.put(Contract.Transaction.RECURRENCE_ID, transactionId);
-                            contentValues.put(Contract.Transaction.CONFIRMED, cursor.getInt(cursor.getColumnIndex(Contract.RecurrentTransaction.CONFIRMED)) == 1);
-                            contentValues.put(Contract.Transaction.COUNT_IN_TOTAL, cursor.getInt(cursor.getColumnIndex(Contract.RecurrentTransaction.COUNT_IN_TOTAL)) == 1);
-                            getContentResolver().insert(DataContentProvider.CONTENT_TRANSACTIONS, contentValues);
+                            operations.add(ContentProviderOperation.newInsert(DataContentProvider.CONTENT_TRANSACTIONS).withValues(contentValues).build());
                             lastOccurrence = nextInstance;
                         } else {
                             nextOccurrence = nextInstance;
@@ -113,54 +143,68 @@ public class RecurrenceHandlerIntentService extends JobIntentService {
                 contentValues.put(Contract.RecurrentTransaction.LAST_OCCURRENCE, DateUtils.getSQLDateString(DateUtils.getFixedDate(lastOccurrence)));
                 contentValues.put(Contract.RecurrentTransaction.NEXT_OCCURRENCE, nextOccurrence != null ? DateUtils.getSQLDateString(DateUtils.getFixedDate(nextOccurrence)) : null);
                 Uri contentUri = ContentUris.withAppendedId(DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS, transactionId);
-                getContentResolver().update(contentUri, contentValues, null, null);
+                operations.add(ContentProviderOperation.newUpdate(contentUri).withValues(contentValues).build());
             }
             cursor.close();
         }
     }
 
-    private void addMissingRecurrentTransferOccurrences() {
+    private void addMissingRecurrentTransferOccurrences(List<ContentProviderOperation> operations) {
         Uri uri = DataContentProvider.CONTENT_RECURRENT_TRANSFERS;
         String selection = Contract.RecurrentTransfer.NEXT_OCCURRENCE + " IS NOT NULL AND DATE(" + Contract.RecurrentTransfer.NEXT_OCCURRENCE + ") <= DATE('now', 'localtime')";
         Cursor cursor = getContentResolver().query(uri, null, selection, null, null);
         if (cursor != null) {
+            int indexId = cursor.getColumnIndex(Contract.RecurrentTransfer.ID);
+            int indexNextOccurrence = cursor.getColumnIndex(Contract.RecurrentTransfer.NEXT_OCCURRENCE);
+            int indexRule = cursor.getColumnIndex(Contract.RecurrentTransfer.RULE);
+            int indexDescription = cursor.getColumnIndex(Contract.RecurrentTransfer.DESCRIPTION);
+            int indexWalletFromId = cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_FROM_ID);
+            int indexWalletToId = cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_TO_ID);
+            int indexMoneyFrom = cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_FROM);
+            int indexMoneyTo = cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_TO);
+            int indexMoneyTax = cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_TAX);
+            int indexNote = cursor.getColumnIndex(Contract.RecurrentTransfer.NOTE);
+            int indexPlaceId = cursor.getColumnIndex(Contract.RecurrentTransfer.PLACE_ID);
+            int indexEventId = cursor.getColumnIndex(Contract.RecurrentTransfer.EVENT_ID);
+            int indexConfirmed = cursor.getColumnIndex(Contract.RecurrentTransfer.CONFIRMED);
+            int indexCountInTotal = cursor.getColumnIndex(Contract.RecurrentTransfer.COUNT_IN_TOTAL);
+            DateTime currentDateTime = DateUtils.getFixedDateTime(new Date());
             while (cursor.moveToNext()) {
                 // get basic information about the recurrence entity
-                long recurrenceId = cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.ID));
-                String firstOccurrenceDateString = cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransfer.NEXT_OCCURRENCE));
-                Date firstOccurrenceDate = DateUtils.getDateFromSQLDateString(firstOccurrenceDateString);
-                DateTime currentDateTime = DateUtils.getFixedDateTime(new Date());
+                long recurrenceId = cursor.getLong(indexId);
+                Date firstOccurrenceDate = DateUtils.getDateFromSQLDateString(cursor.getString(indexNextOccurrence));
                 DateTime startDateTime = DateUtils.getFixedDateTime(firstOccurrenceDate);
                 DateTime lastOccurrence = DateUtils.getFixedDateTime(firstOccurrenceDate);
                 DateTime nextOccurrence = null;
-                RecurrenceRule recurrenceRule;
                 try {
-                    recurrenceRule = new RecurrenceRule(cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransfer.RULE)));
+                    RecurrenceRule recurrenceRule = RecurrenceRuleCache.get(cursor.getString(indexRule));
                     RecurrenceRuleIterator iterator = recurrenceRule.iterator(startDateTime);
+                    // the values in common between all the occurrences are read only once
+                    ContentValues template = new ContentValues();
+                    template.put(Contract.Transfer.DESCRIPTION, cursor.getString(indexDescription));
+                    template.put(Contract.Transfer.TRANSACTION_FROM_WALLET_ID, cursor.getLong(indexWalletFromId));
+                    template.put(Contract.Transfer.TRANSACTION_TO_WALLET_ID, cursor.getLong(indexWalletToId));
+                    template.put(Contract.Transfer.TRANSACTION_TAX_WALLET_ID, cursor.getLong(indexWalletFromId));
+                    template.put(Contract.Transfer.TRANSACTION_FROM_MONEY, cursor.getLong(indexMoneyFrom));
+                    template.put(Contract.Transfer.TRANSACTION_TO_MONEY, cursor.getLong(indexMoneyTo));
+                    template.put(Contract.Transfer.TRANSACTION_TAX_MONEY, cursor.getLong(indexMoneyTax));
+                    template.put(Contract.Transfer.NOTE, cursor.getString(indexNote));
+                    if (!cursor.isNull(indexPlaceId)) {
+                        template.put(Contract.Transfer.PLACE_ID, cursor.getLong(indexPlaceId));
+                    }
+                    if (!cursor.isNull(indexEventId)) {
+                        template.put(Contract.Transfer.EVENT_ID, cursor.getLong(indexEventId));
+                    }
+                    template.put(Contract.Transfer.RECURRENCE_ID, recurrenceId);
+                    template.put(Contract.Transfer.CONFIRMED, cursor.getInt(indexConfirmed) == 1);
+                    template.put(Contract.Transfer.COUNT_IN_TOTAL, cursor.getInt(indexCountInTotal) == 1);
                     while (iterator.hasNext()) {
                         DateTime nextInstance = iterator.nextDateTime();
                         if (!nextInstance.after(currentDateTime)) {
                             Date transferDate = DateUtils.getFixedDate(nextInstance);
-                            ContentValues contentValues = new ContentValues();
-                            contentValues.put(Contract.Transfer.DESCRIPTION, cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransfer.DESCRIPTION)));
+                            ContentValues contentValues = new ContentValues(template);
                             contentValues.put(Contract.Transfer.DATE, DateUtils.getSQLDateTimeString(transferDate));
-                            contentValues.put(Contract.Transfer.TRANSACTION_FROM_WALLET_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_FROM_ID)));
-                            contentValues.put(Contract.Transfer.TRANSACTION_TO_WALLET_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_TO_ID)));
-                            contentValues.put(Contract.Transfer.TRANSACTION_TAX_WALLET_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.WALLET_FROM_ID)));
-                            contentValues.put(Contract.Transfer.TRANSACTION_FROM_MONEY, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_FROM)));
-                            contentValues.put(Contract.Transfer.TRANSACTION_TO_MONEY, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_TO)));
-                            contentValues.put(Contract.Transfer.TRANSACTION_TAX_MONEY, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.MONEY_TAX)));
-                            contentValues.put(Contract.Transfer.NOTE, cursor.getString(cursor.getColumnIndex(Contract.RecurrentTransfer.NOTE)));
-                            if (!cursor.isNull(cursor.getColumnIndex(Contract.RecurrentTransfer.PLACE_ID))) {
-                                contentValues.put(Contract.Transfer.PLACE_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.PLACE_ID)));
-                            }
-                            if (!cursor.isNull(cursor.getColumnIndex(Contract.RecurrentTransfer.EVENT_ID))) {
-                                contentValues.put(Contract.Transfer.EVENT_ID, cursor.getLong(cursor.getColumnIndex(Contract.RecurrentTransfer.EVENT_ID)));
-                            }
-                            contentValues.put(Contract.Transfer.RECURRENCE_ID, recurrenceId);
-                            contentValues.put(Contract.Transfer.CONFIRMED, cursor.getInt(cursor.getColumnIndex(Contract.RecurrentTransfer.CONFIRMED)) == 1);
-                            contentValues.put(Contract.Transfer.COUNT_IN_TOTAL, cursor.getInt(cursor.getColumnIndex(Contract.RecurrentTransfer.COUNT_IN_TOTAL)) == 1);
-                            getContentResolver().insert(DataContentProvider.CONTENT_TRANSFERS, contentValues);
+                            operations.add(ContentProviderOperation.newInsert(DataContentProvider.CONTENT_TRANSFERS).withValues(contentValues).build());
                             lastOccurrence = nextInstance;
                         } else {
                             nextOccurrence = nextInstance;
@@ -175,9 +219,9 @@ public class RecurrenceHandlerIntentService extends JobIntentService {
                 contentValues.put(Contract.RecurrentTransfer.LAST_OCCURRENCE, DateUtils.getSQLDateString(DateUtils.getFixedDate(lastOccurrence)));
                 contentValues.put(Contract.RecurrentTransfer.NEXT_OCCURRENCE, nextOccurrence != null ? DateUtils.getSQLDateString(DateUtils.getFixedDate(nextOccurrence)) : null);
                 Uri contentUri = ContentUris.withAppendedId(DataContentProvider.CONTENT_RECURRENT_TRANSFERS, recurrenceId);
-                getContentResolver().update(contentUri, contentValues, null, null);
+                operations.add(ContentProviderOperation.newUpdate(contentUri).withValues(contentValues).build());
             }
             cursor.close();
         }
     }
-}
\ No newline at end of file
+}
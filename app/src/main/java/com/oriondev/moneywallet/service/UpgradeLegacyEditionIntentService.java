@@ -69,7 +69,8 @@ public class UpgradeLegacyEditionIntentService extends IntentService {
             notifyServiceFailed(exception.getMessage());
         } else {
             DataContentProvider.notifyDatabaseIsChanged(this);
-            CurrencyManager.invalidateCache(this);
+            // the currencies of the new data must be visible before the task is finished
+            CurrencyManager.invalidateCacheAndWait(this);
             PreferenceManager.setLastTimeDataIsChanged(0L);
             RecurrenceBroadcastReceiver.scheduleRecurrenceTask(this);
             notifyServiceFinished();
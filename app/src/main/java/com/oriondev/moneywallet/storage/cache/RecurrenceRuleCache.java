@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.cache;
+
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRule;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the parsed recurrence rules, keyed by the text of the rule. The recurrence service,
+ * the database and the ui parse the same few rules again and again, so each rule is parsed only
+ * once and the parsed instance is shared: the returned rules must never be modified, they can
+ * only be used to read their parts and to create new iterators.
+ */
+public class RecurrenceRuleCache {
+
+    private static final int MAX_SIZE = 256;
+
+    private static final Map<String, RecurrenceRule> mCache = new LinkedHashMap<String, RecurrenceRule>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RecurrenceRule> eldest) {
+            return size() > MAX_SIZE;
+        }
+
+    };
+
+    /**
+     * Get the parsed rule from the cache or parse it if it is not cached yet. The invalid rules
+     * are not cached, so the exception is thrown every time they are requested.
+     *
+     * @param rule text of the rule (RFC 5545).
+     * @return the shared instance of the parsed rule.
+     * @throws InvalidRecurrenceRuleException if the rule cannot be parsed.
+     */
+    public static RecurrenceRule get(String rule) throws InvalidRecurrenceRuleException {
+        if (rule == null) {
+            throw new InvalidRecurrenceRuleException("missing rule");
+        }
+        synchronized (mCache) {
+            RecurrenceRule recurrenceRule = mCache.get(rule);
+            if (recurrenceRule != null) {
+                return recurrenceRule;
+            }
+        }
+        // the rule is parsed outside the lock: if two threads parse the same rule at the same
+        // time the last one wins, but both the instances are equivalent
+        RecurrenceRule recurrenceRule = new RecurrenceRule(rule);
+        synchronized (mCache) {
+            mCache.put(rule, recurrenceRule);
+        }
+        return recurrenceRule;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.net.Uri;
+import android.text.TextUtils;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This class describes the payload attached to the uri used by the content provider to notify
+ * a change. The uri may carry the ids of the wallets affected by the change and the list of
+ * columns that have been modified by an update, so that each {@link MultiUriCursorWrapper}
+ * can decide if the change intersects its own query. A uri without payload always means
+ * that anything may be changed.
+ */
+/*package-local*/ final class ChangeNotification {
+
+    private static final String PARAMETER_WALLETS = "changed_wallets";
+    private static final String PARAMETER_COLUMNS = "changed_columns";
+
+    private static final String SEPARATOR = ",";
+
+    private ChangeNotification() {
+        // not instantiable
+    }
+
+    /**
+     * Build the uri that should be used to notify a change.
+     * @param uri of the changed object or collection.
+     * @param walletIds ids of the wallets affected by the change or null if unknown.
+     * @param columns that have been modified by an update or null if the row has been
+     *                inserted or deleted.
+     * @return the notification uri.
+     */
+    /*package-local*/ static Uri build(Uri uri, Collection<Long> walletIds, Collection<String> columns) {
+        Uri.Builder builder = uri.buildUpon();
+        if (walletIds != null && !walletIds.isEmpty()) {
+            builder.appendQueryParameter(PARAMETER_WALLETS, TextUtils.join(SEPARATOR, walletIds));
+        }
+        if (columns != null && !columns.isEmpty()) {
+            builder.appendQueryParameter(PARAMETER_COLUMNS, TextUtils.join(SEPARATOR, columns));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the ids of the affected wallets or null if any wallet may be affected.
+     */
+    /*package-local*/ static long[] getWallets(Uri uri) {
+        String parameter = uri.getQueryParameter(PARAMETER_WALLETS);
+        if (TextUtils.isEmpty(parameter)) {
+            return null;
+        }
+        String[] values = TextUtils.split(parameter, SEPARATOR);
+        long[] walletIds = new long[values.length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                walletIds[i] = Long.parseLong(values[i]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return walletIds;
+    }
+
+    /**
+     * @return the modified columns or null if the whole row may be changed.
+     */
+    /*package-local*/ static String[] getColumns(Uri uri) {
+        String parameter = uri.getQueryParameter(PARAMETER_COLUMNS);
+        if (TextUtils.isEmpty(parameter)) {
+            return null;
+        }
+        return TextUtils.split(parameter, SEPARATOR);
+    }
+
+    /**
+     * @return the uri of the collection that contains the changed object, without payload.
+     */
+    /*package-local*/ static Uri getCollectionUri(Uri uri) {
+        List<String> segments = uri.getPathSegments();
+        int size = segments.size();
+        if (size > 0 && TextUtils.isDigitsOnly(segments.get(size - 1))) {
+            size--;
+        }
+        Uri.Builder builder = new Uri.Builder()
+                .scheme(uri.getScheme())
+                .authority(uri.getAuthority());
+        for (int i = 0; i < size; i++) {
+            builder.appendPath(segments.get(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Check if the changed uri belongs to the subtree of the registered notification uri.
+     * Query parameters are ignored because they only carry the change payload.
+     */
+    /*package-local*/ static boolean isDescendant(Uri notifyUri, Uri changedUri) {
+        if (!TextUtils.equals(notifyUri.getAuthority(), changedUri.getAuthority())) {
+            return false;
+        }
+        List<String> notifySegments = notifyUri.getPathSegments();
+        List<String> changedSegments = changedUri.getPathSegments();
+        if (changedSegments.size() < notifySegments.size()) {
+            return false;
+        }
+        for (int i = 0; i < notifySegments.size(); i++) {
+            if (!notifySegments.get(i).equals(changedSegments.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
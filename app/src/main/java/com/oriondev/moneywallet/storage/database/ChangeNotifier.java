@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.oriondev.moneywallet.background.QueryExecutor;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class is used by the content provider to send the change notifications. The changes are
+ * not notified immediately: they are merged by collection and sent when no other change happens
+ * for a short quiet period (or when the maximum delay is reached) in order to avoid a requery of
+ * every loader for each row written by a burst. While a write session is open, nothing is sent
+ * until the last session is closed. The timestamp of the last data change is stored together
+ * with the notifications.
+ */
+/*package-local*/ class ChangeNotifier {
+
+    private static final long QUIET_PERIOD_MILLIS = 50L;
+    private static final long MAX_DELAY_MILLIS = 500L;
+
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<Uri, PendingChange> mPendingChanges = new LinkedHashMap<>();
+    private int mSessionDepth;
+    private long mFirstPendingTime;
+    private long mLastChangeTime;
+
+    private long mRequestedCount;
+    private long mEmittedCount;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    /*package-local*/ ChangeNotifier(ContentResolver contentResolver) {
+        mContentResolver = contentResolver;
+    }
+
+    /**
+     * Enqueue the notification of a change. The uri may carry the payload built with
+     * {@link ChangeNotification#build}.
+     */
+    /*package-local*/ void notifyChange(Uri uri) {
+        synchronized (this) {
+            mRequestedCount++;
+            mLastChangeTime = System.currentTimeMillis();
+            Uri collectionUri = ChangeNotification.getCollectionUri(uri);
+            PendingChange pendingChange = mPendingChanges.get(collectionUri);
+            if (pendingChange == null) {
+                pendingChange = new PendingChange(collectionUri);
+                mPendingChanges.put(collectionUri, pendingChange);
+            }
+            pendingChange.merge(uri);
+            if (mSessionDepth == 0) {
+                scheduleFlush();
+            }
+        }
+    }
+
+    /**
+     * Open a write session: all the changes are retained until the matching call to
+     * {@link #endSession()}. Sessions can be nested.
+     */
+    /*package-local*/ void beginSession() {
+        synchronized (this) {
+            mSessionDepth++;
+            mHandler.removeCallbacks(mFlushRunnable);
+        }
+    }
+
+    /*package-local*/ void endSession() {
+        synchronized (this) {
+            if (mSessionDepth > 0) {
+                mSessionDepth--;
+            }
+        }
+        flush();
+    }
+
+    /*package-local*/ long getEmittedCount() {
+        synchronized (this) {
+            return mEmittedCount;
+        }
+    }
+
+    /*package-local*/ long getSuppressedCount() {
+        synchronized (this) {
+            return mRequestedCount - mEmittedCount;
+        }
+    }
+
+    private void scheduleFlush() {
+        long now = SystemClock.uptimeMillis();
+        if (mFirstPendingTime == 0L) {
+            mFirstPendingTime = now;
+        }
+        long delay = Math.min(QUIET_PERIOD_MILLIS, mFirstPendingTime + MAX_DELAY_MILLIS - now);
+        mHandler.removeCallbacks(mFlushRunnable);
+        mHandler.postDelayed(mFlushRunnable, Math.max(0L, delay));
+    }
+
+    private void flush() {
+        List<Uri> notifyUris = new ArrayList<>();
+        long lastChangeTime;
+        synchronized (this) {
+            if (mSessionDepth > 0) {
+                return;
+            }
+            mHandler.removeCallbacks(mFlushRunnable);
+            for (PendingChange pendingChange : mPendingChanges.values()) {
+                notifyUris.add(pendingChange.getNotifyUri());
+            }
+            mEmittedCount += notifyUris.size();
+            mPendingChanges.clear();
+            mFirstPendingTime = 0L;
+            lastChangeTime = mLastChangeTime;
+            mLastChangeTime = 0L;
+        }
+        if (lastChangeTime > 0L) {
+            PreferenceManager.setLastTimeDataIsChanged(lastChangeTime);
+        }
+        if (!notifyUris.isEmpty()) {
+            // the running queries may have read the data before the change
+            QueryExecutor.getInstance().onDataChanged();
+        }
+        if (mContentResolver != null) {
+            for (Uri notifyUri : notifyUris) {
+                mContentResolver.notifyChange(notifyUri, null);
+            }
+        }
+    }
+
+    /**
+     * All the changes of the same collection merged together. The payload is the union of the
+     * payloads: if one of the changes may affect any wallet or the whole row, the merged one
+     * does the same.
+     */
+    private static class PendingChange {
+
+        private final Uri mCollectionUri;
+        private Uri mObjectUri;
+        private boolean mMultipleObjects;
+        private Set<Long> mWalletIds = new LinkedHashSet<>();
+        private Set<String> mColumns = new LinkedHashSet<>();
+
+        private PendingChange(Uri collectionUri) {
+            mCollectionUri = collectionUri;
+        }
+
+        private void merge(Uri uri) {
+            Uri objectUri = uri.buildUpon().clearQuery().build();
+            if (mObjectUri == null) {
+                mObjectUri = objectUri;
+            } else if (!mObjectUri.equals(objectUri)) {
+                mMultipleObjects = true;
+            }
+            long[] walletIds = ChangeNotification.getWallets(uri);
+            if (walletIds == null) {
+                mWalletIds = null;
+            } else if (mWalletIds != null) {
+                for (long walletId : walletIds) {
+                    mWalletIds.add(walletId);
+                }
+            }
+            String[] columns = ChangeNotification.getColumns(uri);
+            if (columns == null) {
+                mColumns = null;
+            } else if (mColumns != null) {
+                Collections.addAll(mColumns, columns);
+            }
+        }
+
+        private Uri getNotifyUri() {
+            Uri uri = mMultipleObjects ? mCollectionUri : mObjectUri;
+            return ChangeNotification.build(uri, mWalletIds, mColumns);
+        }
+    }
+}
@@ -58,6 +58,14 @@ public class Contract {
         public static final String INDEX = Schema.Wallet.INDEX;
     }
 
+    public static final class WalletBalance {
+        public static final String WALLET_ID = "balance_wallet_id";
+        public static final String WALLET_CURRENCY = "balance_wallet_currency";
+        public static final String WALLET_COUNT_IN_TOTAL = "balance_wallet_count_in_total";
+        public static final String DATE = "balance_date";
+        public static final String MONEY = "balance_money";
+    }
+
     public static final class Transaction {
         public static final String ID = Schema.Transaction.ID;
         public static final String MONEY = Schema.Transaction.MONEY;
@@ -99,6 +107,7 @@ public class Contract {
         public static final String RECURRENCE_ID = Schema.Transaction.RECURRENCE;
         public static final String CONFIRMED = Schema.Transaction.CONFIRMED;
         public static final String COUNT_IN_TOTAL = Schema.Transaction.COUNT_IN_TOTAL;
+        public static final String FUTURE = Schema.Transaction.FUTURE;
         public static final String PEOPLE_IDS = "transaction_person_ids";
         public static final String ATTACHMENT_IDS = "transaction_attachment_ids";
         public static final String TAG = Schema.Transaction.TAG;
@@ -345,6 +354,21 @@ public class Contract {
         public static final String TAG = Schema.RecurrentTransfer.TAG;
     }
 
+    /**
+     * An upcoming occurrence of a recurrent transaction or transfer. The wallet, the money and the
+     * direction of a transfer are the ones of the source wallet (the money is always an expense).
+     */
+    public static final class RecurrenceOccurrence {
+        public static final String TYPE = "occurrence_type";
+        public static final String RECURRENCE_ID = "occurrence_recurrence_id";
+        public static final String DATE = "occurrence_date";
+        public static final String DESCRIPTION = "occurrence_description";
+        public static final String MONEY = "occurrence_money";
+        public static final String DIRECTION = "occurrence_direction";
+        public static final String WALLET_ID = "occurrence_wallet_id";
+        public static final String WALLET_CURRENCY = "occurrence_wallet_currency";
+    }
+
     public static final class TransactionModel {
         public static final String ID = Schema.TransactionModel.ID;
         public static final String MONEY = Schema.TransactionModel.MONEY;
@@ -552,6 +576,11 @@ public class Contract {
         public static final int EXPENSE = Schema.Direction.EXPENSE;
     }
 
+    public static class RecurrenceType {
+        public static final int TRANSACTION = Schema.RecurrenceType.TRANSACTION;
+        public static final int TRANSFER = Schema.RecurrenceType.TRANSFER;
+    }
+
     public static class TransactionType {
         public static final int STANDARD = 0;
         public static final int TRANSFER = 1;
@@ -22,20 +22,32 @@ package com.oriondev.moneywallet.storage.database;
 import android.annotation.SuppressLint;
 import android.content.ContentProvider;
 import android.content.ContentProviderClient;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
+import android.os.CancellationSignal;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.oriondev.moneywallet.BuildConfig;
+import com.oriondev.moneywallet.background.QueryExecutor;
 import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+import com.oriondev.moneywallet.utils.DateUtils;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by andrea on 17/01/18.
@@ -44,6 +56,8 @@ public class DataContentProvider extends ContentProvider {
 
     private static final boolean IS_REMOTE_SYNC_ENABLED = false;
 
+    private static final long FUTURE_PROMOTION_INTERVAL = 60 * 1000;
+
     /*package-local*/ static final String AUTHORITY = BuildConfig.APPLICATION_ID + ".storage.data";
 
     public static final Uri CONTENT_CURRENCIES = Uri.parse("content://" + AUTHORITY + "/currencies");
@@ -62,6 +76,43 @@ public class DataContentProvider extends ContentProvider {
     public static final Uri CONTENT_PLACES = Uri.parse("content://" + AUTHORITY + "/places");
     public static final Uri CONTENT_PEOPLE = Uri.parse("content://" + AUTHORITY + "/people");
     public static final Uri CONTENT_ATTACHMENTS = Uri.parse("content://" + AUTHORITY + "/attachments");
+    public static final Uri CONTENT_WALLET_BALANCES = Uri.parse("content://" + AUTHORITY + "/wallets/balance");
+    public static final Uri CONTENT_TRANSACTION_EXPORT = Uri.parse("content://" + AUTHORITY + "/transactions/export");
+    public static final Uri CONTENT_RECURRENCE_OCCURRENCES = Uri.parse("content://" + AUTHORITY + "/recurrences/occurrences");
+
+    /**
+     * Query parameter of the balance uris: it contains the date in sql format (yyyy-MM-dd HH:mm:ss
+     * or yyyy-MM-dd) of the last transaction to include. If missing, the current time is used.
+     */
+    public static final String PARAMETER_BALANCE_DATE = "at";
+
+    /**
+     * Query parameter that contains the id of the wallet the query is restricted to: the returned
+     * cursor will ignore the change notifications that only affect other wallets.
+     */
+    public static final String PARAMETER_NOTIFY_WALLET = "notify_wallet";
+
+    /**
+     * Query parameters of the export uri: the ids of the wallets to export separated by a comma
+     * and the first and the last day to export in sql format (yyyy-MM-dd). The start date is
+     * optional, if the end date is missing the current day is used.
+     */
+    public static final String PARAMETER_EXPORT_WALLETS = "wallets";
+    public static final String PARAMETER_EXPORT_START_DATE = "from";
+    public static final String PARAMETER_EXPORT_END_DATE = "to";
+
+    /**
+     * Query parameters of the occurrences uri: the first and the last day of the range in sql
+     * format (yyyy-MM-dd). Both of them are optional.
+     */
+    public static final String PARAMETER_OCCURRENCE_START_DATE = "from";
+    public static final String PARAMETER_OCCURRENCE_END_DATE = "to";
+
+    /**
+     * Column dependencies used to register a notification uri when the query only depends
+     * on the existence of the rows (for example the ids of the people of a transaction).
+     */
+    private static final String[] ROW_EXISTENCE_ONLY = new String[0];
 
     private static final int CURRENCY_LIST = 1;
     private static final int WALLET_LIST = 2;
@@ -112,6 +163,13 @@ public class DataContentProvider extends ContentProvider {
     private static final int PLACE_TRANSACTION_LIST = 44;
     private static final int PERSON_TRANSACTION_LIST = 45;
 
+    private static final int WALLET_BALANCE_LIST = 46;
+    private static final int WALLET_BALANCE_ITEM = 47;
+
+    private static final int TRANSACTION_EXPORT_LIST = 48;
+
+    private static final int RECURRENCE_OCCURRENCE_LIST = 49;
+
     private static final UriMatcher mUriMatcher = createUriMatcher();
 
     private static UriMatcher createUriMatcher() {
@@ -120,8 +178,11 @@ public class DataContentProvider extends ContentProvider {
         matcher.addURI(AUTHORITY, "currencies/*", CURRENCY_ITEM);
         matcher.addURI(AUTHORITY, "wallets", WALLET_LIST);
         matcher.addURI(AUTHORITY, "wallets/#", WALLET_ITEM);
+        matcher.addURI(AUTHORITY, "wallets/balance", WALLET_BALANCE_LIST);
+        matcher.addURI(AUTHORITY, "wallets/#/balance", WALLET_BALANCE_ITEM);
         matcher.addURI(AUTHORITY, "transactions", TRANSACTION_LIST);
         matcher.addURI(AUTHORITY, "transactions/#", TRANSACTION_ITEM);
+        matcher.addURI(AUTHORITY, "transactions/export", TRANSACTION_EXPORT_LIST);
         matcher.addURI(AUTHORITY, "transactions/#/attachments", TRANSACTION_ATTACHMENTS);
         matcher.addURI(AUTHORITY, "transactions/#/people", TRANSACTION_PEOPLE);
         matcher.addURI(AUTHORITY, "transfers", TRANSFER_LIST);
@@ -149,6 +210,7 @@ public class DataContentProvider extends ContentProvider {
         matcher.addURI(AUTHORITY, "recurrences/transactions/#", RECURRENT_TRANSACTION_ITEM);
         matcher.addURI(AUTHORITY, "recurrences/transfers", RECURRENT_TRANSFER_LIST);
         matcher.addURI(AUTHORITY, "recurrences/transfers/#", RECURRENT_TRANSFER_ITEM);
+        matcher.addURI(AUTHORITY, "recurrences/occurrences", RECURRENCE_OCCURRENCE_LIST);
         matcher.addURI(AUTHORITY, "models/transactions", TRANSACTION_MODEL_LIST);
         matcher.addURI(AUTHORITY, "models/transactions/#", TRANSACTION_MODEL_ITEM);
         matcher.addURI(AUTHORITY, "models/transfers", TRANSFER_MODEL_LIST);
@@ -165,17 +227,47 @@ public class DataContentProvider extends ContentProvider {
     }
 
     private SQLDatabase mDatabase;
+    private ChangeNotifier mChangeNotifier;
+    private final AtomicLong mNextFuturePromotion = new AtomicLong();
 
     @Override
     public boolean onCreate() {
         initializeDatabase(getContext());
+        mChangeNotifier = new ChangeNotifier(getContentResolver());
         return true;
     }
 
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs,
+                        String sortOrder, CancellationSignal cancellationSignal) {
+        SQLDatabase database = mDatabase;
+        database.setCancellationSignal(cancellationSignal);
+        try {
+            return query(uri, projection, selection, selectionArgs, sortOrder);
+        } finally {
+            database.setCancellationSignal(null);
+        }
+    }
+
     @Nullable
     @Override
     public Cursor query(@NonNull Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        promoteFutureTransactionsIfNeeded();
+        QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.QUERY, uri);
         Cursor cursor = null;
+        try {
+            cursor = performQuery(uri, projection, selection, selectionArgs, sortOrder);
+        } finally {
+            if (operation != null) {
+                operation.endQuery(mDatabase.getReadableDatabase(), cursor);
+            }
+        }
+        return cursor;
+    }
+
+    private Cursor performQuery(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        MultiUriCursorWrapper cursor = null;
         switch (mUriMatcher.match(uri)) {
             case CURRENCY_LIST:
                 cursor = new MultiUriCursorWrapper(mDatabase.getCurrencies(projection, selection, selectionArgs, sortOrder));
@@ -194,10 +286,24 @@ public class DataContentProvider extends ContentProvider {
                 break;
             case WALLET_ITEM:
                 cursor = new MultiUriCursorWrapper(mDatabase.getWallet(ContentUris.parseId(uri), projection));
+                cursor.setWalletFilter(ContentUris.parseId(uri));
                 cursor.setNotificationUri(getContentResolver(), uri);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_TRANSACTIONS);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_TRANSFERS);
                 break;
+            case WALLET_BALANCE_LIST:
+                cursor = new MultiUriCursorWrapper(mDatabase.getWalletBalances(getBalanceDate(uri), projection, selection, selectionArgs, sortOrder));
+                cursor.setNotificationUri(getContentResolver(), CONTENT_WALLETS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_TRANSACTIONS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_TRANSFERS);
+                break;
+            case WALLET_BALANCE_ITEM:
+                cursor = new MultiUriCursorWrapper(mDatabase.getWalletBalance(parseIdAtIndex(uri, 1), getBalanceDate(uri), projection));
+                cursor.setWalletFilter(parseIdAtIndex(uri, 1));
+                cursor.setNotificationUri(getContentResolver(), CONTENT_WALLETS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_TRANSACTIONS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_TRANSFERS);
+                break;
             case TRANSACTION_LIST:
                 cursor = new MultiUriCursorWrapper(mDatabase.getTransactions(projection, selection, selectionArgs, sortOrder));
                 cursor.setNotificationUri(getContentResolver(), CONTENT_WALLETS);
@@ -206,9 +312,15 @@ public class DataContentProvider extends ContentProvider {
                 cursor.setNotificationUri(getContentResolver(), CONTENT_CATEGORIES);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_DEBTS);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_EVENTS);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE, ROW_EXISTENCE_ONLY);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_PLACES);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS, ROW_EXISTENCE_ONLY);
+                break;
+            case TRANSACTION_EXPORT_LIST:
+                // the export is a one shot read: the rows are always sorted by date (newest first)
+                // and the selection is built from the query parameters of the uri
+                cursor = new MultiUriCursorWrapper(new ExportCursor(mDatabase, projection, getExportWallets(uri),
+                        getDateParameter(uri, PARAMETER_EXPORT_START_DATE), getExportEndDate(uri)));
                 break;
             case TRANSACTION_ITEM:
                 cursor = new MultiUriCursorWrapper(mDatabase.getTransaction(ContentUris.parseId(uri), projection));
@@ -218,9 +330,9 @@ public class DataContentProvider extends ContentProvider {
                 cursor.setNotificationUri(getContentResolver(), CONTENT_CATEGORIES);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_DEBTS);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_EVENTS);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE, ROW_EXISTENCE_ONLY);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_PLACES);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS, ROW_EXISTENCE_ONLY);
                 break;
             case TRANSACTION_ATTACHMENTS:
                 cursor = new MultiUriCursorWrapper(mDatabase.getTransactionAttachments(parseIdAtIndex(uri, 1), projection, selection, selectionArgs, sortOrder));
@@ -240,9 +352,9 @@ public class DataContentProvider extends ContentProvider {
                 cursor.setNotificationUri(getContentResolver(), CONTENT_CATEGORIES);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_DEBTS);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_EVENTS);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE, ROW_EXISTENCE_ONLY);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_PLACES);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS, ROW_EXISTENCE_ONLY);
                 break;
             case TRANSFER_ITEM:
                 cursor = new MultiUriCursorWrapper(mDatabase.getTransfer(ContentUris.parseId(uri), projection));
@@ -252,9 +364,9 @@ public class DataContentProvider extends ContentProvider {
                 cursor.setNotificationUri(getContentResolver(), CONTENT_CATEGORIES);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_DEBTS);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_EVENTS);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_PEOPLE, ROW_EXISTENCE_ONLY);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_PLACES);
-                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_ATTACHMENTS, ROW_EXISTENCE_ONLY);
                 break;
             case TRANSFER_ATTACHMENTS:
                 cursor = new MultiUriCursorWrapper(mDatabase.getTransferAttachments(parseIdAtIndex(uri, 1), projection, selection, selectionArgs, sortOrder));
@@ -407,6 +519,16 @@ public class DataContentProvider extends ContentProvider {
                 cursor.setNotificationUri(getContentResolver(), CONTENT_RECURRENT_TRANSFERS);
                 cursor.setNotificationUri(getContentResolver(), CONTENT_PLACES);
                 break;
+            case RECURRENCE_OCCURRENCE_LIST:
+                // the selection is built from the query parameters of the uri, so the date
+                // index of the occurrences is always used for the range
+                cursor = new MultiUriCursorWrapper(mDatabase.getRecurrenceOccurrences(projection,
+                        getDateParameter(uri, PARAMETER_OCCURRENCE_START_DATE),
+                        getDateParameter(uri, PARAMETER_OCCURRENCE_END_DATE), sortOrder));
+                cursor.setNotificationUri(getContentResolver(), CONTENT_WALLETS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_RECURRENT_TRANSACTIONS);
+                cursor.setNotificationUri(getContentResolver(), CONTENT_RECURRENT_TRANSFERS);
+                break;
             case TRANSACTION_MODEL_LIST:
                 cursor = new MultiUriCursorWrapper(mDatabase.getTransactionModels(projection, selection, selectionArgs, sortOrder));
                 cursor.setNotificationUri(getContentResolver(), CONTENT_WALLETS);
@@ -478,6 +600,12 @@ public class DataContentProvider extends ContentProvider {
                 cursor.setNotificationUri(getContentResolver(), uri);
                 break;
         }
+        if (cursor != null) {
+            String notifyWallet = uri.getQueryParameter(PARAMETER_NOTIFY_WALLET);
+            if (notifyWallet != null) {
+                cursor.setWalletFilter(Long.parseLong(notifyWallet));
+            }
+        }
         return cursor;
     }
 
@@ -493,10 +621,16 @@ public class DataContentProvider extends ContentProvider {
                 return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.wallet";
             case WALLET_ITEM:
                 return "vnd.android.cursor.item/vnd.com.oriondev.moneywallet.storage.wallet";
+            case WALLET_BALANCE_LIST:
+                return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.wallet.balance";
+            case WALLET_BALANCE_ITEM:
+                return "vnd.android.cursor.item/vnd.com.oriondev.moneywallet.storage.wallet.balance";
             case TRANSACTION_LIST:
                 return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.transaction";
             case TRANSACTION_ITEM:
                 return "vnd.android.cursor.item/vnd.com.oriondev.moneywallet.storage.transaction";
+            case TRANSACTION_EXPORT_LIST:
+                return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.transaction";
             case TRANSACTION_ATTACHMENTS:
                 return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.attachments";
             case TRANSACTION_PEOPLE:
@@ -551,6 +685,8 @@ public class DataContentProvider extends ContentProvider {
                 return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.recurrence.transfer";
             case RECURRENT_TRANSFER_ITEM:
                 return "vnd.android.cursor.item/vnd.com.oriondev.moneywallet.storage.recurrence.transfer";
+            case RECURRENCE_OCCURRENCE_LIST:
+                return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.recurrence.occurrence";
             case TRANSACTION_MODEL_LIST:
                 return "vnd.android.cursor.dir/vnd.com.oriondev.moneywallet.storage.model.transaction";
             case TRANSACTION_MODEL_ITEM:
@@ -582,6 +718,20 @@ public class DataContentProvider extends ContentProvider {
     @Nullable
     @Override
     public Uri insert(@NonNull Uri uri, ContentValues contentValues) {
+        QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.INSERT, uri);
+        Uri objectUri = null;
+        try {
+            objectUri = performInsert(uri, contentValues);
+            refreshBudgetProgressIfNeeded();
+        } finally {
+            if (operation != null) {
+                operation.end(objectUri != null ? 1 : 0);
+            }
+        }
+        return objectUri;
+    }
+
+    private Uri performInsert(Uri uri, ContentValues contentValues) {
         String currencyIso = null;
         long objectId = 0L;
         switch (mUriMatcher.match(uri)) {
@@ -635,29 +785,90 @@ public class DataContentProvider extends ContentProvider {
                 break;
         }
         if (currencyIso != null || objectId > 0L) {
-            PreferenceManager.setLastTimeDataIsChanged(System.currentTimeMillis());
-            ContentResolver contentResolver = getContentResolver();
             if (currencyIso != null) {
                 Uri objectUri = Uri.withAppendedPath(uri, currencyIso);
-                if (contentResolver != null) {
-                    contentResolver.notifyChange(objectUri, null);
-                }
+                mChangeNotifier.notifyChange(objectUri);
                 return objectUri;
             } else if (objectId > 0L) {
                 Uri objectUri = ContentUris.withAppendedId(uri, objectId);
-                if (contentResolver != null) {
-                    contentResolver.notifyChange(objectUri, null);
-                }
+                Set<Long> walletIds = getAffectedWalletIds(uri, objectId);
+                mChangeNotifier.notifyChange(ChangeNotification.build(objectUri, walletIds, null));
                 return objectUri;
             }
         }
         return null;
     }
 
+    /**
+     * The rows are inserted inside a single sqlite transaction and a single write session, like
+     * the operations of a batch.
+     */
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
+        SQLiteDatabase database = mDatabase.getWritableDatabase();
+        mChangeNotifier.beginSession();
+        database.beginTransaction();
+        mDatabase.beginBatch();
+        try {
+            int count = 0;
+            for (ContentValues contentValues : values) {
+                if (insert(uri, contentValues) != null) {
+                    count++;
+                }
+            }
+            mDatabase.refreshBudgetProgress(database);
+            database.setTransactionSuccessful();
+            return count;
+        } finally {
+            mDatabase.endBatch();
+            database.endTransaction();
+            mChangeNotifier.endSession();
+        }
+    }
+
+    /**
+     * The operations of a batch are executed inside a single sqlite transaction and a single
+     * write session: they are committed together and the observers are notified only once.
+     */
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations) throws OperationApplicationException {
+        SQLiteDatabase database = mDatabase.getWritableDatabase();
+        mChangeNotifier.beginSession();
+        database.beginTransaction();
+        mDatabase.beginBatch();
+        try {
+            ContentProviderResult[] results = super.applyBatch(operations);
+            mDatabase.refreshBudgetProgress(database);
+            database.setTransactionSuccessful();
+            return results;
+        } finally {
+            mDatabase.endBatch();
+            database.endTransaction();
+            mChangeNotifier.endSession();
+        }
+    }
+
     @Override
     public int delete(@NonNull Uri uri, String selection, String[] selectionArgs) {
+        QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.DELETE, uri);
+        int result = 0;
+        try {
+            result = performDelete(uri);
+            refreshBudgetProgressIfNeeded();
+        } finally {
+            if (operation != null) {
+                operation.end(result);
+            }
+        }
+        return result;
+    }
+
+    private int performDelete(Uri uri) {
         int result = 0;
         Uri notifyUri = null;
+        // the affected wallets must be read before the rows are removed
+        Set<Long> walletIds = getAffectedWalletIds(uri);
         switch (mUriMatcher.match(uri)) {
             case CURRENCY_ITEM:
                 notifyUri = DataContentProvider.CONTENT_CURRENCIES;
@@ -724,17 +935,31 @@ public class DataContentProvider extends ContentProvider {
                 result = mDatabase.deleteAttachment(ContentUris.parseId(uri));
                 break;
         }
-        ContentResolver contentResolver = getContentResolver();
-        if (contentResolver != null && notifyUri != null) {
-            PreferenceManager.setLastTimeDataIsChanged(System.currentTimeMillis());
-            contentResolver.notifyChange(notifyUri, null);
+        if (notifyUri != null) {
+            mChangeNotifier.notifyChange(ChangeNotification.build(notifyUri, walletIds, null));
         }
         return result;
     }
 
     @Override
     public int update(@NonNull Uri uri, ContentValues values, String selection, String[] selectionArgs) {
+        QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.UPDATE, uri);
         int result = 0;
+        try {
+            result = performUpdate(uri, values);
+            refreshBudgetProgressIfNeeded();
+        } finally {
+            if (operation != null) {
+                operation.end(result);
+            }
+        }
+        return result;
+    }
+
+    private int performUpdate(Uri uri, ContentValues values) {
+        int result = 0;
+        // the wallet of the object may be changed: both the old and the new one are affected
+        Set<Long> walletIds = getAffectedWalletIds(uri);
         switch (mUriMatcher.match(uri)) {
             case CURRENCY_ITEM:
                 result = mDatabase.updateCurrency(uri.getLastPathSegment(), values);
@@ -783,15 +1008,56 @@ public class DataContentProvider extends ContentProvider {
                 break;
         }
         if (result > 0) {
-            PreferenceManager.setLastTimeDataIsChanged(System.currentTimeMillis());
-            ContentResolver contentResolver = getContentResolver();
-            if (contentResolver != null) {
-                contentResolver.notifyChange(uri, null);
+            Set<Long> newWalletIds = getAffectedWalletIds(uri);
+            if (walletIds != null && newWalletIds != null) {
+                walletIds.addAll(newWalletIds);
             }
+            mChangeNotifier.notifyChange(ChangeNotification.build(uri, walletIds, values.keySet()));
         }
         return result;
     }
 
+    /**
+     * Compute the wallets that contain the object identified by the given item uri. They are
+     * attached to the change notification to let the cursors restricted to a different wallet
+     * ignore it.
+     * @param uri of the item.
+     * @return the ids of the wallets or null if the change may affect any wallet.
+     */
+    private Set<Long> getAffectedWalletIds(Uri uri) {
+        switch (mUriMatcher.match(uri)) {
+            case WALLET_ITEM:
+            case TRANSACTION_ITEM:
+            case TRANSFER_ITEM:
+                return getAffectedWalletIds(uri, ContentUris.parseId(uri));
+            default:
+                return null;
+        }
+    }
+
+    private Set<Long> getAffectedWalletIds(Uri uri, long objectId) {
+        Set<Long> walletIds;
+        switch (mUriMatcher.match(uri)) {
+            case WALLET_LIST:
+            case WALLET_ITEM:
+                walletIds = new HashSet<>();
+                walletIds.add(objectId);
+                return walletIds;
+            case TRANSACTION_LIST:
+            case TRANSACTION_ITEM:
+                walletIds = mDatabase.getTransactionWalletIds(objectId);
+                break;
+            case TRANSFER_LIST:
+            case TRANSFER_ITEM:
+                walletIds = mDatabase.getTransferWalletIds(objectId);
+                break;
+            default:
+                return null;
+        }
+        // an unknown object must not restrict the notification
+        return walletIds.isEmpty() ? null : walletIds;
+    }
+
     private ContentResolver getContentResolver() {
         Context context = getContext();
         return context != null ? context.getContentResolver() : null;
@@ -809,6 +1075,69 @@ public class DataContentProvider extends ContentProvider {
         return Long.parseLong(segments.get(fixedIndex - 1));
     }
 
+    /**
+     * Parse the date of a balance uri. When only the day is specified, all the transactions
+     * of that day are included in the balance.
+     * @param uri to parse from.
+     * @return the date in sql format (yyyy-MM-dd HH:mm:ss).
+     */
+    private String getBalanceDate(Uri uri) {
+        String parameter = uri.getQueryParameter(PARAMETER_BALANCE_DATE);
+        if (parameter == null) {
+            return DateUtils.getSQLDateTimeString(new Date());
+        }
+        Date date;
+        try {
+            date = DateUtils.getDateFromSQLDateTimeString(parameter);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid balance date: " + parameter);
+        }
+        if (parameter.length() == 10) {
+            date = DateUtils.setTime(date, 23, 59, 59, 999);
+        }
+        return DateUtils.getSQLDateTimeString(date);
+    }
+
+    private long[] getExportWallets(Uri uri) {
+        String parameter = uri.getQueryParameter(PARAMETER_EXPORT_WALLETS);
+        if (parameter == null || parameter.isEmpty()) {
+            throw new IllegalArgumentException("Missing export wallets");
+        }
+        String[] encodedIds = parameter.split(",");
+        long[] ids = new long[encodedIds.length];
+        try {
+            for (int i = 0; i < encodedIds.length; i++) {
+                ids[i] = Long.parseLong(encodedIds[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid export wallets: " + parameter);
+        }
+        return ids;
+    }
+
+    /**
+     * Parse a date parameter of the uri.
+     * @param uri to parse from.
+     * @param parameter name of the query parameter.
+     * @return the date in sql format (yyyy-MM-dd) or null if the parameter is missing.
+     */
+    private String getDateParameter(Uri uri, String parameter) {
+        String value = uri.getQueryParameter(parameter);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return DateUtils.getSQLDateString(DateUtils.getDateFromSQLDateString(value));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    private String getExportEndDate(Uri uri) {
+        String endDate = getDateParameter(uri, PARAMETER_EXPORT_END_DATE);
+        return endDate != null ? endDate : DateUtils.getSQLDateString(new Date());
+    }
+
     private void initializeDatabase(Context context) {
         if (mDatabase != null) {
             mDatabase.close();
@@ -817,6 +1146,145 @@ public class DataContentProvider extends ContentProvider {
         mDatabase.setDeletedObjectCacheEnabled(IS_REMOTE_SYNC_ENABLED);
     }
 
+    /**
+     * The triggers invalidate the budget progress affected by each write: a single write
+     * computes it again immediately, while the writes inside a transaction (a batch or a write
+     * session) leave it to the end of the transaction, right before the commit.
+     */
+    private void refreshBudgetProgressIfNeeded() {
+        SQLiteDatabase database = mDatabase.getWritableDatabase();
+        if (!database.inTransaction()) {
+            mDatabase.refreshBudgetProgress(database);
+        }
+    }
+
+    /**
+     * This method should be called once a day, when the application starts and when the device
+     * boots to move inside the stored totals all the transactions that were in the future and
+     * now are in the past. A single notification is sent for the whole provider because all
+     * the time dependent data may be changed.
+     */
+    @SuppressLint("Recycle")
+    public static void refreshTimeDependentData(Context context) {
+        ContentResolver contentResolver = context.getContentResolver();
+        ContentProviderClient client = contentResolver.acquireContentProviderClient(AUTHORITY);
+        if (client != null) {
+            ContentProvider contentProvider = client.getLocalContentProvider();
+            if (contentProvider instanceof DataContentProvider) {
+                SQLDatabase database = ((DataContentProvider) contentProvider).mDatabase;
+                database.promoteFutureTransactions(database.getWritableDatabase());
+                notifyAllObservers(contentResolver);
+            }
+            client.close();
+        }
+    }
+
+    /**
+     * The daily task may be delayed or skipped by the system and a transaction may be dated
+     * later in the same day: the queries check at most once per minute if some transactions
+     * are now in the past. The promotion is a write, so it runs in the maintenance lane and
+     * the observers are notified only when something has been promoted.
+     */
+    private void promoteFutureTransactionsIfNeeded() {
+        long now = System.currentTimeMillis();
+        long nextPromotion = mNextFuturePromotion.get();
+        if (now < nextPromotion || !mNextFuturePromotion.compareAndSet(nextPromotion, now + FUTURE_PROMOTION_INTERVAL)) {
+            return;
+        }
+        final SQLDatabase database = mDatabase;
+        final ContentResolver contentResolver = getContentResolver();
+        QueryExecutor.getInstance().getExecutor(QueryExecutor.Lane.MAINTENANCE).execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    if (database.promoteFutureTransactions(database.getWritableDatabase()) > 0) {
+                        notifyAllObservers(contentResolver);
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+
+        });
+    }
+
+    /**
+     * Notify all the observers of the provider. It should be called when something that is
+     * not stored inside the database but is used to display the data (like the cached
+     * currencies) is changed.
+     */
+    public static void notifyAllObservers(Context context) {
+        notifyAllObservers(context.getContentResolver());
+    }
+
+    private static void notifyAllObservers(ContentResolver contentResolver) {
+        // the running queries may have read the data before the change
+        QueryExecutor.getInstance().onDataChanged();
+        contentResolver.notifyChange(Uri.parse("content://" + AUTHORITY), null);
+    }
+
+    /**
+     * Open a write session inside a sqlite transaction: all the writes executed by the current
+     * thread until {@link #endWriteTransaction(Context, boolean)} are committed or rolled back
+     * together. It should be used by the components that write a large number of rows, like the
+     * importers, that must not leave partial data when they fail.
+     * The transaction must be always closed inside a finally block by the same thread.
+     */
+    public static void beginWriteTransaction(Context context) {
+        DataContentProvider contentProvider = getLocalContentProvider(context);
+        if (contentProvider != null) {
+            contentProvider.mChangeNotifier.beginSession();
+            contentProvider.mDatabase.getWritableDatabase().beginTransaction();
+        }
+    }
+
+    /**
+     * @param successful true to commit the transaction, false to roll it back.
+     */
+    public static void endWriteTransaction(Context context, boolean successful) {
+        DataContentProvider contentProvider = getLocalContentProvider(context);
+        if (contentProvider != null) {
+            SQLiteDatabase database = contentProvider.mDatabase.getWritableDatabase();
+            try {
+                if (successful) {
+                    contentProvider.mDatabase.refreshBudgetProgress(database);
+                    database.setTransactionSuccessful();
+                }
+                database.endTransaction();
+            } finally {
+                contentProvider.mChangeNotifier.endSession();
+            }
+        }
+    }
+
+    /**
+     * @return an array of length 2 that contains the number of change notifications sent by the
+     * provider and the number of the ones that have been merged with another notification.
+     */
+    public static long[] getNotificationCounters(Context context) {
+        DataContentProvider contentProvider = getLocalContentProvider(context);
+        if (contentProvider != null) {
+            ChangeNotifier changeNotifier = contentProvider.mChangeNotifier;
+            return new long[] {changeNotifier.getEmittedCount(), changeNotifier.getSuppressedCount()};
+        }
+        return new long[] {0L, 0L};
+    }
+
+    @SuppressLint("Recycle")
+    private static DataContentProvider getLocalContentProvider(Context context) {
+        DataContentProvider dataContentProvider = null;
+        ContentProviderClient client = context.getContentResolver().acquireContentProviderClient(AUTHORITY);
+        if (client != null) {
+            ContentProvider contentProvider = client.getLocalContentProvider();
+            if (contentProvider instanceof DataContentProvider) {
+                dataContentProvider = (DataContentProvider) contentProvider;
+            }
+            client.close();
+        }
+        return dataContentProvider;
+    }
+
     @SuppressLint("Recycle")
     public static void notifyDatabaseIsChanged(Context context) {
         ContentResolver contentResolver = context.getContentResolver();
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.database.AbstractCursor;
+import android.database.Cursor;
+
+import java.util.Arrays;
+
+/**
+ * This cursor contains the transactions to export but it never loads all of them: the rows
+ * are read from the database in chunks that are small enough to fit inside a single window,
+ * and the next chunk is read only when the cursor is moved after the last row of the current
+ * one. The cursor can only be moved forward across the chunks.
+ */
+/*package-local*/ class ExportCursor extends AbstractCursor {
+
+    /*package-local*/ static final int CHUNK_SIZE = 1000;
+
+    private final SQLDatabase mDatabase;
+    private final String[] mProjection;
+    private final long[] mWallets;
+    private final String mStartDate;
+    private final String mEndDate;
+
+    private Cursor mChunk;
+    private int mChunkStart;
+    private int mCount = -1;
+
+    /*package-local*/ ExportCursor(SQLDatabase database, String[] projection, long[] wallets, String startDate, String endDate) {
+        mDatabase = database;
+        mProjection = getChunkProjection(projection);
+        mWallets = wallets;
+        mStartDate = startDate;
+        mEndDate = endDate;
+        mChunk = mDatabase.getExportTransactions(mProjection, mWallets, mStartDate, mEndDate, null, 0L, CHUNK_SIZE);
+        mChunkStart = 0;
+    }
+
+    /**
+     * The date and the id of the last row of each chunk are the starting point of the next
+     * one, so they are always part of the projection.
+     */
+    private static String[] getChunkProjection(String[] projection) {
+        if (projection == null) {
+            return null;
+        }
+        String[] chunkProjection = Arrays.copyOf(projection, projection.length + 2);
+        int length = projection.length;
+        if (!Arrays.asList(projection).contains(Contract.Transaction.DATE)) {
+            chunkProjection[length++] = Contract.Transaction.DATE;
+        }
+        if (!Arrays.asList(projection).contains(Contract.Transaction.ID)) {
+            chunkProjection[length++] = Contract.Transaction.ID;
+        }
+        return Arrays.copyOf(chunkProjection, length);
+    }
+
+    @Override
+    public int getCount() {
+        if (mCount < 0) {
+            if (mChunk.getCount() < CHUNK_SIZE) {
+                // the first chunk already contains all the rows
+                mCount = mChunk.getCount();
+            } else {
+                mCount = mDatabase.getExportTransactionCount(mWallets, mStartDate, mEndDate);
+            }
+        }
+        return mCount;
+    }
+
+    @Override
+    public boolean onMove(int oldPosition, int newPosition) {
+        if (newPosition < mChunkStart) {
+            return false;
+        }
+        while (newPosition >= mChunkStart + mChunk.getCount()) {
+            if (mChunk.getCount() < CHUNK_SIZE || !moveToNextChunk()) {
+                // the rows have been removed after the count
+                return false;
+            }
+        }
+        return mChunk.moveToPosition(newPosition - mChunkStart);
+    }
+
+    private boolean moveToNextChunk() {
+        if (!mChunk.moveToLast()) {
+            return false;
+        }
+        String afterDate = mChunk.getString(mChunk.getColumnIndexOrThrow(Contract.Transaction.DATE));
+        long afterId = mChunk.getLong(mChunk.getColumnIndexOrThrow(Contract.Transaction.ID));
+        int chunkStart = mChunkStart + mChunk.getCount();
+        mChunk.close();
+        mChunk = mDatabase.getExportTransactions(mProjection, mWallets, mStartDate, mEndDate, afterDate, afterId, CHUNK_SIZE);
+        mChunkStart = chunkStart;
+        return mChunk.getCount() > 0;
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return mChunk.getColumnNames();
+    }
+
+    @Override
+    public String getString(int column) {
+        return mChunk.getString(column);
+    }
+
+    @Override
+    public short getShort(int column) {
+        return mChunk.getShort(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return mChunk.getInt(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        return mChunk.getLong(column);
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return mChunk.getFloat(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        return mChunk.getDouble(column);
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return mChunk.getBlob(column);
+    }
+
+    @Override
+    public int getType(int column) {
+        return mChunk.getType(column);
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return mChunk.isNull(column);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        mChunk.close();
+    }
+}
@@ -75,6 +75,7 @@ public class LegacyEditionImporter {
         mDatabaseImporter.importAttachments(contentResolver);
         mDatabaseImporter.importTransactionAttachments(contentResolver);
         mDatabaseImporter.importTransferAttachments(contentResolver);
+        SyncContentProvider.notifyImportFinished(mContext);
         // close the database file in order to delete the file on disk
         mDatabaseImporter.close();
         mContext.deleteDatabase(DATABASE_NAME);
@@ -26,19 +26,33 @@ import android.database.Cursor;
 import android.database.CursorWrapper;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 
 import java.lang.ref.WeakReference;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 
 /**
  * This class works as wrapper on top of {@link Cursor}.
  * This allow to register multiple notification uri instead of a single one.
+ * Each notification uri may be restricted to a set of columns and the whole cursor may be
+ * restricted to a wallet: changes that do not intersect the query are ignored and the
+ * remaining ones are coalesced inside a short window before being dispatched.
  *
  * Credits to: https://gist.github.com/chalup/4201307da02b9cfe4f40
  */
 public class MultiUriCursorWrapper extends CursorWrapper {
 
+    /**
+     * Time window used to coalesce a burst of changes into a single dispatch.
+     */
+    private static final long DISPATCH_DELAY_MILLIS = 100L;
+
+    private static final Handler DISPATCH_HANDLER = new Handler(Looper.getMainLooper());
+
     public MultiUriCursorWrapper(Cursor cursor) {
         super(cursor);
     }
@@ -47,6 +61,8 @@ public class MultiUriCursorWrapper extends CursorWrapper {
     protected ContentResolver mContentResolver;
 
     private final LinkedHashSet<Uri> mNotifyUris = new LinkedHashSet<>();
+    private final Map<Uri, String[]> mColumnDependencies = new HashMap<>();
+    private Long mWalletFilter;
 
     private final Object mSelfObserverLock = new Object();
     private ContentObserver mSelfObserver;
@@ -56,6 +72,17 @@ public class MultiUriCursorWrapper extends CursorWrapper {
 
     private final ContentObservable mContentObservable = new ContentObservable();
 
+    private boolean mDispatchPending;
+    private Uri mPendingChangeUri;
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+
+        @Override
+        public void run() {
+            dispatchPendingChange();
+        }
+    };
+
     @Override
     public void deactivate() {
         onDeactivateOrClose();
@@ -96,6 +123,10 @@ public class MultiUriCursorWrapper extends CursorWrapper {
         mClosed = true;
         mContentObservable.unregisterAll();
         onDeactivateOrClose();
+        synchronized (mSelfObserverLock) {
+            DISPATCH_HANDLER.removeCallbacks(mDispatchRunnable);
+            mDispatchPending = false;
+        }
     }
 
     @SuppressWarnings("deprecation")
@@ -121,25 +152,98 @@ public class MultiUriCursorWrapper extends CursorWrapper {
         }
     }
 
-    @SuppressWarnings("deprecation")
     private void onChange(boolean selfChange, Uri uri) {
         synchronized (mSelfObserverLock) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                mContentObservable.dispatchChange(selfChange, uri);
-            } else {
-                mContentObservable.dispatchChange(selfChange);
-            }
-
             if (selfChange) {
+                dispatchChange(true, uri);
                 for (Uri notifyUri : mNotifyUris) {
                     mContentResolver.notifyChange(notifyUri, mSelfObserver);
                 }
+            } else if (isChangeRelevant(uri)) {
+                mChangedByUris.add(uri);
+                mPendingChangeUri = uri;
+                if (!mDispatchPending) {
+                    mDispatchPending = true;
+                    DISPATCH_HANDLER.postDelayed(mDispatchRunnable, DISPATCH_DELAY_MILLIS);
+                }
+            } else {
+                QueryProfiler.onNotificationFiltered();
             }
+        }
+    }
 
-            if (!selfChange) {
-                mChangedByUris.add(uri);
+    private void dispatchPendingChange() {
+        synchronized (mSelfObserverLock) {
+            if (mDispatchPending) {
+                mDispatchPending = false;
+                QueryProfiler.onNotificationDispatched();
+                dispatchChange(false, mPendingChangeUri);
+                mPendingChangeUri = null;
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void dispatchChange(boolean selfChange, Uri uri) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mContentObservable.dispatchChange(selfChange, uri);
+        } else {
+            mContentObservable.dispatchChange(selfChange);
+        }
+    }
+
+    /**
+     * Check if the changed uri intersects the query of this cursor. A change is ignored
+     * only if it carries the affected wallets and none of them is the filtered one, or if
+     * it carries the modified columns and none of the matching notification uri depends
+     * on them.
+     */
+    private boolean isChangeRelevant(Uri uri) {
+        if (uri == null) {
+            return true;
+        }
+        if (mWalletFilter != null) {
+            long[] walletIds = ChangeNotification.getWallets(uri);
+            if (walletIds != null && !contains(walletIds, mWalletFilter)) {
+                return false;
+            }
+        }
+        String[] changedColumns = ChangeNotification.getColumns(uri);
+        if (changedColumns == null) {
+            return true;
+        }
+        boolean matched = false;
+        for (Uri notifyUri : mNotifyUris) {
+            if (ChangeNotification.isDescendant(notifyUri, uri)) {
+                matched = true;
+                String[] dependencies = mColumnDependencies.get(notifyUri);
+                if (dependencies == null || intersects(dependencies, changedColumns)) {
+                    return true;
+                }
+            }
+        }
+        // an ancestor of every notification uri has been notified
+        return !matched;
+    }
+
+    private static boolean contains(long[] values, long value) {
+        for (long item : values) {
+            if (item == value) {
+                return true;
             }
         }
+        return false;
+    }
+
+    private static boolean intersects(String[] dependencies, String[] columns) {
+        for (String dependency : dependencies) {
+            for (String column : columns) {
+                if (dependency.equals(column)) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     @Override
@@ -155,6 +259,28 @@ public class MultiUriCursorWrapper extends CursorWrapper {
         }
     }
 
+    /**
+     * Register a notification uri that only invalidates this cursor when an inserted or
+     * deleted row is notified or when one of the given columns is updated. An empty set
+     * of columns means that the cursor only depends on the existence of the rows.
+     */
+    public void setNotificationUri(ContentResolver contentResolver, Uri notifyUri, String... columns) {
+        synchronized (mSelfObserverLock) {
+            mColumnDependencies.put(notifyUri, columns);
+        }
+        setNotificationUri(contentResolver, notifyUri);
+    }
+
+    /**
+     * Restrict this cursor to a single wallet: changes that only affect other wallets
+     * will not be dispatched to the registered observers.
+     */
+    public void setWalletFilter(long walletId) {
+        synchronized (mSelfObserverLock) {
+            mWalletFilter = walletId;
+        }
+    }
+
     @Override
     public Uri getNotificationUri() {
         synchronized (mSelfObserverLock) {
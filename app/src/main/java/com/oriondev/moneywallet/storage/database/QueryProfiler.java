@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWindow;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.text.TextUtils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class collects the statistics of the operations executed by the content providers. Each
+ * operation is identified by its type and by the path of the uri where the ids are replaced
+ * by '#'. For each operation it records a latency histogram with fixed logarithmic buckets,
+ * the number of rows returned or affected and the number of cursor window fills. The queries
+ * slower than a threshold are stored with their sql and the query plan.
+ * When the profiler is disabled, each operation costs a single volatile read.
+ */
+public class QueryProfiler {
+
+    public static final String QUERY = "query";
+    public static final String INSERT = "insert";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private static final long SLOW_QUERY_THRESHOLD_MICROS = 100 * 1000L;
+    private static final int SLOW_QUERY_LOG_SIZE = 32;
+
+    /**
+     * Each power of two is split in this number of linear sub buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKETS * 36;
+
+    private static volatile boolean sEnabled;
+
+    private static final ConcurrentHashMap<String, OperationStats> sOperationStats = new ConcurrentHashMap<>();
+    private static final ArrayDeque<SlowQuery> sSlowQueries = new ArrayDeque<>();
+    private static final ThreadLocal<Operation> sCurrentOperation = new ThreadLocal<>();
+
+    private static final AtomicLong sNotificationDispatches = new AtomicLong();
+    private static final AtomicLong sNotificationFiltered = new AtomicLong();
+
+    public static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Remove all the collected statistics.
+     */
+    public static void reset() {
+        sOperationStats.clear();
+        synchronized (sSlowQueries) {
+            sSlowQueries.clear();
+        }
+        sNotificationDispatches.set(0L);
+        sNotificationFiltered.set(0L);
+    }
+
+    /**
+     * Start to profile an operation executed by the current thread.
+     * @param type of the operation.
+     * @param uri requested to the provider.
+     * @return the operation to end or null if the profiler is disabled.
+     */
+    /*package-local*/ static Operation begin(String type, Uri uri) {
+        if (!sEnabled) {
+            return null;
+        }
+        String key = type + " " + getUriPattern(uri);
+        OperationStats stats = sOperationStats.get(key);
+        if (stats == null) {
+            stats = new OperationStats(key);
+            OperationStats current = sOperationStats.putIfAbsent(key, stats);
+            if (current != null) {
+                stats = current;
+            }
+        }
+        Operation operation = new Operation(stats, uri);
+        sCurrentOperation.set(operation);
+        return operation;
+    }
+
+    /*package-local*/ static void onNotificationDispatched() {
+        if (sEnabled) {
+            sNotificationDispatches.incrementAndGet();
+        }
+    }
+
+    /*package-local*/ static void onNotificationFiltered() {
+        if (sEnabled) {
+            sNotificationFiltered.incrementAndGet();
+        }
+    }
+
+    public static long getNotificationDispatchCount() {
+        return sNotificationDispatches.get();
+    }
+
+    public static long getNotificationFilteredCount() {
+        return sNotificationFiltered.get();
+    }
+
+    private static String getUriPattern(Uri uri) {
+        List<String> segments = uri.getPathSegments();
+        StringBuilder builder = new StringBuilder(uri.getAuthority() != null && uri.getAuthority().endsWith(".sync") ? "sync:" : "");
+        for (int i = 0; i < segments.size(); i++) {
+            if (i > 0) {
+                builder.append('/');
+            }
+            String segment = segments.get(i);
+            builder.append(TextUtils.isDigitsOnly(segment) ? "#" : segment);
+        }
+        return builder.toString();
+    }
+
+    private static int getBucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(0L, micros);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        int index = SUB_BUCKETS * (exponent - SUB_BUCKET_BITS + 1) + subBucket;
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    private static long getBucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @return the details of the query plan, one step per line.
+     */
+    /*package-local*/ static String explainQueryPlan(SQLiteDatabase database, String sql) {
+        if (TextUtils.isEmpty(sql)) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        try {
+            // the bind arguments are not available: the unbound parameters are null but
+            // they do not change the plan chosen by sqlite
+            Cursor cursor = database.rawQueryWithFactory(null, "EXPLAIN QUERY PLAN " + sql, null, null);
+            try {
+                int detailIndex = cursor.getColumnIndex("detail");
+                while (cursor.moveToNext()) {
+                    if (builder.length() > 0) {
+                        builder.append('\n');
+                    }
+                    builder.append(cursor.getString(detailIndex));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (RuntimeException e) {
+            builder.append("unavailable: ").append(e.getMessage());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return a snapshot of the collected statistics sorted by total time spent.
+     */
+    public static List<OperationSnapshot> getOperationSnapshots() {
+        List<OperationSnapshot> snapshots = new ArrayList<>();
+        for (OperationStats stats : sOperationStats.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        Collections.sort(snapshots, new Comparator<OperationSnapshot>() {
+
+            @Override
+            public int compare(OperationSnapshot o1, OperationSnapshot o2) {
+                return Long.compare(o2.getTotalMicros(), o1.getTotalMicros());
+            }
+
+        });
+        return snapshots;
+    }
+
+    /**
+     * @return the slow queries from the most recent one.
+     */
+    public static List<SlowQuery> getSlowQueries() {
+        synchronized (sSlowQueries) {
+            List<SlowQuery> slowQueries = new ArrayList<>(sSlowQueries);
+            Collections.reverse(slowQueries);
+            return slowQueries;
+        }
+    }
+
+    /**
+     * Build a json dump of all the collected data that can be exported to be analyzed.
+     */
+    public static JSONObject toJson(Context context) throws JSONException {
+        JSONObject root = new JSONObject();
+        root.put("enabled", sEnabled);
+        root.put("timestamp", System.currentTimeMillis());
+        JSONArray operations = new JSONArray();
+        for (OperationSnapshot snapshot : getOperationSnapshots()) {
+            JSONObject operation = new JSONObject();
+            operation.put("operation", snapshot.getKey());
+            operation.put("count", snapshot.getCount());
+            operation.put("total_us", snapshot.getTotalMicros());
+            operation.put("max_us", snapshot.getMaxMicros());
+            operation.put("p50_us", snapshot.getPercentileMicros(0.50));
+            operation.put("p95_us", snapshot.getPercentileMicros(0.95));
+            operation.put("p99_us", snapshot.getPercentileMicros(0.99));
+            operation.put("rows", snapshot.getRows());
+            operation.put("window_fills", snapshot.getWindowFills());
+            JSONArray histogram = new JSONArray();
+            long[] buckets = snapshot.mBuckets;
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > 0) {
+                    JSONObject bucket = new JSONObject();
+                    bucket.put("from_us", getBucketLowerBound(i));
+                    bucket.put("to_us", getBucketLowerBound(i + 1));
+                    bucket.put("count", buckets[i]);
+                    histogram.put(bucket);
+                }
+            }
+            operation.put("histogram", histogram);
+            operations.put(operation);
+        }
+        root.put("operations", operations);
+        JSONArray slowQueries = new JSONArray();
+        for (SlowQuery slowQuery : getSlowQueries()) {
+            JSONObject item = new JSONObject();
+            item.put("timestamp", slowQuery.getTimestamp());
+            item.put("operation", slowQuery.getKey());
+            item.put("uri", slowQuery.getUri());
+            item.put("elapsed_us", slowQuery.getElapsedMicros());
+            item.put("rows", slowQuery.getRows());
+            item.put("sql", slowQuery.getSql());
+            item.put("plan", slowQuery.getQueryPlan());
+            slowQueries.put(item);
+        }
+        root.put("slow_queries", slowQueries);
+        JSONObject notifications = new JSONObject();
+        long[] providerCounters = DataContentProvider.getNotificationCounters(context);
+        notifications.put("emitted", providerCounters[0]);
+        notifications.put("merged", providerCounters[1]);
+        notifications.put("cursor_dispatches", getNotificationDispatchCount());
+        notifications.put("cursor_filtered", getNotificationFilteredCount());
+        root.put("notifications", notifications);
+        return root;
+    }
+
+    /**
+     * Cursor factory used by the {@link SQLDatabase}: when an operation is profiled by the
+     * current thread, the created cursor counts its window fills and the sql is captured.
+     */
+    /*package-local*/ static final SQLiteDatabase.CursorFactory CURSOR_FACTORY = new SQLiteDatabase.CursorFactory() {
+
+        @Override
+        public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver masterQuery, String editTable, SQLiteQuery query) {
+            Operation operation = sEnabled ? sCurrentOperation.get() : null;
+            if (operation == null) {
+                return new SQLiteCursor(masterQuery, editTable, query);
+            }
+            operation.onQueryCreated(query);
+            return new ProfiledCursor(masterQuery, editTable, query, operation.mStats);
+        }
+
+    };
+
+    /**
+     * An operation that is being profiled by the current thread.
+     */
+    /*package-local*/ static class Operation {
+
+        private static final String SQL_PREFIX = "SQLiteQuery: ";
+
+        private final OperationStats mStats;
+        private final Uri mUri;
+        private final long mStartTime;
+        private String mSql;
+
+        private Operation(OperationStats stats, Uri uri) {
+            mStats = stats;
+            mUri = uri;
+            mStartTime = SystemClock.elapsedRealtimeNanos();
+        }
+
+        private void onQueryCreated(SQLiteQuery query) {
+            String sql = query.toString();
+            mSql = sql.startsWith(SQL_PREFIX) ? sql.substring(SQL_PREFIX.length()) : sql;
+        }
+
+        /**
+         * End a write operation.
+         * @param rows affected by the operation.
+         */
+        /*package-local*/ void end(long rows) {
+            sCurrentOperation.remove();
+            mStats.record(getElapsedMicros(), rows);
+        }
+
+        /**
+         * End a query: the cursor window is filled here to measure the real cost of the query.
+         * @param database used to explain the query plan if the query is slow.
+         * @param cursor returned by the query.
+         */
+        /*package-local*/ void endQuery(SQLiteDatabase database, Cursor cursor) {
+            int rows = 0;
+            try {
+                rows = cursor != null ? cursor.getCount() : 0;
+            } finally {
+                sCurrentOperation.remove();
+            }
+            long elapsedMicros = getElapsedMicros();
+            mStats.record(elapsedMicros, rows);
+            if (elapsedMicros >= SLOW_QUERY_THRESHOLD_MICROS) {
+                SlowQuery slowQuery = new SlowQuery(mStats.mKey, mUri.toString(), elapsedMicros,
+                        rows, mSql, explainQueryPlan(database, mSql));
+                synchronized (sSlowQueries) {
+                    if (sSlowQueries.size() == SLOW_QUERY_LOG_SIZE) {
+                        sSlowQueries.removeFirst();
+                    }
+                    sSlowQueries.addLast(slowQuery);
+                }
+            }
+        }
+
+        private long getElapsedMicros() {
+            return (SystemClock.elapsedRealtimeNanos() - mStartTime) / 1000L;
+        }
+
+        /**
+         * @return the sql of the last cursor created by the operation or null.
+         */
+        /*package-local*/ String getSql() {
+            return mSql;
+        }
+    }
+
+    private static class OperationStats {
+
+        private final String mKey;
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mTotalMicros = new AtomicLong();
+        private final AtomicLong mMaxMicros = new AtomicLong();
+        private final AtomicLong mRows = new AtomicLong();
+        private final AtomicLong mWindowFills = new AtomicLong();
+
+        private OperationStats(String key) {
+            mKey = key;
+        }
+
+        private void record(long micros, long rows) {
+            mBuckets.incrementAndGet(getBucketIndex(micros));
+            mCount.incrementAndGet();
+            mTotalMicros.addAndGet(micros);
+            mRows.addAndGet(rows);
+            long maxMicros;
+            do {
+                maxMicros = mMaxMicros.get();
+            } while (micros > maxMicros && !mMaxMicros.compareAndSet(maxMicros, micros));
+        }
+
+        private void onWindowFill() {
+            mWindowFills.incrementAndGet();
+        }
+
+        private OperationSnapshot snapshot() {
+            long[] buckets = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = mBuckets.get(i);
+            }
+            return new OperationSnapshot(mKey, buckets, mCount.get(), mTotalMicros.get(),
+                    mMaxMicros.get(), mRows.get(), mWindowFills.get());
+        }
+    }
+
+    public static class OperationSnapshot {
+
+        private final String mKey;
+        private final long[] mBuckets;
+        private final long mCount;
+        private final long mTotalMicros;
+        private final long mMaxMicros;
+        private final long mRows;
+        private final long mWindowFills;
+
+        private OperationSnapshot(String key, long[] buckets, long count, long totalMicros,
+                                  long maxMicros, long rows, long windowFills) {
+            mKey = key;
+            mBuckets = buckets;
+            mCount = count;
+            mTotalMicros = totalMicros;
+            mMaxMicros = maxMicros;
+            mRows = rows;
+            mWindowFills = windowFills;
+        }
+
+        public String getKey() {
+            return mKey;
+        }
+
+        public long getCount() {
+            return mCount;
+        }
+
+        public long getTotalMicros() {
+            return mTotalMicros;
+        }
+
+        public long getMaxMicros() {
+            return mMaxMicros;
+        }
+
+        public long getRows() {
+            return mRows;
+        }
+
+        public long getWindowFills() {
+            return mWindowFills;
+        }
+
+        /**
+         * @param percentile between 0 and 1.
+         * @return the upper bound of the bucket that contains the percentile.
+         */
+        public long getPercentileMicros(double percentile) {
+            long total = 0L;
+            for (long bucket : mBuckets) {
+                total += bucket;
+            }
+            if (total == 0L) {
+                return 0L;
+            }
+            long threshold = (long) Math.ceil(total * percentile);
+            long cumulative = 0L;
+            for (int i = 0; i < mBuckets.length; i++) {
+                cumulative += mBuckets[i];
+                if (cumulative >= threshold) {
+                    return Math.min(getBucketLowerBound(i + 1), mMaxMicros);
+                }
+            }
+            return mMaxMicros;
+        }
+    }
+
+    public static class SlowQuery {
+
+        private final long mTimestamp;
+        private final String mKey;
+        private final String mUri;
+        private final long mElapsedMicros;
+        private final long mRows;
+        private final String mSql;
+        private final String mQueryPlan;
+
+        private SlowQuery(String key, String uri, long elapsedMicros, long rows, String sql, String queryPlan) {
+            mTimestamp = System.currentTimeMillis();
+            mKey = key;
+            mUri = uri;
+            mElapsedMicros = elapsedMicros;
+            mRows = rows;
+            mSql = sql;
+            mQueryPlan = queryPlan;
+        }
+
+        public long getTimestamp() {
+            return mTimestamp;
+        }
+
+        public String getKey() {
+            return mKey;
+        }
+
+        public String getUri() {
+            return mUri;
+        }
+
+        public long getElapsedMicros() {
+            return mElapsedMicros;
+        }
+
+        public long getRows() {
+            return mRows;
+        }
+
+        public String getSql() {
+            return mSql;
+        }
+
+        public String getQueryPlan() {
+            return mQueryPlan;
+        }
+    }
+
+    /**
+     * Cursor that counts how many times the cursor window is filled: once when the count is
+     * computed for the first time and then each time the position moves outside the window.
+     */
+    private static class ProfiledCursor extends SQLiteCursor {
+
+        private final OperationStats mStats;
+        private boolean mCounted;
+
+        private ProfiledCursor(SQLiteCursorDriver driver, String editTable, SQLiteQuery query, OperationStats stats) {
+            super(driver, editTable, query);
+            mStats = stats;
+        }
+
+        @Override
+        public int getCount() {
+            if (!mCounted) {
+                mCounted = true;
+                mStats.onWindowFill();
+            }
+            return super.getCount();
+        }
+
+        @Override
+        public boolean onMove(int oldPosition, int newPosition) {
+            CursorWindow window = getWindow();
+            if (window == null || newPosition < window.getStartPosition() ||
+                    newPosition >= window.getStartPosition() + window.getNumRows()) {
+                mStats.onWindowFill();
+            }
+            return super.onMove(oldPosition, newPosition);
+        }
+
+        @Override
+        public boolean requery() {
+            mCounted = false;
+            return super.requery();
+        }
+    }
+}
@@ -22,14 +22,17 @@ package com.oriondev.moneywallet.storage.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.os.Build;
+import android.os.CancellationSignal;
 import android.text.TextUtils;
 import android.util.SparseLongArray;
 
 import com.oriondev.moneywallet.model.CurrencyUnit;
+import com.oriondev.moneywallet.storage.cache.RecurrenceRuleCache;
 import com.oriondev.moneywallet.utils.CurrencyManager;
 import com.oriondev.moneywallet.utils.DateUtils;
 import com.oriondev.moneywallet.utils.MoneyFormatter;
@@ -47,11 +50,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -61,15 +67,22 @@ import java.util.UUID;
 /*package-local*/ class SQLDatabase extends SQLiteOpenHelper {
 
     /*package-local*/ static final String DATABASE_NAME = "database.db";
-    private static final int DATABASE_VERSION = 3;
+    private static final int DATABASE_VERSION = 10;
 
     private static final String ENABLE_FOREIGN_KEYS = "PRAGMA foreign_keys=ON";
+    private static final String ENABLE_RECURSIVE_TRIGGERS = "PRAGMA recursive_triggers=ON";
+
+    private static final int OCCURRENCE_COUNT = 12;
+    private static final int OCCURRENCE_MAX_COUNT = 100;
+    private static final int OCCURRENCE_HORIZON_DAYS = 62;
 
     private final Context mContext;
     private boolean mCacheDeletedObjects;
+    private final ThreadLocal<CancellationSignal> mCancellationSignal = new ThreadLocal<>();
+    private final ThreadLocal<Map<String, String>> mRecurrenceUUIDs = new ThreadLocal<>();
 
     /*package-local*/ SQLDatabase(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        super(context, DATABASE_NAME, QueryProfiler.CURSOR_FACTORY, DATABASE_VERSION);
         mContext = context;
         mCacheDeletedObjects = true;
     }
@@ -84,6 +97,20 @@ import java.util.UUID;
         mCacheDeletedObjects = cacheEnabled;
     }
 
+    /**
+     * Attach a cancellation signal to all the queries executed by the current thread until it is
+     * cleared passing null. The content provider uses it to let the loaders abort the stale
+     * queries without changing the signature of every getter.
+     * @param cancellationSignal to attach or null to clear it.
+     */
+    /*package-local*/ void setCancellationSignal(CancellationSignal cancellationSignal) {
+        if (cancellationSignal != null) {
+            mCancellationSignal.set(cancellationSignal);
+        } else {
+            mCancellationSignal.remove();
+        }
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         // create all tables
@@ -110,10 +137,35 @@ import java.util.UUID;
         db.execSQL(Schema.CREATE_TABLE_ATTACHMENT);
         db.execSQL(Schema.CREATE_TABLE_TRANSACTION_ATTACHMENT);
         db.execSQL(Schema.CREATE_TABLE_TRANSFER_ATTACHMENT);
+        db.execSQL(Schema.CREATE_TABLE_CATEGORY_CLOSURE);
+        db.execSQL(Schema.CREATE_CATEGORY_CLOSURE_DESCENDANT_INDEX);
+        db.execSQL(Schema.CREATE_TABLE_BUDGET_PROGRESS);
+        db.execSQL(Schema.CREATE_TRANSACTION_DEBT_INDEX);
+        db.execSQL(Schema.CREATE_TRANSACTION_SAVING_INDEX);
+        db.execSQL(Schema.CREATE_TRANSACTION_FUTURE_INDEX);
+        db.execSQL(Schema.CREATE_TABLE_WALLET_BALANCE);
+        db.execSQL(Schema.CREATE_TRANSACTION_WALLET_DATE_INDEX);
+        db.execSQL(Schema.CREATE_TRANSACTION_DATE_INDEX);
+        db.execSQL(Schema.CREATE_TABLE_RECURRENCE_OCCURRENCE);
+        db.execSQL(Schema.CREATE_RECURRENCE_OCCURRENCE_DATE_INDEX);
         // create all triggers to ensure data consistency
-        // TODO [low] create triggers
+        createTriggers(db);
         // insert default items
         addSystemCategories(db);
+        rebuildCategoryClosure(db);
+    }
+
+    /**
+     * Start a batch of writes executed by the current thread inside a single sqlite transaction:
+     * until {@link #endBatch()} is called, the data that cannot be changed by other writers
+     * during the transaction (like the uuid of the recurrences) is cached.
+     */
+    /*package-local*/ void beginBatch() {
+        mRecurrenceUUIDs.set(new HashMap<String, String>());
+    }
+
+    /*package-local*/ void endBatch() {
+        mRecurrenceUUIDs.remove();
     }
 
     @Override
@@ -124,6 +176,9 @@ import java.util.UUID;
         } else {
             db.execSQL(ENABLE_FOREIGN_KEYS);
         }
+        // rows replaced by the sync provider must fire the delete triggers too, otherwise
+        // the incremental data derived from the old row is never removed
+        db.execSQL(ENABLE_RECURSIVE_TRIGGERS);
     }
 
     @Override
@@ -146,6 +201,94 @@ import java.util.UUID;
             db.execSQL(Schema.CREATE_WALLET_INDEX_COLUMN);
             db.execSQL(Schema.CREATE_CATEGORY_INDEX_COLUMN);
         }
+        if (oldVersion < 4) {
+            // category filters are now resolved through a closure table that must be
+            // created and populated from the existing parent relations.
+            db.execSQL(Schema.CREATE_TABLE_CATEGORY_CLOSURE);
+            db.execSQL(Schema.CREATE_CATEGORY_CLOSURE_DESCENDANT_INDEX);
+            rebuildCategoryClosure(db);
+        }
+        if (oldVersion < 5) {
+            // the progress of the budgets is now cached inside a dedicated table that is kept
+            // up to date by triggers: the table is filled at the end of the upgrade.
+            db.execSQL(Schema.CREATE_TABLE_BUDGET_PROGRESS);
+        }
+        if (oldVersion < 6) {
+            // the progress of debts and savings is now stored inside the tables and it is
+            // updated by triggers every time a linked transaction is changed.
+            db.execSQL(Schema.CREATE_DEBT_PROGRESS_COLUMN);
+            db.execSQL(Schema.CREATE_SAVING_PROGRESS_COLUMN);
+            db.execSQL(Schema.CREATE_TRANSACTION_DEBT_INDEX);
+            db.execSQL(Schema.CREATE_TRANSACTION_SAVING_INDEX);
+        }
+        if (oldVersion < 7) {
+            // transactions in the future are now marked with a flag that is updated on write
+            // and by the daily promotion, so the totals no more depend on the current time.
+            db.execSQL(Schema.CREATE_TRANSACTION_FUTURE_COLUMN);
+            db.execSQL(Schema.CREATE_TRANSACTION_FUTURE_INDEX);
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Schema.Transaction.FUTURE, 1);
+            db.update(Schema.Transaction.TABLE, contentValues, "DATETIME(" + Schema.Transaction.DATE +
+                    ") > DATETIME('now', 'localtime')", null);
+            // the cached budget progress does not need the valid until column anymore
+            db.execSQL("DROP TABLE IF EXISTS " + Schema.BudgetProgress.TABLE);
+            db.execSQL(Schema.CREATE_TABLE_BUDGET_PROGRESS);
+        }
+        if (oldVersion < 8) {
+            // the balance of the wallets at a given date is now computed from the monthly
+            // balance table, that must be populated from the existing transactions.
+            db.execSQL(Schema.CREATE_TABLE_WALLET_BALANCE);
+            db.execSQL(Schema.CREATE_TRANSACTION_WALLET_DATE_INDEX);
+            rebuildWalletBalance(db);
+        }
+        if (oldVersion < 9) {
+            // the exports read the transactions of all the wallets sorted by date in chunks
+            db.execSQL(Schema.CREATE_TRANSACTION_DATE_INDEX);
+        }
+        if (oldVersion < 10) {
+            // the upcoming occurrences of the recurrences are stored inside a dedicated table:
+            // the table is empty and the occurrences will be expanded lazily.
+            db.execSQL(Schema.CREATE_TABLE_RECURRENCE_OCCURRENCE);
+            db.execSQL(Schema.CREATE_RECURRENCE_OCCURRENCE_DATE_INDEX);
+        }
+        // the body of the triggers may reference columns added by the previous steps, so they
+        // are always created again at the end of the upgrade together with the derived data.
+        dropTriggers(db);
+        createTriggers(db);
+        rebuildDebtAndSavingProgress(db);
+        refreshBudgetProgress(db);
+    }
+
+    private void createTriggers(SQLiteDatabase db) {
+        for (String trigger : Schema.CREATE_BUDGET_PROGRESS_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        for (String trigger : Schema.CREATE_DEBT_SAVING_PROGRESS_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        for (String trigger : Schema.CREATE_TRANSACTION_FUTURE_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        for (String trigger : Schema.CREATE_WALLET_BALANCE_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+        for (String trigger : Schema.CREATE_RECURRENCE_OCCURRENCE_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    private void dropTriggers(SQLiteDatabase db) {
+        List<String> triggers = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'trigger'", null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                triggers.add(cursor.getString(0));
+            }
+            cursor.close();
+        }
+        for (String trigger : triggers) {
+            db.execSQL("DROP TRIGGER IF EXISTS " + trigger);
+        }
     }
 
     @Override
@@ -198,6 +341,78 @@ import java.util.UUID;
         return null;
     }
 
+    /**
+     * Rebuild the whole category closure table starting from the parent column of the
+     * category table. Only categories that are not flagged as deleted are part of the closure.
+     * This method must be called every time the category table is written bypassing the
+     * insert, update and delete methods of this class (for example during a restore).
+     *
+     * @param db instance of the database to write.
+     */
+    /*package-local*/ void rebuildCategoryClosure(SQLiteDatabase db) {
+        db.delete(Schema.CategoryClosure.TABLE, null, null);
+        db.execSQL("WITH RECURSIVE tree(_ancestor, _descendant, _depth) AS (" +
+                "SELECT " + Schema.Category.ID + ", " + Schema.Category.ID + ", 0 FROM " +
+                Schema.Category.TABLE + " WHERE " + Schema.Category.DELETED + " = 0 UNION ALL " +
+                "SELECT tree._ancestor, c." + Schema.Category.ID + ", tree._depth + 1 FROM tree JOIN " +
+                Schema.Category.TABLE + " AS c ON c." + Schema.Category.PARENT + " = tree._descendant " +
+                "AND c." + Schema.Category.DELETED + " = 0) " +
+                "INSERT INTO " + Schema.CategoryClosure.TABLE + " (" + Schema.CategoryClosure.ANCESTOR +
+                ", " + Schema.CategoryClosure.DESCENDANT + ", " + Schema.CategoryClosure.DEPTH + ") " +
+                "SELECT _ancestor, _descendant, _depth FROM tree");
+    }
+
+    /**
+     * Add a new leaf category to the closure table: the category is linked to itself and to
+     * every ancestor of its parent (if any).
+     *
+     * @param db instance of the database to write.
+     * @param categoryId id of the inserted category.
+     * @param parentId id of the parent category or null if it is a root category.
+     */
+    private void insertCategoryClosure(SQLiteDatabase db, long categoryId, Long parentId) {
+        ContentValues cv = new ContentValues();
+        cv.put(Schema.CategoryClosure.ANCESTOR, categoryId);
+        cv.put(Schema.CategoryClosure.DESCENDANT, categoryId);
+        cv.put(Schema.CategoryClosure.DEPTH, 0);
+        db.insertWithOnConflict(Schema.CategoryClosure.TABLE, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+        if (parentId != null) {
+            db.execSQL("INSERT OR REPLACE INTO " + Schema.CategoryClosure.TABLE + " (" +
+                    Schema.CategoryClosure.ANCESTOR + ", " + Schema.CategoryClosure.DESCENDANT + ", " +
+                    Schema.CategoryClosure.DEPTH + ") SELECT " + Schema.CategoryClosure.ANCESTOR +
+                    ", ?, " + Schema.CategoryClosure.DEPTH + " + 1 FROM " + Schema.CategoryClosure.TABLE +
+                    " WHERE " + Schema.CategoryClosure.DESCENDANT + " = ?",
+                    new Object[] {categoryId, parentId});
+        }
+    }
+
+    /**
+     * Move the subtree rooted in the given category under a new parent. All the links between
+     * the subtree and its old ancestors are removed and replaced by links to the new ancestors.
+     *
+     * @param db instance of the database to write.
+     * @param categoryId id of the category that is moved.
+     * @param parentId id of the new parent category or null if it becomes a root category.
+     */
+    private void moveCategoryClosure(SQLiteDatabase db, long categoryId, Long parentId) {
+        String subtree = "SELECT " + Schema.CategoryClosure.DESCENDANT + " FROM " +
+                Schema.CategoryClosure.TABLE + " WHERE " + Schema.CategoryClosure.ANCESTOR + " = ?";
+        String where = Schema.CategoryClosure.DESCENDANT + " IN (" + subtree + ") AND " +
+                Schema.CategoryClosure.ANCESTOR + " NOT IN (" + subtree + ")";
+        String[] whereArgs = new String[] {String.valueOf(categoryId), String.valueOf(categoryId)};
+        db.delete(Schema.CategoryClosure.TABLE, where, whereArgs);
+        if (parentId != null) {
+            db.execSQL("INSERT OR REPLACE INTO " + Schema.CategoryClosure.TABLE + " (" +
+                    Schema.CategoryClosure.ANCESTOR + ", " + Schema.CategoryClosure.DESCENDANT + ", " +
+                    Schema.CategoryClosure.DEPTH + ") SELECT a." + Schema.CategoryClosure.ANCESTOR +
+                    ", d." + Schema.CategoryClosure.DESCENDANT + ", a." + Schema.CategoryClosure.DEPTH +
+                    " + d." + Schema.CategoryClosure.DEPTH + " + 1 FROM " + Schema.CategoryClosure.TABLE +
+                    " AS a JOIN " + Schema.CategoryClosure.TABLE + " AS d WHERE a." +
+                    Schema.CategoryClosure.DESCENDANT + " = ? AND d." + Schema.CategoryClosure.ANCESTOR + " = ?",
+                    new Object[] {parentId, categoryId});
+        }
+    }
+
     /**
      * This method is called by the content provider when the user is querying a specific currency
      * from the database.
@@ -397,12 +612,78 @@ import java.util.UUID;
                 " SUM(((" + Schema.Transaction.DIRECTION + " * 2) - 1) * " + Schema.Transaction.MONEY +
                 ") AS total_money FROM " + Schema.Transaction.TABLE + " AS t WHERE t."
                 + Schema.Transaction.DELETED + " = 0 AND " + Schema.Transaction.CONFIRMED + " = 1 AND " +
-                Schema.Transaction.COUNT_IN_TOTAL + " = 1 AND DATETIME(" + Schema.Transaction.DATE +
-                ") <= DATETIME('now', 'localtime') GROUP BY _wallet) ON " + Schema.Wallet.ID +
+                Schema.Transaction.COUNT_IN_TOTAL + " = 1 AND " + Schema.Transaction.FUTURE +
+                " = 0 GROUP BY _wallet) ON " + Schema.Wallet.ID +
                 " = _wallet WHERE " + Schema.Wallet.DELETED + " = 0";
         return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder);
     }
 
+    /**
+     * This method is called by the content provider when the user is querying the balance of a
+     * specific wallet at a given date.
+     *
+     * @param id of the requested wallet.
+     * @param date in sql format (yyyy-MM-dd HH:mm:ss) of the last transaction to include.
+     * @param projection column names to include in the cursor.
+     * @return the cursor that contains the requested data.
+     */
+    /*package-local*/ Cursor getWalletBalance(long id, String date, String[] projection) {
+        String selection = Contract.WalletBalance.WALLET_ID + " = ?";
+        String[] selectionArgs = new String[]{String.valueOf(id)};
+        return getWalletBalances(date, projection, selection, selectionArgs, null);
+    }
+
+    /**
+     * This method is called by the content provider when the user is querying the balance of all
+     * the wallets at a given date. The balance is the start money of the wallet plus the monthly
+     * balance of all the months before the one of the date, plus the transactions of that month
+     * until the date: the cost of the query does not depend on the size of the history.
+     *
+     * @param date in sql format (yyyy-MM-dd HH:mm:ss) of the last transaction to include.
+     * @param projection column names to include in the cursor.
+     * @param selection string that may contains additional filters for the query.
+     * @param selectionArgs string array that may contains the arguments of the selection string.
+     * @param sortOrder string that may contains column names to use to sort the cursor.
+     * @return a cursor with zero or more rows.
+     */
+    /*package-local*/ Cursor getWalletBalances(String date, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+        String escapedDate = DatabaseUtils.sqlEscapeString(date);
+        String month = DatabaseUtils.sqlEscapeString(date.substring(0, 7));
+        String subQuery = "SELECT " +
+                "w." + Schema.Wallet.ID + " AS " + Contract.WalletBalance.WALLET_ID + ", " +
+                "w." + Schema.Wallet.CURRENCY + " AS " + Contract.WalletBalance.WALLET_CURRENCY + ", " +
+                "w." + Schema.Wallet.COUNT_IN_TOTAL + " AS " + Contract.WalletBalance.WALLET_COUNT_IN_TOTAL + ", " +
+                escapedDate + " AS " + Contract.WalletBalance.DATE + ", " +
+                "w." + Schema.Wallet.START_MONEY + " + IFNULL((SELECT SUM(wb." + Schema.WalletBalance.MONEY +
+                ") FROM " + Schema.WalletBalance.TABLE + " AS wb WHERE wb." + Schema.WalletBalance.WALLET +
+                " = w." + Schema.Wallet.ID + " AND wb." + Schema.WalletBalance.MONTH + " < " + month + "), 0) + " +
+                "IFNULL((SELECT SUM(((t." + Schema.Transaction.DIRECTION + " * 2) - 1) * t." +
+                Schema.Transaction.MONEY + ") FROM " + Schema.Transaction.TABLE + " AS t WHERE t." +
+                Schema.Transaction.WALLET + " = w." + Schema.Wallet.ID + " AND t." + Schema.Transaction.DATE +
+                " >= " + month + " AND t." + Schema.Transaction.DATE + " <= " + escapedDate + " AND t." +
+                Schema.Transaction.DELETED + " = 0 AND t." + Schema.Transaction.CONFIRMED + " = 1 AND t." +
+                Schema.Transaction.COUNT_IN_TOTAL + " = 1), 0) AS " + Contract.WalletBalance.MONEY + " " +
+                "FROM " + Schema.Wallet.TABLE + " AS w WHERE w." + Schema.Wallet.DELETED + " = 0";
+        return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder);
+    }
+
+    /**
+     * Compute again from scratch the monthly balance of all the wallets.
+     * This method should be called when the transactions are written without the triggers.
+     *
+     * @param db instance of the database to write.
+     */
+    /*package-local*/ void rebuildWalletBalance(SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            db.delete(Schema.WalletBalance.TABLE, null, null);
+            db.execSQL(Schema.POPULATE_WALLET_BALANCE);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
     /**
      * This method is called by the content provider when the user is inserting a new wallet into
      * the database.
@@ -677,6 +958,7 @@ import java.util.UUID;
                 "t." + Schema.Transaction.RECURRENCE + " AS " + Contract.Transaction.RECURRENCE_ID + ", " +
                 "t." + Schema.Transaction.CONFIRMED + " AS " + Contract.Transaction.CONFIRMED + ", " +
                 "t." + Schema.Transaction.COUNT_IN_TOTAL + " AS " + Contract.Transaction.COUNT_IN_TOTAL + ", " +
+                "t." + Schema.Transaction.FUTURE + " AS " + Contract.Transaction.FUTURE + ", " +
                 "t." + Schema.Transaction.TAG + " AS " + Contract.Transaction.TAG + ", " +
                 "GROUP_CONCAT('<' || pe." + Schema.Person.ID + " || '>') AS " + Contract.Transaction.PEOPLE_IDS + " " +
                 "FROM " + Schema.Transaction.TABLE + " AS t LEFT JOIN " + Schema.Category.TABLE +
@@ -695,6 +977,133 @@ import java.util.UUID;
         return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder);
     }
 
+    /**
+     * This method is called by the content provider to read a chunk of the transactions to
+     * export. The query only contains the columns used by the exporters and the joins with
+     * the categories, events, places and people are executed only if one of their columns
+     * is part of the projection. The rows are sorted by date and id (newest first) and each
+     * chunk starts right after the last row of the previous one, so the database never skips
+     * the rows already read like it would do with an offset.
+     *
+     * @param projection column names that are requested to be part of the cursor.
+     * @param wallets ids of the wallets to export.
+     * @param startDate in sql format (yyyy-MM-dd) of the first day to export or null.
+     * @param endDate in sql format (yyyy-MM-dd) of the last day to export.
+     * @param afterDate date of the last row of the previous chunk or null for the first chunk.
+     * @param afterId id of the last row of the previous chunk.
+     * @param limit max number of rows of the chunk.
+     * @return a cursor with zero or more rows.
+     */
+    /*package-local*/ Cursor getExportTransactions(String[] projection, long[] wallets, String startDate, String endDate, String afterDate, long afterId, int limit) {
+        StringBuilder columns = new StringBuilder("SELECT " +
+                "t." + Schema.Transaction.ID + " AS " + Contract.Transaction.ID + ", " +
+                "t." + Schema.Transaction.MONEY + " AS " + Contract.Transaction.MONEY + ", " +
+                "t." + Schema.Transaction.DATE + " AS " + Contract.Transaction.DATE + ", " +
+                "t." + Schema.Transaction.DESCRIPTION + " AS " + Contract.Transaction.DESCRIPTION + ", " +
+                "t." + Schema.Transaction.DIRECTION + " AS " + Contract.Transaction.DIRECTION + ", " +
+                "t." + Schema.Transaction.WALLET + " AS " + Contract.Transaction.WALLET_ID + ", " +
+                "w." + Schema.Wallet.NAME + " AS " + Contract.Transaction.WALLET_NAME + ", " +
+                "w." + Schema.Wallet.CURRENCY + " AS " + Contract.Transaction.WALLET_CURRENCY + ", " +
+                "t." + Schema.Transaction.NOTE + " AS " + Contract.Transaction.NOTE);
+        StringBuilder joins = new StringBuilder();
+        if (isColumnRequested(projection, Contract.Transaction.CATEGORY_NAME)) {
+            columns.append(", c." + Schema.Category.NAME + " AS " + Contract.Transaction.CATEGORY_NAME);
+            joins.append(" LEFT JOIN " + Schema.Category.TABLE + " AS c ON t." + Schema.Transaction.CATEGORY +
+                    " = c." + Schema.Category.ID + " AND c." + Schema.Category.DELETED + " = 0");
+        }
+        if (isColumnRequested(projection, Contract.Transaction.EVENT_NAME)) {
+            columns.append(", e." + Schema.Event.NAME + " AS " + Contract.Transaction.EVENT_NAME);
+            joins.append(" LEFT JOIN " + Schema.Event.TABLE + " AS e ON t." + Schema.Transaction.EVENT +
+                    " = e." + Schema.Event.ID + " AND e." + Schema.Event.DELETED + " = 0");
+        }
+        if (isColumnRequested(projection, Contract.Transaction.PLACE_NAME)) {
+            columns.append(", p." + Schema.Place.NAME + " AS " + Contract.Transaction.PLACE_NAME);
+            joins.append(" LEFT JOIN " + Schema.Place.TABLE + " AS p ON t." + Schema.Transaction.PLACE +
+                    " = p." + Schema.Place.ID + " AND p." + Schema.Place.DELETED + " = 0");
+        }
+        if (isColumnRequested(projection, Contract.Transaction.PEOPLE_IDS)) {
+            // the people are looked up through the primary key of the link table only for
+            // the rows of the chunk, without grouping all the transactions of the wallets
+            columns.append(", (SELECT GROUP_CONCAT('<' || pe." + Schema.Person.ID + " || '>') FROM " +
+                    Schema.TransactionPeople.TABLE + " AS tp JOIN " + Schema.Person.TABLE + " AS pe ON tp." +
+                    Schema.TransactionPeople.PERSON + " = pe." + Schema.Person.ID + " AND pe." +
+                    Schema.Person.DELETED + " = 0 WHERE tp." + Schema.TransactionPeople.TRANSACTION + " = t." +
+                    Schema.Transaction.ID + " AND tp." + Schema.TransactionPeople.DELETED + " = 0) AS " +
+                    Contract.Transaction.PEOPLE_IDS);
+        }
+        StringBuilder where = new StringBuilder(getExportSelection(wallets, startDate, endDate));
+        if (afterDate != null) {
+            // the first condition alone is a range on the date index, the second one only
+            // discards the rows of the same date that have already been read
+            String escapedDate = DatabaseUtils.sqlEscapeString(afterDate);
+            where.append(" AND t." + Schema.Transaction.DATE + " <= ").append(escapedDate)
+                    .append(" AND (t." + Schema.Transaction.DATE + " < ").append(escapedDate)
+                    .append(" OR t." + Schema.Transaction.ID + " < ").append(afterId).append(")");
+        }
+        String subQuery = columns + " FROM " + Schema.Transaction.TABLE + " AS t JOIN " + Schema.Wallet.TABLE +
+                " AS w ON t." + Schema.Transaction.WALLET + " = w." + Schema.Wallet.ID + " AND w." +
+                Schema.Wallet.DELETED + " = 0" + joins + " WHERE " + where;
+        String sortOrder = Contract.Transaction.DATE + " DESC, " + Contract.Transaction.ID + " DESC";
+        return queryFrom(subQuery, projection, null, null, sortOrder, String.valueOf(limit));
+    }
+
+    /**
+     * This method is called by the content provider to know how many transactions are going
+     * to be exported with the same filters of {@link #getExportTransactions}.
+     *
+     * @param wallets ids of the wallets to export.
+     * @param startDate in sql format (yyyy-MM-dd) of the first day to export or null.
+     * @param endDate in sql format (yyyy-MM-dd) of the last day to export.
+     * @return the number of transactions to export.
+     */
+    /*package-local*/ int getExportTransactionCount(long[] wallets, String startDate, String endDate) {
+        String query = "SELECT COUNT(*) FROM " + Schema.Transaction.TABLE + " AS t JOIN " + Schema.Wallet.TABLE +
+                " AS w ON t." + Schema.Transaction.WALLET + " = w." + Schema.Wallet.ID + " AND w." +
+                Schema.Wallet.DELETED + " = 0 WHERE " + getExportSelection(wallets, startDate, endDate);
+        return (int) DatabaseUtils.longForQuery(getReadableDatabase(), query, null);
+    }
+
+    /**
+     * The dates are compared with the stored strings without any conversion, otherwise the
+     * indices of the transaction table could not be used: the end date is exclusive and it
+     * is moved to the next day to include all the transactions of the last day.
+     * A single wallet is read in order from the wallet and date index. With more wallets the
+     * wallet column is excluded from the index lookup ('+' operator): the rows are read in
+     * order from the date index instead of being sorted again for each chunk.
+     */
+    private static String getExportSelection(long[] wallets, String startDate, String endDate) {
+        StringBuilder selection = new StringBuilder("t." + Schema.Transaction.DELETED + " = 0 AND ");
+        if (wallets.length > 1) {
+            selection.append("+");
+        }
+        selection.append("t." + Schema.Transaction.WALLET + " IN (");
+        for (int i = 0; i < wallets.length; i++) {
+            if (i != 0) {
+                selection.append(", ");
+            }
+            selection.append(wallets[i]);
+        }
+        selection.append(")");
+        if (startDate != null) {
+            selection.append(" AND t." + Schema.Transaction.DATE + " >= ").append(DatabaseUtils.sqlEscapeString(startDate));
+        }
+        selection.append(" AND t." + Schema.Transaction.DATE + " < DATE(")
+                .append(DatabaseUtils.sqlEscapeString(endDate)).append(", '+1 day')");
+        return selection.toString();
+    }
+
+    private static boolean isColumnRequested(String[] projection, String column) {
+        if (projection == null) {
+            return true;
+        }
+        for (String requested : projection) {
+            if (column.equals(requested)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * This method is called by the content provider when the user is inserting a new transaction
      * inside the database.
@@ -709,19 +1118,11 @@ import java.util.UUID;
         long lastEdit = System.currentTimeMillis();
         if (contentValues.containsKey(Contract.Transaction.RECURRENCE_ID)) {
             long recurrenceId = contentValues.getAsLong(Contract.Transaction.RECURRENCE_ID);
-            String table = Schema.RecurrentTransaction.TABLE;
-            String[] projection = new String[] {Schema.RecurrentTransaction.UUID};
-            String selection = Schema.RecurrentTransaction.ID + " = ?";
-            String[] selectionArgs = new String[] {String.valueOf(recurrenceId)};
-            Cursor cursor = getReadableDatabase().query(table, projection, selection, selectionArgs, null, null, null);
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    String recurrenceUUID = cursor.getString(cursor.getColumnIndex(Schema.RecurrentTransaction.UUID));
-                    Date date = DateUtils.getDateFromSQLDateTimeString(contentValues.getAsString(Contract.Transaction.DATE));
-                    transactionUUID = getRecurrentItemUUID(recurrenceUUID, date);
-                    lastEdit = date.getTime();
-                }
-                cursor.close();
+            String recurrenceUUID = getRecurrenceUUID(Schema.RecurrentTransaction.TABLE, Schema.RecurrentTransaction.ID, Schema.RecurrentTransaction.UUID, recurrenceId);
+            if (recurrenceUUID != null) {
+                Date date = DateUtils.getDateFromSQLDateTimeString(contentValues.getAsString(Contract.Transaction.DATE));
+                transactionUUID = getRecurrentItemUUID(recurrenceUUID, date);
+                lastEdit = date.getTime();
             }
         }
         // insert the body of the transaction inside the database
@@ -1206,6 +1607,48 @@ import java.util.UUID;
         return transactionIds;
     }
 
+    /**
+     * This method is used by the content provider to attach the affected wallets to the change
+     * notification of a transaction. It must be called before a deletion and after an insertion,
+     * while before and after an update if the wallet may be changed.
+     *
+     * @param transactionId id of the transaction.
+     * @return the ids of the wallets that contain the transaction (empty if it does not exist).
+     */
+    /*package-local*/ Set<Long> getTransactionWalletIds(long transactionId) {
+        String sql = "SELECT " + Schema.Transaction.WALLET + " FROM " + Schema.Transaction.TABLE +
+                " WHERE " + Schema.Transaction.ID + " = ?";
+        return getWalletIds(sql, new String[] {String.valueOf(transactionId)});
+    }
+
+    /**
+     * This method is used by the content provider to attach the affected wallets to the change
+     * notification of a transfer.
+     *
+     * @param transferId id of the transfer.
+     * @return the ids of the wallets that contain one of the transactions of the transfer.
+     */
+    /*package-local*/ Set<Long> getTransferWalletIds(long transferId) {
+        String sql = "SELECT " + Schema.Transaction.WALLET + " FROM " + Schema.Transaction.TABLE +
+                " WHERE " + Schema.Transaction.ID + " IN (" +
+                "SELECT " + Schema.Transfer.TRANSACTION_FROM + " FROM " + Schema.Transfer.TABLE + " WHERE " + Schema.Transfer.ID + " = ?1 UNION " +
+                "SELECT " + Schema.Transfer.TRANSACTION_TO + " FROM " + Schema.Transfer.TABLE + " WHERE " + Schema.Transfer.ID + " = ?1 UNION " +
+                "SELECT " + Schema.Transfer.TRANSACTION_TAX + " FROM " + Schema.Transfer.TABLE + " WHERE " + Schema.Transfer.ID + " = ?1)";
+        return getWalletIds(sql, new String[] {String.valueOf(transferId)});
+    }
+
+    private Set<Long> getWalletIds(String sql, String[] selectionArgs) {
+        Set<Long> walletIds = new LinkedHashSet<>();
+        Cursor cursor = getReadableDatabase().rawQuery(sql, selectionArgs);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                walletIds.add(cursor.getLong(0));
+            }
+            cursor.close();
+        }
+        return walletIds;
+    }
+
     /**
      * This method is called by the content provider when the user is querying all the attachments of
      * a given transfer.
@@ -1273,19 +1716,11 @@ import java.util.UUID;
         long lastEdit = System.currentTimeMillis();
         if (contentValues.containsKey(Contract.Transfer.RECURRENCE_ID)) {
             long recurrenceId = contentValues.getAsLong(Contract.Transfer.RECURRENCE_ID);
-            String table = Schema.RecurrentTransfer.TABLE;
-            String[] projection = new String[] {Schema.RecurrentTransfer.UUID};
-            String selection = Schema.RecurrentTransfer.ID + " = ?";
-            String[] selectionArgs = new String[] {String.valueOf(recurrenceId)};
-            Cursor cursor = getReadableDatabase().query(table, projection, selection, selectionArgs, null, null, null);
-            if (cursor != null) {
-                if (cursor.moveToFirst()) {
-                    String recurrenceUUID = cursor.getString(cursor.getColumnIndex(Schema.RecurrentTransfer.UUID));
-                    Date date = DateUtils.getDateFromSQLDateTimeString(contentValues.getAsString(Contract.Transfer.DATE));
-                    transferUUID = getRecurrentItemUUID(recurrenceUUID, date);
-                    lastEdit = date.getTime();
-                }
-                cursor.close();
+            String recurrenceUUID = getRecurrenceUUID(Schema.RecurrentTransfer.TABLE, Schema.RecurrentTransfer.ID, Schema.RecurrentTransfer.UUID, recurrenceId);
+            if (recurrenceUUID != null) {
+                Date date = DateUtils.getDateFromSQLDateTimeString(contentValues.getAsString(Contract.Transfer.DATE));
+                transferUUID = getRecurrentItemUUID(recurrenceUUID, date);
+                lastEdit = date.getTime();
             }
         }
         // source transaction
@@ -1713,17 +2148,19 @@ import java.util.UUID;
      * @return a cursor with zero or more rows.
      */
     /*package-local*/ Cursor getCategoryTransactions(long categoryId, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
-        String _selection = "(" + Contract.Transaction.CATEGORY_ID + " = ? OR " +
-                Contract.Transaction.CATEGORY_PARENT_ID + " = ?)";
+        // the category itself and all its sub-categories are resolved with an index lookup
+        // inside the closure table (primary key starts with the ancestor column)
+        String _selection = Contract.Transaction.CATEGORY_ID + " IN (SELECT " +
+                Schema.CategoryClosure.DESCENDANT + " FROM " + Schema.CategoryClosure.TABLE +
+                " WHERE " + Schema.CategoryClosure.ANCESTOR + " = ?)";
         if (!TextUtils.isEmpty(selection)) {
             _selection += " AND " + selection;
         }
         int size = selectionArgs != null ? selectionArgs.length : 0;
-        String[] _selectionArgs = new String[size + 2];
+        String[] _selectionArgs = new String[size + 1];
         _selectionArgs[0] = String.valueOf(categoryId);
-        _selectionArgs[1] = String.valueOf(categoryId);
         if (selectionArgs != null) {
-            System.arraycopy(selectionArgs, 0, _selectionArgs, 2, size);
+            System.arraycopy(selectionArgs, 0, _selectionArgs, 1, size);
         }
         return getTransactions(projection, _selection, _selectionArgs, sortOrder);
     }
@@ -1777,7 +2214,11 @@ import java.util.UUID;
         cv.put(Schema.Category.UUID, UUID.randomUUID().toString());
         cv.put(Schema.Category.LAST_EDIT, System.currentTimeMillis());
         cv.put(Schema.Category.DELETED, false);
-        return getWritableDatabase().insert(Schema.Category.TABLE, null, cv);
+        long id = getWritableDatabase().insert(Schema.Category.TABLE, null, cv);
+        if (id > 0L) {
+            insertCategoryClosure(getWritableDatabase(), id, contentValues.getAsLong(Contract.Category.PARENT));
+        }
+        return id;
     }
 
     /**
@@ -1915,6 +2356,10 @@ import java.util.UUID;
         where = Schema.Category.ID + " = ?";
         whereArgs = new String[]{String.valueOf(categoryId)};
         int rows = getWritableDatabase().update(Schema.Category.TABLE, cv, where, whereArgs);
+        // if the parent has changed, the subtree must be linked to the new ancestors
+        if (rows > 0 && cv.containsKey(Schema.Category.PARENT)) {
+            moveCategoryClosure(getWritableDatabase(), categoryId, cv.getAsLong(Schema.Category.PARENT));
+        }
         // if the category type has changed, all the transactions made with this category must be
         // updated using the direction of the updated category
         if (!isSystemCategory && contentValues.containsKey(Contract.Category.TYPE)) {
@@ -2031,7 +2476,11 @@ import java.util.UUID;
                 cursor.close();
             }
         }
-        // if this line has been reached, the category can be removed
+        // if this line has been reached, the category can be removed (the closure table only
+        // contains alive categories, so the links must be removed also when deletion is cached)
+        where = Schema.CategoryClosure.ANCESTOR + " = ? OR " + Schema.CategoryClosure.DESCENDANT + " = ?";
+        whereArgs = new String[]{String.valueOf(categoryId), String.valueOf(categoryId)};
+        getWritableDatabase().delete(Schema.CategoryClosure.TABLE, where, whereArgs);
         where = Schema.Category.ID + " = ?";
         whereArgs = new String[]{String.valueOf(categoryId)};
         if (mCacheDeletedObjects) {
@@ -2092,28 +2541,16 @@ import java.util.UUID;
                 Schema.Debt.MONEY + " AS " + Contract.Debt.MONEY + ", " +
                 Schema.Debt.ARCHIVED + " AS " + Contract.Debt.ARCHIVED + ", " +
                 Schema.Debt.TAG + " AS " + Contract.Debt.TAG + ", " +
-                "_debt_progress AS " + Contract.Debt.PROGRESS + ",\n" +
+                Schema.Debt.PROGRESS + " AS " + Contract.Debt.PROGRESS + ",\n" +
                 "GROUP_CONCAT('<' || _person_id || '>') AS " + Contract.Debt.PEOPLE_IDS + "\n" +
                 "FROM (\n" +
                 "\tSELECT d.*, w.*, p.*,\n" +
-                "\tt._debt_progress,\n" +
                 "\tpe.person_id AS _person_id\n" +
                 "\tFROM debts AS d\n" +
                 "\t\tLEFT JOIN debt_people AS dp ON d.debt_id = dp._debt AND dp.deleted = 0\n" +
                 "\t\tLEFT JOIN people AS pe ON dp._person = pe.person_id AND pe.deleted = 0\n" +
                 "\t\tJOIN wallets AS w ON d.debt_wallet = w.wallet_id AND w.deleted = 0\n" +
                 "\t\tLEFT JOIN places AS p ON debt_place = p.place_id AND p.deleted = 0\n" +
-                "\t\tLEFT JOIN (\n" +
-                "\t\t\tSELECT transaction_debt AS _debt_id,\n" +
-                "\t\t\tSUM(((transaction_direction * 2) - 1) * transaction_money) AS _debt_progress\n" +
-                "\t\t\tFROM transactions AS t\n" +
-                "\t\t\tLEFT JOIN categories AS c ON t.transaction_category = c.category_id AND c.deleted = 0\n" +
-                "\t\t\tWHERE t.deleted = 0 AND t.transaction_confirmed = 1 AND (\n" +
-                "\t\t\tc.category_tag = 'system::paid_debt' OR \n" +
-                "\t\t\tc.category_tag = 'system::paid_credit'\n" +
-                "\t\t\t) AND DATETIME(t.transaction_date) <= DATETIME('now', 'localtime')\n" +
-                "\t\t\tGROUP BY _debt_id\n" +
-                "\t\t) AS t ON t._debt_id = d.debt_id\n" +
                 "\t\tWHERE d.deleted = 0\n" +
                 ")\n" +
                 "GROUP BY debt_id";
@@ -2440,17 +2877,9 @@ import java.util.UUID;
      * @return a cursor with zero or more rows.
      */
     /*package-local*/ Cursor getBudgets(String[] projection, String selection, String[] selectionArgs, String sortOrder) {
-        // The query can be modified to return the 'progress' column as a concatenation of currency
-        // and sum of money for that currency that is useful if we decide to let the user set wallets
-        // with different currencies inside the same budget.
-        // In this case the budget has for example a target of 'EUR 5000' but the progress column
-        // can contains something like this: 'EUR 2050, USD 1000'. How do we handle this? We need to
-        // convert all the other currencies to the target one to check the percentage?
-        // The percentage will than vary in future when the exchange rates varies because we have no
-        // way to persist them somewhere. The simpler solution is to avoid to have different currencies
-        // inside the same budget. If we found a simple solution for this in future we only need to
-        // modify the part of the query where we sum the transaction amounts using the already provided
-        // '_wallet_currency' column internal to the query (at the moment unused).
+        // the progress of each (budget, wallet) pair is read from the budget progress table:
+        // the rows invalidated by a write are computed again at the end of the write itself,
+        // so this query never writes to the database.
         String subQuery = "SELECT " +
                 "b." + Schema.Budget.ID + " AS " + Contract.Budget.ID + ", " +
                 "b." + Schema.Budget.TYPE + " AS " + Contract.Budget.TYPE + ", " +
@@ -2465,10 +2894,43 @@ import java.util.UUID;
                 "b." + Schema.Budget.MONEY + " AS " + Contract.Budget.MONEY + ", " +
                 "b." + Schema.Budget.CURRENCY + " AS " + Contract.Budget.CURRENCY + ", " +
                 "b." + Schema.Budget.TAG + " AS " + Contract.Budget.TAG + ", " +
-                "SUM(_progress) AS " + Contract.Budget.PROGRESS + "," +
-                "GROUP_CONCAT('<' || _wallet_id || '>') AS " + Contract.Budget.WALLET_IDS + "," +
-                "MAX(_wallet_total) AS " + Contract.Budget.HAS_WALLET_IN_TOTAL + " FROM(" +
+                "SUM(bp." + Schema.BudgetProgress.PROGRESS + ") AS " + Contract.Budget.PROGRESS + "," +
+                "GROUP_CONCAT('<' || bw." + Schema.BudgetWallet.WALLET + " || '>') AS " + Contract.Budget.WALLET_IDS + "," +
+                "MAX(w." + Schema.Wallet.COUNT_IN_TOTAL + ") AS " + Contract.Budget.HAS_WALLET_IN_TOTAL + " " +
+                "FROM " + Schema.Budget.TABLE + " AS b JOIN " + Schema.BudgetWallet.TABLE + " AS bw ON b." +
+                Schema.Budget.ID + " = bw." + Schema.BudgetWallet.BUDGET + " AND bw." +
+                Schema.BudgetWallet.DELETED + " = 0 JOIN " + Schema.Wallet.TABLE + " AS w ON bw." +
+                Schema.BudgetWallet.WALLET + " = w." + Schema.Wallet.ID + " AND w." + Schema.Wallet.DELETED +
+                " = 0 LEFT JOIN " + Schema.BudgetProgress.TABLE + " AS bp ON bw." + Schema.BudgetWallet.BUDGET +
+                " = bp." + Schema.BudgetProgress.BUDGET + " AND bw." + Schema.BudgetWallet.WALLET + " = bp." +
+                Schema.BudgetProgress.WALLET + " LEFT JOIN " + Schema.Category.TABLE + " AS c ON b." +
+                Schema.Budget.CATEGORY + " = c." + Schema.Category.ID + " AND c." + Schema.Category.DELETED +
+                " = 0 WHERE b." + Schema.Budget.DELETED + " = 0 GROUP BY b." + Schema.Budget.ID;
+        return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder);
+    }
 
+    /**
+     * This is an internal method used to build the query that computes from scratch the progress
+     * of each (budget, wallet) pair. Each row contains all the budget columns plus '_wallet_id',
+     * '_wallet_currency', '_wallet_total' and '_progress'.
+     *
+     * @param budgetFilter additional condition on the budget table (alias 'b') that must start
+     *                     with ' AND ' or an empty string to compute all the budgets.
+     * @return the raw sql query.
+     */
+    private String getBudgetProgressQuery(String budgetFilter) {
+        // The query can be modified to return the 'progress' column as a concatenation of currency
+        // and sum of money for that currency that is useful if we decide to let the user set wallets
+        // with different currencies inside the same budget.
+        // In this case the budget has for example a target of 'EUR 5000' but the progress column
+        // can contains something like this: 'EUR 2050, USD 1000'. How do we handle this? We need to
+        // convert all the other currencies to the target one to check the percentage?
+        // The percentage will than vary in future when the exchange rates varies because we have no
+        // way to persist them somewhere. The simpler solution is to avoid to have different currencies
+        // inside the same budget. If we found a simple solution for this in future we only need to
+        // modify the part of the query where we sum the transaction amounts using the already provided
+        // '_wallet_currency' column internal to the query (at the moment unused).
+        return "" +
                 // query all budgets of type expenses
                 "SELECT b.*, SUM(t." + Schema.Transaction.MONEY + ") AS _progress " +
                 "FROM(SELECT b.*, w." + Schema.Wallet.ID + " AS _wallet_id, " +
@@ -2479,10 +2941,10 @@ import java.util.UUID;
                 "bw._wallet = w." + Schema.Wallet.ID + " WHERE bw. " + Schema.BudgetWallet.DELETED +
                 " = 0 AND b." + Schema.Budget.DELETED + " = 0 AND w." + Schema.Wallet.DELETED +
                 " = 0 AND b." + Schema.Budget.TYPE + " = " + Schema.BudgetType.EXPENSES +
-                " ) AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
+                budgetFilter + " ) AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
                 Schema.Transaction.WALLET + " AND t." + Schema.Transaction.DELETED + " = 0 AND t." +
-                Schema.Transaction.DIRECTION + " = 0 AND DATETIME(t." + Schema.Transaction.DATE +
-                ") <= DATETIME('now', 'localtime') AND DATE(t." + Schema.Transaction.DATE +
+                Schema.Transaction.DIRECTION + " = 0 AND t." + Schema.Transaction.FUTURE +
+                " = 0 AND DATE(t." + Schema.Transaction.DATE +
                 ") >= DATE(b." + Schema.Budget.START_DATE + ") AND DATE(t." + Schema.Transaction.DATE +
                 ") <=  DATE(b." + Schema.Budget.END_DATE + ") " +
                 // exclude transfers within the budget
@@ -2509,10 +2971,10 @@ import java.util.UUID;
                 "bw._wallet = w." + Schema.Wallet.ID + " WHERE bw. " + Schema.BudgetWallet.DELETED +
                 " = 0 AND b." + Schema.Budget.DELETED + " = 0 AND w." + Schema.Wallet.DELETED +
                 " = 0 AND b." + Schema.Budget.TYPE + " = " + Schema.BudgetType.INCOMES +
-                " ) AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
+                budgetFilter + " ) AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
                 Schema.Transaction.WALLET + " AND t." + Schema.Transaction.DELETED + " = 0 AND t." +
-                Schema.Transaction.DIRECTION + " = 1 AND DATETIME(t." + Schema.Transaction.DATE +
-                ") <= DATETIME('now', 'localtime') AND DATE(t." + Schema.Transaction.DATE +
+                Schema.Transaction.DIRECTION + " = 1 AND t." + Schema.Transaction.FUTURE +
+                " = 0 AND DATE(t." + Schema.Transaction.DATE +
                 ") >= DATE(b." + Schema.Budget.START_DATE + ") AND DATE(t." +
                 Schema.Transaction.DATE + ") <= DATE(b." + Schema.Budget.END_DATE + ") " +
                 // exclude transfers within the budget
@@ -2538,21 +3000,108 @@ import java.util.UUID;
                 " JOIN " + Schema.Wallet.TABLE + " AS w ON bw._wallet = w." + Schema.Wallet.ID +
                 " WHERE bw. " + Schema.BudgetWallet.DELETED + " = 0 AND b." + Schema.Budget.DELETED +
                 " = 0 AND w." + Schema.Wallet.DELETED + " = 0 AND b." + Schema.Budget.TYPE + " = " +
-                Schema.BudgetType.CATEGORY + ") AS b LEFT JOIN (SELECT tr.*, tc." +
-                Schema.Category.PARENT + " AS _parent_category FROM " + Schema.Transaction.TABLE +
-                " AS tr JOIN " + Schema.Category.TABLE + " AS tc ON tr." + Schema.Transaction.CATEGORY +
-                " = tc." + Schema.Category.ID + " WHERE tr." + Schema.Transaction.DELETED + " = 0 " +
-                " AND tc." + Schema.Category.DELETED + " = 0) AS t ON (b._wallet_id = t." +
-                Schema.Transaction.WALLET + " AND DATETIME(t." + Schema.Transaction.DATE +
-                ") <= DATETIME('now', 'localtime') AND DATE(t." + Schema.Transaction.DATE +
+                Schema.BudgetType.CATEGORY + budgetFilter + ") AS b LEFT JOIN (SELECT tr.*, cc." +
+                Schema.CategoryClosure.ANCESTOR + " AS _ancestor_category FROM " + Schema.Transaction.TABLE +
+                " AS tr JOIN " + Schema.CategoryClosure.TABLE + " AS cc ON tr." + Schema.Transaction.CATEGORY +
+                " = cc." + Schema.CategoryClosure.DESCENDANT + " WHERE tr." + Schema.Transaction.DELETED +
+                " = 0) AS t ON (b._wallet_id = t." +
+                Schema.Transaction.WALLET + " AND t." + Schema.Transaction.FUTURE +
+                " = 0 AND DATE(t." + Schema.Transaction.DATE +
                 ") >= DATE(b." + Schema.Budget.START_DATE + ") AND DATE(t." +
-                Schema.Transaction.DATE + ") <=  DATE(b." + Schema.Budget.END_DATE + ") AND (b."
-                + Schema.Budget.CATEGORY + " = t." + Schema.Transaction.CATEGORY + " OR b." +
-                Schema.Budget.CATEGORY + " = t._parent_category)) GROUP BY b." + Schema.Budget.ID +
-                ", _wallet_id) AS b LEFT JOIN " + Schema.Category.TABLE + " AS c ON b." +
-                Schema.Budget.CATEGORY + " = c." + Schema.Category.ID + " AND c." +
-                Schema.Category.DELETED + " = 0 GROUP BY b." + Schema.Budget.ID;
-        return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder);
+                Schema.Transaction.DATE + ") <=  DATE(b." + Schema.Budget.END_DATE + ") AND b."
+                + Schema.Budget.CATEGORY + " = t._ancestor_category) GROUP BY b." + Schema.Budget.ID +
+                ", _wallet_id";
+    }
+
+    /**
+     * Compute again the progress of all the budgets that have been invalidated by the triggers
+     * (no row for an alive budget-wallet pair). It must be called at the end of each write,
+     * before the transaction is committed: the queries only read the stored progress.
+     *
+     * @param db instance of the database to write.
+     */
+    /*package-local*/ void refreshBudgetProgress(SQLiteDatabase db) {
+        String query = "SELECT DISTINCT bw." + Schema.BudgetWallet.BUDGET + " FROM " +
+                Schema.BudgetWallet.TABLE + " AS bw JOIN " + Schema.Budget.TABLE + " AS b ON bw." +
+                Schema.BudgetWallet.BUDGET + " = b." + Schema.Budget.ID + " JOIN " + Schema.Wallet.TABLE +
+                " AS w ON bw." + Schema.BudgetWallet.WALLET + " = w." + Schema.Wallet.ID + " LEFT JOIN " +
+                Schema.BudgetProgress.TABLE + " AS bp ON bw." + Schema.BudgetWallet.BUDGET + " = bp." +
+                Schema.BudgetProgress.BUDGET + " AND bw." + Schema.BudgetWallet.WALLET + " = bp." +
+                Schema.BudgetProgress.WALLET + " WHERE bw." + Schema.BudgetWallet.DELETED + " = 0 AND b." +
+                Schema.Budget.DELETED + " = 0 AND w." + Schema.Wallet.DELETED + " = 0 AND bp." +
+                Schema.BudgetProgress.BUDGET + " IS NULL";
+        StringBuilder budgetIds = new StringBuilder();
+        Cursor cursor = db.rawQuery(query, null);
+        if (cursor != null) {
+            try {
+                while (cursor.moveToNext()) {
+                    if (budgetIds.length() > 0) {
+                        budgetIds.append(",");
+                    }
+                    budgetIds.append(cursor.getLong(0));
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        if (budgetIds.length() > 0) {
+            String budgetList = "(" + budgetIds + ")";
+            db.beginTransaction();
+            try {
+                db.delete(Schema.BudgetProgress.TABLE, Schema.BudgetProgress.BUDGET + " IN " + budgetList, null);
+                db.execSQL("INSERT INTO " + Schema.BudgetProgress.TABLE + " (" +
+                        Schema.BudgetProgress.BUDGET + ", " + Schema.BudgetProgress.WALLET + ", " +
+                        Schema.BudgetProgress.PROGRESS + ") " +
+                        "SELECT p." + Schema.Budget.ID + ", p._wallet_id, IFNULL(p._progress, 0) " +
+                        "FROM (" + getBudgetProgressQuery(" AND b." + Schema.Budget.ID + " IN " + budgetList) + ") AS p");
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    /**
+     * Drop all the cached budget progress and compute it again from scratch.
+     * This method can be used when the content of the database is replaced (for example
+     * after a restore) or to verify that the cached progress is consistent.
+     *
+     * @param db instance of the database to write.
+     */
+    /*package-local*/ void rebuildBudgetProgress(SQLiteDatabase db) {
+        db.delete(Schema.BudgetProgress.TABLE, null, null);
+        refreshBudgetProgress(db);
+    }
+
+    /**
+     * Reset the future flag of all the transactions that are now in the past. The triggers of
+     * the transactions table will update all the stored progress that depends on them.
+     *
+     * @param db instance of the database to write.
+     * @return the number of promoted transactions.
+     */
+    /*package-local*/ int promoteFutureTransactions(SQLiteDatabase db) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Schema.Transaction.FUTURE, 0);
+        String where = Schema.Transaction.FUTURE + " = 1 AND DATETIME(" + Schema.Transaction.DATE +
+                ") <= DATETIME('now', 'localtime')";
+        int rows = db.update(Schema.Transaction.TABLE, contentValues, where, null);
+        if (rows > 0) {
+            refreshBudgetProgress(db);
+        }
+        return rows;
+    }
+
+    /**
+     * Compute again from scratch the progress of all the debts and the savings.
+     * This method should be called when the content of the database is replaced by
+     * writing directly the raw tables (for example during a restore).
+     *
+     * @param db instance of the database to write.
+     */
+    /*package-local*/ void rebuildDebtAndSavingProgress(SQLiteDatabase db) {
+        db.execSQL(Schema.UPDATE_DEBT_PROGRESS);
+        db.execSQL(Schema.UPDATE_SAVING_PROGRESS);
     }
 
     /**
@@ -2635,6 +3184,7 @@ import java.util.UUID;
                 "t." + Schema.Transaction.SAVING + " AS " + Contract.Transaction.SAVING_ID + ", " +
                 "t." + Schema.Transaction.CONFIRMED + " AS " + Contract.Transaction.CONFIRMED + ", " +
                 "t." + Schema.Transaction.COUNT_IN_TOTAL + " AS " + Contract.Transaction.COUNT_IN_TOTAL + ", " +
+                "t." + Schema.Transaction.FUTURE + " AS " + Contract.Transaction.FUTURE + ", " +
                 "t." + Schema.Transaction.TAG + " AS " + Contract.Transaction.TAG + ", " +
                 "GROUP_CONCAT('<' || pe." + Schema.Person.ID + " || '>') AS " + Contract.Transaction.PEOPLE_IDS + " " +
                 "FROM (" +
@@ -2650,8 +3200,8 @@ import java.util.UUID;
                 " = 0 AND b." + Schema.Budget.TYPE + " = " + Schema.BudgetType.EXPENSES +
                 " ) AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
                 Schema.Transaction.WALLET + " AND t." + Schema.Transaction.DELETED + " = 0 AND t." +
-                Schema.Transaction.DIRECTION + " = 0 AND DATETIME(t." + Schema.Transaction.DATE +
-                ") <= DATETIME('now', 'localtime') AND DATE(t." + Schema.Transaction.DATE +
+                Schema.Transaction.DIRECTION + " = 0 AND t." + Schema.Transaction.FUTURE +
+                " = 0 AND DATE(t." + Schema.Transaction.DATE +
                 ") >= DATE(b." + Schema.Budget.START_DATE + ") AND DATE(t." + Schema.Transaction.DATE +
                 ") <= DATE(b." + Schema.Budget.END_DATE + ") WHERE b." + Schema.Budget.ID + " = " +
                 budgetId + " " +
@@ -2678,8 +3228,8 @@ import java.util.UUID;
                 " = 0 AND b." + Schema.Budget.TYPE + " = " + Schema.BudgetType.INCOMES +
                 " ) AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
                 Schema.Transaction.WALLET + " AND t." + Schema.Transaction.DELETED + " = 0 AND t." +
-                Schema.Transaction.DIRECTION + " = 1 AND DATETIME(t." + Schema.Transaction.DATE +
-                ") <= DATETIME('now', 'localtime') AND DATE(t." + Schema.Transaction.DATE +
+                Schema.Transaction.DIRECTION + " = 1 AND t." + Schema.Transaction.FUTURE +
+                " = 0 AND DATE(t." + Schema.Transaction.DATE +
                 ") >= DATE(b." + Schema.Budget.START_DATE + ") AND DATE(t." +
                 Schema.Transaction.DATE + ") <= DATE(b." + Schema.Budget.END_DATE + ") WHERE b."
                 + Schema.Budget.ID + " = " + budgetId + " " +
@@ -2706,11 +3256,10 @@ import java.util.UUID;
                 " = 0 AND b." + Schema.Budget.TYPE + " = " + Schema.BudgetType.CATEGORY +
                 ") AS b LEFT JOIN " + Schema.Transaction.TABLE + " AS t ON b._wallet_id = t." +
                 Schema.Transaction.WALLET + " AND t." + Schema.Transaction.DELETED + " = 0 JOIN " +
-                Schema.Category.TABLE + " AS tc ON t." + Schema.Transaction.CATEGORY + " = tc." +
-                Schema.Category.ID + " AND tc." + Schema.Category.DELETED + " = 0 WHERE (b." +
-                Schema.Budget.CATEGORY + " = " + Schema.Transaction.CATEGORY + " OR b." +
-                Schema.Budget.CATEGORY + " = tc."+ Schema.Category.PARENT + ") " +
-                "AND DATETIME(t." + Schema.Transaction.DATE + ") <= DATETIME('now', 'localtime') " +
+                Schema.CategoryClosure.TABLE + " AS cc ON t." + Schema.Transaction.CATEGORY + " = cc." +
+                Schema.CategoryClosure.DESCENDANT + " AND cc." + Schema.CategoryClosure.ANCESTOR +
+                " = b." + Schema.Budget.CATEGORY + " WHERE " +
+                "t." + Schema.Transaction.FUTURE + " = 0 " +
                 "AND DATE(t." + Schema.Transaction.DATE + ") >= DATE(b." +
                 Schema.Budget.START_DATE + ") AND DATE(t." + Schema.Transaction.DATE +
                 ") <=  DATE(b." + Schema.Budget.END_DATE + ") " + "AND b." + Schema.Budget.ID +
@@ -2946,17 +3495,9 @@ import java.util.UUID;
                 Schema.Saving.COMPLETE + " AS " + Contract.Saving.COMPLETE + ", " +
                 Schema.Saving.NOTE + " AS " + Contract.Saving.NOTE + ", " +
                 Schema.Saving.TAG + " AS " + Contract.Saving.TAG + ", " +
-                "_progress AS " + Contract.Saving.PROGRESS + " FROM " + Schema.Saving.TABLE +
+                Schema.Saving.PROGRESS + " AS " + Contract.Saving.PROGRESS + " FROM " + Schema.Saving.TABLE +
                 " AS s LEFT JOIN " + Schema.Wallet.TABLE + " ON " + Schema.Saving.WALLET + " = " +
-                Schema.Wallet.ID + " LEFT JOIN (SELECT " + Schema.Transaction.SAVING + " AS _saving, " +
-                " SUM(((" + Schema.Transaction.DIRECTION + " * -2) + 1) * " + Schema.Transaction.MONEY +
-                ") AS _progress FROM " + Schema.Transaction.TABLE + " AS j LEFT JOIN " + Schema.Category.TABLE +
-                " ON " + Schema.Transaction.CATEGORY + " = " + Schema.Category.ID + " WHERE j." +
-                Schema.Transaction.DELETED + " = 0 AND " + Schema.Transaction.CONFIRMED +
-                " = 1 AND (" + Schema.Category.TAG + " = '" + Schema.CategoryTag.SAVING_DEPOSIT + "' OR " +
-                Schema.Category.TAG + " = '" + Schema.CategoryTag.SAVING_WITHDRAW + "') AND DATETIME(" +
-                Schema.Transaction.DATE + ") <= DATETIME('now', 'localtime') GROUP BY _saving) ON " +
-                Schema.Saving.ID + " = _saving WHERE s." + Schema.Saving.DELETED + " = 0";
+                Schema.Wallet.ID + " WHERE s." + Schema.Saving.DELETED + " = 0";
         return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder);
     }
 
@@ -3110,7 +3651,7 @@ import java.util.UUID;
                 Schema.Transaction.MONEY + ") AS _currency_money FROM " + Schema.Transaction.TABLE +
                 " AS t JOIN " + Schema.Wallet.TABLE + " AS w ON " + Schema.Transaction.WALLET + " = " +
                 Schema.Wallet.ID + " WHERE " + Schema.Transaction.EVENT + " IS NOT NULL AND " +
-                "DATETIME(" + Schema.Transaction.DATE + ") <= DATETIME('now', 'localtime')" +
+                Schema.Transaction.FUTURE + " = 0" +
                 " AND " + Schema.Transaction.CONFIRMED + " = 1 AND t." + Schema.Transaction.DELETED +
                 " = 0 AND w." + Schema.Wallet.DELETED + " = 0 GROUP BY " + Schema.Transaction.EVENT +
                 ", wallet_currency) GROUP BY " + Schema.Transaction.EVENT + ") ON " + Schema.Event.ID +
@@ -3330,7 +3871,7 @@ import java.util.UUID;
     /*package-local*/ long insertRecurrentTransaction(ContentValues contentValues) {
         RecurrenceRule recurrenceRule;
         try {
-            recurrenceRule = new RecurrenceRule(contentValues.getAsString(Contract.RecurrentTransaction.RULE));
+            recurrenceRule = RecurrenceRuleCache.get(contentValues.getAsString(Contract.RecurrentTransaction.RULE));
         } catch (InvalidRecurrenceRuleException e) {
             throw new SQLiteDataException(Contract.ErrorCode.INVALID_RECURRENCE_RULE, e.getMessage());
         }
@@ -3400,6 +3941,7 @@ import java.util.UUID;
             String selection = Schema.RecurrentTransaction.ID + " = ?";
             String[] selectionArgs = new String[] {String.valueOf(id)};
             getWritableDatabase().update(Schema.RecurrentTransaction.TABLE, cvu, selection, selectionArgs);
+            expandRecurrenceOccurrences(Schema.RecurrenceType.TRANSACTION, id);
         }
         return id;
     }
@@ -3413,7 +3955,10 @@ import java.util.UUID;
             cv.put(Schema.RecurrentTransaction.LAST_EDIT, System.currentTimeMillis());
             String where = Schema.RecurrentTransaction.ID + " = ?";
             String[] selectionArgs = new String[] {String.valueOf(transactionId)};
-            return getWritableDatabase().update(Schema.RecurrentTransaction.TABLE, cv, where, selectionArgs);
+            int rows = getWritableDatabase().update(Schema.RecurrentTransaction.TABLE, cv, where, selectionArgs);
+            // the old occurrences have been removed by the triggers
+            expandRecurrenceOccurrences(Schema.RecurrenceType.TRANSACTION, transactionId);
+            return rows;
         }
         return 0;
     }
@@ -3520,7 +4065,7 @@ import java.util.UUID;
     /*package-local*/ long insertRecurrentTransfer(ContentValues contentValues) {
         RecurrenceRule recurrenceRule;
         try {
-            recurrenceRule = new RecurrenceRule(contentValues.getAsString(Contract.RecurrentTransfer.RULE));
+            recurrenceRule = RecurrenceRuleCache.get(contentValues.getAsString(Contract.RecurrentTransfer.RULE));
         } catch (InvalidRecurrenceRuleException e) {
             throw new SQLiteDataException(Contract.ErrorCode.INVALID_RECURRENCE_RULE, e.getMessage());
         }
@@ -3655,6 +4200,7 @@ import java.util.UUID;
             String selection = Schema.RecurrentTransfer.ID + " = ?";
             String[] selectionArgs = new String[] {String.valueOf(id)};
             getWritableDatabase().update(Schema.RecurrentTransfer.TABLE, cvu, selection, selectionArgs);
+            expandRecurrenceOccurrences(Schema.RecurrenceType.TRANSFER, id);
         }
         return id;
     }
@@ -3668,7 +4214,10 @@ import java.util.UUID;
             cv.put(Schema.RecurrentTransfer.LAST_EDIT, System.currentTimeMillis());
             String where = Schema.RecurrentTransfer.ID + " = ?";
             String[] selectionArgs = new String[] {String.valueOf(transferId)};
-            return getWritableDatabase().update(Schema.RecurrentTransfer.TABLE, cv, where, selectionArgs);
+            int rows = getWritableDatabase().update(Schema.RecurrentTransfer.TABLE, cv, where, selectionArgs);
+            // the old occurrences have been removed by the triggers
+            expandRecurrenceOccurrences(Schema.RecurrenceType.TRANSFER, transferId);
+            return rows;
         }
         return 0;
     }
@@ -3707,6 +4256,156 @@ import java.util.UUID;
         return -1L;
     }
 
+    /**
+     * This method is called by the content provider when the user is querying the upcoming
+     * occurrences of all the recurrences. The occurrences of the recurrences that have been
+     * changed since the last query are expanded before running it. The stored occurrences of
+     * each recurrence cover at least the {@link #OCCURRENCE_HORIZON_DAYS} days after its next
+     * occurrence, so the range should not be longer than that.
+     *
+     * @param projection column names that are requested to be part of the cursor.
+     * @param startDate first day of the range in sql format (yyyy-MM-dd) or null.
+     * @param endDate last day of the range in sql format (yyyy-MM-dd) or null.
+     * @param sortOrder sort order of the cursor.
+     * @return a cursor that contains the occurrences inside the range.
+     */
+    /*package-local*/ Cursor getRecurrenceOccurrences(String[] projection, String startDate, String endDate, String sortOrder) {
+        expandRecurrenceOccurrences(Schema.RecurrenceType.TRANSACTION, null);
+        expandRecurrenceOccurrences(Schema.RecurrenceType.TRANSFER, null);
+        StringBuilder subQuery = new StringBuilder("SELECT " +
+                "o." + Schema.RecurrenceOccurrence.TYPE + " AS " + Contract.RecurrenceOccurrence.TYPE + ", " +
+                "o." + Schema.RecurrenceOccurrence.RECURRENCE + " AS " + Contract.RecurrenceOccurrence.RECURRENCE_ID + ", " +
+                "o." + Schema.RecurrenceOccurrence.DATE + " AS " + Contract.RecurrenceOccurrence.DATE);
+        // the recurrences are joined only when one of their columns is requested: the next
+        // alarm of the recurrence service only needs the first date of the index
+        boolean joinRecurrences = isColumnRequested(projection, Contract.RecurrenceOccurrence.DESCRIPTION) ||
+                isColumnRequested(projection, Contract.RecurrenceOccurrence.MONEY) ||
+                isColumnRequested(projection, Contract.RecurrenceOccurrence.DIRECTION) ||
+                isColumnRequested(projection, Contract.RecurrenceOccurrence.WALLET_ID) ||
+                isColumnRequested(projection, Contract.RecurrenceOccurrence.WALLET_CURRENCY);
+        if (joinRecurrences) {
+            subQuery.append(", " +
+                    "IFNULL(rt." + Schema.RecurrentTransaction.DESCRIPTION + ", rf." + Schema.RecurrentTransfer.DESCRIPTION +
+                    ") AS " + Contract.RecurrenceOccurrence.DESCRIPTION + ", " +
+                    "IFNULL(rt." + Schema.RecurrentTransaction.MONEY + ", rf." + Schema.RecurrentTransfer.MONEY_FROM +
+                    ") AS " + Contract.RecurrenceOccurrence.MONEY + ", " +
+                    "IFNULL(rt." + Schema.RecurrentTransaction.DIRECTION + ", " + Schema.Direction.EXPENSE +
+                    ") AS " + Contract.RecurrenceOccurrence.DIRECTION + ", " +
+                    "w." + Schema.Wallet.ID + " AS " + Contract.RecurrenceOccurrence.WALLET_ID + ", " +
+                    "w." + Schema.Wallet.CURRENCY + " AS " + Contract.RecurrenceOccurrence.WALLET_CURRENCY);
+        }
+        subQuery.append(" FROM " + Schema.RecurrenceOccurrence.TABLE + " AS o");
+        if (joinRecurrences) {
+            subQuery.append(" LEFT JOIN " + Schema.RecurrentTransaction.TABLE + " AS rt ON o." +
+                    Schema.RecurrenceOccurrence.TYPE + " = " + Schema.RecurrenceType.TRANSACTION + " AND rt." +
+                    Schema.RecurrentTransaction.ID + " = o." + Schema.RecurrenceOccurrence.RECURRENCE +
+                    " LEFT JOIN " + Schema.RecurrentTransfer.TABLE + " AS rf ON o." +
+                    Schema.RecurrenceOccurrence.TYPE + " = " + Schema.RecurrenceType.TRANSFER + " AND rf." +
+                    Schema.RecurrentTransfer.ID + " = o." + Schema.RecurrenceOccurrence.RECURRENCE +
+                    " LEFT JOIN " + Schema.Wallet.TABLE + " AS w ON w." + Schema.Wallet.ID + " = IFNULL(rt." +
+                    Schema.RecurrentTransaction.WALLET + ", rf." + Schema.RecurrentTransfer.WALLET_FROM + ")");
+        }
+        // the rows of the deleted recurrences are removed by the triggers, so the dates are
+        // the only filter and the date index is used for the range
+        if (startDate != null) {
+            subQuery.append(" WHERE o." + Schema.RecurrenceOccurrence.DATE + " >= ")
+                    .append(DatabaseUtils.sqlEscapeString(startDate));
+        }
+        if (endDate != null) {
+            subQuery.append(startDate != null ? " AND o." : " WHERE o.")
+                    .append(Schema.RecurrenceOccurrence.DATE + " <= ")
+                    .append(DatabaseUtils.sqlEscapeString(endDate));
+        }
+        return queryFrom(subQuery.toString(), projection, null, null, sortOrder);
+    }
+
+    /**
+     * Expand the upcoming occurrences of the recurrences that have no rows inside the occurrence
+     * table: the triggers remove the rows of a recurrence every time it is changed (also by the
+     * sync), so only the new and the changed recurrences are expanded again.
+     *
+     * @param type of the recurrences to expand.
+     * @param recurrenceId id of the recurrence to expand or null to expand all the recurrences.
+     */
+    private void expandRecurrenceOccurrences(int type, Long recurrenceId) {
+        String table, id, nextOccurrence, rule, deleted;
+        if (type == Schema.RecurrenceType.TRANSACTION) {
+            table = Schema.RecurrentTransaction.TABLE;
+            id = Schema.RecurrentTransaction.ID;
+            nextOccurrence = Schema.RecurrentTransaction.NEXT_OCCURRENCE;
+            rule = Schema.RecurrentTransaction.RULE;
+            deleted = Schema.RecurrentTransaction.DELETED;
+        } else {
+            table = Schema.RecurrentTransfer.TABLE;
+            id = Schema.RecurrentTransfer.ID;
+            nextOccurrence = Schema.RecurrentTransfer.NEXT_OCCURRENCE;
+            rule = Schema.RecurrentTransfer.RULE;
+            deleted = Schema.RecurrentTransfer.DELETED;
+        }
+        String query = "SELECT r." + id + ", r." + nextOccurrence + ", r." + rule + " FROM " + table +
+                " AS r WHERE r." + deleted + " = 0 AND r." + nextOccurrence + " IS NOT NULL AND NOT EXISTS (" +
+                "SELECT 1 FROM " + Schema.RecurrenceOccurrence.TABLE + " AS o WHERE o." +
+                Schema.RecurrenceOccurrence.TYPE + " = " + type + " AND o." +
+                Schema.RecurrenceOccurrence.RECURRENCE + " = r." + id + ")";
+        if (recurrenceId != null) {
+            query += " AND r." + id + " = " + recurrenceId;
+        }
+        // the missing rows are searched inside the transaction: two threads that are expanding
+        // the same recurrence cannot insert its occurrences twice
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.rawQuery(query, null);
+            try {
+                while (cursor.moveToNext()) {
+                    insertRecurrenceOccurrences(db, type, cursor.getLong(0), cursor.getString(1), cursor.getString(2));
+                }
+            } finally {
+                cursor.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * The first occurrence is always the next occurrence of the recurrence, even if the rule
+     * cannot be parsed. The rule is iterated from it like the recurrence service does, adding
+     * at least {@link #OCCURRENCE_COUNT} occurrences and all the ones in the following
+     * {@link #OCCURRENCE_HORIZON_DAYS} days.
+     */
+    private void insertRecurrenceOccurrences(SQLiteDatabase db, int type, long recurrenceId, String nextOccurrence, String rule) {
+        ContentValues cv = new ContentValues();
+        cv.put(Schema.RecurrenceOccurrence.TYPE, type);
+        cv.put(Schema.RecurrenceOccurrence.RECURRENCE, recurrenceId);
+        cv.put(Schema.RecurrenceOccurrence.DATE, nextOccurrence);
+        db.insert(Schema.RecurrenceOccurrence.TABLE, null, cv);
+        Date startDate = DateUtils.getDateFromSQLDateString(nextOccurrence);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(startDate);
+        calendar.add(Calendar.DAY_OF_YEAR, OCCURRENCE_HORIZON_DAYS);
+        DateTime startDateTime = DateUtils.getFixedDateTime(startDate);
+        DateTime horizonDateTime = DateUtils.getFixedDateTime(calendar.getTime());
+        try {
+            RecurrenceRuleIterator iterator = RecurrenceRuleCache.get(rule).iterator(startDateTime);
+            int count = 1;
+            while (iterator.hasNext() && count < OCCURRENCE_MAX_COUNT) {
+                DateTime nextInstance = iterator.nextDateTime();
+                if (count >= OCCURRENCE_COUNT && nextInstance.after(horizonDateTime)) {
+                    break;
+                }
+                if (nextInstance.after(startDateTime)) {
+                    cv.put(Schema.RecurrenceOccurrence.DATE, DateUtils.getSQLDateString(DateUtils.getFixedDate(nextInstance)));
+                    db.insert(Schema.RecurrenceOccurrence.TABLE, null, cv);
+                    count++;
+                }
+            }
+        } catch (InvalidRecurrenceRuleException ignore) {
+            // only the next occurrence is known
+        }
+    }
+
     /**
      * This method is called by the content provider when the user is querying a specific
      * transaction model.
@@ -4447,9 +5146,25 @@ import java.util.UUID;
      * @param selectionArgs string array that may contains the arguments for the selection string.
      * @param sortOrder string that may contains column name to use to sort the cursor.
      * @return a cursor with zero or more rows.
+     * @throws android.os.OperationCanceledException if the query is canceled by the signal
+     * attached to the current thread.
      */
     private Cursor queryFrom(String subQuery, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
-        return getReadableDatabase().query("(" + subQuery + ")", projection, selection, selectionArgs, null, null, sortOrder);
+        return queryFrom(subQuery, projection, selection, selectionArgs, sortOrder, null);
+    }
+
+    /**
+     * Same as {@link #queryFrom(String, String[], String, String[], String)} but the number
+     * of rows is limited.
+     *
+     * @param limit max number of rows of the cursor or null to return all the rows.
+     */
+    private Cursor queryFrom(String subQuery, String[] projection, String selection, String[] selectionArgs, String sortOrder, String limit) {
+        CancellationSignal cancellationSignal = mCancellationSignal.get();
+        if (cancellationSignal != null) {
+            cancellationSignal.throwIfCanceled();
+        }
+        return getReadableDatabase().query(false, "(" + subQuery + ")", projection, selection, selectionArgs, null, null, sortOrder, limit, cancellationSignal);
     }
 
     /**
@@ -4480,6 +5195,39 @@ import java.util.UUID;
         return null;
     }
 
+    /**
+     * Read the uuid of a recurrence. Inside a batch the uuid is cached, because all the missing
+     * occurrences of a recurrence are usually inserted together.
+     *
+     * @param table of the recurrence.
+     * @param idColumn name of the id column of the table.
+     * @param uuidColumn name of the uuid column of the table.
+     * @param recurrenceId id of the recurrence.
+     * @return the uuid or null if the recurrence does not exist.
+     */
+    private String getRecurrenceUUID(String table, String idColumn, String uuidColumn, long recurrenceId) {
+        Map<String, String> cache = mRecurrenceUUIDs.get();
+        String key = table + ":" + recurrenceId;
+        if (cache != null && cache.containsKey(key)) {
+            return cache.get(key);
+        }
+        String recurrenceUUID = null;
+        String[] projection = new String[] {uuidColumn};
+        String selection = idColumn + " = ?";
+        String[] selectionArgs = new String[] {String.valueOf(recurrenceId)};
+        Cursor cursor = getReadableDatabase().query(table, projection, selection, selectionArgs, null, null, null);
+        if (cursor != null) {
+            if (cursor.moveToFirst()) {
+                recurrenceUUID = cursor.getString(0);
+            }
+            cursor.close();
+        }
+        if (cache != null) {
+            cache.put(key, recurrenceUUID);
+        }
+        return recurrenceUUID;
+    }
+
     /**
      * This is an internal method used to uniquely identify an occurrence of a recurring event
      * across different devices. This is not needed today but, if server sync will be introduced
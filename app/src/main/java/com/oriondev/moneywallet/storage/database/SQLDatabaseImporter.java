@@ -34,6 +34,13 @@ public class SQLDatabaseImporter {
     public static final String DATABASE_NAME = SQLDatabase.DATABASE_NAME;
 
     public static long insert(ContentResolver contentResolver, Currency currency) {
+        ContentValues contentValues = getContentValues(currency);
+        Uri uri = SyncContentProvider.CONTENT_CURRENCIES;
+        uri = contentResolver.insert(uri, contentValues);
+        return ContentUris.parseId(uri);
+    }
+
+    /*package-local*/ static ContentValues getContentValues(Currency currency) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Currency.ISO, currency.mIso);
         contentValues.put(Schema.Currency.NAME, currency.mName);
@@ -43,12 +50,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Currency.UUID, currency.mUUID);
         contentValues.put(Schema.Currency.LAST_EDIT, currency.mLastEdit);
         contentValues.put(Schema.Currency.DELETED, currency.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_CURRENCIES;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Wallet wallet) {
+        ContentValues contentValues = getContentValues(wallet);
+        Uri uri = SyncContentProvider.CONTENT_WALLETS;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Wallet wallet) {
+    /*package-local*/ static ContentValues getContentValues(Wallet wallet) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Wallet.NAME, wallet.mName);
         contentValues.put(Schema.Wallet.ICON, wallet.mIcon);
@@ -62,12 +74,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Wallet.UUID, wallet.mUUID);
         contentValues.put(Schema.Wallet.LAST_EDIT, wallet.mLastEdit);
         contentValues.put(Schema.Wallet.DELETED, wallet.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_WALLETS;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Category category) {
+        ContentValues contentValues = getContentValues(category);
+        Uri uri = SyncContentProvider.CONTENT_CATEGORIES;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Category category) {
+    /*package-local*/ static ContentValues getContentValues(Category category) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Category.NAME, category.mName);
         contentValues.put(Schema.Category.ICON, category.mIcon);
@@ -79,12 +96,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Category.UUID, category.mUUID);
         contentValues.put(Schema.Category.LAST_EDIT, category.mLastEdit);
         contentValues.put(Schema.Category.DELETED, category.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_CATEGORIES;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Event event) {
+        ContentValues contentValues = getContentValues(event);
+        Uri uri = SyncContentProvider.CONTENT_EVENTS;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Event event) {
+    /*package-local*/ static ContentValues getContentValues(Event event) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Event.NAME, event.mName);
         contentValues.put(Schema.Event.ICON, event.mIcon);
@@ -95,12 +117,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Event.UUID, event.mUUID);
         contentValues.put(Schema.Event.LAST_EDIT, event.mLastEdit);
         contentValues.put(Schema.Event.DELETED, event.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_EVENTS;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Place place) {
+        ContentValues contentValues = getContentValues(place);
+        Uri uri = SyncContentProvider.CONTENT_PLACES;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Place place) {
+    /*package-local*/ static ContentValues getContentValues(Place place) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Place.NAME, place.mName);
         contentValues.put(Schema.Place.ICON, place.mIcon);
@@ -111,12 +138,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Place.UUID, place.mUUID);
         contentValues.put(Schema.Place.LAST_EDIT, place.mLastEdit);
         contentValues.put(Schema.Place.DELETED, place.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_PLACES;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Person person) {
+        ContentValues contentValues = getContentValues(person);
+        Uri uri = SyncContentProvider.CONTENT_PEOPLE;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Person person) {
+    /*package-local*/ static ContentValues getContentValues(Person person) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Person.NAME, person.mName);
         contentValues.put(Schema.Person.ICON, person.mIcon);
@@ -125,24 +157,34 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Person.UUID, person.mUUID);
         contentValues.put(Schema.Person.LAST_EDIT, person.mLastEdit);
         contentValues.put(Schema.Person.DELETED, person.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_PEOPLE;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, EventPerson eventPerson) {
+        ContentValues contentValues = getContentValues(eventPerson);
+        Uri uri = SyncContentProvider.CONTENT_EVENT_PEOPLE;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, EventPerson eventPerson) {
+    /*package-local*/ static ContentValues getContentValues(EventPerson eventPerson) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.EventPeople.EVENT, eventPerson.mEvent);
         contentValues.put(Schema.EventPeople.PERSON, eventPerson.mPerson);
         contentValues.put(Schema.EventPeople.UUID, eventPerson.mUUID);
         contentValues.put(Schema.EventPeople.LAST_EDIT, eventPerson.mLastEdit);
         contentValues.put(Schema.EventPeople.DELETED, eventPerson.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_EVENT_PEOPLE;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Debt debt) {
+        ContentValues contentValues = getContentValues(debt);
+        Uri uri = SyncContentProvider.CONTENT_DEBT;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Debt debt) {
+    /*package-local*/ static ContentValues getContentValues(Debt debt) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Debt.TYPE, debt.mType);
         contentValues.put(Schema.Debt.ICON, debt.mIcon);
@@ -158,24 +200,34 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Debt.UUID, debt.mUUID);
         contentValues.put(Schema.Debt.LAST_EDIT, debt.mLastEdit);
         contentValues.put(Schema.Debt.DELETED, debt.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_DEBT;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, DebtPerson debtPerson) {
+        ContentValues contentValues = getContentValues(debtPerson);
+        Uri uri = SyncContentProvider.CONTENT_DEBT_PEOPLE;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, DebtPerson debtPerson) {
+    /*package-local*/ static ContentValues getContentValues(DebtPerson debtPerson) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.DebtPeople.DEBT, debtPerson.mDebt);
         contentValues.put(Schema.DebtPeople.PERSON, debtPerson.mPerson);
         contentValues.put(Schema.DebtPeople.UUID, debtPerson.mUUID);
         contentValues.put(Schema.DebtPeople.LAST_EDIT, debtPerson.mLastEdit);
         contentValues.put(Schema.DebtPeople.DELETED, debtPerson.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_DEBT_PEOPLE;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Budget budget) {
+        ContentValues contentValues = getContentValues(budget);
+        Uri uri = SyncContentProvider.CONTENT_BUDGET;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Budget budget) {
+    /*package-local*/ static ContentValues getContentValues(Budget budget) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Budget.TYPE, budget.mType);
         contentValues.put(Schema.Budget.CATEGORY, budget.mCategory);
@@ -187,24 +239,34 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Budget.UUID, budget.mUUID);
         contentValues.put(Schema.Budget.LAST_EDIT, budget.mLastEdit);
         contentValues.put(Schema.Budget.DELETED, budget.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_BUDGET;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, BudgetWallet budgetWallet) {
+        ContentValues contentValues = getContentValues(budgetWallet);
+        Uri uri = SyncContentProvider.CONTENT_BUDGET_WALLET;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, BudgetWallet budgetWallet) {
+    /*package-local*/ static ContentValues getContentValues(BudgetWallet budgetWallet) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.BudgetWallet.BUDGET, budgetWallet.mBudget);
         contentValues.put(Schema.BudgetWallet.WALLET, budgetWallet.mWallet);
         contentValues.put(Schema.BudgetWallet.UUID, budgetWallet.mUUID);
         contentValues.put(Schema.BudgetWallet.LAST_EDIT, budgetWallet.mLastEdit);
         contentValues.put(Schema.BudgetWallet.DELETED, budgetWallet.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_BUDGET_WALLET;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Saving saving) {
+        ContentValues contentValues = getContentValues(saving);
+        Uri uri = SyncContentProvider.CONTENT_SAVING;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Saving saving) {
+    /*package-local*/ static ContentValues getContentValues(Saving saving) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Saving.DESCRIPTION, saving.mDescription);
         contentValues.put(Schema.Saving.ICON, saving.mIcon);
@@ -218,12 +280,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Saving.UUID, saving.mUUID);
         contentValues.put(Schema.Saving.LAST_EDIT, saving.mLastEdit);
         contentValues.put(Schema.Saving.DELETED, saving.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_SAVING;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, RecurrentTransaction recurrentTransaction) {
+        ContentValues contentValues = getContentValues(recurrentTransaction);
+        Uri uri = SyncContentProvider.CONTENT_RECURRENT_TRANSACTION;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, RecurrentTransaction recurrentTransaction) {
+    /*package-local*/ static ContentValues getContentValues(RecurrentTransaction recurrentTransaction) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.RecurrentTransaction.MONEY, recurrentTransaction.mMoney);
         contentValues.put(Schema.RecurrentTransaction.DESCRIPTION, recurrentTransaction.mDescription);
@@ -243,12 +310,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.RecurrentTransaction.UUID, recurrentTransaction.mUUID);
         contentValues.put(Schema.RecurrentTransaction.LAST_EDIT, recurrentTransaction.mLastEdit);
         contentValues.put(Schema.RecurrentTransaction.DELETED, recurrentTransaction.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_RECURRENT_TRANSACTION;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, RecurrentTransfer recurrentTransfer) {
+        ContentValues contentValues = getContentValues(recurrentTransfer);
+        Uri uri = SyncContentProvider.CONTENT_RECURRENT_TRANSFER;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, RecurrentTransfer recurrentTransfer) {
+    /*package-local*/ static ContentValues getContentValues(RecurrentTransfer recurrentTransfer) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.RecurrentTransfer.DESCRIPTION, recurrentTransfer.mDescription);
         contentValues.put(Schema.RecurrentTransfer.WALLET_FROM, recurrentTransfer.mFromWallet);
@@ -269,12 +341,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.RecurrentTransfer.UUID, recurrentTransfer.mUUID);
         contentValues.put(Schema.RecurrentTransfer.LAST_EDIT, recurrentTransfer.mLastEdit);
         contentValues.put(Schema.RecurrentTransfer.DELETED, recurrentTransfer.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_RECURRENT_TRANSFER;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Transaction transaction) {
+        ContentValues contentValues = getContentValues(transaction);
+        Uri uri = SyncContentProvider.CONTENT_TRANSACTION;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Transaction transaction) {
+    /*package-local*/ static ContentValues getContentValues(Transaction transaction) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Transaction.MONEY, transaction.mMoney);
         contentValues.put(Schema.Transaction.DATE, transaction.mDate);
@@ -295,24 +372,34 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Transaction.UUID, transaction.mUUID);
         contentValues.put(Schema.Transaction.LAST_EDIT, transaction.mLastEdit);
         contentValues.put(Schema.Transaction.DELETED, transaction.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSACTION;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, TransactionPerson transactionPeople) {
+        ContentValues contentValues = getContentValues(transactionPeople);
+        Uri uri = SyncContentProvider.CONTENT_TRANSACTION_PEOPLE;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, TransactionPerson transactionPeople) {
+    /*package-local*/ static ContentValues getContentValues(TransactionPerson transactionPeople) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.TransactionPeople.TRANSACTION, transactionPeople.mTransaction);
         contentValues.put(Schema.TransactionPeople.PERSON, transactionPeople.mPerson);
         contentValues.put(Schema.TransactionPeople.UUID, transactionPeople.mUUID);
         contentValues.put(Schema.TransactionPeople.LAST_EDIT, transactionPeople.mLastEdit);
         contentValues.put(Schema.TransactionPeople.DELETED, transactionPeople.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSACTION_PEOPLE;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, TransactionModel transactionModel) {
+        ContentValues contentValues = getContentValues(transactionModel);
+        Uri uri = SyncContentProvider.CONTENT_TRANSACTION_MODEL;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, TransactionModel transactionModel) {
+    /*package-local*/ static ContentValues getContentValues(TransactionModel transactionModel) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.TransactionModel.MONEY, transactionModel.mMoney);
         contentValues.put(Schema.TransactionModel.DESCRIPTION, transactionModel.mDescription);
@@ -328,12 +415,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.TransactionModel.UUID, transactionModel.mUUID);
         contentValues.put(Schema.TransactionModel.LAST_EDIT, transactionModel.mLastEdit);
         contentValues.put(Schema.TransactionModel.DELETED, transactionModel.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSACTION_MODEL;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Transfer transfers) {
+        ContentValues contentValues = getContentValues(transfers);
+        Uri uri = SyncContentProvider.CONTENT_TRANSFER;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Transfer transfers) {
+    /*package-local*/ static ContentValues getContentValues(Transfer transfers) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Transfer.DESCRIPTION, transfers.mDescription);
         contentValues.put(Schema.Transfer.DATE, transfers.mDate);
@@ -350,24 +442,34 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Transfer.UUID, transfers.mUUID);
         contentValues.put(Schema.Transfer.LAST_EDIT, transfers.mLastEdit);
         contentValues.put(Schema.Transfer.DELETED, transfers.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSFER;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, TransferPerson transferPerson) {
+        ContentValues contentValues = getContentValues(transferPerson);
+        Uri uri = SyncContentProvider.CONTENT_TRANSFER_PEOPLE;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, TransferPerson transferPerson) {
+    /*package-local*/ static ContentValues getContentValues(TransferPerson transferPerson) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.TransferPeople.TRANSFER, transferPerson.mTransfer);
         contentValues.put(Schema.TransferPeople.PERSON, transferPerson.mPerson);
         contentValues.put(Schema.TransferPeople.UUID, transferPerson.mUUID);
         contentValues.put(Schema.TransferPeople.LAST_EDIT, transferPerson.mLastEdit);
         contentValues.put(Schema.TransferPeople.DELETED, transferPerson.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSFER_PEOPLE;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, TransferModel transferModel) {
+        ContentValues contentValues = getContentValues(transferModel);
+        Uri uri = SyncContentProvider.CONTENT_TRANSFER_MODEL;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, TransferModel transferModel) {
+    /*package-local*/ static ContentValues getContentValues(TransferModel transferModel) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.TransferModel.DESCRIPTION, transferModel.mDescription);
         contentValues.put(Schema.TransferModel.WALLET_FROM, transferModel.mFromWallet);
@@ -384,12 +486,17 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.TransferModel.UUID, transferModel.mUUID);
         contentValues.put(Schema.TransferModel.LAST_EDIT, transferModel.mLastEdit);
         contentValues.put(Schema.TransferModel.DELETED, transferModel.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSFER_MODEL;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, Attachment attachment) {
+        ContentValues contentValues = getContentValues(attachment);
+        Uri uri = SyncContentProvider.CONTENT_ATTACHMENT;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, Attachment attachment) {
+    /*package-local*/ static ContentValues getContentValues(Attachment attachment) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.Attachment.FILE, attachment.mFile);
         contentValues.put(Schema.Attachment.NAME, attachment.mName);
@@ -399,32 +506,40 @@ public class SQLDatabaseImporter {
         contentValues.put(Schema.Attachment.UUID, attachment.mUUID);
         contentValues.put(Schema.Attachment.LAST_EDIT, attachment.mLastEdit);
         contentValues.put(Schema.Attachment.DELETED, attachment.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_ATTACHMENT;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, TransactionAttachment transactionAttachment) {
+        ContentValues contentValues = getContentValues(transactionAttachment);
+        Uri uri = SyncContentProvider.CONTENT_TRANSACTION_ATTACHMENT;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, TransactionAttachment transactionAttachment) {
+    /*package-local*/ static ContentValues getContentValues(TransactionAttachment transactionAttachment) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.TransactionAttachment.TRANSACTION, transactionAttachment.mTransaction);
         contentValues.put(Schema.TransactionAttachment.ATTACHMENT, transactionAttachment.mAttachment);
         contentValues.put(Schema.TransactionAttachment.UUID, transactionAttachment.mUUID);
         contentValues.put(Schema.TransactionAttachment.LAST_EDIT, transactionAttachment.mLastEdit);
         contentValues.put(Schema.TransactionAttachment.DELETED, transactionAttachment.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSACTION_ATTACHMENT;
+        return contentValues;
+    }
+
+    public static long insert(ContentResolver contentResolver, TransferAttachment transferAttachment) {
+        ContentValues contentValues = getContentValues(transferAttachment);
+        Uri uri = SyncContentProvider.CONTENT_TRANSFER_ATTACHMENT;
         uri = contentResolver.insert(uri, contentValues);
         return ContentUris.parseId(uri);
     }
 
-    public static long insert(ContentResolver contentResolver, TransferAttachment transferAttachment) {
+    /*package-local*/ static ContentValues getContentValues(TransferAttachment transferAttachment) {
         ContentValues contentValues = new ContentValues();
         contentValues.put(Schema.TransferAttachment.TRANSFER, transferAttachment.mTransfer);
         contentValues.put(Schema.TransferAttachment.ATTACHMENT, transferAttachment.mAttachment);
         contentValues.put(Schema.TransferAttachment.UUID, transferAttachment.mUUID);
         contentValues.put(Schema.TransferAttachment.LAST_EDIT, transferAttachment.mLastEdit);
         contentValues.put(Schema.TransferAttachment.DELETED, transferAttachment.mDeleted);
-        Uri uri = SyncContentProvider.CONTENT_TRANSFER_ATTACHMENT;
-        uri = contentResolver.insert(uri, contentValues);
-        return ContentUris.parseId(uri);
+        return contentValues;
     }
 }
\ No newline at end of file
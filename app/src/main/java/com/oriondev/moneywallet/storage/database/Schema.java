@@ -131,6 +131,7 @@ package com.oriondev.moneywallet.storage.database;
         /*package-local*/ static final String MONEY = "debt_money";
         /*package-local*/ static final String ARCHIVED = "debt_archived";
         /*package-local*/ static final String TAG = "debt_tag";
+        /*package-local*/ static final String PROGRESS = "debt_progress";
     }
 
     /*package-local*/ static final class DebtPeople extends BaseTable {
@@ -169,6 +170,7 @@ package com.oriondev.moneywallet.storage.database;
         /*package-local*/ static final String COMPLETE = "saving_complete";
         /*package-local*/ static final String NOTE = "saving_note";
         /*package-local*/ static final String TAG = "saving_tag";
+        /*package-local*/ static final String PROGRESS = "saving_progress";
     }
 
     /*package-local*/ static final class Transaction extends BaseTable {
@@ -190,6 +192,7 @@ package com.oriondev.moneywallet.storage.database;
         /*package-local*/ static final String CONFIRMED = "transaction_confirmed";
         /*package-local*/ static final String COUNT_IN_TOTAL = "transaction_count_in_total";
         /*package-local*/ static final String TAG = "transaction_tag";
+        /*package-local*/ static final String FUTURE = "transaction_future";
     }
 
     /*package-local*/ static final class TransactionPeople extends BaseTable {
@@ -317,6 +320,52 @@ package com.oriondev.moneywallet.storage.database;
         /*package-local*/ static final String ATTACHMENT = "_attachment";
     }
 
+    /**
+     * This table is not synced: it is derived from the category parent column and it contains
+     * one row for each (ancestor, descendant) pair, including the category itself at depth 0.
+     */
+    /*package-local*/ static final class CategoryClosure {
+        /*package-local*/ static final String TABLE = "category_closure";
+        /*package-local*/ static final String ANCESTOR = "_ancestor";
+        /*package-local*/ static final String DESCENDANT = "_descendant";
+        /*package-local*/ static final String DEPTH = "_depth";
+    }
+
+    /**
+     * This table is not synced: it caches the progress of each (budget, wallet) pair and it is
+     * invalidated by triggers every time one of the rows it depends on is changed.
+     */
+    /*package-local*/ static final class BudgetProgress {
+        /*package-local*/ static final String TABLE = "budget_progress";
+        /*package-local*/ static final String BUDGET = "_budget";
+        /*package-local*/ static final String WALLET = "_wallet";
+        /*package-local*/ static final String PROGRESS = "_progress";
+    }
+
+    /**
+     * This table is not synced: it contains one row for each (wallet, month) pair with the sum
+     * of the transactions of the wallet in that month, so the balance at the end of each month
+     * is the start money of the wallet plus the sum of the rows until that month.
+     */
+    /*package-local*/ static final class WalletBalance {
+        /*package-local*/ static final String TABLE = "wallet_balance";
+        /*package-local*/ static final String WALLET = "_wallet";
+        /*package-local*/ static final String MONTH = "_month";
+        /*package-local*/ static final String MONEY = "_money";
+    }
+
+    /**
+     * This table is not synced: it contains the upcoming occurrences of the recurrent transactions
+     * and transfers, starting from their next occurrence. The rows of a recurrence are removed by
+     * triggers every time the recurrence is changed and they are expanded again from the rule.
+     */
+    /*package-local*/ static final class RecurrenceOccurrence {
+        /*package-local*/ static final String TABLE = "recurrence_occurrences";
+        /*package-local*/ static final String TYPE = "_type";
+        /*package-local*/ static final String RECURRENCE = "_recurrence";
+        /*package-local*/ static final String DATE = "_date";
+    }
+
     /*package-local*/ static final class CategoryType {
         /*package-local*/ static final int INCOME = 0;
         /*package-local*/ static final int EXPENSE = 1;
@@ -341,6 +390,11 @@ package com.oriondev.moneywallet.storage.database;
         /*package-local*/ static final int CATEGORY = 2;
     }
 
+    /*package-local*/ static final class RecurrenceType {
+        /*package-local*/ static final int TRANSACTION = 0;
+        /*package-local*/ static final int TRANSFER = 1;
+    }
+
     /*package-local*/ static class Direction {
         /*package-local*/ static final int INCOME = 1;
         /*package-local*/ static final int EXPENSE = 0;
@@ -452,6 +506,7 @@ package com.oriondev.moneywallet.storage.database;
             Debt.MONEY + " INTEGER NOT NULL, " +
             Debt.ARCHIVED + " INTEGER NOT NULL DEFAULT 0, " +
             Debt.TAG + " TEXT, " +
+            Debt.PROGRESS + " INTEGER NOT NULL DEFAULT 0, " +
             Debt.UUID + " TEXT NOT NULL UNIQUE, " +
             Debt.LAST_EDIT + " INTEGER NOT NULL, " +
             Debt.DELETED + " INTEGER NOT NULL DEFAULT 0, " +
@@ -514,6 +569,7 @@ package com.oriondev.moneywallet.storage.database;
             Saving.COMPLETE + " INTEGER NOT NULL DEFAULT 0, " +
             Saving.NOTE + " TEXT, " +
             Saving.TAG + " TEXT, " +
+            Saving.PROGRESS + " INTEGER NOT NULL DEFAULT 0, " +
             Saving.UUID + " TEXT NOT NULL UNIQUE, " +
             Saving.LAST_EDIT + " INTEGER NOT NULL, " +
             Saving.DELETED + " INTEGER NOT NULL DEFAULT 0, " +
@@ -539,6 +595,7 @@ package com.oriondev.moneywallet.storage.database;
             Transaction.CONFIRMED + " INTEGER NOT NULL DEFAULT 1, " +
             Transaction.COUNT_IN_TOTAL + " INTEGER NOT NULL DEFAULT 1, " +
             Transaction.TAG + " TEXT, " +
+            Transaction.FUTURE + " INTEGER NOT NULL DEFAULT 0, " +
             Transaction.UUID + " TEXT NOT NULL UNIQUE, " +
             Transaction.LAST_EDIT + " INTEGER NOT NULL, " +
             Transaction.DELETED + " INTEGER NOT NULL DEFAULT 0, " +
@@ -772,4 +829,281 @@ package com.oriondev.moneywallet.storage.database;
 
     /*package-local*/ static final String CREATE_WALLET_INDEX_COLUMN = "ALTER TABLE " +
             Wallet.TABLE + " ADD COLUMN " + Wallet.INDEX + " INTEGER NOT NULL DEFAULT 0";
-}
\ No newline at end of file
+
+    /*package-local*/ static final String CREATE_TABLE_CATEGORY_CLOSURE = "CREATE TABLE " + CategoryClosure.TABLE + " (" +
+            CategoryClosure.ANCESTOR + " INTEGER NOT NULL, " +
+            CategoryClosure.DESCENDANT + " INTEGER NOT NULL, " +
+            CategoryClosure.DEPTH + " INTEGER NOT NULL, " +
+            "PRIMARY KEY (" + CategoryClosure.ANCESTOR + ", " + CategoryClosure.DESCENDANT + ")," +
+            "FOREIGN KEY (" + CategoryClosure.ANCESTOR + ") REFERENCES " + Category.TABLE +
+            "(" + Category.ID + ") ON UPDATE NO ACTION ON DELETE CASCADE, " +
+            "FOREIGN KEY (" + CategoryClosure.DESCENDANT + ") REFERENCES " + Category.TABLE +
+            "(" + Category.ID + ") ON UPDATE NO ACTION ON DELETE CASCADE " +
+            ")";
+
+    /*package-local*/ static final String CREATE_CATEGORY_CLOSURE_DESCENDANT_INDEX = "CREATE INDEX " +
+            "category_closure_descendant ON " + CategoryClosure.TABLE + " (" +
+            CategoryClosure.DESCENDANT + ", " + CategoryClosure.ANCESTOR + ")";
+
+    /*package-local*/ static final String CREATE_TABLE_BUDGET_PROGRESS = "CREATE TABLE " + BudgetProgress.TABLE + " (" +
+            BudgetProgress.BUDGET + " INTEGER NOT NULL, " +
+            BudgetProgress.WALLET + " INTEGER NOT NULL, " +
+            BudgetProgress.PROGRESS + " INTEGER NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (" + BudgetProgress.BUDGET + ", " + BudgetProgress.WALLET + ")," +
+            "FOREIGN KEY (" + BudgetProgress.BUDGET + ") REFERENCES " + Budget.TABLE +
+            "(" + Budget.ID + ") ON UPDATE NO ACTION ON DELETE CASCADE, " +
+            "FOREIGN KEY (" + BudgetProgress.WALLET + ") REFERENCES " + Wallet.TABLE +
+            "(" + Wallet.ID + ") ON UPDATE NO ACTION ON DELETE CASCADE " +
+            ")";
+
+    private static final String INVALIDATE_BUDGET_PROGRESS_OF_WALLETS = "DELETE FROM " +
+            BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET + " IN (SELECT " +
+            BudgetWallet.BUDGET + " FROM " + BudgetWallet.TABLE + " WHERE " + BudgetWallet.WALLET + " IN ";
+
+    private static final String INVALIDATE_BUDGET_PROGRESS_OF_TRANSFER = INVALIDATE_BUDGET_PROGRESS_OF_WALLETS +
+            "(SELECT " + Transaction.WALLET + " FROM " + Transaction.TABLE + " WHERE " + Transaction.ID + " IN ";
+
+    /*package-local*/ static final String[] CREATE_BUDGET_PROGRESS_TRIGGERS = new String[] {
+            "CREATE TRIGGER budget_progress_transaction_insert AFTER INSERT ON " + Transaction.TABLE +
+                    " BEGIN " + INVALIDATE_BUDGET_PROGRESS_OF_WALLETS + "(NEW." + Transaction.WALLET + ")); END",
+            "CREATE TRIGGER budget_progress_transaction_update AFTER UPDATE OF " + Transaction.MONEY + ", " +
+                    Transaction.DATE + ", " + Transaction.CATEGORY + ", " + Transaction.DIRECTION + ", " +
+                    Transaction.WALLET + ", " + Transaction.FUTURE + ", " + Transaction.DELETED + " ON " + Transaction.TABLE +
+                    " BEGIN " + INVALIDATE_BUDGET_PROGRESS_OF_WALLETS + "(OLD." + Transaction.WALLET +
+                    ", NEW." + Transaction.WALLET + ")); END",
+            "CREATE TRIGGER budget_progress_transaction_delete AFTER DELETE ON " + Transaction.TABLE +
+                    " BEGIN " + INVALIDATE_BUDGET_PROGRESS_OF_WALLETS + "(OLD." + Transaction.WALLET + ")); END",
+            "CREATE TRIGGER budget_progress_transfer_insert AFTER INSERT ON " + Transfer.TABLE +
+                    " BEGIN " + INVALIDATE_BUDGET_PROGRESS_OF_TRANSFER + "(NEW." + Transfer.TRANSACTION_FROM +
+                    ", NEW." + Transfer.TRANSACTION_TO + "))); END",
+            "CREATE TRIGGER budget_progress_transfer_update AFTER UPDATE OF " + Transfer.TRANSACTION_FROM + ", " +
+                    Transfer.TRANSACTION_TO + ", " + Transfer.DELETED + " ON " + Transfer.TABLE +
+                    " BEGIN " + INVALIDATE_BUDGET_PROGRESS_OF_TRANSFER + "(OLD." + Transfer.TRANSACTION_FROM +
+                    ", OLD." + Transfer.TRANSACTION_TO + ", NEW." + Transfer.TRANSACTION_FROM + ", NEW." +
+                    Transfer.TRANSACTION_TO + "))); END",
+            "CREATE TRIGGER budget_progress_transfer_delete AFTER DELETE ON " + Transfer.TABLE +
+                    " BEGIN " + INVALIDATE_BUDGET_PROGRESS_OF_TRANSFER + "(OLD." + Transfer.TRANSACTION_FROM +
+                    ", OLD." + Transfer.TRANSACTION_TO + "))); END",
+            "CREATE TRIGGER budget_progress_budget_update AFTER UPDATE OF " + Budget.TYPE + ", " +
+                    Budget.CATEGORY + ", " + Budget.START_DATE + ", " + Budget.END_DATE + " ON " + Budget.TABLE +
+                    " BEGIN DELETE FROM " + BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET +
+                    " = NEW." + Budget.ID + "; END",
+            "CREATE TRIGGER budget_progress_budget_wallet_insert AFTER INSERT ON " + BudgetWallet.TABLE +
+                    " BEGIN DELETE FROM " + BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET +
+                    " = NEW." + BudgetWallet.BUDGET + "; END",
+            "CREATE TRIGGER budget_progress_budget_wallet_update AFTER UPDATE ON " + BudgetWallet.TABLE +
+                    " BEGIN DELETE FROM " + BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET +
+                    " IN (OLD." + BudgetWallet.BUDGET + ", NEW." + BudgetWallet.BUDGET + "); END",
+            "CREATE TRIGGER budget_progress_budget_wallet_delete AFTER DELETE ON " + BudgetWallet.TABLE +
+                    " BEGIN DELETE FROM " + BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET +
+                    " = OLD." + BudgetWallet.BUDGET + "; END",
+            "CREATE TRIGGER budget_progress_closure_insert AFTER INSERT ON " + CategoryClosure.TABLE +
+                    " BEGIN DELETE FROM " + BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET +
+                    " IN (SELECT " + Budget.ID + " FROM " + Budget.TABLE + " WHERE " + Budget.CATEGORY +
+                    " = NEW." + CategoryClosure.ANCESTOR + "); END",
+            "CREATE TRIGGER budget_progress_closure_delete AFTER DELETE ON " + CategoryClosure.TABLE +
+                    " BEGIN DELETE FROM " + BudgetProgress.TABLE + " WHERE " + BudgetProgress.BUDGET +
+                    " IN (SELECT " + Budget.ID + " FROM " + Budget.TABLE + " WHERE " + Budget.CATEGORY +
+                    " = OLD." + CategoryClosure.ANCESTOR + "); END"
+    };
+
+    /*package-local*/ static final String CREATE_DEBT_PROGRESS_COLUMN = "ALTER TABLE " +
+            Debt.TABLE + " ADD COLUMN " + Debt.PROGRESS + " INTEGER NOT NULL DEFAULT 0";
+
+    /*package-local*/ static final String CREATE_SAVING_PROGRESS_COLUMN = "ALTER TABLE " +
+            Saving.TABLE + " ADD COLUMN " + Saving.PROGRESS + " INTEGER NOT NULL DEFAULT 0";
+
+    /*package-local*/ static final String CREATE_TRANSACTION_DEBT_INDEX = "CREATE INDEX " +
+            "transaction_debt_index ON " + Transaction.TABLE + " (" + Transaction.DEBT + ")";
+
+    /*package-local*/ static final String CREATE_TRANSACTION_SAVING_INDEX = "CREATE INDEX " +
+            "transaction_saving_index ON " + Transaction.TABLE + " (" + Transaction.SAVING + ")";
+
+    /**
+     * Compute again the progress of the debts: a WHERE clause on the debts table can be appended
+     * to restrict the update to a subset of rows. The progress only contains the confirmed
+     * transactions that are not in the future.
+     */
+    /*package-local*/ static final String UPDATE_DEBT_PROGRESS = "UPDATE " + Debt.TABLE + " SET " +
+            Debt.PROGRESS + " = IFNULL((SELECT SUM(((t." + Transaction.DIRECTION + " * 2) - 1) * t." +
+            Transaction.MONEY + ") FROM " + Transaction.TABLE + " AS t JOIN " + Category.TABLE + " AS c ON t." +
+            Transaction.CATEGORY + " = c." + Category.ID + " AND c." + Category.DELETED + " = 0 WHERE t." +
+            Transaction.DEBT + " = " + Debt.TABLE + "." + Debt.ID + " AND t." + Transaction.DELETED +
+            " = 0 AND t." + Transaction.CONFIRMED + " = 1 AND c." + Category.TAG + " IN ('" +
+            CategoryTag.PAID_DEBT + "', '" + CategoryTag.PAID_CREDIT + "') AND t." + Transaction.FUTURE +
+            " = 0), 0)";
+
+    /**
+     * Compute again the progress of the savings: the same rules of {@link #UPDATE_DEBT_PROGRESS}
+     * are applied to the deposit and withdraw transactions.
+     */
+    /*package-local*/ static final String UPDATE_SAVING_PROGRESS = "UPDATE " + Saving.TABLE + " SET " +
+            Saving.PROGRESS + " = IFNULL((SELECT SUM(((t." + Transaction.DIRECTION + " * -2) + 1) * t." +
+            Transaction.MONEY + ") FROM " + Transaction.TABLE + " AS t JOIN " + Category.TABLE + " AS c ON t." +
+            Transaction.CATEGORY + " = c." + Category.ID + " WHERE t." + Transaction.SAVING + " = " +
+            Saving.TABLE + "." + Saving.ID + " AND t." + Transaction.DELETED + " = 0 AND t." +
+            Transaction.CONFIRMED + " = 1 AND c." + Category.TAG + " IN ('" + CategoryTag.SAVING_DEPOSIT +
+            "', '" + CategoryTag.SAVING_WITHDRAW + "') AND t." + Transaction.FUTURE + " = 0), 0)";
+
+    /*package-local*/ static final String[] CREATE_DEBT_SAVING_PROGRESS_TRIGGERS = new String[] {
+            "CREATE TRIGGER debt_saving_progress_transaction_insert AFTER INSERT ON " + Transaction.TABLE +
+                    " BEGIN " + UPDATE_DEBT_PROGRESS + " WHERE " + Debt.ID + " = NEW." + Transaction.DEBT + "; " +
+                    UPDATE_SAVING_PROGRESS + " WHERE " + Saving.ID + " = NEW." + Transaction.SAVING + "; END",
+            "CREATE TRIGGER debt_saving_progress_transaction_update AFTER UPDATE OF " + Transaction.MONEY + ", " +
+                    Transaction.DATE + ", " + Transaction.CATEGORY + ", " + Transaction.DIRECTION + ", " +
+                    Transaction.SAVING + ", " + Transaction.DEBT + ", " + Transaction.CONFIRMED + ", " +
+                    Transaction.FUTURE + ", " + Transaction.DELETED + " ON " + Transaction.TABLE + " BEGIN " + UPDATE_DEBT_PROGRESS +
+                    " WHERE " + Debt.ID + " IN (OLD." + Transaction.DEBT + ", NEW." + Transaction.DEBT + "); " +
+                    UPDATE_SAVING_PROGRESS + " WHERE " + Saving.ID + " IN (OLD." + Transaction.SAVING + ", NEW." +
+                    Transaction.SAVING + "); END",
+            "CREATE TRIGGER debt_saving_progress_transaction_delete AFTER DELETE ON " + Transaction.TABLE +
+                    " BEGIN " + UPDATE_DEBT_PROGRESS + " WHERE " + Debt.ID + " = OLD." + Transaction.DEBT + "; " +
+                    UPDATE_SAVING_PROGRESS + " WHERE " + Saving.ID + " = OLD." + Transaction.SAVING + "; END"
+    };
+
+    /*package-local*/ static final String CREATE_TRANSACTION_FUTURE_COLUMN = "ALTER TABLE " +
+            Transaction.TABLE + " ADD COLUMN " + Transaction.FUTURE + " INTEGER NOT NULL DEFAULT 0";
+
+    /*package-local*/ static final String CREATE_TRANSACTION_FUTURE_INDEX = "CREATE INDEX " +
+            "transaction_future_index ON " + Transaction.TABLE + " (" + Transaction.FUTURE + ", " +
+            Transaction.DATE + ")";
+
+    /**
+     * The future flag of a transaction must be 1 when the date is after the current time.
+     * It is computed on write by these triggers and it is reset to 0 by the daily promotion
+     * of the transactions that are now in the past.
+     */
+    private static final String IS_FUTURE_DATE = "DATETIME(NEW." + Transaction.DATE +
+            ") > DATETIME('now', 'localtime')";
+
+    /*package-local*/ static final String[] CREATE_TRANSACTION_FUTURE_TRIGGERS = new String[] {
+            "CREATE TRIGGER transaction_future_insert AFTER INSERT ON " + Transaction.TABLE +
+                    " WHEN NEW." + Transaction.FUTURE + " != (" + IS_FUTURE_DATE + ") BEGIN UPDATE " +
+                    Transaction.TABLE + " SET " + Transaction.FUTURE + " = (" + IS_FUTURE_DATE + ") WHERE " +
+                    Transaction.ID + " = NEW." + Transaction.ID + "; END",
+            "CREATE TRIGGER transaction_future_update AFTER UPDATE OF " + Transaction.DATE + " ON " +
+                    Transaction.TABLE + " WHEN NEW." + Transaction.FUTURE + " != (" + IS_FUTURE_DATE +
+                    ") BEGIN UPDATE " + Transaction.TABLE + " SET " + Transaction.FUTURE + " = (" +
+                    IS_FUTURE_DATE + ") WHERE " + Transaction.ID + " = NEW." + Transaction.ID + "; END"
+    };
+
+    /*package-local*/ static final String CREATE_TABLE_WALLET_BALANCE = "CREATE TABLE " + WalletBalance.TABLE + " (" +
+            WalletBalance.WALLET + " INTEGER NOT NULL, " +
+            WalletBalance.MONTH + " TEXT NOT NULL, " +
+            WalletBalance.MONEY + " INTEGER NOT NULL DEFAULT 0, " +
+            "PRIMARY KEY (" + WalletBalance.WALLET + ", " + WalletBalance.MONTH + ")," +
+            "FOREIGN KEY (" + WalletBalance.WALLET + ") REFERENCES " + Wallet.TABLE +
+            "(" + Wallet.ID + ") ON UPDATE NO ACTION ON DELETE CASCADE " +
+            ")";
+
+    /*package-local*/ static final String CREATE_TRANSACTION_WALLET_DATE_INDEX = "CREATE INDEX " +
+            "transaction_wallet_date_index ON " + Transaction.TABLE + " (" + Transaction.WALLET + ", " +
+            Transaction.DATE + ")";
+
+    /**
+     * The exports read the transactions of many wallets sorted by date in chunks: the index
+     * (that implicitly ends with the id) lets each chunk start from the last exported row.
+     */
+    /*package-local*/ static final String CREATE_TRANSACTION_DATE_INDEX = "CREATE INDEX " +
+            "transaction_date_index ON " + Transaction.TABLE + " (" + Transaction.DATE + ")";
+
+    /**
+     * The month of a transaction is the 'yyyy-MM' prefix of its date: the dates are stored
+     * as strings so they can be compared without any conversion (and the index is used).
+     */
+    private static String getTransactionMonth(String row) {
+        return "SUBSTR(" + row + "." + Transaction.DATE + ", 1, 7)";
+    }
+
+    private static String getTransactionSignedMoney(String row) {
+        return "(((" + row + "." + Transaction.DIRECTION + " * 2) - 1) * " + row + "." + Transaction.MONEY + ")";
+    }
+
+    /**
+     * A transaction is part of the balance with the same rules of the wallet total money.
+     */
+    private static String isTransactionInBalance(String row) {
+        return "(" + row + "." + Transaction.DELETED + " = 0 AND " + row + "." + Transaction.CONFIRMED +
+                " = 1 AND " + row + "." + Transaction.COUNT_IN_TOTAL + " = 1)";
+    }
+
+    private static String addToWalletBalance(String row, String sign) {
+        return "UPDATE " + WalletBalance.TABLE + " SET " + WalletBalance.MONEY + " = " + WalletBalance.MONEY +
+                " " + sign + " " + getTransactionSignedMoney(row) + " WHERE " + WalletBalance.WALLET + " = " +
+                row + "." + Transaction.WALLET + " AND " + WalletBalance.MONTH + " = " + getTransactionMonth(row) +
+                " AND " + isTransactionInBalance(row) + "; ";
+    }
+
+    /**
+     * The missing row is inserted without the OR IGNORE clause: inside a trigger it would be
+     * overridden by the clause of the outer statement (for example the OR REPLACE of the sync).
+     */
+    private static String ensureWalletBalance(String row) {
+        return "INSERT INTO " + WalletBalance.TABLE + " (" + WalletBalance.WALLET + ", " +
+                WalletBalance.MONTH + ") SELECT " + row + "." + Transaction.WALLET + ", " +
+                getTransactionMonth(row) + " WHERE " + isTransactionInBalance(row) + " AND NOT EXISTS (SELECT 1 FROM " +
+                WalletBalance.TABLE + " WHERE " + WalletBalance.WALLET + " = " + row + "." + Transaction.WALLET +
+                " AND " + WalletBalance.MONTH + " = " + getTransactionMonth(row) + "); ";
+    }
+
+    /*package-local*/ static final String[] CREATE_WALLET_BALANCE_TRIGGERS = new String[] {
+            "CREATE TRIGGER wallet_balance_transaction_insert AFTER INSERT ON " + Transaction.TABLE +
+                    " BEGIN " + ensureWalletBalance("NEW") + addToWalletBalance("NEW", "+") + "END",
+            "CREATE TRIGGER wallet_balance_transaction_update AFTER UPDATE OF " + Transaction.MONEY + ", " +
+                    Transaction.DATE + ", " + Transaction.DIRECTION + ", " + Transaction.WALLET + ", " +
+                    Transaction.CONFIRMED + ", " + Transaction.COUNT_IN_TOTAL + ", " + Transaction.DELETED +
+                    " ON " + Transaction.TABLE + " BEGIN " + addToWalletBalance("OLD", "-") +
+                    ensureWalletBalance("NEW") + addToWalletBalance("NEW", "+") + "END",
+            "CREATE TRIGGER wallet_balance_transaction_delete AFTER DELETE ON " + Transaction.TABLE +
+                    " BEGIN " + addToWalletBalance("OLD", "-") + "END"
+    };
+
+    /**
+     * Fill the balance table from scratch: the table must be empty before running it.
+     */
+    /*package-local*/ static final String POPULATE_WALLET_BALANCE = "INSERT INTO " + WalletBalance.TABLE +
+            " (" + WalletBalance.WALLET + ", " + WalletBalance.MONTH + ", " + WalletBalance.MONEY + ") SELECT t." +
+            Transaction.WALLET + ", " + getTransactionMonth("t") + ", SUM(" + getTransactionSignedMoney("t") +
+            ") FROM " + Transaction.TABLE + " AS t WHERE " + isTransactionInBalance("t") + " GROUP BY t." +
+            Transaction.WALLET + ", " + getTransactionMonth("t");
+
+    /*package-local*/ static final String CREATE_TABLE_RECURRENCE_OCCURRENCE = "CREATE TABLE " + RecurrenceOccurrence.TABLE + " (" +
+            RecurrenceOccurrence.TYPE + " INTEGER NOT NULL, " +
+            RecurrenceOccurrence.RECURRENCE + " INTEGER NOT NULL, " +
+            RecurrenceOccurrence.DATE + " TEXT NOT NULL, " +
+            "PRIMARY KEY (" + RecurrenceOccurrence.TYPE + ", " + RecurrenceOccurrence.RECURRENCE + ", " +
+            RecurrenceOccurrence.DATE + ")" +
+            ")";
+
+    /*package-local*/ static final String CREATE_RECURRENCE_OCCURRENCE_DATE_INDEX = "CREATE INDEX " +
+            "recurrence_occurrence_date_index ON " + RecurrenceOccurrence.TABLE + " (" +
+            RecurrenceOccurrence.DATE + ")";
+
+    private static String invalidateRecurrenceOccurrences(int type, String recurrenceId) {
+        return "DELETE FROM " + RecurrenceOccurrence.TABLE + " WHERE " + RecurrenceOccurrence.TYPE + " = " +
+                type + " AND " + RecurrenceOccurrence.RECURRENCE + " = " + recurrenceId + "; ";
+    }
+
+    /**
+     * The occurrences cannot be expanded by sqlite: the triggers only remove the rows of the
+     * changed recurrences and the database expands them again from the rule when needed.
+     */
+    /*package-local*/ static final String[] CREATE_RECURRENCE_OCCURRENCE_TRIGGERS = new String[] {
+            "CREATE TRIGGER recurrence_occurrence_transaction_update AFTER UPDATE OF " +
+                    RecurrentTransaction.START_DATE + ", " + RecurrentTransaction.NEXT_OCCURRENCE + ", " +
+                    RecurrentTransaction.RULE + ", " + RecurrentTransaction.DELETED + " ON " + RecurrentTransaction.TABLE +
+                    " BEGIN " + invalidateRecurrenceOccurrences(RecurrenceType.TRANSACTION, "OLD." +
+                    RecurrentTransaction.ID) + "END",
+            "CREATE TRIGGER recurrence_occurrence_transaction_delete AFTER DELETE ON " + RecurrentTransaction.TABLE +
+                    " BEGIN " + invalidateRecurrenceOccurrences(RecurrenceType.TRANSACTION, "OLD." +
+                    RecurrentTransaction.ID) + "END",
+            "CREATE TRIGGER recurrence_occurrence_transfer_update AFTER UPDATE OF " +
+                    RecurrentTransfer.START_DATE + ", " + RecurrentTransfer.NEXT_OCCURRENCE + ", " +
+                    RecurrentTransfer.RULE + ", " + RecurrentTransfer.DELETED + " ON " + RecurrentTransfer.TABLE +
+                    " BEGIN " + invalidateRecurrenceOccurrences(RecurrenceType.TRANSFER, "OLD." +
+                    RecurrentTransfer.ID) + "END",
+            "CREATE TRIGGER recurrence_occurrence_transfer_delete AFTER DELETE ON " + RecurrentTransfer.TABLE +
+                    " BEGIN " + invalidateRecurrenceOccurrences(RecurrenceType.TRANSFER, "OLD." +
+                    RecurrentTransfer.ID) + "END"
+    };
+}
@@ -123,6 +123,9 @@ public class SyncContentProvider extends ContentProvider {
 
     private SQLDatabase mDatabase;
 
+    private volatile boolean mCategoryClosureDirty;
+    private volatile boolean mProgressDirty;
+
     @Override
     public boolean onCreate() {
         Context context = getContext();
@@ -188,7 +191,17 @@ public class SyncContentProvider extends ContentProvider {
     public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection, @Nullable String[] selectionArgs, @Nullable String sortOrder) {
         String table = getTable(uri);
         if (table != null) {
-            return mDatabase.getReadableDatabase().query(table, projection, selection, selectionArgs, null, null, sortOrder);
+            SQLiteDatabase database = mDatabase.getReadableDatabase();
+            QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.QUERY, uri);
+            Cursor cursor = null;
+            try {
+                cursor = database.query(table, projection, selection, selectionArgs, null, null, sortOrder);
+            } finally {
+                if (operation != null) {
+                    operation.endQuery(database, cursor);
+                }
+            }
+            return cursor;
         }
         return null;
     }
@@ -204,7 +217,17 @@ public class SyncContentProvider extends ContentProvider {
     public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
         String table = getTable(uri);
         if (table != null) {
-            long id = mDatabase.getWritableDatabase().insertWithOnConflict(table, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.INSERT, uri);
+            long id = -1;
+            try {
+                SQLiteDatabase database = mDatabase.getWritableDatabase();
+                id = database.insertWithOnConflict(table, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                onTableChanged(table);
+            } finally {
+                if (operation != null) {
+                    operation.end(id > 0 ? 1 : 0);
+                }
+            }
             return ContentUris.withAppendedId(uri, id);
         }
         return null;
@@ -214,7 +237,18 @@ public class SyncContentProvider extends ContentProvider {
     public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
         String table = getTable(uri);
         if (table != null) {
-            return mDatabase.getWritableDatabase().delete(table, selection, selectionArgs);
+            QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.DELETE, uri);
+            int rows = 0;
+            try {
+                SQLiteDatabase database = mDatabase.getWritableDatabase();
+                rows = database.delete(table, selection, selectionArgs);
+                onTableChanged(table);
+            } finally {
+                if (operation != null) {
+                    operation.end(rows);
+                }
+            }
+            return rows;
         }
         return 0;
     }
@@ -223,11 +257,65 @@ public class SyncContentProvider extends ContentProvider {
     public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection, @Nullable String[] selectionArgs) {
         String table = getTable(uri);
         if (table != null) {
-            return mDatabase.getWritableDatabase().update(table, values, selection, selectionArgs);
+            QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.UPDATE, uri);
+            int rows = 0;
+            try {
+                SQLiteDatabase database = mDatabase.getWritableDatabase();
+                rows = database.update(table, values, selection, selectionArgs);
+                onTableChanged(table);
+            } finally {
+                if (operation != null) {
+                    operation.end(rows);
+                }
+            }
+            return rows;
         }
         return 0;
     }
 
+    /**
+     * This provider writes the raw tables, so all the derived data that the SQLDatabase keeps
+     * in sync inside its own write methods must be refreshed. A restore writes one row at
+     * a time, so here the derived data is only marked as dirty and it is rebuilt once
+     * when the importer calls {@link #notifyImportFinished(Context)}.
+     */
+    private void onTableChanged(String table) {
+        if (Schema.Category.TABLE.equals(table)) {
+            mCategoryClosureDirty = true;
+        }
+        if (Schema.Category.TABLE.equals(table) || Schema.Debt.TABLE.equals(table) || Schema.Saving.TABLE.equals(table)) {
+            // the progress columns are not part of the synced data and a replaced row
+            // is inserted again with the default values
+            mProgressDirty = true;
+        }
+    }
+
+    private void rebuildDerivedData() {
+        if (mCategoryClosureDirty) {
+            mCategoryClosureDirty = false;
+            mDatabase.rebuildCategoryClosure(mDatabase.getWritableDatabase());
+        }
+        if (mProgressDirty) {
+            mProgressDirty = false;
+            mDatabase.rebuildDebtAndSavingProgress(mDatabase.getWritableDatabase());
+        }
+        // the triggers have invalidated the budget progress of the restored transactions
+        mDatabase.refreshBudgetProgress(mDatabase.getWritableDatabase());
+    }
+
+    @SuppressLint("Recycle")
+    public static void notifyImportFinished(Context context) {
+        ContentResolver contentResolver = context.getContentResolver();
+        ContentProviderClient client = contentResolver.acquireContentProviderClient(AUTHORITY);
+        if (client != null) {
+            ContentProvider contentProvider = client.getLocalContentProvider();
+            if (contentProvider instanceof SyncContentProvider) {
+                ((SyncContentProvider) contentProvider).rebuildDerivedData();
+            }
+            client.close();
+        }
+    }
+
     @SuppressLint("Recycle")
     public static void notifyDatabaseIsChanged(Context context) {
         ContentResolver contentResolver = context.getContentResolver();
@@ -100,6 +100,12 @@ public abstract class AbstractBackupImporter {
         SyncContentProvider.notifyDatabaseIsChanged(mContext);
     }
 
+    /*package-local*/ void notifyImportFinished() {
+        // The sync provider rebuilds the derived data (like the category hierarchy) only once
+        // all the rows of the backup have been written
+        SyncContentProvider.notifyImportFinished(mContext);
+    }
+
     private File createBackupCopyOfCurrentDatabase(@NonNull File databaseFolder) throws ImportException {
         File temporary = new File(databaseFolder, TEMP_BACKUP_FILE);
         if (temporary.exists()) {
@@ -102,7 +102,7 @@ public class DefaultBackupExporter extends AbstractBackupExporter {
         }
         try {
             ZipFile zipFile = new ZipFile(getBackupFile());
-            zipFile.addFile(tempFile, generateZipParameters(BackupManager.FileStructure.FOLDER_DATABASES));
+            zipFile.addFile(tempFile, generateZipParameters(BackupManager.FileStructure.FOLDER_DATABASES, mPassword));
         } catch (ZipException e) {
             throw new ExportException(e.getMessage());
         }
@@ -116,7 +116,7 @@ public class DefaultBackupExporter extends AbstractBackupExporter {
             if (!zipFile.isValidZipFile()) {
                 throw new ExportException("Invalid backup file: not a zip file");
             }
-            ZipParameters zipParameters = generateZipParameters(BackupManager.FileStructure.FOLDER_ATTACHMENTS);
+            ZipParameters zipParameters = generateZipParameters(BackupManager.FileStructure.FOLDER_ATTACHMENTS, mPassword);
             for (File attachment : attachmentList) {
                 zipFile.addFile(attachment, zipParameters);
             }
@@ -125,16 +125,16 @@ public class DefaultBackupExporter extends AbstractBackupExporter {
         }
     }
 
-    private ZipParameters generateZipParameters(@NonNull String root) {
+    /*package-local*/ static ZipParameters generateZipParameters(@NonNull String root, String password) {
         ZipParameters parameters = new ZipParameters();
         parameters.setRootFolderInZip(root);
         parameters.setCompressionMethod(Zip4jConstants.COMP_DEFLATE);
         parameters.setCompressionLevel(Zip4jConstants.DEFLATE_LEVEL_NORMAL);
-        if (!TextUtils.isEmpty(mPassword)) {
+        if (!TextUtils.isEmpty(password)) {
             parameters.setEncryptFiles(true);
             parameters.setEncryptionMethod(Zip4jConstants.ENC_METHOD_AES);
             parameters.setAesKeyStrength(Zip4jConstants.AES_STRENGTH_256);
-            parameters.setPassword(mPassword);
+            parameters.setPassword(password);
         }
         return parameters;
     }
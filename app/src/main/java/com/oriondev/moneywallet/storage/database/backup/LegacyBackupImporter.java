@@ -125,6 +125,7 @@ public class LegacyBackupImporter extends AbstractBackupImporter {
             mDatabaseImporter.importAttachments(contentResolver);
             mDatabaseImporter.importTransactionAttachments(contentResolver);
             mDatabaseImporter.importTransferAttachments(contentResolver);
+            notifyImportFinished();
         } catch (ZipException e) {
             throw new ImportException(e.getMessage());
         } finally {
@@ -7,10 +7,13 @@ import androidx.collection.LongSparseArray;
 import com.oriondev.moneywallet.model.Wallet;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.utils.DateUtils;
+import com.oriondev.moneywallet.utils.MoneyFormatter;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * Created by andrea on 21/12/18.
@@ -42,16 +45,97 @@ public abstract class AbstractDataExporter {
 
     public abstract boolean shouldLoadPeople();
 
+    /**
+     * Get the columns of the transactions that must be read to export the given optional
+     * columns (the same passed to {@link #getColumns(boolean, String[])}): the tables of the
+     * optional columns that are not exported are not joined by the query.
+     */
+    public static String[] getProjection(String[] optionalColumns) {
+        List<String> projection = new ArrayList<>();
+        projection.add(Contract.Transaction.ID);
+        projection.add(Contract.Transaction.DATE);
+        projection.add(Contract.Transaction.MONEY);
+        projection.add(Contract.Transaction.DIRECTION);
+        projection.add(Contract.Transaction.WALLET_ID);
+        projection.add(Contract.Transaction.WALLET_NAME);
+        projection.add(Contract.Transaction.WALLET_CURRENCY);
+        projection.add(Contract.Transaction.CATEGORY_NAME);
+        projection.add(Contract.Transaction.DESCRIPTION);
+        if (optionalColumns != null) {
+            for (String column : optionalColumns) {
+                switch (column) {
+                    case COLUMN_EVENT:
+                        projection.add(Contract.Transaction.EVENT_NAME);
+                        break;
+                    case COLUMN_PEOPLE:
+                        projection.add(Contract.Transaction.PEOPLE_IDS);
+                        break;
+                    case COLUMN_PLACE:
+                        projection.add(Contract.Transaction.PLACE_NAME);
+                        break;
+                    case COLUMN_NOTE:
+                        projection.add(Contract.Transaction.NOTE);
+                        break;
+                }
+            }
+        }
+        return projection.toArray(new String[projection.size()]);
+    }
+
     public void cachePeople(Cursor cursor) {
+        int idIndex = cursor.getColumnIndex(Contract.Person.ID);
+        int nameIndex = cursor.getColumnIndex(Contract.Person.NAME);
         while (cursor.moveToNext()) {
-            long id = cursor.getLong(cursor.getColumnIndex(Contract.Person.ID));
-            String name = cursor.getString(cursor.getColumnIndex(Contract.Person.NAME));
-            mPeopleCache.put(id, name);
+            mPeopleCache.put(cursor.getLong(idIndex), cursor.getString(nameIndex));
         }
     }
 
-    protected String getPersonName(long id) {
-        return mPeopleCache.get(id);
+    /**
+     * Compile the columns of an export for the given cursor. The cells of the people read the
+     * names cached by {@link #cachePeople(Cursor)}.
+     * @param columns names of the exported columns, defined by {@link ExportPlan}.
+     * @param moneyFormatter used to format the money of each row.
+     * @param peopleSeparator placed between the names of two people.
+     */
+    protected ExportPlan compileExportPlan(Cursor cursor, String[] columns, MoneyFormatter moneyFormatter, String peopleSeparator) {
+        ExportPlan.Builder builder = new ExportPlan.Builder(cursor, mPeopleCache);
+        for (String column : columns) {
+            switch (column) {
+                case ExportPlan.COLUMN_WALLET:
+                    builder.addString(Contract.Transaction.WALLET_NAME);
+                    break;
+                case ExportPlan.COLUMN_CURRENCY:
+                    builder.addString(Contract.Transaction.WALLET_CURRENCY);
+                    break;
+                case ExportPlan.COLUMN_CATEGORY:
+                    builder.addString(Contract.Transaction.CATEGORY_NAME);
+                    break;
+                case ExportPlan.COLUMN_DATETIME:
+                    builder.addString(Contract.Transaction.DATE);
+                    break;
+                case ExportPlan.COLUMN_MONEY:
+                    builder.addMoney(moneyFormatter);
+                    break;
+                case ExportPlan.COLUMN_DESCRIPTION:
+                    builder.addString(Contract.Transaction.DESCRIPTION);
+                    break;
+                case ExportPlan.COLUMN_EVENT:
+                    builder.addString(Contract.Transaction.EVENT_NAME);
+                    break;
+                case ExportPlan.COLUMN_PEOPLE:
+                    builder.addPeople(peopleSeparator);
+                    break;
+                case ExportPlan.COLUMN_PLACE:
+                    builder.addString(Contract.Transaction.PLACE_NAME);
+                    break;
+                case ExportPlan.COLUMN_NOTE:
+                    builder.addString(Contract.Transaction.NOTE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown column: " + column);
+            }
+        }
+        return builder.build();
     }
 
     protected Context getContext() {
@@ -1,35 +1,76 @@
 package com.oriondev.moneywallet.storage.database.data;
 
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.RemoteException;
+import android.os.SystemClock;
 import android.text.TextUtils;
 
 import com.oriondev.moneywallet.model.ColorIcon;
-import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.picker.IconPicker;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
-import com.oriondev.moneywallet.utils.DateUtils;
 import com.oriondev.moneywallet.utils.Utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * Created by andrea on 23/12/18.
+ *
+ * The importer does not query the database for each row: the ids of the wallets, categories,
+ * events, places and people are loaded once by name and the rows are written in chunks. For
+ * each chunk, the missing entities are created with a single batch and then the transactions
+ * are inserted with another batch. The caller should wrap the import inside a write transaction
+ * of the {@link DataContentProvider} to commit all the chunks together.
+ *
+ * The file is parsed on a background thread while the calling thread writes the records: the
+ * parser hands over the records in chunks through a small bounded queue, so it is blocked when
+ * the writer falls behind and the memory used does not depend on the size of the file. The
+ * writer is always the calling thread because the write transaction is bound to it. The rows
+ * that are not valid are skipped and collected as {@link ImportError} without aborting the
+ * import.
  */
 public abstract class AbstractDataImporter {
 
+    private static final int CHUNK_SIZE = 500;
+    private static final long PROGRESS_INTERVAL_MILLIS = 500L;
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final List<ImportRecord> END_OF_DATA = Collections.emptyList();
+
     private final Context mContext;
+    private final List<PendingTransaction> mPendingTransactions = new ArrayList<>(CHUNK_SIZE);
+    private final List<PendingEntity> mPendingEntities = new ArrayList<>();
+    private final List<ImportError> mErrors = new ArrayList<>();
+
+    private Map<String, Long> mWalletIds;
+    private Map<String, Long> mCategoryIds;
+    private Map<String, Long> mEventIds;
+    private Map<String, Long> mPlaceIds;
+    private Map<String, Long> mPersonIds;
+
+    private ProgressListener mProgressListener;
+    private long mStartTime;
+    private long mLastProgressTime;
+    private long mImportedRows;
 
     public AbstractDataImporter(Context context, File file) throws IOException {
         mContext = context;
@@ -39,211 +80,293 @@ public abstract class AbstractDataImporter {
         return mContext;
     }
 
-    public abstract void importData() throws IOException;
+    public void setProgressListener(ProgressListener listener) {
+        mProgressListener = listener;
+    }
 
-    protected void insertTransaction(String wallet, CurrencyUnit currencyUnit, String category,
-                                     Date datetime, Long money, int direction, String description,
-                                     String event, String place, String people, String note) {
+    /**
+     * Import all the records read by {@link #readRecord(List)}.
+     */
+    public void importData() throws IOException {
         ContentResolver contentResolver = getContext().getContentResolver();
-        ContentValues contentValues = new ContentValues();
-        // the first step consists in checking if a wallet with the same name and currency already
-        // exists in the database, if not, create it and keep the id as reference
-        contentValues.put(Contract.Transaction.WALLET_ID, getOrCreateWallet(contentResolver, wallet, currencyUnit));
-        // the second step consists in checking if a category with the same name and direction
-        // already exists in the database, if not, create it and keep the id as reference
-        contentValues.put(Contract.Transaction.CATEGORY_ID, getOrCreateCategory(contentResolver, category, direction));
-        // the third step consists in adding the datetime, the money and the direction, the
-        // description and the note related to this transaction
-        contentValues.put(Contract.Transaction.DATE, DateUtils.getSQLDateTimeString(datetime));
-        contentValues.put(Contract.Transaction.DIRECTION, direction);
-        contentValues.put(Contract.Transaction.MONEY, money);
-        contentValues.put(Contract.Transaction.DESCRIPTION, description);
-        contentValues.put(Contract.Transaction.NOTE, note);
-        // the fourth step consists in checking if the event has been provided,
-        // if not, simply ignore it because we cannot know the date range
-        contentValues.put(Contract.Transaction.EVENT_ID, getEvent(contentResolver, event));
-        // the fifth step consists in checking if a place with the same name already
-        // exists in the database, if not, create it and keep the id as reference
-        contentValues.put(Contract.Transaction.PLACE_ID, getOrCreatePlace(contentResolver, place));
-        // the sixth step consists in checking if a set of people with the same name already
-        // exists in the database, if not, create them and keep the ids as reference
-        contentValues.put(Contract.Transaction.PEOPLE_IDS, getOrCreatePeople(contentResolver, people));
-        // the last step consists in inserting the entity inside the database
-        contentValues.put(Contract.Transaction.TYPE, Contract.TransactionType.STANDARD);
-        contentValues.put(Contract.Transaction.CONFIRMED, true);
-        contentValues.put(Contract.Transaction.COUNT_IN_TOTAL, true);
-        contentResolver.insert(DataContentProvider.CONTENT_TRANSACTIONS, contentValues);
+        mWalletIds = loadIds(contentResolver, DataContentProvider.CONTENT_WALLETS, Contract.Wallet.ID, Contract.Wallet.NAME, Contract.Wallet.CURRENCY);
+        mCategoryIds = loadIds(contentResolver, DataContentProvider.CONTENT_CATEGORIES, Contract.Category.ID, Contract.Category.NAME, Contract.Category.TYPE);
+        mEventIds = loadIds(contentResolver, DataContentProvider.CONTENT_EVENTS, Contract.Event.ID, Contract.Event.NAME, null);
+        mPlaceIds = loadIds(contentResolver, DataContentProvider.CONTENT_PLACES, Contract.Place.ID, Contract.Place.NAME, null);
+        mPersonIds = loadIds(contentResolver, DataContentProvider.CONTENT_PEOPLE, Contract.Person.ID, Contract.Person.NAME, null);
+        mStartTime = SystemClock.elapsedRealtime();
+        mLastProgressTime = mStartTime;
+        mImportedRows = 0L;
+        mErrors.clear();
+        Parser parser = new Parser(new ArrayBlockingQueue<List<ImportRecord>>(QUEUE_CAPACITY));
+        parser.start();
+        boolean completed = false;
+        try {
+            List<ImportRecord> chunk = parser.mQueue.take();
+            while (chunk != END_OF_DATA) {
+                for (ImportRecord record : chunk) {
+                    addTransaction(record);
+                }
+                flushTransactions(contentResolver);
+                chunk = parser.mQueue.take();
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("The import has been interrupted");
+        } finally {
+            if (!completed) {
+                // the writer failed: the parser may be blocked on the full queue
+                parser.interrupt();
+            }
+            joinUninterruptibly(parser);
+        }
+        if (parser.mFailure != null) {
+            if (parser.mFailure instanceof IOException) {
+                throw (IOException) parser.mFailure;
+            }
+            throw new IOException("Failed to read the imported file: " + parser.mFailure.getMessage(), parser.mFailure);
+        }
+        mErrors.addAll(parser.mRowErrors);
+        notifyProgress(true);
     }
 
-    private long getOrCreateWallet(ContentResolver contentResolver, String name, CurrencyUnit currencyUnit) {
-        Uri uri = DataContentProvider.CONTENT_WALLETS;
-        String[] projection = new String[] {Contract.Wallet.ID};
-        String selection = Contract.Wallet.NAME + " = ? AND " + Contract.Wallet.CURRENCY + " = ?";
-        String[] selectionArgs = new String[] {name, currencyUnit.getIso()};
-        String sortOrder = Contract.Wallet.ID + " DESC";
-        Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs, sortOrder);
-        if (cursor != null) {
+    /**
+     * Read the next valid record of the file. This method is called on the parser thread.
+     * @param errors list where the rows that are not valid must be added.
+     * @return the next record or null if the end of the file is reached.
+     */
+    protected abstract ImportRecord readRecord(List<ImportError> errors) throws IOException;
+
+    /**
+     * @return the rows that have been skipped by the last import.
+     */
+    public List<ImportError> getErrors() {
+        return mErrors;
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
             try {
-                if (cursor.moveToFirst()) {
-                    return cursor.getLong(cursor.getColumnIndex(Contract.Wallet.ID));
-                }
-            } finally {
-                cursor.close();
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
             }
         }
-        // if we reached this line, the wallet does not exists and we have to create it
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(Contract.Wallet.NAME, name);
-        contentValues.put(Contract.Wallet.ICON, generateRandomIcon(name));
-        contentValues.put(Contract.Wallet.CURRENCY, currencyUnit.getIso());
-        contentValues.put(Contract.Wallet.COUNT_IN_TOTAL, true);
-        contentValues.put(Contract.Wallet.START_MONEY, 0L);
-        contentValues.put(Contract.Wallet.ARCHIVED, false);
-        Uri result = contentResolver.insert(uri, contentValues);
-        if (result == null) {
-            throw new RuntimeException("Failed to create the new wallet");
-        }
-        return ContentUris.parseId(result);
-    }
-
-    private long getOrCreateCategory(ContentResolver contentResolver, String name, int direction) {
-        Uri uri = DataContentProvider.CONTENT_CATEGORIES;
-        Contract.CategoryType type = direction == Contract.Direction.INCOME ? Contract.CategoryType.INCOME : Contract.CategoryType.EXPENSE;
-        String[] projection = new String[] {Contract.Category.ID};
-        String selection = Contract.Category.NAME + " = ? AND (" + Contract.Category.TYPE + " = ? OR " + Contract.Category.TYPE + " = ?)";
-        String[] selectionArgs = new String[] {name,
-                String.valueOf(type.getValue()),
-                String.valueOf(Contract.CategoryType.SYSTEM)
-        };
-        String sortOrder = Contract.Category.ID + " DESC";
-        Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs, sortOrder);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the ids of all the entities of a table. The entities are sorted by id, so when more
+     * than one entity has the same name, the most recent one is used.
+     */
+    private Map<String, Long> loadIds(ContentResolver contentResolver, Uri uri, String idColumn, String nameColumn, String qualifierColumn) {
+        Map<String, Long> ids = new HashMap<>();
+        String[] projection = qualifierColumn != null ? new String[] {idColumn, nameColumn, qualifierColumn} : new String[] {idColumn, nameColumn};
+        Cursor cursor = contentResolver.query(uri, projection, null, null, idColumn + " ASC");
         if (cursor != null) {
             try {
-                if (cursor.moveToFirst()) {
-                    return cursor.getLong(cursor.getColumnIndex(Contract.Category.ID));
+                int idIndex = cursor.getColumnIndex(idColumn);
+                int nameIndex = cursor.getColumnIndex(nameColumn);
+                int qualifierIndex = qualifierColumn != null ? cursor.getColumnIndex(qualifierColumn) : -1;
+                while (cursor.moveToNext()) {
+                    String name = cursor.getString(nameIndex);
+                    String key = qualifierIndex >= 0 ? getKey(cursor.getString(qualifierIndex), name) : name;
+                    ids.put(key, cursor.getLong(idIndex));
                 }
             } finally {
                 cursor.close();
             }
         }
-        // if we reached this line, the category does not exists and we have to create it
-        ContentValues contentValues = new ContentValues();
-        contentValues.put(Contract.Category.NAME, name);
-        contentValues.put(Contract.Category.ICON, generateRandomIcon(name));
-        contentValues.put(Contract.Category.TYPE, type.getValue());
-        contentValues.putNull(Contract.Category.PARENT);
-        contentValues.put(Contract.Category.SHOW_REPORT, true);
-        Uri result = contentResolver.insert(uri, contentValues);
-        if (result == null) {
-            throw new RuntimeException("Failed to create the new category");
-        }
-        return ContentUris.parseId(result);
-    }
-
-    private Long getEvent(ContentResolver contentResolver, String name) {
-        if (!TextUtils.isEmpty(name)) {
-            Uri uri = DataContentProvider.CONTENT_EVENTS;
-            String[] projection = new String[] {Contract.Event.ID};
-            String selection = Contract.Event.NAME + " = ?";
-            String[] selectionArgs = new String[] {name};
-            String sortOrder = Contract.Event.ID + " DESC";
-            Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs, sortOrder);
-            if (cursor != null) {
-                try {
-                    if (cursor.moveToFirst()) {
-                        return cursor.getLong(cursor.getColumnIndex(Contract.Event.ID));
-                    }
-                } finally {
-                    cursor.close();
+        return ids;
+    }
+
+    private static String getKey(String qualifier, String name) {
+        return qualifier + ":" + name;
+    }
+
+    private void addTransaction(ImportRecord record) {
+        int direction = record.getMoney() < 0 ? Contract.Direction.EXPENSE : Contract.Direction.INCOME;
+        String wallet = record.getWallet();
+        String category = record.getCategory();
+        String event = record.getEvent();
+        String place = record.getPlace();
+        String people = record.getPeople();
+        Contract.CategoryType categoryType = direction == Contract.Direction.INCOME ? Contract.CategoryType.INCOME : Contract.CategoryType.EXPENSE;
+        PendingTransaction transaction = new PendingTransaction();
+        // the wallet is identified by name and currency while the category by name and type:
+        // when they are not found, they are created before the transactions of the chunk
+        transaction.mWalletKey = getKey(record.getCurrency(), wallet);
+        requireWallet(transaction.mWalletKey, wallet, record.getCurrency());
+        transaction.mCategoryKey = getCategoryKey(category, categoryType);
+        requireCategory(transaction.mCategoryKey, category, categoryType);
+        // the event is only linked if it exists because we cannot know the date range
+        transaction.mEventId = !TextUtils.isEmpty(event) ? mEventIds.get(event) : null;
+        if (!TextUtils.isEmpty(place)) {
+            transaction.mPlaceKey = place;
+            requirePlace(place);
+        }
+        if (!TextUtils.isEmpty(people)) {
+            List<String> personKeys = new ArrayList<>();
+            for (String person : people.split(",")) {
+                String name = person.trim();
+                if (!TextUtils.isEmpty(name)) {
+                    personKeys.add(name);
+                    requirePerson(name);
                 }
             }
+            transaction.mPersonKeys = personKeys;
         }
-        return null;
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Contract.Transaction.DATE, record.getDateTime());
+        contentValues.put(Contract.Transaction.DIRECTION, direction);
+        contentValues.put(Contract.Transaction.MONEY, Math.abs(record.getMoney()));
+        contentValues.put(Contract.Transaction.DESCRIPTION, record.getDescription());
+        contentValues.put(Contract.Transaction.NOTE, record.getNote());
+        contentValues.put(Contract.Transaction.TYPE, Contract.TransactionType.STANDARD);
+        contentValues.put(Contract.Transaction.CONFIRMED, true);
+        contentValues.put(Contract.Transaction.COUNT_IN_TOTAL, true);
+        transaction.mContentValues = contentValues;
+        mPendingTransactions.add(transaction);
     }
 
-    private Long getOrCreatePlace(ContentResolver contentResolver, String name) {
-        if (!TextUtils.isEmpty(name)) {
-            Uri uri = DataContentProvider.CONTENT_PLACES;
-            String[] projection = new String[] {Contract.Place.ID};
-            String selection = Contract.Place.NAME + " = ?";
-            String[] selectionArgs = new String[] {name};
-            String sortOrder = Contract.Place.ID + " DESC";
-            Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs, sortOrder);
-            if (cursor != null) {
-                try {
-                    if (cursor.moveToFirst()) {
-                        return cursor.getLong(cursor.getColumnIndex(Contract.Place.ID));
-                    }
-                } finally {
-                    cursor.close();
-                }
+    /**
+     * The category is matched by name and type. If there is no such category, a system category
+     * with the same name is used (the exporter writes them too, for example in the transfers).
+     */
+    private String getCategoryKey(String name, Contract.CategoryType type) {
+        String key = getKey(String.valueOf(type.getValue()), name);
+        if (!mCategoryIds.containsKey(key)) {
+            String systemKey = getKey(String.valueOf(Contract.CategoryType.SYSTEM.getValue()), name);
+            if (mCategoryIds.containsKey(systemKey)) {
+                return systemKey;
             }
-            // if we reached this line, the place does not exists and we have to create it
+        }
+        return key;
+    }
+
+    private void requireWallet(String key, String name, String currency) {
+        if (!mWalletIds.containsKey(key)) {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Wallet.NAME, name);
+            contentValues.put(Contract.Wallet.ICON, generateRandomIcon(name));
+            contentValues.put(Contract.Wallet.CURRENCY, currency);
+            contentValues.put(Contract.Wallet.COUNT_IN_TOTAL, true);
+            contentValues.put(Contract.Wallet.START_MONEY, 0L);
+            contentValues.put(Contract.Wallet.ARCHIVED, false);
+            addPendingEntity(mWalletIds, key, DataContentProvider.CONTENT_WALLETS, contentValues);
+        }
+    }
+
+    private void requireCategory(String key, String name, Contract.CategoryType type) {
+        if (!mCategoryIds.containsKey(key)) {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Category.NAME, name);
+            contentValues.put(Contract.Category.ICON, generateRandomIcon(name));
+            contentValues.put(Contract.Category.TYPE, type.getValue());
+            contentValues.putNull(Contract.Category.PARENT);
+            contentValues.put(Contract.Category.SHOW_REPORT, true);
+            addPendingEntity(mCategoryIds, key, DataContentProvider.CONTENT_CATEGORIES, contentValues);
+        }
+    }
+
+    private void requirePlace(String name) {
+        if (!mPlaceIds.containsKey(name)) {
             ContentValues contentValues = new ContentValues();
             contentValues.put(Contract.Place.NAME, name);
             contentValues.put(Contract.Place.ICON, generateRandomIcon(name));
             contentValues.putNull(Contract.Place.ADDRESS);
             contentValues.putNull(Contract.Place.LATITUDE);
             contentValues.putNull(Contract.Place.LONGITUDE);
-            Uri result = contentResolver.insert(uri, contentValues);
-            if (result == null) {
-                throw new RuntimeException("Failed to create the new place");
-            }
-            return ContentUris.parseId(result);
+            addPendingEntity(mPlaceIds, name, DataContentProvider.CONTENT_PLACES, contentValues);
         }
-        return null;
     }
 
-    private String getOrCreatePeople(ContentResolver contentResolver, String people) {
-        if (!TextUtils.isEmpty(people)) {
-            List<Long> peopleIds = new ArrayList<>();
-            for (String person : people.split(",")) {
-                String name = person.trim();
-                if (!TextUtils.isEmpty(name)) {
-                    boolean personFound = false;
-                    Uri uri = DataContentProvider.CONTENT_PEOPLE;
-                    String[] projection = new String[] {Contract.Person.ID};
-                    String selection = Contract.Person.NAME + " = ?";
-                    String[] selectionArgs = new String[] {name};
-                    String sortOrder = Contract.Person.ID + " DESC";
-                    Cursor cursor = contentResolver.query(uri, projection, selection, selectionArgs, sortOrder);
-                    if (cursor != null) {
-                        try {
-                            if (cursor.moveToFirst()) {
-                                personFound = true;
-                                peopleIds.add(cursor.getLong(cursor.getColumnIndex(Contract.Person.ID)));
-                            }
-                        } finally {
-                            cursor.close();
-                        }
-                    }
-                    if (!personFound) {
-                        ContentValues contentValues = new ContentValues();
-                        contentValues.put(Contract.Person.NAME, name);
-                        contentValues.put(Contract.Person.ICON, name);
-                        contentValues.putNull(Contract.Person.NOTE);
-                        Uri result = contentResolver.insert(uri, contentValues);
-                        if (result == null) {
-                            throw new RuntimeException("Failed to create the new person");
-                        }
-                        peopleIds.add(ContentUris.parseId(result));
-                    }
-                }
+    private void requirePerson(String name) {
+        if (!mPersonIds.containsKey(name)) {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Person.NAME, name);
+            contentValues.put(Contract.Person.ICON, name);
+            contentValues.putNull(Contract.Person.NOTE);
+            addPendingEntity(mPersonIds, name, DataContentProvider.CONTENT_PEOPLE, contentValues);
+        }
+    }
+
+    /**
+     * The key is stored without id so the same entity is created only once: the id is set when
+     * the chunk is flushed.
+     */
+    private void addPendingEntity(Map<String, Long> ids, String key, Uri uri, ContentValues contentValues) {
+        ids.put(key, null);
+        mPendingEntities.add(new PendingEntity(ids, key, ContentProviderOperation.newInsert(uri).withValues(contentValues).build()));
+    }
+
+    private void flushTransactions(ContentResolver contentResolver) throws IOException {
+        if (!mPendingEntities.isEmpty()) {
+            ArrayList<ContentProviderOperation> operations = new ArrayList<>(mPendingEntities.size());
+            for (PendingEntity entity : mPendingEntities) {
+                operations.add(entity.mOperation);
             }
-            if (!peopleIds.isEmpty()) {
-                StringBuilder peopleIdBuilder = new StringBuilder();
-                for (int i = 0; i < peopleIds.size(); i++) {
-                    if (i != 0) {
-                        peopleIdBuilder.append(",");
-                    }
-                    peopleIdBuilder.append(String.format(Locale.ENGLISH, "<%d>", peopleIds.get(i)));
+            ContentProviderResult[] results = applyBatch(contentResolver, operations);
+            for (int i = 0; i < results.length; i++) {
+                PendingEntity entity = mPendingEntities.get(i);
+                entity.mIds.put(entity.mKey, ContentUris.parseId(results[i].uri));
+            }
+            mPendingEntities.clear();
+        }
+        if (!mPendingTransactions.isEmpty()) {
+            ArrayList<ContentProviderOperation> operations = new ArrayList<>(mPendingTransactions.size());
+            for (PendingTransaction transaction : mPendingTransactions) {
+                ContentValues contentValues = transaction.mContentValues;
+                contentValues.put(Contract.Transaction.WALLET_ID, mWalletIds.get(transaction.mWalletKey));
+                contentValues.put(Contract.Transaction.CATEGORY_ID, mCategoryIds.get(transaction.mCategoryKey));
+                contentValues.put(Contract.Transaction.EVENT_ID, transaction.mEventId);
+                contentValues.put(Contract.Transaction.PLACE_ID, transaction.mPlaceKey != null ? mPlaceIds.get(transaction.mPlaceKey) : null);
+                contentValues.put(Contract.Transaction.PEOPLE_IDS, getPeopleIds(transaction.mPersonKeys));
+                operations.add(ContentProviderOperation.newInsert(DataContentProvider.CONTENT_TRANSACTIONS).withValues(contentValues).build());
+            }
+            applyBatch(contentResolver, operations);
+            mImportedRows += operations.size();
+            mPendingTransactions.clear();
+            notifyProgress(false);
+        }
+    }
+
+    private ContentProviderResult[] applyBatch(ContentResolver contentResolver, ArrayList<ContentProviderOperation> operations) throws IOException {
+        try {
+            return contentResolver.applyBatch(DataContentProvider.CONTENT_TRANSACTIONS.getAuthority(), operations);
+        } catch (RemoteException | OperationApplicationException e) {
+            throw new IOException("Failed to write the imported data: " + e.getMessage(), e);
+        }
+    }
+
+    private String getPeopleIds(List<String> personKeys) {
+        if (personKeys != null && !personKeys.isEmpty()) {
+            StringBuilder peopleIdBuilder = new StringBuilder();
+            for (int i = 0; i < personKeys.size(); i++) {
+                if (i != 0) {
+                    peopleIdBuilder.append(",");
                 }
-                return peopleIdBuilder.toString();
+                peopleIdBuilder.append(String.format(Locale.ENGLISH, "<%d>", mPersonIds.get(personKeys.get(i))));
             }
+            return peopleIdBuilder.toString();
         }
         return null;
     }
 
+    private void notifyProgress(boolean force) {
+        if (mProgressListener != null) {
+            long now = SystemClock.elapsedRealtime();
+            if (force || now - mLastProgressTime >= PROGRESS_INTERVAL_MILLIS) {
+                long elapsed = Math.max(1L, now - mStartTime);
+                mProgressListener.onProgress(mImportedRows, mImportedRows * 1000L / elapsed);
+                mLastProgressTime = now;
+            }
+        }
+    }
+
     private String generateRandomIcon(String name) {
         int randomColor = Utils.getRandomMDColor();
         String iconText = IconPicker.getColorIconString(name);
@@ -252,4 +375,81 @@ public abstract class AbstractDataImporter {
     }
 
     public abstract void close() throws IOException;
-}
\ No newline at end of file
+
+    public interface ProgressListener {
+
+        /**
+         * Called after each written chunk, at most twice per second, and at the end.
+         * @param rows imported so far.
+         * @param rowsPerSecond average speed of the import.
+         */
+        void onProgress(long rows, long rowsPerSecond);
+    }
+
+    /**
+     * The thread that reads the file: the records are grouped in chunks and put inside the
+     * queue, that ends with {@link #END_OF_DATA}. The errors and the failure are read by the
+     * writer only after the thread has been joined.
+     */
+    private class Parser extends Thread {
+
+        private final BlockingQueue<List<ImportRecord>> mQueue;
+        private final List<ImportError> mRowErrors = new ArrayList<>();
+        private Throwable mFailure;
+
+        private Parser(BlockingQueue<List<ImportRecord>> queue) {
+            super("DataImporterParser");
+            mQueue = queue;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    List<ImportRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+                    ImportRecord record = readRecord(mRowErrors);
+                    while (record != null) {
+                        chunk.add(record);
+                        if (chunk.size() == CHUNK_SIZE) {
+                            mQueue.put(chunk);
+                            chunk = new ArrayList<>(CHUNK_SIZE);
+                        }
+                        record = readRecord(mRowErrors);
+                    }
+                    if (!chunk.isEmpty()) {
+                        mQueue.put(chunk);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    mFailure = e;
+                }
+                // the writer is still draining the queue unless it has interrupted the parser
+                mQueue.put(END_OF_DATA);
+            } catch (InterruptedException ignore) {
+                // the writer has stopped: nobody is waiting for the end of the data
+            }
+        }
+    }
+
+    private static class PendingEntity {
+
+        private final Map<String, Long> mIds;
+        private final String mKey;
+        private final ContentProviderOperation mOperation;
+
+        private PendingEntity(Map<String, Long> ids, String key, ContentProviderOperation operation) {
+            mIds = ids;
+            mKey = key;
+            mOperation = operation;
+        }
+    }
+
+    private static class PendingTransaction {
+
+        private ContentValues mContentValues;
+        private String mWalletKey;
+        private String mCategoryKey;
+        private Long mEventId;
+        private String mPlaceKey;
+        private List<String> mPersonKeys;
+    }
+}
@@ -0,0 +1,238 @@
+package com.oriondev.moneywallet.storage.database.data;
+
+import android.database.Cursor;
+import android.text.TextUtils;
+
+import androidx.collection.LongSparseArray;
+
+import com.oriondev.moneywallet.model.CurrencyUnit;
+import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.utils.CurrencyManager;
+import com.oriondev.moneywallet.utils.MoneyFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The columns of an export compiled once for a cursor. Each column is resolved to a cell that
+ * already knows the indices of the cursor columns it reads, so the rows are exported without
+ * looking up column names, currencies or ids for each cell. The values of the current row are
+ * written inside a buffer that is reused for all the rows of the cursor.
+ */
+public class ExportPlan {
+
+    /**
+     * Names of the exported columns: they are the same for all the formats.
+     */
+    public static final String COLUMN_WALLET = "wallet";
+    public static final String COLUMN_CURRENCY = "currency";
+    public static final String COLUMN_CATEGORY = "category";
+    public static final String COLUMN_DATETIME = "datetime";
+    public static final String COLUMN_MONEY = "money";
+    public static final String COLUMN_DESCRIPTION = "description";
+    public static final String COLUMN_EVENT = "event";
+    public static final String COLUMN_PEOPLE = "people";
+    public static final String COLUMN_PLACE = "place";
+    public static final String COLUMN_NOTE = "note";
+
+    private final Cell[] mCells;
+    private final String[] mRow;
+
+    private ExportPlan(List<Cell> cells) {
+        mCells = cells.toArray(new Cell[cells.size()]);
+        mRow = new String[mCells.length];
+    }
+
+    public int getColumnCount() {
+        return mCells.length;
+    }
+
+    /**
+     * Read the values of the current row of the cursor.
+     * @return the row buffer: it is overwritten by the next call, so it must not be stored.
+     */
+    public String[] readRow(Cursor cursor) {
+        for (int i = 0; i < mCells.length; i++) {
+            mRow[i] = mCells[i].read(cursor);
+        }
+        return mRow;
+    }
+
+    /**
+     * The builder is created by the {@link AbstractDataExporter} that owns the cache of the
+     * people names. The cells must be added in the same order of the exported columns.
+     */
+    public static class Builder {
+
+        private final Cursor mCursor;
+        private final LongSparseArray<String> mPeopleNames;
+        private final List<Cell> mCells = new ArrayList<>();
+
+        /*package-local*/ Builder(Cursor cursor, LongSparseArray<String> peopleNames) {
+            mCursor = cursor;
+            mPeopleNames = peopleNames;
+        }
+
+        /**
+         * Add a column that is exported as it is stored inside the cursor.
+         */
+        public Builder addString(String column) {
+            mCells.add(new StringCell(mCursor.getColumnIndexOrThrow(column)));
+            return this;
+        }
+
+        /**
+         * Add the signed amount of the transaction formatted with the currency of its wallet.
+         */
+        public Builder addMoney(MoneyFormatter moneyFormatter) {
+            mCells.add(new MoneyCell(
+                    mCursor.getColumnIndexOrThrow(Contract.Transaction.MONEY),
+                    mCursor.getColumnIndexOrThrow(Contract.Transaction.DIRECTION),
+                    mCursor.getColumnIndexOrThrow(Contract.Transaction.WALLET_ID),
+                    mCursor.getColumnIndexOrThrow(Contract.Transaction.WALLET_CURRENCY),
+                    moneyFormatter
+            ));
+            return this;
+        }
+
+        /**
+         * Add the names of the people of the transaction.
+         * @param separator placed between two names.
+         */
+        public Builder addPeople(String separator) {
+            mCells.add(new PeopleCell(mCursor.getColumnIndexOrThrow(Contract.Transaction.PEOPLE_IDS), mPeopleNames, separator));
+            return this;
+        }
+
+        public ExportPlan build() {
+            return new ExportPlan(mCells);
+        }
+    }
+
+    private interface Cell {
+
+        String read(Cursor cursor);
+    }
+
+    private static class StringCell implements Cell {
+
+        private final int mIndex;
+
+        private StringCell(int index) {
+            mIndex = index;
+        }
+
+        @Override
+        public String read(Cursor cursor) {
+            return cursor.getString(mIndex);
+        }
+    }
+
+    /**
+     * The currency is resolved once for each wallet: the wallet id is read as a long, so the
+     * currency code is read and interned only for the first row of each wallet. The other rows
+     * read the currency from the array of the currency manager with its id.
+     */
+    private static class MoneyCell implements Cell {
+
+        private final int mMoneyIndex;
+        private final int mDirectionIndex;
+        private final int mWalletIndex;
+        private final int mCurrencyIndex;
+        private final MoneyFormatter mMoneyFormatter;
+        private final LongSparseArray<Integer> mCurrencyIds = new LongSparseArray<>();
+
+        private MoneyCell(int moneyIndex, int directionIndex, int walletIndex, int currencyIndex, MoneyFormatter moneyFormatter) {
+            mMoneyIndex = moneyIndex;
+            mDirectionIndex = directionIndex;
+            mWalletIndex = walletIndex;
+            mCurrencyIndex = currencyIndex;
+            mMoneyFormatter = moneyFormatter;
+        }
+
+        @Override
+        public String read(Cursor cursor) {
+            long walletId = cursor.getLong(mWalletIndex);
+            int currencyId;
+            int index = mCurrencyIds.indexOfKey(walletId);
+            if (index >= 0) {
+                currencyId = mCurrencyIds.valueAt(index);
+            } else {
+                // an unknown currency is cached as an invalid id too
+                currencyId = CurrencyManager.getCurrencyId(cursor.getString(mCurrencyIndex));
+                mCurrencyIds.put(walletId, currencyId);
+            }
+            CurrencyUnit currencyUnit = CurrencyManager.getCurrency(currencyId);
+            long money = cursor.getLong(mMoneyIndex);
+            if (cursor.getInt(mDirectionIndex) == Contract.Direction.EXPENSE) {
+                money *= -1;
+            }
+            return mMoneyFormatter.getNotTintedString(currencyUnit, money);
+        }
+    }
+
+    /**
+     * The ids are decoded directly from the encoded string (&lt;1&gt;,&lt;2&gt;) without
+     * creating a list of boxed ids for each row.
+     */
+    private static class PeopleCell implements Cell {
+
+        private final int mIndex;
+        private final LongSparseArray<String> mNames;
+        private final String mSeparator;
+        private final StringBuilder mBuilder = new StringBuilder();
+
+        private PeopleCell(int index, LongSparseArray<String> names, String separator) {
+            mIndex = index;
+            mNames = names;
+            mSeparator = separator;
+        }
+
+        @Override
+        public String read(Cursor cursor) {
+            String encodedIds = cursor.getString(mIndex);
+            if (TextUtils.isEmpty(encodedIds)) {
+                return null;
+            }
+            mBuilder.setLength(0);
+            boolean found = false;
+            int start = 0;
+            while (start < encodedIds.length()) {
+                int end = encodedIds.indexOf(',', start);
+                if (end < 0) {
+                    end = encodedIds.length();
+                }
+                if (end - start > 2 && encodedIds.charAt(start) == '<' && encodedIds.charAt(end - 1) == '>') {
+                    long id = parseId(encodedIds, start + 1, end - 1);
+                    if (id >= 0) {
+                        found = true;
+                        String name = mNames.get(id);
+                        if (!TextUtils.isEmpty(name)) {
+                            if (mBuilder.length() > 0) {
+                                mBuilder.append(mSeparator);
+                            }
+                            mBuilder.append(name);
+                        }
+                    }
+                }
+                start = end + 1;
+            }
+            return found ? mBuilder.toString() : null;
+        }
+
+        /**
+         * @return the id or -1 if the characters are not a valid id.
+         */
+        private static long parseId(String string, int start, int end) {
+            long id = 0L;
+            for (int i = start; i < end; i++) {
+                char c = string.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1L;
+                }
+                id = id * 10L + (c - '0');
+            }
+            return id;
+        }
+    }
+}
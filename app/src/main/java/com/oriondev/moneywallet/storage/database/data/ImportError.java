@@ -0,0 +1,30 @@
+package com.oriondev.moneywallet.storage.database.data;
+
+import java.util.Locale;
+
+/**
+ * A row of an imported file that has been skipped because it is not valid.
+ */
+public class ImportError {
+
+    private final long mRow;
+    private final String mMessage;
+
+    public ImportError(long row, String message) {
+        mRow = row;
+        mMessage = message;
+    }
+
+    public long getRow() {
+        return mRow;
+    }
+
+    public String getMessage() {
+        return mMessage;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH, "#%d: %s", mRow, mMessage);
+    }
+}
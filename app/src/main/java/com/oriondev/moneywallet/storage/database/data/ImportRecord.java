@@ -0,0 +1,88 @@
+package com.oriondev.moneywallet.storage.database.data;
+
+/**
+ * A row of an imported file that has already been validated and normalized by the parser:
+ * the writer only has to resolve the names to the ids of the database. It does not depend on
+ * the android framework, so the parsers can be measured on a plain jvm.
+ */
+public class ImportRecord {
+
+    private final long mRow;
+    private final String mWallet;
+    private final String mCurrency;
+    private final String mCategory;
+    private final String mDateTime;
+    private final long mMoney;
+    private final String mDescription;
+    private final String mEvent;
+    private final String mPlace;
+    private final String mPeople;
+    private final String mNote;
+
+    /**
+     * @param row index of the row inside the file, starting from 1.
+     * @param currency iso code of the currency of the wallet.
+     * @param dateTime date in sql format (yyyy-MM-dd HH:mm:ss).
+     * @param money signed amount in the smallest unit of the currency: negative for expenses.
+     * @param people comma separated names of the people or null.
+     */
+    public ImportRecord(long row, String wallet, String currency, String category, String dateTime,
+                        long money, String description, String event, String place, String people,
+                        String note) {
+        mRow = row;
+        mWallet = wallet;
+        mCurrency = currency;
+        mCategory = category;
+        mDateTime = dateTime;
+        mMoney = money;
+        mDescription = description;
+        mEvent = event;
+        mPlace = place;
+        mPeople = people;
+        mNote = note;
+    }
+
+    public long getRow() {
+        return mRow;
+    }
+
+    public String getWallet() {
+        return mWallet;
+    }
+
+    public String getCurrency() {
+        return mCurrency;
+    }
+
+    public String getCategory() {
+        return mCategory;
+    }
+
+    public String getDateTime() {
+        return mDateTime;
+    }
+
+    public long getMoney() {
+        return mMoney;
+    }
+
+    public String getDescription() {
+        return mDescription;
+    }
+
+    public String getEvent() {
+        return mEvent;
+    }
+
+    public String getPlace() {
+        return mPlace;
+    }
+
+    public String getPeople() {
+        return mPeople;
+    }
+
+    public String getNote() {
+        return mNote;
+    }
+}
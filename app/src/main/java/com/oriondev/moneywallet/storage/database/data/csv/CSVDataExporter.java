@@ -2,15 +2,12 @@ package com.oriondev.moneywallet.storage.database.data.csv;
 
 import android.content.Context;
 import android.database.Cursor;
-import android.text.TextUtils;
 
 import com.opencsv.CSVParserWriter;
 import com.opencsv.CSVWriter;
-import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.Wallet;
-import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
-import com.oriondev.moneywallet.utils.CurrencyManager;
+import com.oriondev.moneywallet.storage.database.data.ExportPlan;
 import com.oriondev.moneywallet.utils.MoneyFormatter;
 
 import java.io.File;
@@ -87,66 +84,10 @@ public class CSVDataExporter extends AbstractDataExporter {
     public void exportData(Cursor cursor, String[] columns, Wallet... wallets) throws IOException {
         // initialize the header line
         mWriter.writeNext(columns);
-        // export all the rows
+        // export all the rows: the writer does not keep the row buffer of the plan
+        ExportPlan exportPlan = compileExportPlan(cursor, columns, mMoneyFormatter, ",");
         while (cursor.moveToNext()) {
-            // for each row, we need to export all the fields as string
-            String[] csvRow = new String[columns.length];
-            for (int i = 0; i < columns.length; i++) {
-                switch (columns[i]) {
-                    case Constants.COLUMN_WALLET:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_NAME));
-                        break;
-                    case Constants.COLUMN_CURRENCY:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_CURRENCY));
-                        break;
-                    case Constants.COLUMN_CATEGORY:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.CATEGORY_NAME));
-                        break;
-                    case Constants.COLUMN_DATETIME:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DATE));
-                        break;
-                    case Constants.COLUMN_MONEY:
-                        CurrencyUnit currencyUnit = CurrencyManager.getCurrency(cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_CURRENCY)));
-                        long money = cursor.getLong(cursor.getColumnIndex(Contract.Transaction.MONEY));
-                        int direction = cursor.getInt(cursor.getColumnIndex(Contract.Transaction.DIRECTION));
-                        if (direction == Contract.Direction.EXPENSE) {
-                            money *= -1;
-                        }
-                        csvRow[i] = mMoneyFormatter.getNotTintedString(currencyUnit, money);
-                        break;
-                    case Constants.COLUMN_DESCRIPTION:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DESCRIPTION));
-                        break;
-                    case Constants.COLUMN_EVENT:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.EVENT_NAME));
-                        break;
-                    case Constants.COLUMN_PEOPLE:
-                        List<Long> peopleIds = Contract.parseObjectIds(cursor.getString(cursor.getColumnIndex(Contract.Transaction.PEOPLE_IDS)));
-                        if (peopleIds != null && !peopleIds.isEmpty()) {
-                            StringBuilder builder = new StringBuilder();
-                            for (Long personId : peopleIds) {
-                                String name = getPersonName(personId);
-                                if (!TextUtils.isEmpty(name)) {
-                                    if (builder.length() > 0) {
-                                        builder.append(",");
-                                    }
-                                    builder.append(name);
-                                }
-                            }
-                            csvRow[i] = builder.toString();
-                        } else {
-                            csvRow[i] = null;
-                        }
-                        break;
-                    case Constants.COLUMN_PLACE:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.PLACE_NAME));
-                        break;
-                    case Constants.COLUMN_NOTE:
-                        csvRow[i] = cursor.getString(cursor.getColumnIndex(Contract.Transaction.NOTE));
-                        break;
-                }
-            }
-            mWriter.writeNext(csvRow);
+            mWriter.writeNext(exportPlan.readRow(cursor));
         }
     }
 
@@ -0,0 +1,121 @@
+package com.oriondev.moneywallet.storage.database.data.csv;
+
+import com.opencsv.CSVReaderHeaderAware;
+import com.oriondev.moneywallet.storage.database.data.ImportError;
+import com.oriondev.moneywallet.storage.database.data.ImportRecord;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class turns the rows of a csv file into import records. The rows that are not valid are
+ * skipped and reported as errors, only a file without the required columns stops the import.
+ * It does not depend on the android framework: the currencies are passed as a map from the iso
+ * code to the number of decimals.
+ */
+/*package-local*/ class CSVRecordParser implements Closeable {
+
+    private static final String[] REQUIRED_COLUMNS = new String[] {
+            Constants.COLUMN_WALLET,
+            Constants.COLUMN_CURRENCY,
+            Constants.COLUMN_CATEGORY,
+            Constants.COLUMN_DATETIME,
+            Constants.COLUMN_MONEY
+    };
+
+    private final CSVReaderHeaderAware mReader;
+    private final Map<String, Integer> mCurrencyDecimals;
+    private long mRow;
+
+    /*package-local*/ CSVRecordParser(Reader reader, Map<String, Integer> currencyDecimals) throws IOException {
+        mReader = new CSVReaderHeaderAware(reader);
+        mCurrencyDecimals = currencyDecimals;
+    }
+
+    /**
+     * Read the next valid row of the file.
+     * @param errors list where the skipped rows are added.
+     * @return the next record or null if the end of the file is reached.
+     */
+    /*package-local*/ ImportRecord next(List<ImportError> errors) throws IOException {
+        Map<String, String> lineMap = mReader.readMap();
+        while (lineMap != null) {
+            mRow++;
+            if (mRow == 1L) {
+                checkColumns(lineMap);
+            }
+            try {
+                return parse(lineMap);
+            } catch (IllegalArgumentException e) {
+                errors.add(new ImportError(mRow, e.getMessage()));
+            }
+            lineMap = mReader.readMap();
+        }
+        return null;
+    }
+
+    private void checkColumns(Map<String, String> lineMap) throws IOException {
+        for (String column : REQUIRED_COLUMNS) {
+            if (!lineMap.containsKey(column)) {
+                throw new IOException("Invalid csv file: the required column '" + column + "' is missing");
+            }
+        }
+    }
+
+    private ImportRecord parse(Map<String, String> lineMap) {
+        // extract required information from the csv file
+        String wallet = getTrimmedString(lineMap.get(Constants.COLUMN_WALLET));
+        String currency = getTrimmedString(lineMap.get(Constants.COLUMN_CURRENCY));
+        String category = getTrimmedString(lineMap.get(Constants.COLUMN_CATEGORY));
+        String datetimeString = getTrimmedString(lineMap.get(Constants.COLUMN_DATETIME));
+        String moneyString = getTrimmedString(lineMap.get(Constants.COLUMN_MONEY));
+        if (isEmpty(wallet) || isEmpty(currency) || isEmpty(category) || isEmpty(datetimeString) || isEmpty(moneyString)) {
+            throw new IllegalArgumentException("One or more required values are missing");
+        }
+        // try to build the internal transaction state starting from strings
+        Integer decimals = mCurrencyDecimals.get(currency);
+        if (decimals == null) {
+            throw new IllegalArgumentException("Unknown currency unit (" + currency + ")");
+        }
+        long money;
+        try {
+            money = new BigDecimal(moneyString.replace(',', '.')).movePointRight(decimals).longValue();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid money amount (" + moneyString + ")");
+        }
+        Date datetime;
+        try {
+            datetime = DateUtils.getDateFromSQLDateTimeString(datetimeString);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid date (" + datetimeString + ")");
+        }
+        return new ImportRecord(mRow, wallet, currency, category, DateUtils.getSQLDateTimeString(datetime), money,
+                getTrimmedString(lineMap.get(Constants.COLUMN_DESCRIPTION)),
+                getTrimmedString(lineMap.get(Constants.COLUMN_EVENT)),
+                getTrimmedString(lineMap.get(Constants.COLUMN_PLACE)),
+                getTrimmedString(lineMap.get(Constants.COLUMN_PEOPLE)),
+                getTrimmedString(lineMap.get(Constants.COLUMN_NOTE)));
+    }
+
+    private static String getTrimmedString(String source) {
+        if (source != null) {
+            return source.trim();
+        }
+        return null;
+    }
+
+    private static boolean isEmpty(String string) {
+        return string == null || string.isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+}
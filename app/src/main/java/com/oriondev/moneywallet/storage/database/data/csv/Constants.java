@@ -2,6 +2,9 @@ package com.oriondev.moneywallet.storage.database.data.csv;
 
 /**
  * Created by andrea on 21/12/18.
+ *
+ * The names must be the same of the columns of the ExportPlan, but they are not read from it:
+ * this class is also compiled by the benchmarks, that do not have the android classes.
  */
 
 /*package-local*/ class Constants {
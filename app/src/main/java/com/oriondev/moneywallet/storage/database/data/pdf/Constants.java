@@ -1,17 +1,19 @@
 package com.oriondev.moneywallet.storage.database.data.pdf;
 
+import com.oriondev.moneywallet.storage.database.data.ExportPlan;
+
 /**
  * Created by andrea on 22/12/18.
  */
 /*package-local*/ class Constants {
 
-    /*package-local*/ static final String COLUMN_DATETIME = "datetime";
-    /*package-local*/ static final String COLUMN_CATEGORY = "category";
-    /*package-local*/ static final String COLUMN_MONEY = "money";
-    /*package-local*/ static final String COLUMN_WALLET = "wallet";
-    /*package-local*/ static final String COLUMN_DESCRIPTION = "description";
-    /*package-local*/ static final String COLUMN_EVENT = "event";
-    /*package-local*/ static final String COLUMN_PEOPLE = "people";
-    /*package-local*/ static final String COLUMN_PLACE = "place";
-    /*package-local*/ static final String COLUMN_NOTE = "note";
+    /*package-local*/ static final String COLUMN_DATETIME = ExportPlan.COLUMN_DATETIME;
+    /*package-local*/ static final String COLUMN_CATEGORY = ExportPlan.COLUMN_CATEGORY;
+    /*package-local*/ static final String COLUMN_MONEY = ExportPlan.COLUMN_MONEY;
+    /*package-local*/ static final String COLUMN_WALLET = ExportPlan.COLUMN_WALLET;
+    /*package-local*/ static final String COLUMN_DESCRIPTION = ExportPlan.COLUMN_DESCRIPTION;
+    /*package-local*/ static final String COLUMN_EVENT = ExportPlan.COLUMN_EVENT;
+    /*package-local*/ static final String COLUMN_PEOPLE = ExportPlan.COLUMN_PEOPLE;
+    /*package-local*/ static final String COLUMN_PLACE = ExportPlan.COLUMN_PLACE;
+    /*package-local*/ static final String COLUMN_NOTE = ExportPlan.COLUMN_NOTE;
 }
\ No newline at end of file
@@ -2,7 +2,6 @@ package com.oriondev.moneywallet.storage.database.data.pdf;
 
 import android.content.Context;
 import android.database.Cursor;
-import android.text.TextUtils;
 
 import com.itextpdf.text.BaseColor;
 import com.itextpdf.text.Chapter;
@@ -14,6 +13,7 @@ import com.itextpdf.text.Font;
 import com.itextpdf.text.FontFactory;
 import com.itextpdf.text.PageSize;
 import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
 import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
 import com.oriondev.moneywallet.R;
@@ -21,23 +21,32 @@ import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.Wallet;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
+import com.oriondev.moneywallet.storage.database.data.ExportPlan;
 import com.oriondev.moneywallet.utils.CurrencyManager;
 import com.oriondev.moneywallet.utils.MoneyFormatter;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by andrea on 22/12/18.
  */
 public class PDFDataExporter extends AbstractDataExporter {
 
+    private static final int ROWS_PER_CHUNK = 50;
+
     private final File mOutputFile;
     private final Document mDocument;
     private final MoneyFormatter mMoneyFormatter;
+    private final Font mChapterFont;
+    private final Font mCellFont;
 
     private boolean mShouldLoadPeople = false;
     private int mChapterCount = 0;
@@ -46,9 +55,11 @@ public class PDFDataExporter extends AbstractDataExporter {
         super(context, folder);
         mOutputFile = new File(folder, getDefaultFileName(".pdf"));
         mMoneyFormatter = MoneyFormatter.getInstance();
+        mChapterFont = FontFactory.getFont(FontFactory.HELVETICA, 16, Font.BOLDITALIC);
+        mCellFont = new Font();
         mDocument = new Document(PageSize.A4);
         try {
-            PdfWriter.getInstance(mDocument, new FileOutputStream(mOutputFile));
+            PdfWriter.getInstance(mDocument, new BufferedOutputStream(new FileOutputStream(mOutputFile)));
         } catch (DocumentException e) {
             throw new IOException(e);
         }
@@ -101,9 +112,8 @@ public class PDFDataExporter extends AbstractDataExporter {
     @Override
     public void exportData(Cursor cursor, String[] columns, Wallet... wallets) throws IOException {
         try {
-            Chapter chapter = createChapter(wallets);
-            chapter.add(createTable(cursor, columns));
-            mDocument.add(chapter);
+            mDocument.add(createChapter(wallets));
+            writeTable(cursor, columns);
         } catch (DocumentException e) {
             throw new IOException(e);
         }
@@ -121,81 +131,65 @@ public class PDFDataExporter extends AbstractDataExporter {
         } else {
             chapterTitleBuilder.append(getContext().getString(R.string.hint_unknown));
         }
-        Font font = FontFactory.getFont(FontFactory.HELVETICA, 16, Font.BOLDITALIC);
-        Chunk chunk = new Chunk(chapterTitleBuilder.toString(), font);
+        Chunk chunk = new Chunk(chapterTitleBuilder.toString(), mChapterFont);
         Paragraph paragraph = new Paragraph(chunk);
         paragraph.setSpacingAfter(30);
         return new Chapter(paragraph, ++mChapterCount);
     }
 
-    private PdfPTable createTable(Cursor cursor, String[] columns) throws DocumentException {
+    /**
+     * The table is written to the document in chunks of rows: the rows already written are
+     * released by the table, so the memory used does not depend on the size of the wallet.
+     * The subtotals of each wallet are computed in the same pass and written after the table.
+     */
+    private void writeTable(Cursor cursor, String[] columns) throws DocumentException {
         PdfPTable table = createTable(columns);
+        table.setComplete(false);
+        ExportPlan exportPlan = compileExportPlan(cursor, columns, mMoneyFormatter, ", ");
+        Subtotals subtotals = new Subtotals(cursor);
         for (int i = 0; i < cursor.getCount(); i++) {
             // move the cursor to the fixed position
             cursor.moveToPosition(i);
-            // for each line of the cursor, write a line in the sheet
-            for (String column : columns) {
-                String label = null;
-                switch (column) {
-                    case Constants.COLUMN_DATETIME:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DATE));
-                        break;
-                    case Constants.COLUMN_CATEGORY:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.CATEGORY_NAME));
-                        break;
-                    case Constants.COLUMN_MONEY:
-                        CurrencyUnit currencyUnit = CurrencyManager.getCurrency(cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_CURRENCY)));
-                        long money = cursor.getLong(cursor.getColumnIndex(Contract.Transaction.MONEY));
-                        int direction = cursor.getInt(cursor.getColumnIndex(Contract.Transaction.DIRECTION));
-                        if (direction == Contract.Direction.EXPENSE) {
-                            money *= -1;
-                        }
-                        label = mMoneyFormatter.getNotTintedString(currencyUnit, money);
-                        break;
-                    case Constants.COLUMN_WALLET:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_NAME));
-                        break;
-                    case Constants.COLUMN_DESCRIPTION:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DESCRIPTION));
-                        break;
-                    case Constants.COLUMN_EVENT:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.EVENT_NAME));
-                        break;
-                    case Constants.COLUMN_PEOPLE:
-                        List<Long> peopleIds = Contract.parseObjectIds(cursor.getString(cursor.getColumnIndex(Contract.Transaction.PEOPLE_IDS)));
-                        if (peopleIds != null && !peopleIds.isEmpty()) {
-                            StringBuilder builder = new StringBuilder();
-                            for (Long personId : peopleIds) {
-                                String name = getPersonName(personId);
-                                if (!TextUtils.isEmpty(name)) {
-                                    if (builder.length() > 0) {
-                                        builder.append(", ");
-                                    }
-                                    builder.append(name);
-                                }
-                            }
-                            label = builder.toString();
-                        } else {
-                            label = null;
-                        }
-                        break;
-                    case Constants.COLUMN_PLACE:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.PLACE_NAME));
-                        break;
-                    case Constants.COLUMN_NOTE:
-                        label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.NOTE));
-                        break;
-                }
-                table.addCell(label);
+            // for each line of the cursor, write a line in the table
+            for (String label : exportPlan.readRow(cursor)) {
+                table.addCell(new Phrase(label, mCellFont));
+            }
+            subtotals.add(cursor);
+            if ((i + 1) % ROWS_PER_CHUNK == 0) {
+                mDocument.add(table);
             }
         }
+        table.setComplete(true);
+        mDocument.add(table);
+        mDocument.add(createSubtotalTable(subtotals));
+    }
+
+    private PdfPTable createSubtotalTable(Subtotals subtotals) {
+        PdfPTable table = new PdfPTable(4);
+        table.setWidthPercentage(100f);
+        table.setSpacingBefore(20f);
+        table.getDefaultCell().setBackgroundColor(BaseColor.YELLOW);
+        table.getDefaultCell().setHorizontalAlignment(Element.ALIGN_CENTER);
+        Context context = getContext();
+        table.addCell(new Phrase(context.getString(R.string.hint_wallet), mCellFont));
+        table.addCell(new Phrase(context.getString(R.string.hint_incomes), mCellFont));
+        table.addCell(new Phrase(context.getString(R.string.hint_expenses), mCellFont));
+        table.addCell(new Phrase(context.getString(R.string.hint_total_sum), mCellFont));
+        table.getDefaultCell().setBackgroundColor(BaseColor.WHITE);
+        for (Subtotal subtotal : subtotals.getSubtotals()) {
+            table.addCell(new Phrase(subtotal.mWalletName, mCellFont));
+            table.addCell(new Phrase(mMoneyFormatter.getNotTintedString(subtotal.mCurrencyUnit, subtotal.mIncomes), mCellFont));
+            table.addCell(new Phrase(mMoneyFormatter.getNotTintedString(subtotal.mCurrencyUnit, -subtotal.mExpenses), mCellFont));
+            table.addCell(new Phrase(mMoneyFormatter.getNotTintedString(subtotal.mCurrencyUnit, subtotal.mIncomes - subtotal.mExpenses), mCellFont));
+        }
         return table;
     }
 
     private PdfPTable createTable(String[] columns) throws DocumentException {
-        // create the table with a fixed number of columns
+        // create the table with a fixed number of columns: the header is repeated on each page
         PdfPTable table = new PdfPTable(columns.length);
         table.setWidthPercentage(100f);
+        table.setHeaderRows(1);
         table.getDefaultCell().setBackgroundColor(BaseColor.YELLOW);
         table.getDefaultCell().setHorizontalAlignment(Element.ALIGN_CENTER);
         // initialize the table creating the header line
@@ -231,12 +225,66 @@ public class PDFDataExporter extends AbstractDataExporter {
                     label = context.getString(R.string.hint_note);
                     break;
             }
-            table.addCell(label);
+            table.addCell(new Phrase(label, mCellFont));
         }
         table.getDefaultCell().setBackgroundColor(BaseColor.WHITE);
         return table;
     }
 
+    private static class Subtotal {
+
+        private final String mWalletName;
+        private final CurrencyUnit mCurrencyUnit;
+        private long mIncomes;
+        private long mExpenses;
+
+        private Subtotal(String walletName, CurrencyUnit currencyUnit) {
+            mWalletName = walletName;
+            mCurrencyUnit = currencyUnit;
+        }
+    }
+
+    /**
+     * The subtotals of the wallets found inside the cursor, in order of appearance.
+     */
+    private static class Subtotals {
+
+        private final int mWalletIdIndex;
+        private final int mWalletNameIndex;
+        private final int mWalletCurrencyIndex;
+        private final int mMoneyIndex;
+        private final int mDirectionIndex;
+        private final Map<Long, Subtotal> mSubtotals = new LinkedHashMap<>();
+
+        private Subtotals(Cursor cursor) {
+            mWalletIdIndex = cursor.getColumnIndexOrThrow(Contract.Transaction.WALLET_ID);
+            mWalletNameIndex = cursor.getColumnIndexOrThrow(Contract.Transaction.WALLET_NAME);
+            mWalletCurrencyIndex = cursor.getColumnIndexOrThrow(Contract.Transaction.WALLET_CURRENCY);
+            mMoneyIndex = cursor.getColumnIndexOrThrow(Contract.Transaction.MONEY);
+            mDirectionIndex = cursor.getColumnIndexOrThrow(Contract.Transaction.DIRECTION);
+        }
+
+        private void add(Cursor cursor) {
+            long walletId = cursor.getLong(mWalletIdIndex);
+            Subtotal subtotal = mSubtotals.get(walletId);
+            if (subtotal == null) {
+                CurrencyUnit currencyUnit = CurrencyManager.getCurrency(cursor.getString(mWalletCurrencyIndex));
+                subtotal = new Subtotal(cursor.getString(mWalletNameIndex), currencyUnit);
+                mSubtotals.put(walletId, subtotal);
+            }
+            long money = cursor.getLong(mMoneyIndex);
+            if (cursor.getInt(mDirectionIndex) == Contract.Direction.EXPENSE) {
+                subtotal.mExpenses += money;
+            } else {
+                subtotal.mIncomes += money;
+            }
+        }
+
+        private Collection<Subtotal> getSubtotals() {
+            return mSubtotals.values();
+        }
+    }
+
     @Override
     public void close() throws IOException {
         mDocument.close();
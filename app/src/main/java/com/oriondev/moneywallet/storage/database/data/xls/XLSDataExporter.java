@@ -2,14 +2,11 @@ package com.oriondev.moneywallet.storage.database.data.xls;
 
 import android.content.Context;
 import android.database.Cursor;
-import android.text.TextUtils;
 
 import com.oriondev.moneywallet.R;
-import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.Wallet;
-import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
-import com.oriondev.moneywallet.utils.CurrencyManager;
+import com.oriondev.moneywallet.storage.database.data.ExportPlan;
 import com.oriondev.moneywallet.utils.MoneyFormatter;
 
 import java.io.File;
@@ -93,63 +90,14 @@ public class XLSDataExporter extends AbstractDataExporter {
             // write the header of each column
             writeSheetHeader(sheet, columns);
             // write the body of the wallet
+            ExportPlan exportPlan = compileExportPlan(cursor, columns, mMoneyFormatter, ", ");
             for (int r = 1; r <= cursor.getCount(); r++) {
                 // move the cursor to the fixed position
                 cursor.moveToPosition(r - 1);
                 // for each line of the cursor, write a line in the sheet
-                for (int i = 0; i < columns.length; i++) {
-                    String label = null;
-                    switch (columns[i]) {
-                        case Constants.COLUMN_DATETIME:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DATE));
-                            break;
-                        case Constants.COLUMN_CATEGORY:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.CATEGORY_NAME));
-                            break;
-                        case Constants.COLUMN_MONEY:
-                            CurrencyUnit currencyUnit = CurrencyManager.getCurrency(cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_CURRENCY)));
-                            long money = cursor.getLong(cursor.getColumnIndex(Contract.Transaction.MONEY));
-                            int direction = cursor.getInt(cursor.getColumnIndex(Contract.Transaction.DIRECTION));
-                            if (direction == Contract.Direction.EXPENSE) {
-                                money *= -1;
-                            }
-                            label = mMoneyFormatter.getNotTintedString(currencyUnit, money);
-                            break;
-                        case Constants.COLUMN_WALLET:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.WALLET_NAME));
-                            break;
-                        case Constants.COLUMN_DESCRIPTION:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DESCRIPTION));
-                            break;
-                        case Constants.COLUMN_EVENT:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.EVENT_NAME));
-                            break;
-                        case Constants.COLUMN_PEOPLE:
-                            List<Long> peopleIds = Contract.parseObjectIds(cursor.getString(cursor.getColumnIndex(Contract.Transaction.PEOPLE_IDS)));
-                            if (peopleIds != null && !peopleIds.isEmpty()) {
-                                StringBuilder builder = new StringBuilder();
-                                for (Long personId : peopleIds) {
-                                    String name = getPersonName(personId);
-                                    if (!TextUtils.isEmpty(name)) {
-                                        if (builder.length() > 0) {
-                                            builder.append(", ");
-                                        }
-                                        builder.append(name);
-                                    }
-                                }
-                                label = builder.toString();
-                            } else {
-                                label = null;
-                            }
-                            break;
-                        case Constants.COLUMN_PLACE:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.PLACE_NAME));
-                            break;
-                        case Constants.COLUMN_NOTE:
-                            label = cursor.getString(cursor.getColumnIndex(Contract.Transaction.NOTE));
-                            break;
-                    }
-                    sheet.addCell(new Label(i, r, label));
+                String[] row = exportPlan.readRow(cursor);
+                for (int i = 0; i < row.length; i++) {
+                    sheet.addCell(new Label(i, r, row[i]));
                 }
             }
             // calculate the width of each column to fit the values
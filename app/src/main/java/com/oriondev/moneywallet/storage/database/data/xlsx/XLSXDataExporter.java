@@ -0,0 +1,191 @@
+package com.oriondev.moneywallet.storage.database.data.xlsx;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.model.Wallet;
+import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
+import com.oriondev.moneywallet.storage.database.data.ExportPlan;
+import com.oriondev.moneywallet.utils.MoneyFormatter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exporter of office open xml workbooks. Unlike the {@link com.oriondev.moneywallet.storage.database.data.xls.XLSDataExporter}
+ * the rows are streamed to the file while the cursor advances, so the memory used does not
+ * depend on the number of transactions. A wallet with more rows than a sheet can contain
+ * continues inside another sheet with the same header.
+ */
+public class XLSXDataExporter extends AbstractDataExporter {
+
+    private static final int MIN_COLUMN_WIDTH = 12;
+    private static final int LARGE_COLUMN_WIDTH = 20;
+    private static final int TEXT_COLUMN_WIDTH = 40;
+
+    private final File mOutputFile;
+    private final XLSXWriter mWriter;
+    private final MoneyFormatter mMoneyFormatter;
+
+    private boolean mShouldLoadPeople = false;
+
+    public XLSXDataExporter(Context context, File folder) throws IOException {
+        super(context, folder);
+        mOutputFile = new File(folder, getDefaultFileName(".xlsx"));
+        mWriter = new XLSXWriter(new BufferedOutputStream(new FileOutputStream(mOutputFile)));
+        mMoneyFormatter = MoneyFormatter.getInstance();
+    }
+
+    @Override
+    public boolean isMultiWalletSupported() {
+        return true;
+    }
+
+    @Override
+    public String[] getColumns(boolean uniqueWallet, String[] optionalColumns) {
+        List<String> contractColumns = new ArrayList<>();
+        contractColumns.add(ExportPlan.COLUMN_DATETIME);
+        contractColumns.add(ExportPlan.COLUMN_CATEGORY);
+        contractColumns.add(ExportPlan.COLUMN_MONEY);
+        if (uniqueWallet) {
+            contractColumns.add(ExportPlan.COLUMN_WALLET);
+        }
+        contractColumns.add(ExportPlan.COLUMN_DESCRIPTION);
+        if (optionalColumns != null) {
+            for (String column : optionalColumns) {
+                switch (column) {
+                    case COLUMN_EVENT:
+                        contractColumns.add(ExportPlan.COLUMN_EVENT);
+                        break;
+                    case COLUMN_PEOPLE:
+                        contractColumns.add(ExportPlan.COLUMN_PEOPLE);
+                        mShouldLoadPeople = true;
+                        break;
+                    case COLUMN_PLACE:
+                        contractColumns.add(ExportPlan.COLUMN_PLACE);
+                        break;
+                    case COLUMN_NOTE:
+                        contractColumns.add(ExportPlan.COLUMN_NOTE);
+                        break;
+                }
+            }
+        }
+        return contractColumns.toArray(new String[contractColumns.size()]);
+    }
+
+    @Override
+    public boolean shouldLoadPeople() {
+        return mShouldLoadPeople;
+    }
+
+    @Override
+    public void exportData(Cursor cursor, String[] columns, Wallet... wallets) throws IOException {
+        String sheetName = getSheetName(wallets);
+        String[] header = getSheetHeader(columns);
+        int[] columnWidths = getColumnWidths(columns, header);
+        mWriter.startSheet(sheetName, columnWidths, header);
+        ExportPlan exportPlan = compileExportPlan(cursor, columns, mMoneyFormatter, ", ");
+        while (cursor.moveToNext()) {
+            // the writer continues inside a new sheet when the current one is full
+            mWriter.writeRow(exportPlan.readRow(cursor));
+        }
+    }
+
+    private String getSheetName(Wallet... wallets) {
+        if (wallets != null && wallets.length > 0) {
+            StringBuilder builder = new StringBuilder();
+            for (Wallet wallet : wallets) {
+                if (builder.length() != 0) {
+                    builder.append(", ");
+                }
+                builder.append(wallet.getName());
+            }
+            return builder.toString();
+        }
+        return getContext().getString(R.string.hint_unknown);
+    }
+
+    private String[] getSheetHeader(String[] columns) {
+        Context context = getContext();
+        String[] header = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            switch (columns[i]) {
+                case ExportPlan.COLUMN_DATETIME:
+                    header[i] = context.getString(R.string.hint_date);
+                    break;
+                case ExportPlan.COLUMN_CATEGORY:
+                    header[i] = context.getString(R.string.hint_category);
+                    break;
+                case ExportPlan.COLUMN_MONEY:
+                    header[i] = context.getString(R.string.hint_money);
+                    break;
+                case ExportPlan.COLUMN_WALLET:
+                    header[i] = context.getString(R.string.hint_wallet);
+                    break;
+                case ExportPlan.COLUMN_DESCRIPTION:
+                    header[i] = context.getString(R.string.hint_description);
+                    break;
+                case ExportPlan.COLUMN_EVENT:
+                    header[i] = context.getString(R.string.hint_event);
+                    break;
+                case ExportPlan.COLUMN_PEOPLE:
+                    header[i] = context.getString(R.string.hint_people);
+                    break;
+                case ExportPlan.COLUMN_PLACE:
+                    header[i] = context.getString(R.string.hint_place);
+                    break;
+                case ExportPlan.COLUMN_NOTE:
+                    header[i] = context.getString(R.string.hint_note);
+                    break;
+            }
+        }
+        return header;
+    }
+
+    /**
+     * The rows are not kept in memory, so the columns cannot be sized on their content: the
+     * width is estimated from the kind of values of each column.
+     */
+    private int[] getColumnWidths(String[] columns, String[] header) {
+        int[] widths = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int width;
+            switch (columns[i]) {
+                case ExportPlan.COLUMN_DATETIME:
+                case ExportPlan.COLUMN_MONEY:
+                    width = LARGE_COLUMN_WIDTH;
+                    break;
+                case ExportPlan.COLUMN_DESCRIPTION:
+                case ExportPlan.COLUMN_NOTE:
+                    width = TEXT_COLUMN_WIDTH;
+                    break;
+                default:
+                    width = MIN_COLUMN_WIDTH;
+                    break;
+            }
+            int headerWidth = header[i] != null ? header[i].length() + 2 : 0;
+            widths[i] = Math.max(width, headerWidth);
+        }
+        return widths;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriter.close();
+    }
+
+    @Override
+    public File getOutputFile() {
+        return mOutputFile;
+    }
+
+    @Override
+    public String getResultType() {
+        return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+}
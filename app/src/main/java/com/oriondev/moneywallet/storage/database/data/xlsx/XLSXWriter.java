@@ -0,0 +1,330 @@
+package com.oriondev.moneywallet.storage.database.data.xlsx;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * This class writes an office open xml workbook. Each row is written to the zip stream as soon
+ * as it is added, so the memory used does not depend on the number of rows: only the names of
+ * the sheets and a bounded dictionary of shared strings are kept until the end. The strings that
+ * do not fit inside the dictionary are written inline inside the cells. When a sheet is full the
+ * rows continue inside a new sheet with the same name and header.
+ */
+/*package-local*/ class XLSXWriter implements Closeable {
+
+    private static final int MAX_ROWS = 1048576;
+
+    private static final int MAX_SHARED_STRINGS = 4096;
+    private static final int MAX_SHARED_STRING_LENGTH = 64;
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    private static final int STYLE_BOLD = 1;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String NAMESPACE_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NAMESPACE_RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NAMESPACE_PACKAGE_RELATIONSHIPS = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    private final ZipOutputStream mZipStream;
+    private final Writer mWriter;
+    private final Map<String, Integer> mSharedStrings = new LinkedHashMap<>();
+    private final List<String> mSheetNames = new ArrayList<>();
+    private final Set<String> mLowerCaseSheetNames = new HashSet<>();
+
+    private final int mMaxRows;
+
+    private boolean mSheetOpen;
+    private String mSheetName;
+    private int[] mColumnWidths;
+    private String[] mHeader;
+    private String[] mColumnNames;
+    private int mRowCount;
+
+    /*package-local*/ XLSXWriter(OutputStream outputStream) {
+        this(outputStream, MAX_ROWS);
+    }
+
+    @VisibleForTesting
+    /*package-local*/ XLSXWriter(OutputStream outputStream, int maxRows) {
+        if (maxRows < 2) {
+            throw new IllegalArgumentException("A sheet must contain the header and at least one row");
+        }
+        mMaxRows = maxRows;
+        mZipStream = new ZipOutputStream(outputStream);
+        mWriter = new BufferedWriter(new OutputStreamWriter(mZipStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Start a new sheet: the previous one is completed.
+     * @param name of the sheet: it is adjusted to be a valid and unique sheet name.
+     * @param columnWidths width of each column expressed in characters.
+     * @param header row written in bold at the top of the sheet and of its continuations, or null.
+     */
+    /*package-local*/ void startSheet(String name, int[] columnWidths, String[] header) throws IOException {
+        endSheet();
+        mSheetName = name;
+        mColumnWidths = columnWidths;
+        mHeader = header;
+        mSheetNames.add(getUniqueSheetName(name));
+        mZipStream.putNextEntry(new ZipEntry("xl/worksheets/sheet" + mSheetNames.size() + ".xml"));
+        mWriter.write(XML_HEADER);
+        mWriter.write("<worksheet xmlns=\"" + NAMESPACE_MAIN + "\">");
+        if (columnWidths.length > 0) {
+            mWriter.write("<cols>");
+            for (int i = 0; i < columnWidths.length; i++) {
+                mWriter.write(String.format(Locale.ENGLISH, "<col min=\"%d\" max=\"%d\" width=\"%d\" customWidth=\"1\"/>", i + 1, i + 1, columnWidths[i]));
+            }
+            mWriter.write("</cols>");
+        }
+        mWriter.write("<sheetData>");
+        mColumnNames = new String[columnWidths.length];
+        for (int i = 0; i < mColumnNames.length; i++) {
+            mColumnNames[i] = getColumnName(i);
+        }
+        mRowCount = 0;
+        mSheetOpen = true;
+        if (header != null) {
+            appendRow(header, true);
+        }
+    }
+
+    /**
+     * Append a row of strings to the current sheet. The null values are left empty. If the sheet
+     * is full, a new one is started: the writer makes its name unique adding a counter to it.
+     */
+    /*package-local*/ void writeRow(String[] values) throws IOException {
+        if (!mSheetOpen) {
+            throw new IllegalStateException("No sheet started");
+        }
+        if (mRowCount == mMaxRows) {
+            startSheet(mSheetName, mColumnWidths, mHeader);
+        }
+        appendRow(values, false);
+    }
+
+    private void appendRow(String[] values, boolean bold) throws IOException {
+        String rowIndex = String.valueOf(++mRowCount);
+        mWriter.write("<row r=\"");
+        mWriter.write(rowIndex);
+        mWriter.write("\">");
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i];
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            mWriter.write("<c r=\"");
+            mWriter.write(i < mColumnNames.length ? mColumnNames[i] : getColumnName(i));
+            mWriter.write(rowIndex);
+            if (bold) {
+                mWriter.write("\" s=\"" + STYLE_BOLD);
+            }
+            Integer sharedIndex = getSharedString(value);
+            if (sharedIndex != null) {
+                mWriter.write("\" t=\"s\"><v>");
+                mWriter.write(String.valueOf(sharedIndex));
+                mWriter.write("</v></c>");
+            } else {
+                mWriter.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writeEscaped(value);
+                mWriter.write("</t></is></c>");
+            }
+        }
+        mWriter.write("</row>");
+    }
+
+    /**
+     * The dictionary is filled with the first short strings found: they are usually the names
+     * of the wallets and categories, that are repeated in most of the rows.
+     */
+    private Integer getSharedString(String value) {
+        Integer index = mSharedStrings.get(value);
+        if (index == null && mSharedStrings.size() < MAX_SHARED_STRINGS && value.length() <= MAX_SHARED_STRING_LENGTH) {
+            index = mSharedStrings.size();
+            mSharedStrings.put(value, index);
+        }
+        return index;
+    }
+
+    private void endSheet() throws IOException {
+        if (mSheetOpen) {
+            mWriter.write("</sheetData></worksheet>");
+            closeEntry();
+            mSheetOpen = false;
+        }
+    }
+
+    private void closeEntry() throws IOException {
+        mWriter.flush();
+        mZipStream.closeEntry();
+    }
+
+    private String getUniqueSheetName(String name) {
+        StringBuilder builder = new StringBuilder();
+        if (name != null) {
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                builder.append("[]:*?/\\".indexOf(c) >= 0 || c < 0x20 ? '_' : c);
+            }
+        }
+        String baseName = builder.toString().trim();
+        if (baseName.isEmpty()) {
+            baseName = "Sheet" + (mSheetNames.size() + 1);
+        }
+        String uniqueName = truncate(baseName, MAX_SHEET_NAME_LENGTH);
+        for (int i = 2; mLowerCaseSheetNames.contains(uniqueName.toLowerCase(Locale.ENGLISH)); i++) {
+            String suffix = " (" + i + ")";
+            uniqueName = truncate(baseName, MAX_SHEET_NAME_LENGTH - suffix.length()) + suffix;
+        }
+        mLowerCaseSheetNames.add(uniqueName.toLowerCase(Locale.ENGLISH));
+        return uniqueName;
+    }
+
+    private static String truncate(String string, int length) {
+        return string.length() > length ? string.substring(0, length) : string;
+    }
+
+    private static String getColumnName(int index) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            builder.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Escape the xml special characters and drop the control characters that are not allowed
+     * inside an xml document.
+     */
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    mWriter.write("&amp;");
+                    break;
+                case '<':
+                    mWriter.write("&lt;");
+                    break;
+                case '>':
+                    mWriter.write("&gt;");
+                    break;
+                case '"':
+                    mWriter.write("&quot;");
+                    break;
+                case '\t':
+                case '\n':
+                case '\r':
+                    mWriter.write(c);
+                    break;
+                default:
+                    if (c >= 0x20) {
+                        mWriter.write(c);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        mZipStream.putNextEntry(new ZipEntry(name));
+        mWriter.write(XML_HEADER);
+        mWriter.write(content);
+        closeEntry();
+    }
+
+    private void writeSharedStrings() throws IOException {
+        mZipStream.putNextEntry(new ZipEntry("xl/sharedStrings.xml"));
+        mWriter.write(XML_HEADER);
+        mWriter.write("<sst xmlns=\"" + NAMESPACE_MAIN + "\" uniqueCount=\"" + mSharedStrings.size() + "\">");
+        for (String value : mSharedStrings.keySet()) {
+            mWriter.write("<si><t xml:space=\"preserve\">");
+            writeEscaped(value);
+            mWriter.write("</t></si>");
+        }
+        mWriter.write("</sst>");
+        closeEntry();
+    }
+
+    private void writeWorkbook() throws IOException {
+        StringBuilder workbook = new StringBuilder();
+        StringBuilder relationships = new StringBuilder();
+        StringBuilder contentTypes = new StringBuilder();
+        workbook.append("<workbook xmlns=\"" + NAMESPACE_MAIN + "\" xmlns:r=\"" + NAMESPACE_RELATIONSHIPS + "\"><sheets>");
+        relationships.append("<Relationships xmlns=\"" + NAMESPACE_PACKAGE_RELATIONSHIPS + "\">");
+        contentTypes.append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        contentTypes.append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+        contentTypes.append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+        contentTypes.append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+        for (int i = 1; i <= mSheetNames.size(); i++) {
+            workbook.append("<sheet name=\"").append(escape(mSheetNames.get(i - 1))).append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            relationships.append("<Relationship Id=\"rId").append(i).append("\" Type=\"" + NAMESPACE_RELATIONSHIPS + "/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        workbook.append("</sheets></workbook>");
+        int stylesId = mSheetNames.size() + 1;
+        relationships.append("<Relationship Id=\"rId").append(stylesId).append("\" Type=\"" + NAMESPACE_RELATIONSHIPS + "/styles\" Target=\"styles.xml\"/>");
+        relationships.append("<Relationship Id=\"rId").append(stylesId + 1).append("\" Type=\"" + NAMESPACE_RELATIONSHIPS + "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        relationships.append("</Relationships>");
+        contentTypes.append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        contentTypes.append("<Override PartName=\"/xl/sharedStrings.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sharedStrings+xml\"/>");
+        contentTypes.append("</Types>");
+        writeEntry("xl/workbook.xml", workbook.toString());
+        writeEntry("xl/_rels/workbook.xml.rels", relationships.toString());
+        writeEntry("[Content_Types].xml", contentTypes.toString());
+        writeEntry("_rels/.rels", "<Relationships xmlns=\"" + NAMESPACE_PACKAGE_RELATIONSHIPS + "\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + NAMESPACE_RELATIONSHIPS + "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+    }
+
+    private void writeStyles() throws IOException {
+        writeEntry("xl/styles.xml", "<styleSheet xmlns=\"" + NAMESPACE_MAIN + "\">" +
+                "<fonts count=\"2\"><font><sz val=\"10\"/><name val=\"Tahoma\"/></font><font><b/><sz val=\"10\"/><name val=\"Tahoma\"/></font></fonts>" +
+                "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>" +
+                "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" +
+                "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>" +
+                "<cellXfs count=\"2\">" +
+                "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" +
+                "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>" +
+                "</cellXfs>" +
+                "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>" +
+                "</styleSheet>");
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Complete the workbook: the parts that reference the sheets and the shared strings are
+     * written at the end, when they are known.
+     */
+    @Override
+    public void close() throws IOException {
+        endSheet();
+        if (mSheetNames.isEmpty()) {
+            // a workbook must contain at least one sheet
+            startSheet(null, new int[0], null);
+            endSheet();
+        }
+        writeSharedStrings();
+        writeStyles();
+        writeWorkbook();
+        mWriter.close();
+    }
+}
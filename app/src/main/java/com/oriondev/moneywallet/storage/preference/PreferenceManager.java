@@ -66,6 +66,7 @@ public class PreferenceManager {
     private static final String CONVERTER_LAST_CURRENCY_2 = "converter_currency_iso_2";
 
     private static final String LAST_DATA_CHANGE_TIME = "last_data_change_time";
+    private static final String QUERY_PROFILING = "query_profiling";
 
     public static final int LOCK_MODE_NONE = 0;
     public static final int LOCK_MODE_PIN = 1;
@@ -314,6 +315,14 @@ public class PreferenceManager {
         return mPreferences.getLong(LAST_DATA_CHANGE_TIME, 0L);
     }
 
+    public static boolean isQueryProfilingEnabled() {
+        return mPreferences.getBoolean(QUERY_PROFILING, false);
+    }
+
+    public static void setQueryProfilingEnabled(boolean enabled) {
+        mPreferences.edit().putBoolean(QUERY_PROFILING, enabled).apply();
+    }
+
     private static void notifyCurrentWalletIsChanged(Context context, long walletId) {
         LocalBroadcastManager localBroadcastManager = LocalBroadcastManager.getInstance(context);
         Intent intent = new Intent(LocalAction.ACTION_CURRENT_WALLET_CHANGED);
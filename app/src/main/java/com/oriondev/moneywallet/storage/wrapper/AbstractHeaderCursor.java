@@ -23,34 +23,24 @@ import android.database.AbstractCursor;
 import android.database.ContentObserver;
 import android.database.Cursor;
 import android.database.DataSetObserver;
-import android.util.SparseArray;
-
-import com.oriondev.moneywallet.model.Pair;
-
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Created by andrea on 03/03/18.
  */
 public abstract class AbstractHeaderCursor<H> extends AbstractCursor {
 
-    private final static int TYPE_HEADER = 0;
-    private final static int TYPE_ITEM = 1;
-
     private final Cursor mCursor;
-    private final SparseArray<H> mHeaders;
-    private final List<Pair<Integer, Integer>> mIndices;
+    private final HeaderIndex<H> mIndex;
     private final int mHeaderColumnCount;
     private final String[] mColumnNames;
 
     private boolean mIsHeader;
+    private H mHeader;
     private int mPosition;
 
     /*package-local*/ AbstractHeaderCursor(Cursor cursor) {
         mCursor = cursor;
-        mHeaders = new SparseArray<>();
-        mIndices = new ArrayList<>();
+        mIndex = new HeaderIndex<>(cursor.getCount());
         String[] headerColumnNames = getHeaderColumnNames();
         mHeaderColumnCount = headerColumnNames.length;
         mColumnNames = generateColumnNames(headerColumnNames, cursor);
@@ -72,21 +62,28 @@ public abstract class AbstractHeaderCursor<H> extends AbstractCursor {
     protected abstract void generateHeaders(Cursor cursor);
 
     protected H getHeader() {
-        return mHeaders.get(mPosition);
+        return mHeader;
     }
 
     protected boolean isHeader() {
         return mIsHeader;
     }
 
+    /**
+     * Obtain the position inside the wrapped cursor of the current item.
+     * The result is meaningful only if the current row is not an header.
+     * @return the position of the item inside the wrapped cursor.
+     */
+    protected int getItemPosition() {
+        return mPosition;
+    }
+
     protected void addHeader(H header) {
-        int id = mHeaders.size();
-        mHeaders.put(id, header);
-        mIndices.add(new Pair<>(TYPE_HEADER, id));
+        mIndex.addHeader(header);
     }
 
     protected void addItem(int position) {
-        mIndices.add(new Pair<>(TYPE_ITEM, position));
+        mIndex.addItem(position);
     }
 
     /**
@@ -96,16 +93,16 @@ public abstract class AbstractHeaderCursor<H> extends AbstractCursor {
      */
     @Override
     public int getCount() {
-        return mIndices.size();
+        return mIndex.size();
     }
 
     @Override
     public boolean onMove(int oldPosition, int newPosition) {
-        if (newPosition < mIndices.size()) {
-            Pair<Integer, Integer> item = mIndices.get(newPosition);
-            mIsHeader = item.getL() == TYPE_HEADER;
-            mPosition = item.getR();
+        if (newPosition < mIndex.size()) {
+            mIsHeader = mIndex.isHeader(newPosition);
+            mHeader = mIsHeader ? mIndex.getHeader(newPosition) : null;
             if (!mIsHeader) {
+                mPosition = mIndex.getItemPosition(newPosition);
                 mCursor.moveToPosition(mPosition);
             }
             return true;
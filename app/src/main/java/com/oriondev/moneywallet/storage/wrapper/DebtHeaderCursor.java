@@ -133,7 +133,7 @@ public class DebtHeaderCursor extends AbstractHeaderCursor<DebtHeaderCursor.Head
             case INDEX_ITEM_TYPE:
                 return isHeader() ? TYPE_HEADER : TYPE_ITEM;
             case INDEX_HEADER_TYPE:
-                return getHeader().mType;
+                return isHeader() ? getHeader().mType : 0;
         }
         return 0;
     }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.wrapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class maps the rows of a header cursor to the headers and to the positions of the items
+ * inside the wrapped cursor. Each row is stored as a primitive int: the positions of the items
+ * are stored as they are and the headers as negative numbers, so the index of a cursor with
+ * thousands of rows does not allocate an object for each of them.
+ */
+public class HeaderIndex<H> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final List<H> mHeaders;
+    private int[] mRows;
+    private int mSize;
+
+    public HeaderIndex() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity expected number of rows: usually the size of the wrapped cursor.
+     */
+    public HeaderIndex(int capacity) {
+        mHeaders = new ArrayList<>();
+        mRows = new int[Math.max(capacity, INITIAL_CAPACITY)];
+    }
+
+    public void addHeader(H header) {
+        mHeaders.add(header);
+        append(-mHeaders.size());
+    }
+
+    public void addItem(int position) {
+        append(position);
+    }
+
+    private void append(int value) {
+        if (mSize == mRows.length) {
+            mRows = Arrays.copyOf(mRows, mSize + (mSize >> 1));
+        }
+        mRows[mSize++] = value;
+    }
+
+    /**
+     * @return the number of rows: headers and items.
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int getHeaderCount() {
+        return mHeaders.size();
+    }
+
+    public boolean isHeader(int row) {
+        return mRows[row] < 0;
+    }
+
+    /**
+     * @return the header of the given row. The row must be a header.
+     */
+    public H getHeader(int row) {
+        return mHeaders.get(-mRows[row] - 1);
+    }
+
+    /**
+     * @return the position inside the wrapped cursor of the given row. The row must be an item.
+     */
+    public int getItemPosition(int row) {
+        return mRows[row];
+    }
+}
@@ -19,11 +19,15 @@
 
 package com.oriondev.moneywallet.storage.wrapper;
 
+import android.content.ContentResolver;
 import android.database.Cursor;
+import android.net.Uri;
 
 import com.oriondev.moneywallet.model.Group;
 import com.oriondev.moneywallet.model.Money;
 import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
 import com.oriondev.moneywallet.utils.DateUtils;
 
 import java.util.Date;
@@ -38,6 +42,7 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
     public static final String COLUMN_HEADER_END_DATE = "header_end_date";
     public static final String COLUMN_HEADER_MONEY = "header_money";
     public static final String COLUMN_HEADER_GROUP_TYPE = "header_group_type";
+    public static final String COLUMN_ITEM_RUNNING_BALANCE = "item_running_balance";
 
     public final static int TYPE_HEADER = 0;
     public final static int TYPE_ITEM = 1;
@@ -47,19 +52,74 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
     private static final int INDEX_HEADER_END_DATE = 2;
     private static final int INDEX_HEADER_MONEY = 3;
     private static final int INDEX_HEADER_GROUP_TYPE = 4;
+    private static final int INDEX_ITEM_RUNNING_BALANCE = 5;
 
     private final Group mGroup;
     private final Date mLowerBound;
     private final Date mUpperBound;
+    private final Money mBalance;
+    private final long[] mRunningBalances;
 
     public TransactionHeaderCursor(Cursor cursor, Group group, Date lowerBound, Date upperBound) {
+        this(cursor, group, lowerBound, upperBound, null);
+    }
+
+    /**
+     * Create a cursor that also contains the running balance of each transaction, that is the
+     * balance of the wallet right after the transaction. The wrapped cursor must be sorted by
+     * date in descending order and it must contain all the transactions of the wallet inside
+     * the period, so the running balance can be computed walking the rows once.
+     * @param balance of the wallet after the most recent transaction of the cursor.
+     */
+    public TransactionHeaderCursor(Cursor cursor, Group group, Date lowerBound, Date upperBound, Money balance) {
         super(cursor);
         mGroup = group;
         mLowerBound = lowerBound;
         mUpperBound = upperBound;
+        mBalance = balance;
+        mRunningBalances = balance != null ? new long[cursor.getCount()] : null;
         generateHeaders(cursor);
     }
 
+    /**
+     * Query the balance of the wallet after the most recent transaction of the cursor: the balance
+     * is read from the wallet checkpoints so the cost does not depend on the size of the history.
+     * @param contentResolver used to query the balance.
+     * @param cursor of the transactions sorted by date in descending order.
+     * @param walletId id of the wallet of the transactions or the total wallet id.
+     * @return the balance of the wallet, grouped by currency.
+     */
+    public static Money getRunningBalanceSeed(ContentResolver contentResolver, Cursor cursor, long walletId) {
+        Money balance = new Money();
+        if (cursor != null && cursor.moveToFirst()) {
+            String date = cursor.getString(cursor.getColumnIndex(Contract.Transaction.DATE));
+            Uri uri = DataContentProvider.CONTENT_WALLET_BALANCES.buildUpon()
+                    .appendQueryParameter(DataContentProvider.PARAMETER_BALANCE_DATE, date)
+                    .build();
+            String[] projection = new String[] {
+                    Contract.WalletBalance.WALLET_CURRENCY,
+                    Contract.WalletBalance.MONEY
+            };
+            String selection;
+            String[] selectionArgs;
+            if (walletId == PreferenceManager.TOTAL_WALLET_ID) {
+                selection = Contract.WalletBalance.WALLET_COUNT_IN_TOTAL + " = 1";
+                selectionArgs = null;
+            } else {
+                selection = Contract.WalletBalance.WALLET_ID + " = ?";
+                selectionArgs = new String[] {String.valueOf(walletId)};
+            }
+            Cursor balanceCursor = contentResolver.query(uri, projection, selection, selectionArgs, null);
+            if (balanceCursor != null) {
+                while (balanceCursor.moveToNext()) {
+                    balance.addMoney(balanceCursor.getString(0), balanceCursor.getLong(1));
+                }
+                balanceCursor.close();
+            }
+        }
+        return balance;
+    }
+
     @Override
     protected void generateHeaders(Cursor cursor) {
         int indexTransactionDirection = cursor.getColumnIndex(Contract.Transaction.DIRECTION);
@@ -68,6 +128,8 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
         int indexCurrency = cursor.getColumnIndex(Contract.Transaction.WALLET_CURRENCY);
         int indexTransactionConfirmed = cursor.getColumnIndex(Contract.Transaction.CONFIRMED);
         int indexTransactionCountInTotal = cursor.getColumnIndex(Contract.Transaction.COUNT_IN_TOTAL);
+        Money runningBalance = new Money();
+        runningBalance.addMoney(mBalance);
         if (cursor.moveToFirst()) {
             Header header = null;
             do {
@@ -83,14 +145,19 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
                     }
                 }
                 addItem(cursor.getPosition());
+                String currency = cursor.getString(indexCurrency);
+                if (mRunningBalances != null) {
+                    mRunningBalances[cursor.getPosition()] = runningBalance.getMoney(currency);
+                }
                 if (cursor.getInt(indexTransactionConfirmed) == 1 && cursor.getInt(indexTransactionCountInTotal) == 1) {
-                    String currency = cursor.getString(indexCurrency);
                     long money = cursor.getLong(indexTransactionMoney);
                     int direction = cursor.getInt(indexTransactionDirection);
                     if (direction == 0) {
                         money *= -1;
                     }
                     header.addMoney(currency, money);
+                    // moving to an older transaction: remove this one from the balance
+                    runningBalance.removeMoney(currency, money);
                 }
             } while (cursor.moveToNext());
         }
@@ -103,7 +170,8 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
                 COLUMN_HEADER_START_DATE,
                 COLUMN_HEADER_END_DATE,
                 COLUMN_HEADER_MONEY,
-                COLUMN_HEADER_GROUP_TYPE
+                COLUMN_HEADER_GROUP_TYPE,
+                COLUMN_ITEM_RUNNING_BALANCE
         };
     }
 
@@ -142,6 +210,9 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
 
     @Override
     protected long getHeaderLong(int index) {
+        if (index == INDEX_ITEM_RUNNING_BALANCE && !isHeaderNull(index)) {
+            return mRunningBalances[getItemPosition()];
+        }
         return 0;
     }
 
@@ -157,6 +228,9 @@ public class TransactionHeaderCursor extends AbstractHeaderCursor<TransactionHea
 
     @Override
     protected boolean isHeaderNull(int index) {
+        if (index == INDEX_ITEM_RUNNING_BALANCE) {
+            return isHeader() || mRunningBalances == null;
+        }
         return false;
     }
 
@@ -10,7 +10,6 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.MenuRes;
 import androidx.annotation.NonNull;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -18,6 +17,7 @@ import androidx.recyclerview.widget.ItemTouchHelper;
 import android.view.MenuItem;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.ui.activity.base.SinglePanelSimpleListActivity;
@@ -133,7 +133,7 @@ public class CategorySortActivity extends SinglePanelSimpleListActivity implemen
         String sortOrder = Contract.Category.GROUP_INDEX + " ASC, " + Contract.Category.GROUP_NAME +
                 " ASC, " + Contract.Category.GROUP_ID + " ASC, " + Contract.Category.PARENT +
                 " IS NULL DESC, " + Contract.Category.NAME + " ASC";
-        return new CursorLoader(this, uri, projection, selection, selectionArgs, sortOrder);
+        return new InteractiveCursorLoader(this, uri, projection, selection, selectionArgs, sortOrder);
     }
 
     @Override
@@ -26,11 +26,11 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.StringRes;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -100,7 +100,7 @@ public class CurrencyListActivity extends SinglePanelSimpleListActivity implemen
                 Contract.Currency.FAVOURITE
         };
         String sortBy = Contract.Currency.NAME;
-        return new CursorLoader(this, uri, projection, null, null, sortBy);
+        return new InteractiveCursorLoader(this, uri, projection, null, null, sortBy);
     }
 
     @Override
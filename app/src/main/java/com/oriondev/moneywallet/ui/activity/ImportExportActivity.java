@@ -87,6 +87,7 @@ public class ImportExportActivity extends SinglePanelActivity implements ImportE
         super.onCreate(savedInstanceState);
         IntentFilter intentFilter = new IntentFilter();
         intentFilter.addAction(LocalAction.ACTION_IMPORT_SERVICE_STARTED);
+        intentFilter.addAction(LocalAction.ACTION_IMPORT_SERVICE_RUNNING);
         intentFilter.addAction(LocalAction.ACTION_IMPORT_SERVICE_FINISHED);
         intentFilter.addAction(LocalAction.ACTION_IMPORT_SERVICE_FAILED);
         intentFilter.addAction(LocalAction.ACTION_EXPORT_SERVICE_STARTED);
@@ -146,6 +147,7 @@ public class ImportExportActivity extends SinglePanelActivity implements ImportE
                 DataFormat[] dataFormats = new DataFormat[]{
                         DataFormat.CSV,
                         DataFormat.XLS,
+                        DataFormat.XLSX,
                         DataFormat.PDF
                 };
                 mDataFormatPicker.showPicker(dataFormats);
@@ -453,6 +455,13 @@ public class ImportExportActivity extends SinglePanelActivity implements ImportE
                         mExportColumnsEditText.setVisibility(View.VISIBLE);
                     }
                     break;
+                case XLSX:
+                    mImportFormatEditText.setText(R.string.hint_data_format_xlsx);
+                    mExportFormatEditText.setText(R.string.hint_data_format_xlsx);
+                    if (mMode == MODE_EXPORT) {
+                        mExportColumnsEditText.setVisibility(View.VISIBLE);
+                    }
+                    break;
                 case PDF:
                     mImportFormatEditText.setText(R.string.hint_data_format_pdf);
                     mExportFormatEditText.setText(R.string.hint_data_format_pdf);
@@ -542,6 +551,7 @@ public class ImportExportActivity extends SinglePanelActivity implements ImportE
                                 mUniqueWalletCheckbox.setVisibility(View.GONE);
                                 break;
                             case XLS:
+                            case XLSX:
                             case PDF:
                                 mUniqueWalletCheckbox.setVisibility(View.VISIBLE);
                                 break;
@@ -583,16 +593,33 @@ public class ImportExportActivity extends SinglePanelActivity implements ImportE
                         }
                         mProgressDialog.show(getSupportFragmentManager(), TAG_PROGRESS_DIALOG);
                         break;
+                    case LocalAction.ACTION_IMPORT_SERVICE_RUNNING:
+                        if (mProgressDialog != null) {
+                            long rows = intent.getLongExtra(ImportExportIntentService.PROGRESS_ROWS, 0L);
+                            long rowsPerSecond = intent.getLongExtra(ImportExportIntentService.PROGRESS_ROWS_PER_SECOND, 0L);
+                            mProgressDialog.updateContent(getString(R.string.message_data_import_progress, rows, rowsPerSecond));
+                        }
+                        break;
                     case LocalAction.ACTION_IMPORT_SERVICE_FINISHED:
                         if (mProgressDialog != null) {
                             mProgressDialog.dismissAllowingStateLoss();
                             mProgressDialog = null;
                         }
-                        ThemedDialog.buildMaterialDialog(ImportExportActivity.this)
-                                .title(R.string.title_success)
-                                .content(R.string.message_data_import_success)
-                                .positiveText(android.R.string.ok)
-                                .show();
+                        int skippedRowCount = intent.getIntExtra(ImportExportIntentService.RESULT_SKIPPED_ROW_COUNT, 0);
+                        if (skippedRowCount > 0) {
+                            String[] skippedRows = intent.getStringArrayExtra(ImportExportIntentService.RESULT_SKIPPED_ROWS);
+                            ThemedDialog.buildMaterialDialog(ImportExportActivity.this)
+                                    .title(R.string.title_success)
+                                    .content(R.string.message_data_import_partial_success, skippedRowCount, TextUtils.join("\n", skippedRows))
+                                    .positiveText(android.R.string.ok)
+                                    .show();
+                        } else {
+                            ThemedDialog.buildMaterialDialog(ImportExportActivity.this)
+                                    .title(R.string.title_success)
+                                    .content(R.string.message_data_import_success)
+                                    .positiveText(android.R.string.ok)
+                                    .show();
+                        }
                         break;
                     case LocalAction.ACTION_IMPORT_SERVICE_FAILED:
                         if (mProgressDialog != null) {
@@ -38,7 +38,6 @@ import androidx.annotation.StringRes;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -59,6 +58,7 @@ import com.mikepenz.materialdrawer.model.ProfileSettingDrawerItem;
 import com.mikepenz.materialdrawer.model.interfaces.IDrawerItem;
 import com.mikepenz.materialdrawer.model.interfaces.IProfile;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.model.ColorIcon;
 import com.oriondev.moneywallet.model.Money;
@@ -459,7 +459,7 @@ public class MainActivity extends BaseActivity implements DrawerController, Acco
         };
         Uri uri = DataContentProvider.CONTENT_WALLETS;
         String sortOrder = Contract.Wallet.INDEX + " ASC, " + Contract.Wallet.NAME + " ASC";
-        return new CursorLoader(this, uri, projection, null, null, sortOrder);
+        return new InteractiveCursorLoader(this, uri, projection, null, null, sortOrder);
     }
 
     @Override
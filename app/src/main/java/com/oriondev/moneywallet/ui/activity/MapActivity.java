@@ -31,6 +31,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Place;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -121,7 +122,7 @@ public class MapActivity extends SinglePanelActivity implements LoaderManager.Lo
                 Contract.Place.LONGITUDE
         };
         String selection = Contract.Place.LATITUDE + " IS NOT NULL AND " + Contract.Place.LONGITUDE + " IS NOT NULL";
-        return new CursorLoader(this, uri, projection, selection, null, null);
+        return new InteractiveCursorLoader(this, uri, projection, selection, null, null);
     }
 
     @Override
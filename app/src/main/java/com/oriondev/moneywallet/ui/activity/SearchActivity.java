@@ -41,6 +41,7 @@ import android.widget.EditText;
 
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.ui.activity.base.SinglePanelActivity;
@@ -246,7 +247,7 @@ public class SearchActivity extends SinglePanelActivity implements LoaderManager
         
         String[] selectionArgs = getSelectionArguments(query);
         String sortOrder = Contract.Transaction.DATE + " DESC";
-        return new CursorLoader(this, uri, null, selection.toString(), selectionArgs, sortOrder);
+        return new InteractiveCursorLoader(this, uri, null, selection.toString(), selectionArgs, sortOrder);
     }
 
     private void appendSelection(StringBuilder builder, String column) {
@@ -10,7 +10,6 @@ import android.os.Bundle;
 import androidx.annotation.MenuRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -18,6 +17,7 @@ import androidx.recyclerview.widget.ItemTouchHelper;
 import android.view.MenuItem;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.ui.activity.base.SinglePanelSimpleListActivity;
@@ -118,7 +118,7 @@ public class WalletSortActivity extends SinglePanelSimpleListActivity implements
                 Contract.Wallet.ICON
         };
         String sortOrder = Contract.Wallet.INDEX + " ASC, " + Contract.Wallet.NAME + " ASC";
-        return new CursorLoader(this, uri, projection, null, null, sortOrder);
+        return new InteractiveCursorLoader(this, uri, projection, null, null, sortOrder);
     }
 
     @Override
@@ -36,20 +36,28 @@ import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.RadarData;
 import com.github.mikephil.charting.formatter.IAxisValueFormatter;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.model.ForecastData;
 import com.oriondev.moneywallet.model.OverviewData;
 
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
 /**
  * Created by andrea on 17/08/18.
  */
 public class OverviewChartViewPagerAdapter extends PagerAdapter {
 
-    private static final int CHART_COUNT = 3;
+    private static final int CHART_COUNT = 4;
 
     private static final int POSITION_BAR_CHART = 0;
     private static final int POSITION_LINE_CHART = 1;
     private static final int POSITION_RADAR_CHART = 2;
+    private static final int POSITION_FORECAST_CHART = 3;
 
     private OverviewData mOverviewData;
+    private ForecastData mForecastData;
 
     @NonNull
     public Object instantiateItem(@NonNull ViewGroup container, int position) {
@@ -135,6 +143,39 @@ public class OverviewChartViewPagerAdapter extends PagerAdapter {
                     }
                 }
                 break;
+            case POSITION_FORECAST_CHART:
+                view = inflater.inflate(R.layout.adapter_line_chart_item, container, false);
+                LineChart forecastChart = view.findViewById(R.id.line_chart_view);
+                forecastChart.getDescription().setEnabled(false);
+                if (mForecastData != null) {
+                    LineData lineData = mForecastData.getLineData();
+                    forecastChart.setData(lineData);
+                    if (lineData != null) {
+                        lineData.setHighlightEnabled(false);
+                        XAxis xAxis = forecastChart.getXAxis();
+                        xAxis.setGranularity(1f);
+                        xAxis.setAxisMinimum(0f);
+                        xAxis.setAxisMaximum(mForecastData.getDayCount() - 1);
+                        xAxis.setValueFormatter(new IAxisValueFormatter() {
+
+                            private final DateFormat mDateFormat = new SimpleDateFormat("d MMM", Locale.getDefault());
+                            private final Calendar mCalendar = Calendar.getInstance();
+
+                            @Override
+                            public String getFormattedValue(float value, AxisBase axis) {
+                                // the x value is the index of the day since the start date
+                                mCalendar.setTime(mForecastData.getStartDate());
+                                mCalendar.add(Calendar.DAY_OF_MONTH, (int) value);
+                                return mDateFormat.format(mCalendar.getTime());
+                            }
+
+                        });
+                        YAxis leftAxis = forecastChart.getAxisLeft();
+                        leftAxis.setSpaceTop(35f);
+                        forecastChart.getAxisRight().setEnabled(false);
+                    }
+                }
+                break;
         }
         if (view == null) {
             throw new IllegalStateException("OverviewChartViewPagerAdapter has not correctly initialized the view at position: " + position);
@@ -166,4 +207,9 @@ public class OverviewChartViewPagerAdapter extends PagerAdapter {
         mOverviewData = data;
         notifyDataSetChanged();
     }
+
+    public void setForecastData(ForecastData data) {
+        mForecastData = data;
+        notifyDataSetChanged();
+    }
 }
\ No newline at end of file
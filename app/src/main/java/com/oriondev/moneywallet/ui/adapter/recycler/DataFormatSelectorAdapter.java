@@ -44,6 +44,10 @@ public class DataFormatSelectorAdapter extends RecyclerView.Adapter<DataFormatSe
                 holder.mAvatarImageView.setImageResource(R.drawable.ic_file_xls_24dp);
                 holder.mPrimaryTextView.setText(R.string.hint_data_format_xls);
                 break;
+            case XLSX:
+                holder.mAvatarImageView.setImageResource(R.drawable.ic_file_xls_24dp);
+                holder.mPrimaryTextView.setText(R.string.hint_data_format_xlsx);
+                break;
             case PDF:
                 holder.mAvatarImageView.setImageResource(R.drawable.ic_file_pdf_24dp);
                 holder.mPrimaryTextView.setText(R.string.hint_data_format_pdf);
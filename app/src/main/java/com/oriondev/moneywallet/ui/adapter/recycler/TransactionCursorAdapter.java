@@ -54,6 +54,7 @@ public class TransactionCursorAdapter extends AbstractCursorAdapter<RecyclerView
     private int mIndexHeaderEndDate;
     private int mIndexHeaderMoney;
     private int mIndexHeaderGroupType;
+    private int mIndexRunningBalance;
     private int mIndexCategoryName;
     private int mIndexCategoryIcon;
     private int mIndexTransactionId;
@@ -78,6 +79,7 @@ public class TransactionCursorAdapter extends AbstractCursorAdapter<RecyclerView
         mIndexHeaderEndDate = cursor.getColumnIndex(TransactionHeaderCursor.COLUMN_HEADER_END_DATE);
         mIndexHeaderMoney = cursor.getColumnIndex(TransactionHeaderCursor.COLUMN_HEADER_MONEY);
         mIndexHeaderGroupType = cursor.getColumnIndex(TransactionHeaderCursor.COLUMN_HEADER_GROUP_TYPE);
+        mIndexRunningBalance = cursor.getColumnIndex(TransactionHeaderCursor.COLUMN_ITEM_RUNNING_BALANCE);
         mIndexCategoryName = cursor.getColumnIndex(Contract.Transaction.CATEGORY_NAME);
         mIndexCategoryIcon = cursor.getColumnIndex(Contract.Transaction.CATEGORY_ICON);
         mIndexTransactionId = cursor.getColumnIndex(Contract.Transaction.ID);
@@ -109,6 +111,12 @@ public class TransactionCursorAdapter extends AbstractCursorAdapter<RecyclerView
         } else {
             mMoneyFormatter.applyTintedExpense(holder.mMoneyTextView, currency, money);
         }
+        if (mIndexRunningBalance != -1 && !cursor.isNull(mIndexRunningBalance)) {
+            mMoneyFormatter.applyNotTinted(holder.mBalanceTextView, currency, cursor.getLong(mIndexRunningBalance));
+            holder.mBalanceTextView.setVisibility(View.VISIBLE);
+        } else {
+            holder.mBalanceTextView.setVisibility(View.GONE);
+        }
         Date date = DateUtils.getDateFromSQLDateTimeString(cursor.getString(mIndexTransactionDate));
         DateFormatter.applyDate(holder.mDateTextView, date);
     }
@@ -175,6 +183,7 @@ public class TransactionCursorAdapter extends AbstractCursorAdapter<RecyclerView
         private TextView mPrimaryTextView;
         private TextView mMoneyTextView;
         private TextView mSecondaryTextView;
+        private TextView mBalanceTextView;
         private TextView mDateTextView;
 
         /*package-local*/ TransactionViewHolder(View itemView) {
@@ -183,6 +192,7 @@ public class TransactionCursorAdapter extends AbstractCursorAdapter<RecyclerView
             mPrimaryTextView = itemView.findViewById(R.id.primary_text_view);
             mMoneyTextView = itemView.findViewById(R.id.money_text_view);
             mSecondaryTextView = itemView.findViewById(R.id.secondary_text_view);
+            mBalanceTextView = itemView.findViewById(R.id.balance_text_view);
             mDateTextView = itemView.findViewById(R.id.date_text_view);
             itemView.setOnClickListener(this);
         }
@@ -83,4 +83,11 @@ public class GenericProgressDialog extends DialogFragment {
             dialog.setProgress(progress);
         }
     }
-}
\ No newline at end of file
+
+    public void updateContent(CharSequence content) {
+        MaterialDialog dialog = (MaterialDialog) getDialog();
+        if (dialog != null) {
+            dialog.setContent(content);
+        }
+    }
+}
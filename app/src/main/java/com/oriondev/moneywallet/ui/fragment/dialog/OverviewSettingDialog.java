@@ -141,7 +141,8 @@ public class OverviewSettingDialog extends DialogFragment implements DateTimePic
             mCashFlowSpinner.setItems(
                     getString(R.string.spinner_item_cash_flow_incomes),
                     getString(R.string.spinner_item_cash_flow_expenses),
-                    getString(R.string.spinner_item_cash_flow_net_incomes)
+                    getString(R.string.spinner_item_cash_flow_net_incomes),
+                    getString(R.string.spinner_item_cash_flow_net_worth)
             );
             // now we can attach the listeners to all the spinners
             mStartDateSpinner.setOnClickListener(new View.OnClickListener() {
@@ -217,6 +218,9 @@ public class OverviewSettingDialog extends DialogFragment implements DateTimePic
                 case NET_INCOMES:
                     mCashFlowSpinner.setSelectedIndex(2);
                     break;
+                case NET_WORTH:
+                    mCashFlowSpinner.setSelectedIndex(3);
+                    break;
             }
         }
         return dialog;
@@ -258,6 +262,9 @@ public class OverviewSettingDialog extends DialogFragment implements DateTimePic
                 case 2:
                     cashFlow = OverviewSetting.CashFlow.NET_INCOMES;
                     break;
+                case 3:
+                    cashFlow = OverviewSetting.CashFlow.NET_WORTH;
+                    break;
             }
             return new OverviewSetting(startDate, endDate, groupType, cashFlow);
         } else {
@@ -29,7 +29,6 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.collection.LongSparseArray;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -40,6 +39,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Person;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -164,7 +164,7 @@ public class PeoplePickerDialog extends DialogFragment implements PeopleSelector
                     Contract.Person.ICON
             };
             String sortOrder = Contract.Person.NAME;
-            return new CursorLoader(activity, uri, projection, null, null, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, null, null, sortOrder);
         }
         return null;
     }
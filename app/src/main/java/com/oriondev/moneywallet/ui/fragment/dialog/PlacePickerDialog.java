@@ -29,7 +29,6 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -39,6 +38,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Place;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -136,7 +136,7 @@ public class PlacePickerDialog extends DialogFragment implements PlaceSelectorCu
                     Contract.Place.LONGITUDE
             };
             String sortOrder = Contract.Place.NAME;
-            return new CursorLoader(activity, uri, projection, null, null, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, null, null, sortOrder);
         }
         return null;
     }
@@ -29,7 +29,6 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.DialogFragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.collection.LongSparseArray;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -40,6 +39,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Wallet;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -197,7 +197,7 @@ public class WalletPickerDialog extends DialogFragment implements LoaderManager.
             };
             String selection = Contract.Wallet.ARCHIVED + " = 0";
             String sortOrder = Contract.Wallet.INDEX + " ASC, " + Contract.Wallet.NAME + " ASC";
-            return new CursorLoader(activity, uri, projection, selection, null, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, selection, null, sortOrder);
         }
         throw new RuntimeException("Activity is null");
     }
@@ -26,7 +26,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -35,6 +34,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.storage.preference.PreferenceManager;
@@ -172,7 +172,7 @@ public class CalendarMultiPanelFragment extends MultiPanelAppBarItemFragment imp
             selection += " AND DATE(" + Contract.Transaction.DATE + ") == DATE('" + DateUtils.getSQLDateString(date) + "')";
             System.out.println(selection);
             String sortOrder = Contract.Transaction.DATE + " DESC";
-            return new CursorLoader(activity, uri, null, selection, arguments, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, null, selection, arguments, sortOrder);
         }
         return null;
     }
@@ -24,11 +24,11 @@ import android.content.Intent;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.ui.activity.NewEditItemActivity;
@@ -69,7 +69,7 @@ public class PersonMultiPanelFragment extends MultiPanelCursorListItemFragment i
                     Contract.Person.ICON
             };
             String sortOrder = Contract.Person.NAME + " ASC";
-            return new CursorLoader(activity, uri, projection, null, null, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, null, null, sortOrder);
         }
         return null;
     }
@@ -25,12 +25,12 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.MenuRes;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import android.view.MenuItem;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.ui.activity.MapActivity;
@@ -73,7 +73,7 @@ public class PlaceMultiPanelFragment extends MultiPanelCursorListItemFragment im
                     Contract.Place.ADDRESS
             };
             String sortOrder = Contract.Place.NAME + " DESC";
-            return new CursorLoader(activity, uri, projection, null, null, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, null, null, sortOrder);
         }
         return null;
     }
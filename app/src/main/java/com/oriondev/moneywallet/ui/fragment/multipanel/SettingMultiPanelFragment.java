@@ -37,6 +37,7 @@ import com.oriondev.moneywallet.ui.activity.AboutActivity;
 import com.oriondev.moneywallet.ui.adapter.recycler.SettingCategoryAdapter;
 import com.oriondev.moneywallet.ui.fragment.base.MultiPanelFragment;
 import com.oriondev.moneywallet.ui.fragment.secondary.DatabaseSettingFragment;
+import com.oriondev.moneywallet.ui.fragment.secondary.DeveloperSettingFragment;
 import com.oriondev.moneywallet.ui.fragment.secondary.UserInterfaceSettingFragment;
 import com.oriondev.moneywallet.ui.fragment.secondary.UtilitySettingFragment;
 import com.oriondev.moneywallet.ui.view.theme.ThemeEngine;
@@ -51,12 +52,14 @@ public class SettingMultiPanelFragment extends MultiPanelFragment implements Set
     private static final int ID_USER_INTERFACE = 0;
     private static final int ID_UTILITY = 1;
     private static final int ID_DATABASE = 2;
-    private static final int ID_ABOUT = 3;
+    private static final int ID_DEVELOPER = 3;
+    private static final int ID_ABOUT = 4;
 
     private static final int[] FRAGMENT_TITLES = new int[] {
             R.string.setting_title_user_interface,
             R.string.setting_title_utility,
-            R.string.setting_title_database
+            R.string.setting_title_database,
+            R.string.setting_title_developer
     };
 
     private Toolbar mSecondaryToolbar;
@@ -72,6 +75,7 @@ public class SettingMultiPanelFragment extends MultiPanelFragment implements Set
         adapter.addCategory(ID_USER_INTERFACE, R.drawable.ic_color_lens_black_24dp, R.string.setting_title_user_interface, R.string.setting_subtitle_user_interface);
         adapter.addCategory(ID_UTILITY, R.drawable.ic_vpn_key_black_24dp, R.string.setting_title_utility, R.string.setting_subtitle_utility);
         adapter.addCategory(ID_DATABASE, R.drawable.ic_storage_black_24dp, R.string.setting_title_database, R.string.setting_subtitle_database);
+        adapter.addCategory(ID_DEVELOPER, R.drawable.ic_bug_report_black_24dp, R.string.setting_title_developer, R.string.setting_subtitle_developer);
         adapter.addCategory(ID_ABOUT, R.drawable.ic_info_outline_24dp, R.string.setting_title_about, R.string.setting_subtitle_about);
         recyclerView.setAdapter(adapter);
     }
@@ -153,6 +157,8 @@ public class SettingMultiPanelFragment extends MultiPanelFragment implements Set
                 return new UtilitySettingFragment();
             case ID_DATABASE:
                 return new DatabaseSettingFragment();
+            case ID_DEVELOPER:
+                return new DeveloperSettingFragment();
             default:
                 throw new IllegalArgumentException("Invalid fragment id: " + identifier);
         }
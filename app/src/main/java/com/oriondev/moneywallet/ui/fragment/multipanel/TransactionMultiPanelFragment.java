@@ -28,12 +28,14 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.loader.content.CursorLoader;
+import androidx.core.os.OperationCanceledException;
 import androidx.loader.content.Loader;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Group;
+import com.oriondev.moneywallet.model.Money;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.storage.preference.CurrentWalletController;
@@ -163,8 +165,11 @@ public class TransactionMultiPanelFragment extends MultiPanelCursorListItemFragm
             } else {
                 selection = Contract.Transaction.WALLET_ID + " = ?";
                 selectionArgs = new String[] {String.valueOf(currentWallet)};
+                uri = uri.buildUpon()
+                        .appendQueryParameter(DataContentProvider.PARAMETER_NOTIFY_WALLET, String.valueOf(currentWallet))
+                        .build();
             }
-            selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('now', 'localtime')";
+            selection += " AND " + Contract.Transaction.FUTURE + " = 0";
             if (startDate != null) {
                 selection += " AND DATETIME(" + Contract.Transaction.DATE + ") >= DATETIME('" + DateUtils.getSQLDateTimeString(startDate) + "')";
             }
@@ -173,7 +178,10 @@ public class TransactionMultiPanelFragment extends MultiPanelCursorListItemFragm
             }
             String sortOrder = Contract.Transaction.DATE + " DESC";
             Group groupType = PreferenceManager.getCurrentGroupType();
-            return new WrappedCursorLoader(activity, uri, null, selection, selectionArgs, sortOrder, groupType, startDate, endDate);
+            // the running balance is meaningful only when all the transactions of the wallet
+            // are part of the list and not only the ones related to a filter item
+            Long balanceWalletId = type == null ? currentWallet : null;
+            return new WrappedCursorLoader(activity, uri, null, selection, selectionArgs, sortOrder, groupType, startDate, endDate, balanceWalletId);
         }
         return null;
     }
@@ -204,24 +212,35 @@ public class TransactionMultiPanelFragment extends MultiPanelCursorListItemFragm
         recreateLoader();
     }
 
-    private static class WrappedCursorLoader extends CursorLoader {
+    private static class WrappedCursorLoader extends InteractiveCursorLoader {
 
         private final Group mGroup;
         private final Date mStartDate;
         private final Date mEndDate;
+        private final Long mBalanceWalletId;
 
         private WrappedCursorLoader(@NonNull Context context, @NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
-                                    @Nullable String[] selectionArgs, @Nullable String sortOrder, Group group, Date startDate, Date endDate) {
+                                    @Nullable String[] selectionArgs, @Nullable String sortOrder, Group group, Date startDate, Date endDate,
+                                    @Nullable Long balanceWalletId) {
             super(context, uri, projection, selection, selectionArgs, sortOrder);
             mGroup = group;
             mStartDate = startDate;
             mEndDate = endDate;
+            mBalanceWalletId = balanceWalletId;
         }
 
         @Override
         public Cursor loadInBackground() {
             Cursor cursor = super.loadInBackground();
-            return new TransactionHeaderCursor(cursor, mGroup, mStartDate, mEndDate);
+            if (cursor != null && isLoadInBackgroundCanceled()) {
+                cursor.close();
+                throw new OperationCanceledException();
+            }
+            Money balance = null;
+            if (mBalanceWalletId != null) {
+                balance = TransactionHeaderCursor.getRunningBalanceSeed(getContext().getContentResolver(), cursor, mBalanceWalletId);
+            }
+            return new TransactionHeaderCursor(cursor, mGroup, mStartDate, mEndDate, balance);
         }
     }
 }
\ No newline at end of file
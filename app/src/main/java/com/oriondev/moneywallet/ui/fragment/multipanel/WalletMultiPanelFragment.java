@@ -29,7 +29,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -40,6 +39,7 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Money;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -144,7 +144,7 @@ public class WalletMultiPanelFragment extends MultiPanelAppBarItemFragment imple
                     Contract.Wallet.TOTAL_MONEY
             };
             String sortOrder = Contract.Wallet.INDEX + " ASC, " + Contract.Wallet.NAME + " ASC";
-            return new CursorLoader(context, uri, projection, null, null, sortOrder);
+            return new InteractiveCursorLoader(context, uri, projection, null, null, sortOrder);
         } else {
             return null;
         }
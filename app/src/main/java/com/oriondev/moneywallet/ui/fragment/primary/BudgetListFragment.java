@@ -24,12 +24,12 @@ import android.content.Intent;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -103,7 +103,7 @@ public class BudgetListFragment extends CursorListFragment implements BudgetCurs
                 selection += Contract.Budget.END_DATE + " >= DATE('now', 'localtime')";
                 sortOrder += " ASC";
             }
-            return new CursorLoader(activity, uri, projection, selection, selectionArgs, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, selection, selectionArgs, sortOrder);
         }
         return null;
     }
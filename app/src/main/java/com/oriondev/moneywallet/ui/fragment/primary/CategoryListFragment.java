@@ -26,12 +26,12 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -99,7 +99,7 @@ public class CategoryListFragment extends CursorListFragment implements Category
             String sortOrder = Contract.Category.GROUP_INDEX + " ASC, " + Contract.Category.GROUP_NAME +
                     " ASC, " + Contract.Category.GROUP_ID + " ASC, " + Contract.Category.PARENT +
                     " IS NULL DESC, " + Contract.Category.NAME + " ASC";
-            return new CursorLoader(activity, uri, projection, selection, selectionArgs, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, projection, selection, selectionArgs, sortOrder);
         }
         return null;
     }
@@ -27,12 +27,13 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.loader.content.CursorLoader;
+import androidx.core.os.OperationCanceledException;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -112,7 +113,7 @@ public class DebtListFragment extends CursorListFragment implements DebtCursorAd
         return null;
     }
 
-    private static class WrappedCursorLoader extends CursorLoader {
+    private static class WrappedCursorLoader extends InteractiveCursorLoader {
 
         private final Contract.DebtType mDebtType;
 
@@ -125,6 +126,10 @@ public class DebtListFragment extends CursorListFragment implements DebtCursorAd
         @Override
         public Cursor loadInBackground() {
             Cursor cursor = super.loadInBackground();
+            if (cursor != null && isLoadInBackgroundCanceled()) {
+                cursor.close();
+                throw new OperationCanceledException();
+            }
             return new DebtHeaderCursor(cursor, mDebtType);
         }
     }
@@ -26,12 +26,12 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -76,7 +76,7 @@ public class RecurrentTransferListFragment extends CursorListFragment implements
                 selectionArgs = new String[] {String.valueOf(currentWallet), String.valueOf(currentWallet)};
             }
             String sortOrder = Contract.RecurrentTransfer.NEXT_OCCURRENCE + " IS NULL OR DATETIME(" + Contract.RecurrentTransfer.NEXT_OCCURRENCE + ") < DATETIME('now', 'localtime'), " + Contract.RecurrentTransfer.NEXT_OCCURRENCE + " ASC";
-            return new CursorLoader(activity, uri, null, selection, selectionArgs, sortOrder);
+            return new InteractiveCursorLoader(activity, uri, null, selection, selectionArgs, sortOrder);
         } else {
             throw new IllegalStateException("Activity is null");
         }
@@ -27,15 +27,17 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.loader.content.CursorLoader;
+import androidx.core.os.OperationCanceledException;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.model.Group;
+import com.oriondev.moneywallet.model.Money;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
 import com.oriondev.moneywallet.storage.preference.PreferenceManager;
@@ -78,12 +80,15 @@ public class TransactionListFragment extends CursorListFragment implements Trans
             } else {
                 selection = Contract.Transaction.WALLET_ID + " = ?";
                 arguments = new String[] {String.valueOf(currentWallet)};
+                uri = uri.buildUpon()
+                        .appendQueryParameter(DataContentProvider.PARAMETER_NOTIFY_WALLET, String.valueOf(currentWallet))
+                        .build();
             }
-            selection += " AND DATETIME(" + Contract.Transaction.DATE + ") <= DATETIME('now', 'localtime')";
+            selection += " AND " + Contract.Transaction.FUTURE + " = 0";
             String sortOrder = Contract.Transaction.DATE + " DESC";
             Group groupType = PreferenceManager.getCurrentGroupType();
             return new WrappedCursorLoader(activity, uri, null, selection, arguments,
-                    sortOrder, groupType, null, null);
+                    sortOrder, groupType, null, null, currentWallet);
         }
         return null;
     }
@@ -115,24 +120,33 @@ public class TransactionListFragment extends CursorListFragment implements Trans
         return true;
     }
 
-    private static class WrappedCursorLoader extends CursorLoader {
+    private static class WrappedCursorLoader extends InteractiveCursorLoader {
 
         private final Group mGroup;
         private final Date mStartDate;
         private final Date mEndDate;
+        private final long mWalletId;
 
         private WrappedCursorLoader(@NonNull Context context, @NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
-                                   @Nullable String[] selectionArgs, @Nullable String sortOrder, Group group, Date startDate, Date endDate) {
+                                   @Nullable String[] selectionArgs, @Nullable String sortOrder, Group group, Date startDate, Date endDate,
+                                   long walletId) {
             super(context, uri, projection, selection, selectionArgs, sortOrder);
             mGroup = group;
             mStartDate = startDate;
             mEndDate = endDate;
+            mWalletId = walletId;
         }
 
         @Override
         public Cursor loadInBackground() {
             Cursor cursor = super.loadInBackground();
-            return new TransactionHeaderCursor(cursor, mGroup, mStartDate, mEndDate);
+            if (cursor != null && isLoadInBackgroundCanceled()) {
+                // the loader has been restarted: skip the wrapping of a stale result
+                cursor.close();
+                throw new OperationCanceledException();
+            }
+            Money balance = TransactionHeaderCursor.getRunningBalanceSeed(getContext().getContentResolver(), cursor, mWalletId);
+            return new TransactionHeaderCursor(cursor, mGroup, mStartDate, mEndDate, balance);
         }
     }
 }
\ No newline at end of file
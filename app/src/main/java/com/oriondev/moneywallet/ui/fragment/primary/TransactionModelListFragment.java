@@ -25,12 +25,12 @@ import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
 import androidx.fragment.app.Fragment;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -84,7 +84,7 @@ public class TransactionModelListFragment extends CursorListFragment implements
                 selection = Contract.TransactionModel.WALLET_ID + " = ?";
                 selectionArgs = new String[] {String.valueOf(currentWallet)};
             }
-            return new CursorLoader(activity, uri, projection, selection, selectionArgs, null);
+            return new InteractiveCursorLoader(activity, uri, projection, selection, selectionArgs, null);
         }
         return null;
     }
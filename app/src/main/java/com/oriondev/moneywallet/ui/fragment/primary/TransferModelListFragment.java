@@ -26,12 +26,12 @@ import android.net.Uri;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.LocalAction;
 import com.oriondev.moneywallet.broadcast.Message;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -89,7 +89,7 @@ public class TransferModelListFragment extends CursorListFragment implements Tra
                 selection = Contract.TransferModel.WALLET_FROM_ID + " = ? OR " + Contract.TransferModel.WALLET_TO_ID + " = ?";
                 selectionArgs = new String[] {String.valueOf(currentWallet), String.valueOf(currentWallet)};
             }
-            return new CursorLoader(activity, uri, projection, selection, selectionArgs, null);
+            return new InteractiveCursorLoader(activity, uri, projection, selection, selectionArgs, null);
         } else {
             throw new IllegalStateException("Activity is null");
         }
@@ -30,7 +30,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
@@ -41,6 +40,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -188,12 +188,12 @@ public class BudgetItemFragment extends SecondaryPanelFragment implements Loader
                         Contract.Budget.START_DATE,
                         Contract.Budget.END_DATE
                 };
-                return new CursorLoader(activity, uri, projection, null, null, null);
+                return new InteractiveCursorLoader(activity, uri, projection, null, null, null);
             } else if (id == WALLETS_LOADER_ID) {
                 String[] projection = new String[] {
                         "*"
                 };
-                return new CursorLoader(getActivity(), Uri.withAppendedPath(uri, "wallets"), projection, null, null, null);
+                return new InteractiveCursorLoader(getActivity(), Uri.withAppendedPath(uri, "wallets"), projection, null, null, null);
             }
         }
         return null;
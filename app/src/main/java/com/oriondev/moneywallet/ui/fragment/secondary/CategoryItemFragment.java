@@ -30,7 +30,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
@@ -45,6 +44,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -198,7 +198,7 @@ public class CategoryItemFragment extends SecondaryPanelFragment implements Load
                     Contract.Category.TYPE,
                     Contract.Category.SHOW_REPORT
             };
-            return new CursorLoader(getActivity(), uri, projection, null, null, null);
+            return new InteractiveCursorLoader(getActivity(), uri, projection, null, null, null);
         }
         return null;
     }
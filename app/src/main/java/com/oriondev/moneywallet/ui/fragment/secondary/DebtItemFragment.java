@@ -31,7 +31,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -44,6 +43,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -266,12 +266,12 @@ public class DebtItemFragment extends SecondaryPanelFragment implements LoaderMa
                         Contract.Debt.NOTE,
                         Contract.Debt.ARCHIVED
                 };
-                return new CursorLoader(activity, uri, projection, null, null, null);
+                return new InteractiveCursorLoader(activity, uri, projection, null, null, null);
             } else if (id == PEOPLE_LOADER_ID) {
                 String[] projection = new String[] {
                         "*"
                 };
-                return new CursorLoader(getActivity(), Uri.withAppendedPath(uri, "people"), projection, null, null, null);
+                return new InteractiveCursorLoader(getActivity(), Uri.withAppendedPath(uri, "people"), projection, null, null, null);
             }
         }
         return null;
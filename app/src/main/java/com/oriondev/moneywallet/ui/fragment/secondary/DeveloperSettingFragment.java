@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.ui.fragment.secondary;
+
+import android.content.ActivityNotFoundException;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.FileProvider;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceFragmentCompat;
+import androidx.recyclerview.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.QueryExecutor;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.database.QueryProfiler;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+import com.oriondev.moneywallet.ui.preference.ThemedSwitchPreference;
+import com.oriondev.moneywallet.ui.view.theme.ThemedDialog;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * This fragment shows the data collected by the {@link QueryProfiler}.
+ */
+public class DeveloperSettingFragment extends PreferenceFragmentCompat {
+
+    private static final String EXPORT_FOLDER = "profiler";
+    private static final String EXPORT_FILE = "query_profile.json";
+
+    private ThemedSwitchPreference mProfilingPreference;
+    private Preference mStatisticsPreference;
+    private Preference mSlowQueriesPreference;
+    private Preference mLanesPreference;
+    private Preference mExportPreference;
+    private Preference mResetPreference;
+
+    @Override
+    public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
+        addPreferencesFromResource(R.xml.settings_developer);
+        mProfilingPreference = (ThemedSwitchPreference) findPreference("query_profiling");
+        mStatisticsPreference = findPreference("query_statistics");
+        mSlowQueriesPreference = findPreference("slow_queries");
+        mLanesPreference = findPreference("query_lanes");
+        mExportPreference = findPreference("export_profile");
+        mResetPreference = findPreference("reset_profile");
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        mProfilingPreference.setChecked(PreferenceManager.isQueryProfilingEnabled());
+        mProfilingPreference.setOnPreferenceChangeListener(new Preference.OnPreferenceChangeListener() {
+
+            @Override
+            public boolean onPreferenceChange(Preference preference, Object newValue) {
+                boolean enabled = (Boolean) newValue;
+                PreferenceManager.setQueryProfilingEnabled(enabled);
+                QueryProfiler.setEnabled(enabled);
+                return true;
+            }
+
+        });
+        mStatisticsPreference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                showStatistics();
+                return false;
+            }
+
+        });
+        mSlowQueriesPreference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                showSlowQueries();
+                return false;
+            }
+
+        });
+        mLanesPreference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                showLanes();
+                return false;
+            }
+
+        });
+        mExportPreference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                exportProfile();
+                return false;
+            }
+
+        });
+        mResetPreference.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+
+            @Override
+            public boolean onPreferenceClick(Preference preference) {
+                QueryProfiler.reset();
+                return false;
+            }
+
+        });
+    }
+
+    private void showStatistics() {
+        Context context = getActivity();
+        if (context == null) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder();
+        long[] counters = DataContentProvider.getNotificationCounters(context);
+        builder.append(getString(R.string.message_developer_profiler_notifications, counters[0],
+                counters[1], QueryProfiler.getNotificationDispatchCount(),
+                QueryProfiler.getNotificationFilteredCount()));
+        for (QueryProfiler.OperationSnapshot snapshot : QueryProfiler.getOperationSnapshots()) {
+            builder.append("\n\n");
+            builder.append(getString(R.string.message_developer_profiler_statistics_item,
+                    snapshot.getKey(), snapshot.getCount(), snapshot.getRows(),
+                    snapshot.getWindowFills(), toMillis(snapshot.getPercentileMicros(0.50)),
+                    toMillis(snapshot.getPercentileMicros(0.95)),
+                    toMillis(snapshot.getPercentileMicros(0.99)),
+                    toMillis(snapshot.getMaxMicros())));
+        }
+        ThemedDialog.buildMaterialDialog(context)
+                .title(R.string.setting_title_developer_profiler_statistics)
+                .content(builder.toString())
+                .positiveText(android.R.string.ok)
+                .show();
+    }
+
+    private void showSlowQueries() {
+        Context context = getActivity();
+        if (context == null) {
+            return;
+        }
+        List<QueryProfiler.SlowQuery> slowQueries = QueryProfiler.getSlowQueries();
+        StringBuilder builder = new StringBuilder();
+        for (QueryProfiler.SlowQuery slowQuery : slowQueries) {
+            if (builder.length() > 0) {
+                builder.append("\n\n");
+            }
+            builder.append(getString(R.string.message_developer_profiler_slow_query_item,
+                    slowQuery.getKey(), toMillis(slowQuery.getElapsedMicros()),
+                    slowQuery.getRows(), slowQuery.getSql(), slowQuery.getQueryPlan()));
+        }
+        ThemedDialog.buildMaterialDialog(context)
+                .title(R.string.setting_title_developer_profiler_slow_queries)
+                .content(slowQueries.isEmpty() ? getString(R.string.message_developer_profiler_empty) : builder.toString())
+                .positiveText(android.R.string.ok)
+                .show();
+    }
+
+    private void showLanes() {
+        Context context = getActivity();
+        if (context == null) {
+            return;
+        }
+        QueryExecutor executor = QueryExecutor.getInstance();
+        StringBuilder builder = new StringBuilder();
+        builder.append(getString(R.string.message_developer_profiler_deduplicated, executor.getDeduplicatedCount()));
+        for (QueryExecutor.Lane lane : QueryExecutor.Lane.values()) {
+            QueryExecutor.LaneMetrics metrics = executor.getMetrics(lane);
+            builder.append("\n\n");
+            builder.append(getString(R.string.message_developer_profiler_lane_item,
+                    lane.name(), metrics.getQueueDepth(), metrics.getActiveCount(),
+                    metrics.getCompletedCount(), metrics.getAverageWaitMillis(),
+                    metrics.getAverageRunMillis(), metrics.getMaxRunMillis()));
+        }
+        ThemedDialog.buildMaterialDialog(context)
+                .title(R.string.setting_title_developer_profiler_lanes)
+                .content(builder.toString())
+                .positiveText(android.R.string.ok)
+                .show();
+    }
+
+    private void exportProfile() {
+        Context context = getActivity();
+        if (context == null) {
+            return;
+        }
+        File folder = new File(context.getExternalFilesDir(null), EXPORT_FOLDER);
+        File file = new File(folder, EXPORT_FILE);
+        try {
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("Failed to create folder: " + folder);
+            }
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                JSONObject profile = QueryProfiler.toJson(context);
+                profile.put("executor", getExecutorJson());
+                writer.write(profile.toString(2));
+            } finally {
+                writer.close();
+            }
+        } catch (IOException | JSONException e) {
+            ThemedDialog.buildMaterialDialog(context)
+                    .title(R.string.title_error)
+                    .content(e.getMessage())
+                    .positiveText(android.R.string.ok)
+                    .show();
+            return;
+        }
+        String authority = context.getPackageName() + ".storage.file";
+        Uri uri = FileProvider.getUriForFile(context, authority, file);
+        Intent target = new Intent(Intent.ACTION_SEND);
+        target.setType("application/json");
+        target.putExtra(Intent.EXTRA_STREAM, uri);
+        target.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        try {
+            startActivity(Intent.createChooser(target, getString(R.string.setting_title_developer_profiler_export)));
+        } catch (ActivityNotFoundException ignore) {
+            // no activity to handle this type of file
+        }
+    }
+
+    private static JSONObject getExecutorJson() throws JSONException {
+        QueryExecutor executor = QueryExecutor.getInstance();
+        JSONObject root = new JSONObject();
+        root.put("deduplicated", executor.getDeduplicatedCount());
+        JSONArray lanes = new JSONArray();
+        for (QueryExecutor.Lane lane : QueryExecutor.Lane.values()) {
+            QueryExecutor.LaneMetrics metrics = executor.getMetrics(lane);
+            JSONObject item = new JSONObject();
+            item.put("lane", lane.name());
+            item.put("queue_depth", metrics.getQueueDepth());
+            item.put("active", metrics.getActiveCount());
+            item.put("completed", metrics.getCompletedCount());
+            item.put("avg_wait_ms", metrics.getAverageWaitMillis());
+            item.put("avg_run_ms", metrics.getAverageRunMillis());
+            item.put("max_run_ms", metrics.getMaxRunMillis());
+            lanes.put(item);
+        }
+        root.put("lanes", lanes);
+        return root;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    @Override
+    public RecyclerView onCreateRecyclerView(LayoutInflater inflater, ViewGroup parent, Bundle savedInstanceState) {
+        RecyclerView recyclerView = super.onCreateRecyclerView(inflater, parent, savedInstanceState);
+        recyclerView.setPadding(0, 0, 0, 0);
+        return recyclerView;
+    }
+}
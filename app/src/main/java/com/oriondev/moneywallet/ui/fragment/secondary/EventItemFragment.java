@@ -30,7 +30,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -43,6 +42,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -170,7 +170,7 @@ public class EventItemFragment extends SecondaryPanelFragment implements LoaderM
                     Contract.Event.END_DATE,
                     Contract.Event.NOTE
             };
-            return new CursorLoader(getActivity(), uri, projection, null, null, null);
+            return new InteractiveCursorLoader(getActivity(), uri, projection, null, null, null);
         }
         return null;
     }
@@ -30,7 +30,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -43,6 +42,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.storage.database.Contract;
 import com.oriondev.moneywallet.storage.database.DataContentProvider;
@@ -162,7 +162,7 @@ public class PersonItemFragment extends SecondaryPanelFragment implements Loader
                     Contract.Person.ICON,
                     Contract.Person.NOTE
             };
-            return new CursorLoader(getActivity(), uri, projection, null, null, null);
+            return new InteractiveCursorLoader(getActivity(), uri, projection, null, null, null);
         }
         return null;
     }
@@ -31,7 +31,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import androidx.cardview.widget.CardView;
 import android.text.TextUtils;
@@ -45,6 +44,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Coordinates;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -245,7 +245,7 @@ public class PlaceItemFragment extends SecondaryPanelFragment implements LoaderM
                     Contract.Place.LATITUDE,
                     Contract.Place.LONGITUDE
             };
-            return new CursorLoader(getActivity(), uri, projection, null, null, null);
+            return new InteractiveCursorLoader(getActivity(), uri, projection, null, null, null);
         }
         throw new IllegalStateException("Parent activity is null");
     }
@@ -29,7 +29,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -42,6 +41,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.broadcast.RecurrenceBroadcastReceiver;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.RecurrenceSetting;
@@ -185,7 +185,7 @@ public class RecurrentTransactionItemFragment extends SecondaryPanelFragment imp
             String[] projection = new String[] {
                     "*"
             };
-            return new CursorLoader(getActivity(), uri, projection, null, null, null);
+            return new InteractiveCursorLoader(getActivity(), uri, projection, null, null, null);
         }
         throw new IllegalStateException("Activity is null");
     }
@@ -31,7 +31,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -44,6 +43,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -247,7 +247,7 @@ public class SavingItemFragment extends SecondaryPanelFragment implements Loader
                     Contract.Saving.NOTE,
                     Contract.Saving.COMPLETE
             };
-            return new CursorLoader(activity, uri, projection, null, null, null);
+            return new InteractiveCursorLoader(activity, uri, projection, null, null, null);
         }
         return null;
     }
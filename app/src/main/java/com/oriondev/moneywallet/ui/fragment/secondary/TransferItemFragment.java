@@ -30,7 +30,6 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.loader.app.LoaderManager;
-import androidx.loader.content.CursorLoader;
 import androidx.loader.content.Loader;
 import android.text.TextUtils;
 import android.view.LayoutInflater;
@@ -43,6 +42,7 @@ import android.widget.TextView;
 import com.afollestad.materialdialogs.DialogAction;
 import com.afollestad.materialdialogs.MaterialDialog;
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.InteractiveCursorLoader;
 import com.oriondev.moneywallet.model.Attachment;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.storage.database.Contract;
@@ -208,12 +208,12 @@ public class TransferItemFragment extends SecondaryPanelFragment implements Atta
                 String[] projection = new String[] {
                         "*"
                 };
-                return new CursorLoader(getActivity(), uri, projection, null, null, null);
+                return new InteractiveCursorLoader(getActivity(), uri, projection, null, null, null);
             } else if (id == PEOPLE_LOADER_ID) {
                 String[] projection = new String[] {
                         "*"
                 };
-                return new CursorLoader(getActivity(), Uri.withAppendedPath(uri, "people"), projection, null, null, null);
+                return new InteractiveCursorLoader(getActivity(), Uri.withAppendedPath(uri, "people"), projection, null, null, null);
             } else if (id == ATTACHMENTS_LOADER_ID) {
                 String[] projection = new String[] {
                         Contract.Attachment.ID,
@@ -222,7 +222,7 @@ public class TransferItemFragment extends SecondaryPanelFragment implements Atta
                         Contract.Attachment.TYPE,
                         Contract.Attachment.SIZE
                 };
-                return new CursorLoader(getActivity(), Uri.withAppendedPath(uri, "attachments"), projection, null, null, null);
+                return new InteractiveCursorLoader(getActivity(), Uri.withAppendedPath(uri, "attachments"), projection, null, null, null);
             }
         }
         return null;
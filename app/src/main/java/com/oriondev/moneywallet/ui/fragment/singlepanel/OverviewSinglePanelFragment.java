@@ -37,7 +37,9 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.oriondev.moneywallet.R;
+import com.oriondev.moneywallet.background.ForecastDataLoader;
 import com.oriondev.moneywallet.background.OverviewDataLoader;
+import com.oriondev.moneywallet.model.ForecastData;
 import com.oriondev.moneywallet.model.OverviewData;
 import com.oriondev.moneywallet.model.OverviewSetting;
 import com.oriondev.moneywallet.model.PeriodMoney;
@@ -55,6 +57,9 @@ import com.oriondev.moneywallet.ui.fragment.base.SinglePanelFragment;
 public class OverviewSinglePanelFragment extends SinglePanelFragment implements OverviewSettingPicker.Controller, LoaderManager.LoaderCallbacks<OverviewData>, OverviewItemAdapter.Controller, CurrentWalletController {
 
     private static final int LOADER_OVERVIEW_DATA = 34848;
+    private static final int LOADER_FORECAST_DATA = 34849;
+
+    private static final int FORECAST_MONTHS = 6;
 
     private static final String TAG_SETTING_PICKER = "OverviewSinglePanelFragment::Tag::OverviewSettingPicker";
 
@@ -92,6 +97,8 @@ public class OverviewSinglePanelFragment extends SinglePanelFragment implements
         // initialize picker
         FragmentManager fragmentManager = getChildFragmentManager();
         mOverviewSettingPicker = OverviewSettingPicker.createPicker(fragmentManager, TAG_SETTING_PICKER);
+        // the forecast does not depend on the overview settings
+        getLoaderManager().initLoader(LOADER_FORECAST_DATA, null, mForecastLoaderCallbacks);
     }
 
     @Override
@@ -151,5 +158,26 @@ public class OverviewSinglePanelFragment extends SinglePanelFragment implements
     @Override
     public void onCurrentWalletChanged(long walletId) {
         getLoaderManager().restartLoader(LOADER_OVERVIEW_DATA, null, this);
+        getLoaderManager().restartLoader(LOADER_FORECAST_DATA, null, mForecastLoaderCallbacks);
     }
+
+    private final LoaderManager.LoaderCallbacks<ForecastData> mForecastLoaderCallbacks = new LoaderManager.LoaderCallbacks<ForecastData>() {
+
+        @NonNull
+        @Override
+        public Loader<ForecastData> onCreateLoader(int id, Bundle args) {
+            return new ForecastDataLoader(getActivity(), FORECAST_MONTHS, true);
+        }
+
+        @Override
+        public void onLoadFinished(@NonNull Loader<ForecastData> loader, ForecastData data) {
+            mViewPagerAdapter.setForecastData(data);
+        }
+
+        @Override
+        public void onLoaderReset(@NonNull Loader<ForecastData> loader) {
+            // nothing to release
+        }
+
+    };
 }
\ No newline at end of file
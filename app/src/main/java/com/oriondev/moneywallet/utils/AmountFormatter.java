@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.utils;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+
+/**
+ * This class contains the text formatting of a single amount used by the {@link MoneyFormatter}.
+ * It does not read the preferences and it does not depend on the android framework: the caller
+ * provides all the options. The number format is configured again only when the number of
+ * decimals changes, because the setters of the format are not cheap.
+ */
+public class AmountFormatter {
+
+    private static final int DEFAULT_MIN_INTEGER_DIGITS = 1;
+
+    private final NumberFormat mFormatter;
+    private boolean mGroupDigitEnabled;
+    private boolean mRoundDecimalsEnabled;
+    private int mConfiguredDecimals = -1;
+
+    public AmountFormatter() {
+        mFormatter = DecimalFormat.getInstance();
+        mFormatter.setMinimumIntegerDigits(DEFAULT_MIN_INTEGER_DIGITS);
+        mFormatter.setGroupingUsed(false);
+    }
+
+    public void setGroupDigitEnabled(boolean enabled) {
+        mGroupDigitEnabled = enabled;
+        mFormatter.setGroupingUsed(enabled);
+    }
+
+    public void setRoundDecimalsEnabled(boolean enabled) {
+        mRoundDecimalsEnabled = enabled;
+        mConfiguredDecimals = -1;
+    }
+
+    public boolean isGroupDigitEnabled() {
+        return mGroupDigitEnabled;
+    }
+
+    public boolean isRoundDecimalsEnabled() {
+        return mRoundDecimalsEnabled;
+    }
+
+    /**
+     * Format an amount.
+     * @param symbol of the currency to put before the amount or null to omit it.
+     * @param decimals of the currency: the amount is expressed in the smallest unit.
+     * @param money amount to format.
+     * @param negative true to prefix the absolute value with a minus.
+     * @param plusSign true to prefix the absolute value with a plus when it is not negative.
+     * @return the formatted amount.
+     */
+    public String format(String symbol, int decimals, long money, boolean negative, boolean plusSign) {
+        StringBuilder builder = new StringBuilder();
+        if (symbol != null) {
+            builder.append(symbol);
+            builder.append(" ");
+        }
+        if (negative) {
+            builder.append("-");
+        } else if (plusSign) {
+            builder.append("+");
+        }
+        configure(decimals);
+        builder.append(mFormatter.format((double) Math.abs(money) / Math.pow(10, decimals)));
+        return builder.toString();
+    }
+
+    private void configure(int decimals) {
+        if (decimals != mConfiguredDecimals) {
+            if (mRoundDecimalsEnabled) {
+                mFormatter.setMinimumFractionDigits(0);
+                mFormatter.setMaximumFractionDigits(0);
+                mFormatter.setRoundingMode(RoundingMode.HALF_UP);
+            } else {
+                mFormatter.setMinimumFractionDigits(decimals);
+                mFormatter.setMaximumFractionDigits(decimals);
+                mFormatter.setRoundingMode(RoundingMode.HALF_EVEN);
+            }
+            mConfiguredDecimals = decimals;
+        }
+    }
+}
@@ -23,7 +23,11 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.os.Looper;
 
+import androidx.annotation.VisibleForTesting;
+
+import com.oriondev.moneywallet.background.QueryExecutor;
 import com.oriondev.moneywallet.model.CurrencyUnit;
 import com.oriondev.moneywallet.model.ExchangeRate;
 import com.oriondev.moneywallet.storage.cache.ExchangeRateCache;
@@ -38,60 +42,210 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Currency;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * This class act as a proxy on the top of the content provider.
  * It is responsible to cache the currency list for a faster access at runtime and manage all
  * the related operations (like handle currency rates).
+ *
+ * The currencies are stored inside an immutable snapshot that is replaced as a whole when the
+ * currencies are reloaded, so the readers never lock and never observe a partial reload. Each
+ * currency is interned to a dense int id that never changes while the application is running:
+ * the hot loops can resolve the id once and then read the currency from an array.
+ *
+ * The main thread never waits for the loading of the currencies: until they are loaded it reads
+ * the currencies of the platform, and all the observers of the data are notified as soon as the
+ * currencies of the user are available.
  */
 public class CurrencyManager {
 
-    private static final Object CACHE_MUTEX = new Object();
+    private static final Object RELOAD_MUTEX = new Object();
 
-    private static CurrencyManager mInstance;
+    private static volatile CurrencyManager mInstance;
+    private static volatile boolean mPlatformCurrencyRead;
 
+    /**
+     * Load the currencies and the exchange rates in the calling thread, that must be a background
+     * thread. Until the loading is completed the readers of the main thread never wait for it:
+     * they read the currencies of the platform instead. The readers of a background thread wait
+     * until the loading is completed.
+     * @param context of the application.
+     */
     public static void initialize(Context context) {
+        CurrencyManager instance = create(context);
+        instance.mLoadTask.run();
+        await(instance.mLoadTask);
+    }
+
+    private static synchronized CurrencyManager create(Context context) {
         if (mInstance == null) {
-            mInstance = new CurrencyManager(context);
+            mInstance = new CurrencyManager(context.getApplicationContext());
+            // wake up the readers of the background threads that are waiting for the instance
+            CurrencyManager.class.notifyAll();
         }
+        return mInstance;
     }
 
-    private final ExchangeRateCache mExchangeRateCache;
-    private final Map<String, CurrencyUnit> mCurrencyCache;
+    @VisibleForTesting
+    /*package-local*/ static synchronized void reset() {
+        mInstance = null;
+    }
+
+    private final FutureTask<Void> mLoadTask;
+    private ExchangeRateCache mExchangeRateCache;
+
+    private volatile Snapshot mSnapshot;
+    private volatile FutureTask<Void> mPendingReload;
 
-    private CurrencyManager(Context context) {
-        mExchangeRateCache = new ExchangeRateCache(context);
-        mCurrencyCache = new HashMap<>();
-        loadCurrencies(context);
+    private CurrencyManager(final Context context) {
+        // the fields written by the task are visible to every thread that waits for its result
+        mLoadTask = new FutureTask<>(new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                mExchangeRateCache = new ExchangeRateCache(context);
+                reload(context);
+                if (mPlatformCurrencyRead) {
+                    // the views drawn with the currencies of the platform are drawn again
+                    DataContentProvider.notifyAllObservers(context);
+                }
+                return null;
+            }
+
+        });
     }
 
-    private void loadCurrencies(Context context) {
-        loadUserCurrencies(context);
-        if (mCurrencyCache.isEmpty()) {
-            System.out.println("[CurrencyManager] No currency found. Loading default currencies from the assets...");
-            loadDefaultCurrencies(context);
+    /**
+     * Obtain the loaded instance. A reader of a background thread waits until the currencies are
+     * loaded and, if the loading has not been started yet, it is executed in the calling thread.
+     * @return the loaded instance or null if the calling thread is the main thread and the
+     * currencies are not loaded yet.
+     */
+    private static CurrencyManager getInstance() {
+        CurrencyManager instance = mInstance;
+        if (instance != null && instance.mSnapshot != null) {
+            return instance;
         }
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            mPlatformCurrencyRead = true;
+            return null;
+        }
+        synchronized (CurrencyManager.class) {
+            while (mInstance == null) {
+                try {
+                    CurrencyManager.class.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            instance = mInstance;
+        }
+        instance.mLoadTask.run();
+        await(instance.mLoadTask);
+        return instance;
     }
 
-    public static void invalidateCache(Context context) {
-        synchronized (CACHE_MUTEX) {
-            System.out.println("[CurrencyManager] Invalidating cache...");
-            mInstance.mCurrencyCache.clear();
-            mInstance.loadCurrencies(context);
+    /**
+     * @return the current snapshot or null if the calling thread is the main thread and the
+     * currencies are not loaded yet.
+     */
+    private static Snapshot getSnapshot() {
+        CurrencyManager instance = getInstance();
+        return instance != null ? instance.mSnapshot : null;
+    }
+
+    private static void await(Future<Void> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Exception while loading the currencies", e.getCause());
         }
     }
 
     /**
-     * This method will force reload all currencies from the database inside the currency manager.
-     * A call to this method is very expensive because it is an I/O operation on the main thread.
+     * Reload the currencies from the database. The new snapshot is built in background and
+     * replaces the current one when it is complete: until then the readers keep reading the
+     * current snapshot, but a reader that does not find a currency waits for the reload. When
+     * the new snapshot is visible all the observers of the data are notified, so the data that
+     * has been loaded with the old currencies is loaded again.
+     * @param context of the application.
+     * @return a future that is completed when the new currencies are visible.
+     */
+    public static Future<Void> invalidateCache(Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        final CurrencyManager instance = create(applicationContext);
+        FutureTask<Void> reloadTask = new FutureTask<>(new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                try {
+                    // the snapshot of the first loading is replaced only when it is completed
+                    instance.mLoadTask.run();
+                    await(instance.mLoadTask);
+                    instance.reload(applicationContext);
+                    DataContentProvider.notifyAllObservers(applicationContext);
+                } catch (RuntimeException e) {
+                    // the current snapshot is still valid: the readers keep using it
+                    e.printStackTrace();
+                }
+                return null;
+            }
+
+        });
+        instance.mPendingReload = reloadTask;
+        QueryExecutor.getInstance().getExecutor(QueryExecutor.Lane.INTERACTIVE).execute(reloadTask);
+        return reloadTask;
+    }
+
+    /**
+     * Reload the currencies and wait until the new currencies are visible. It must be called
+     * only from a background thread.
      * @param context of the application.
      */
-    private void loadUserCurrencies(Context context) {
+    public static void invalidateCacheAndWait(Context context) {
+        await(invalidateCache(context));
+    }
+
+    /**
+     * The reloads are serialized, so the last one that reads the database is also the last one
+     * that replaces the snapshot.
+     */
+    private void reload(Context context) {
+        synchronized (RELOAD_MUTEX) {
+            List<CurrencyUnit> currencies = loadUserCurrencies(context);
+            if (currencies.isEmpty()) {
+                // first start of the application: the database is filled with the default ones
+                currencies = loadDefaultCurrencies(context);
+            }
+            mSnapshot = new Snapshot(mSnapshot, currencies);
+        }
+    }
+
+    /**
+     * Read all the currencies stored inside the database.
+     * A call to this method is expensive because it is an I/O operation: it is always executed
+     * in background.
+     * @param context of the application.
+     */
+    private List<CurrencyUnit> loadUserCurrencies(Context context) {
+        List<CurrencyUnit> currencies = new ArrayList<>();
         ContentResolver contentResolver = context.getContentResolver();
         String[] projections = new String[] {
                 Contract.Currency.ISO,
@@ -106,18 +260,19 @@ public class CurrencyManager {
             int indexSymbol = cursor.getColumnIndex(Contract.Currency.SYMBOL);
             int indexDecimals = cursor.getColumnIndex(Contract.Currency.DECIMALS);
             while (cursor.moveToNext()) {
-                CurrencyUnit currencyUnit = new CurrencyUnit(
+                currencies.add(new CurrencyUnit(
                         cursor.getString(indexIso),
                         cursor.getString(indexName),
                         cursor.getString(indexSymbol),
-                        cursor.getInt(indexDecimals));
-                mCurrencyCache.put(currencyUnit.getIso(), currencyUnit);
+                        cursor.getInt(indexDecimals)));
             }
             cursor.close();
         }
+        return currencies;
     }
 
-    private void loadDefaultCurrencies(Context context) {
+    private List<CurrencyUnit> loadDefaultCurrencies(Context context) {
+        List<CurrencyUnit> currencies = new ArrayList<>();
         try {
             // open assets file and load all the default currencies into a JSONArray
             StringBuilder jsonBuilder = new StringBuilder();
@@ -127,9 +282,11 @@ public class CurrencyManager {
             while ((line = bufferedReader.readLine()) != null) {
                 jsonBuilder.append(line);
             }
+            bufferedReader.close();
             JSONArray array = new JSONArray(jsonBuilder.toString());
-            // for each currency, load it into cache and store a copy inside the database
-            ContentResolver contentResolver = context.getContentResolver();
+            // for each currency, load it into cache and store a copy inside the database: all the
+            // currencies are inserted with a single call inside a single transaction
+            ContentValues[] values = new ContentValues[array.length()];
             for (int i = 0; i < array.length(); i++) {
                 JSONObject currency = array.getJSONObject(i);
                 ContentValues contentValues = new ContentValues();
@@ -137,40 +294,104 @@ public class CurrencyManager {
                 contentValues.put(Contract.Currency.NAME, currency.getString("name"));
                 contentValues.put(Contract.Currency.SYMBOL, currency.optString("symbol", null));
                 contentValues.put(Contract.Currency.DECIMALS, currency.optInt("decimals", 2));
-                contentResolver.insert(DataContentProvider.CONTENT_CURRENCIES, contentValues);
+                values[i] = contentValues;
                 // directly store the currency inside the local cache
-                CurrencyUnit currencyUnit = new CurrencyUnit(
+                currencies.add(new CurrencyUnit(
                         contentValues.getAsString(Contract.Currency.ISO),
                         contentValues.getAsString(Contract.Currency.NAME),
                         contentValues.getAsString(Contract.Currency.SYMBOL),
                         contentValues.getAsInteger(Contract.Currency.DECIMALS)
-                );
-                mCurrencyCache.put(currencyUnit.getIso(), currencyUnit);
+                ));
             }
+            context.getContentResolver().bulkInsert(DataContentProvider.CONTENT_CURRENCIES, values);
         } catch (IOException | JSONException e) {
             throw new RuntimeException("Exception while reading currencies file from assets: " + e.getMessage());
         }
+        return currencies;
     }
 
     /**
-     * Obtain the currency object from the iso code.
+     * Obtain the currency object from the iso code. Until the currencies are loaded, the main
+     * thread receives the currency of the platform with the same iso code.
      * @param iso of the currency to obtain.
      * @return the currency object if the iso code is found.
      */
     public static CurrencyUnit getCurrency(String iso) {
-        synchronized (CACHE_MUTEX) {
-            return mInstance.mCurrencyCache.get(iso);
+        Snapshot snapshot = getSnapshot();
+        if (snapshot == null) {
+            return getPlatformCurrency(iso);
         }
+        CurrencyUnit currencyUnit = snapshot.getCurrency(iso);
+        if (currencyUnit == null && iso != null && Looper.myLooper() != Looper.getMainLooper()) {
+            // the currency may have been added just before the reload that is still running:
+            // the main thread does not wait for it because the observers are notified anyway
+            FutureTask<Void> pendingReload = mInstance.mPendingReload;
+            if (pendingReload != null && !pendingReload.isDone()) {
+                await(pendingReload);
+                currencyUnit = getSnapshot().getCurrency(iso);
+            }
+        }
+        return currencyUnit;
     }
 
-    public static Collection<CurrencyUnit> getCurrencies() {
-        synchronized (CACHE_MUTEX) {
-            return mInstance.mCurrencyCache.values();
+    /**
+     * Build the currency from the data of the platform. It is read only by the main thread
+     * until the currencies of the user are loaded.
+     * @param iso of the currency to obtain.
+     * @return the currency object or null if the iso code is not known by the platform.
+     */
+    private static CurrencyUnit getPlatformCurrency(String iso) {
+        if (iso != null) {
+            try {
+                Currency currency = Currency.getInstance(iso);
+                return new CurrencyUnit(iso, currency.getDisplayName(), currency.getSymbol(), Math.max(0, currency.getDefaultFractionDigits()));
+            } catch (IllegalArgumentException e) {
+                // it is a custom currency created by the user
+            }
         }
+        return null;
+    }
+
+    /**
+     * Obtain the dense id of a currency, that can be used to read the currency from an array
+     * with {@link #getCurrency(int)}. The id of an iso code never changes while the application
+     * is running, even if the currency is reloaded.
+     * @param iso of the currency.
+     * @return the id of the currency or -1 if the iso code is not found or if the main thread
+     * reads it before the currencies are loaded.
+     */
+    public static int getCurrencyId(String iso) {
+        Snapshot snapshot = getSnapshot();
+        return snapshot != null ? snapshot.getId(iso) : -1;
+    }
+
+    /**
+     * Obtain the currency object from its dense id.
+     * @param id returned by {@link #getCurrencyId(String)}.
+     * @return the currency object or null if the currency has been deleted.
+     */
+    public static CurrencyUnit getCurrency(int id) {
+        Snapshot snapshot = getSnapshot();
+        CurrencyUnit[] currencies = snapshot != null ? snapshot.mCurrencies : new CurrencyUnit[0];
+        return id >= 0 && id < currencies.length ? currencies[id] : null;
+    }
+
+    /**
+     * @return an immutable collection of all the currencies, that is empty if the main thread
+     * reads it before the currencies are loaded.
+     */
+    public static Collection<CurrencyUnit> getCurrencies() {
+        Snapshot snapshot = getSnapshot();
+        return snapshot != null ? snapshot.mCurrencyList : Collections.<CurrencyUnit>emptyList();
     }
 
+    /**
+     * @return the exchange rate between the two currencies or null if it is unknown or if the
+     * main thread reads it before the exchange rates are loaded.
+     */
     public static ExchangeRate getExchangeRate(CurrencyUnit currency1, CurrencyUnit currency2) {
-        return mInstance.mExchangeRateCache.getExchangeRate(currency1.getIso(), currency2.getIso());
+        CurrencyManager instance = getInstance();
+        return instance != null ? instance.mExchangeRateCache.getExchangeRate(currency1.getIso(), currency2.getIso()) : null;
     }
 
     /**
@@ -179,14 +400,52 @@ public class CurrencyManager {
      * @return the current currency.
      */
     public static CurrencyUnit getDefaultCurrency() {
-        synchronized (CACHE_MUTEX) {
-            Locale locale = Locale.getDefault();
-            Currency currency = Currency.getInstance(locale);
-            return getCurrency(currency.getCurrencyCode());
-        }
+        Locale locale = Locale.getDefault();
+        Currency currency = Currency.getInstance(locale);
+        return getCurrency(currency.getCurrencyCode());
     }
 
+    /**
+     * @return the cache of the exchange rates. It must be called only from a background thread.
+     */
     public static ExchangeRateCache getExchangeRateCache() {
-        return mInstance.mExchangeRateCache;
+        return getInstance().mExchangeRateCache;
+    }
+
+    /**
+     * Immutable view of the currencies. The ids of the previous snapshot are kept, so the ids
+     * of the deleted currencies are never reused and their slots of the array are null.
+     */
+    private static class Snapshot {
+
+        private final Map<String, Integer> mIds;
+        private final CurrencyUnit[] mCurrencies;
+        private final Collection<CurrencyUnit> mCurrencyList;
+
+        private Snapshot(Snapshot previous, List<CurrencyUnit> currencies) {
+            mIds = previous != null ? new HashMap<>(previous.mIds) : new HashMap<String, Integer>();
+            for (CurrencyUnit currencyUnit : currencies) {
+                if (!mIds.containsKey(currencyUnit.getIso())) {
+                    mIds.put(currencyUnit.getIso(), mIds.size());
+                }
+            }
+            mCurrencies = new CurrencyUnit[mIds.size()];
+            for (CurrencyUnit currencyUnit : currencies) {
+                mCurrencies[mIds.get(currencyUnit.getIso())] = currencyUnit;
+            }
+            List<CurrencyUnit> currencyList = new ArrayList<>(Arrays.asList(mCurrencies));
+            currencyList.removeAll(Collections.singleton(null));
+            mCurrencyList = Collections.unmodifiableList(currencyList);
+        }
+
+        private int getId(String iso) {
+            Integer id = mIds.get(iso);
+            return id != null && mCurrencies[id] != null ? id : -1;
+        }
+
+        private CurrencyUnit getCurrency(String iso) {
+            Integer id = mIds.get(iso);
+            return id != null ? mCurrencies[id] : null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -25,9 +25,6 @@ import com.oriondev.moneywallet.model.ColorIcon;
 import com.oriondev.moneywallet.model.Icon;
 import com.oriondev.moneywallet.model.VectorIcon;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 /**
  * Created by andrea on 27/01/18.
  */
@@ -37,18 +34,13 @@ public class IconLoader {
     public static final Icon UNKNOWN = new ColorIcon("#FFC107", "?");
 
     public static Icon parse(String icon) {
-        if (icon != null) {
-            try {
-                JSONObject object = new JSONObject(icon);
-                switch (Icon.getType(object)) {
-                    case RESOURCE:
-                        return new VectorIcon(object);
-                    case COLOR:
-                        return new ColorIcon(object);
-                }
-            } catch (JSONException e) {
-                // TODO keep track?
-                e.printStackTrace();
+        IconParser.Result result = IconParser.parse(icon);
+        if (result != null) {
+            switch (result.getType()) {
+                case IconParser.TYPE_RESOURCE:
+                    return new VectorIcon(result.getResource());
+                case IconParser.TYPE_COLOR:
+                    return new ColorIcon(result.getColor(), result.getName());
             }
         }
         return null;
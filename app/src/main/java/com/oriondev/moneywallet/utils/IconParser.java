@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.utils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * This class decodes the json string of an icon stored inside the database. It does not depend
+ * on the android framework, so the decoding can be measured on a plain jvm: the creation of the
+ * icon object is left to the {@link IconLoader}.
+ */
+public class IconParser {
+
+    public static final String TYPE_RESOURCE = "resource";
+    public static final String TYPE_COLOR = "color";
+
+    private static final String TYPE = "type";
+    private static final String RESOURCE = "resource";
+    private static final String COLOR = "color";
+    private static final String NAME = "name";
+
+    /**
+     * Decode an encoded icon.
+     * @param icon encoded as json string.
+     * @return the decoded icon or null if the string is not valid or the type is unknown.
+     */
+    public static Result parse(String icon) {
+        if (icon != null) {
+            try {
+                JSONObject object = new JSONObject(icon);
+                String type = object.getString(TYPE);
+                switch (type) {
+                    case TYPE_RESOURCE:
+                        return new Result(type, object.getString(RESOURCE), null, null);
+                    case TYPE_COLOR:
+                        return new Result(type, null, object.getString(COLOR), object.optString(NAME));
+                }
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+
+    public static class Result {
+
+        private final String mType;
+        private final String mResource;
+        private final String mColor;
+        private final String mName;
+
+        private Result(String type, String resource, String color, String name) {
+            mType = type;
+            mResource = resource;
+            mColor = color;
+            mName = name;
+        }
+
+        /**
+         * @return {@link #TYPE_RESOURCE} or {@link #TYPE_COLOR}.
+         */
+        public String getType() {
+            return mType;
+        }
+
+        public String getResource() {
+            return mResource;
+        }
+
+        public String getColor() {
+            return mColor;
+        }
+
+        public String getName() {
+            return mName;
+        }
+    }
+}
@@ -29,9 +29,6 @@ import com.oriondev.moneywallet.model.Money;
 import com.oriondev.moneywallet.storage.preference.PreferenceManager;
 import com.oriondev.moneywallet.ui.view.theme.ThemeEngine;
 
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.Map;
 
 /**
@@ -39,12 +36,7 @@ import java.util.Map;
  */
 public class MoneyFormatter {
 
-    private static final int DEFAULT_MIN_INTEGER_DIGITS = 1;
-    private static final int DEFAULT_MIN_FRACTION_DIGITS_STANDARD = 2;
-    private static final int DEFAULT_MAX_FRACTION_DIGITS_STANDARD = 2;
-    private static final int DEFAULT_MIN_FRACTION_DIGITS_ROUNDING = 0;
-    private static final int DEFAULT_MAX_FRACTION_DIGITS_ROUNDING = 0;
-    private static final int DEFAULT_DIVIDER_POW = 2;
+    private static final int DEFAULT_DECIMALS = 2;
 
     private final static String EMPTY_TEXT = " --- ";
     private final static String DIVIDER_TEXT = " - ";
@@ -53,10 +45,8 @@ public class MoneyFormatter {
     private int mColorOut;
     private int mColorNeutral;
     private boolean mCurrencyEnabled;
-    private boolean mGroupDigitEnabled;
-    private boolean mRoundDecimalsEnabled;
     private boolean mShowSymbolEnabled;
-    private NumberFormat mFormatter;
+    private final AmountFormatter mFormatter;
 
     public enum CurrencyMode {
         ALWAYS_SHOWN,
@@ -95,11 +85,10 @@ public class MoneyFormatter {
         mColorOut = PreferenceManager.getCurrentExpenseColor();
         mColorNeutral = ThemeEngine.getTheme().getTextColorPrimary();
         mCurrencyEnabled = PreferenceManager.isCurrencyEnabled();
-        mGroupDigitEnabled = PreferenceManager.isGroupDigitEnabled();
-        mRoundDecimalsEnabled = PreferenceManager.isRoundDecimalsEnabled();
         mShowSymbolEnabled = PreferenceManager.isShowPlusMinusSymbolEnabled();
-        mFormatter = DecimalFormat.getInstance();
-        mFormatter.setMinimumIntegerDigits(DEFAULT_MIN_INTEGER_DIGITS);
+        mFormatter = new AmountFormatter();
+        mFormatter.setGroupDigitEnabled(PreferenceManager.isGroupDigitEnabled());
+        mFormatter.setRoundDecimalsEnabled(PreferenceManager.isRoundDecimalsEnabled());
     }
 
     public void setCurrencyEnabled(boolean enabled) {
@@ -107,11 +96,11 @@ public class MoneyFormatter {
     }
 
     public void setGroupDigitEnabled(boolean enabled) {
-        mGroupDigitEnabled = enabled;
+        mFormatter.setGroupDigitEnabled(enabled);
     }
 
     public void setRoundDecimalsEnabled(boolean enabled) {
-        mRoundDecimalsEnabled = enabled;
+        mFormatter.setRoundDecimalsEnabled(enabled);
     }
 
     public void setShowSymbolEnabled(boolean enabled) {
@@ -123,11 +112,11 @@ public class MoneyFormatter {
     }
 
     public boolean isGroupDigitEnabled() {
-        return mGroupDigitEnabled;
+        return mFormatter.isGroupDigitEnabled();
     }
 
     public boolean isRoundDecimalsEnabled() {
-        return mRoundDecimalsEnabled;
+        return mFormatter.isRoundDecimalsEnabled();
     }
 
     public boolean isShowSymbolEnabled() {
@@ -162,34 +151,16 @@ public class MoneyFormatter {
     }
 
     private String getNotTintedString(CurrencyUnit currencyUnit, long money, CurrencyMode currencyMode, FlowMode flowMode) {
-        StringBuilder builder = new StringBuilder();
-        double divider;
+        String symbol = null;
+        int decimals = DEFAULT_DECIMALS;
         if (currencyUnit != null) {
-            mFormatter.setMinimumFractionDigits(currencyUnit.getDecimals());
-            mFormatter.setMaximumFractionDigits(currencyUnit.getDecimals());
-            divider = Math.pow(10, currencyUnit.getDecimals());
+            decimals = currencyUnit.getDecimals();
             if (currencyMode == CurrencyMode.ALWAYS_SHOWN || (currencyMode == CurrencyMode.USER_PREFERENCE && mCurrencyEnabled)) {
-                builder.append(currencyUnit.getSymbol());
-                builder.append(" ");
+                symbol = currencyUnit.getSymbol();
             }
-        } else {
-            mFormatter.setMinimumFractionDigits(DEFAULT_MIN_FRACTION_DIGITS_STANDARD);
-            mFormatter.setMaximumFractionDigits(DEFAULT_MAX_FRACTION_DIGITS_STANDARD);
-            divider = Math.pow(10, DEFAULT_DIVIDER_POW);
-        }
-        mFormatter.setGroupingUsed(mGroupDigitEnabled);
-        if (mRoundDecimalsEnabled) {
-            mFormatter.setMinimumFractionDigits(DEFAULT_MIN_FRACTION_DIGITS_ROUNDING);
-            mFormatter.setMaximumFractionDigits(DEFAULT_MAX_FRACTION_DIGITS_ROUNDING);
-            mFormatter.setRoundingMode(RoundingMode.HALF_UP);
         }
-        if (flowMode == FlowMode.FORCE_NEGATIVE || (flowMode == FlowMode.AUTO_DETECT && money < 0L)) {
-            builder.append("-");
-        } else if (mShowSymbolEnabled) {
-            builder.append("+");
-        }
-        builder.append(mFormatter.format((double) Math.abs(money) / divider));
-        return builder.toString();
+        boolean negative = flowMode == FlowMode.FORCE_NEGATIVE || (flowMode == FlowMode.AUTO_DETECT && money < 0L);
+        return mFormatter.format(symbol, decimals, money, negative, mShowSymbolEnabled);
     }
 
     public SpannableStringBuilder getTintedString(Money money) {
@@ -0,0 +1,974 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.content.Context;
+
+import com.oriondev.moneywallet.model.ColorIcon;
+import com.oriondev.moneywallet.model.RecurrenceSetting;
+import com.oriondev.moneywallet.picker.IconPicker;
+import com.oriondev.moneywallet.storage.database.model.Budget;
+import com.oriondev.moneywallet.storage.database.model.BudgetWallet;
+import com.oriondev.moneywallet.storage.database.model.Category;
+import com.oriondev.moneywallet.storage.database.model.Currency;
+import com.oriondev.moneywallet.storage.database.model.Debt;
+import com.oriondev.moneywallet.storage.database.model.DebtPerson;
+import com.oriondev.moneywallet.storage.database.model.Event;
+import com.oriondev.moneywallet.storage.database.model.EventPerson;
+import com.oriondev.moneywallet.storage.database.model.Person;
+import com.oriondev.moneywallet.storage.database.model.Place;
+import com.oriondev.moneywallet.storage.database.model.RecurrentTransaction;
+import com.oriondev.moneywallet.storage.database.model.RecurrentTransfer;
+import com.oriondev.moneywallet.storage.database.model.Saving;
+import com.oriondev.moneywallet.storage.database.model.Transaction;
+import com.oriondev.moneywallet.storage.database.model.TransactionPerson;
+import com.oriondev.moneywallet.storage.database.model.Transfer;
+import com.oriondev.moneywallet.storage.database.model.Wallet;
+import com.oriondev.moneywallet.utils.DateUtils;
+import com.oriondev.moneywallet.utils.Utils;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * This class generates a synthetic but realistic ledger that can be used to fill a database of
+ * any size for benchmarks and tests. The generation is deterministic: the same seed and the same
+ * configuration (end date included) always produce the same objects with the same ids.
+ * The objects are emitted to a {@link Writer} in the same order of the sections of a backup
+ * file, so the ledger can be written directly into the database or as a backup to restore.
+ * Only the configuration and a few small arrays are kept in memory: the transactions are
+ * streamed and never stored, so millions of rows can be generated.
+ */
+public class LedgerGenerator {
+
+    private static final long DAY_MILLIS = 24L * 60L * 60L * 1000L;
+
+    private static final String[] CURRENCY_ISO = new String[] {"EUR", "USD", "GBP", "JPY", "CHF", "INR"};
+    private static final String[] CURRENCY_NAME = new String[] {"Euro", "US Dollar", "British Pound", "Japanese Yen", "Swiss Franc", "Indian Rupee"};
+    private static final String[] CURRENCY_SYMBOL = new String[] {"€", "$", "£", "¥", "CHF", "₹"};
+    private static final int[] CURRENCY_DECIMALS = new int[] {2, 2, 2, 0, 2, 2};
+    private static final double[] CURRENCY_RATE = new double[] {1.0, 1.1, 0.85, 130.0, 1.05, 90.0};
+
+    private static final String[] EXPENSE_NAMES = new String[] {"Food", "Transport", "Home",
+            "Bills", "Health", "Shopping", "Leisure", "Travel", "Education", "Gifts", "Pets", "Sport"};
+    private static final String[] INCOME_NAMES = new String[] {"Salary", "Bonus", "Interests",
+            "Sales", "Refunds"};
+    private static final String[] FIRST_NAMES = new String[] {"Alice", "Bob", "Carla", "David",
+            "Elena", "Franco", "Giulia", "Hugo", "Irene", "Luca", "Marta", "Nico", "Olga", "Paolo"};
+    private static final String[] LAST_NAMES = new String[] {"Rossi", "Smith", "Bianchi",
+            "Garcia", "Muller", "Dubois", "Kowalski", "Tanaka", "Silva", "Novak"};
+
+    /**
+     * Median and spread of the amounts (in the main unit of the euro) of the log-normal
+     * distributions used for the expenses and the incomes.
+     */
+    private static final double EXPENSE_MEDIAN = 25.0;
+    private static final double EXPENSE_SIGMA = 1.0;
+    private static final double INCOME_MEDIAN = 800.0;
+    private static final double INCOME_SIGMA = 0.6;
+    private static final double INCOME_PROBABILITY = 0.08;
+
+    private static final double PLACE_PROBABILITY = 0.3;
+    private static final double EVENT_PROBABILITY = 0.05;
+    private static final double PERSON_PROBABILITY = 0.05;
+    private static final double TRANSFER_TAX_PROBABILITY = 0.2;
+
+    private static final int STREAM_STRUCTURE = 1;
+    private static final int STREAM_TRANSACTIONS = 2;
+    private static final int STREAM_TRANSFERS = 3;
+    private static final int STREAM_PEOPLE = 4;
+
+    private final long mSeed;
+    private final int mCurrencyCount;
+    private final int mWalletCount;
+    private final int mCategoryCount;
+    private final int mPersonCount;
+    private final int mPlaceCount;
+    private final int mEventCount;
+    private final int mDebtCount;
+    private final int mBudgetCount;
+    private final int mSavingCount;
+    private final int mRecurrentTransactionCount;
+    private final int mRecurrentTransferCount;
+    private final int mTransactionCount;
+    private final int mTransferCount;
+    private final long mStartTime;
+    private final long mEndTime;
+
+    // state of the current generation
+    private int[] mWalletCurrencies;
+    private long[] mExpenseCategoryIds;
+    private long[] mIncomeCategoryIds;
+    private Map<String, Long> mSystemCategoryIds;
+    private List<Debt> mDebts;
+    private List<Saving> mSavings;
+    private List<RecurrentTransaction> mRecurrentTransactions;
+    private List<RecurrentTransfer> mRecurrentTransfers;
+    private long mNextTransactionId;
+    private long mFirstTransferTransactionId;
+    private long mNextTransferId;
+
+    // output of setupMonthlyRecurrence()
+    private String mRecurrenceStartDate;
+    private String mRecurrenceLastOccurrence;
+    private String mRecurrenceNextOccurrence;
+    private String mRecurrenceRule;
+
+    private LedgerGenerator(Builder builder) {
+        mSeed = builder.mSeed;
+        mCurrencyCount = Math.max(1, Math.min(builder.mCurrencyCount, CURRENCY_ISO.length));
+        mWalletCount = Math.max(1, builder.mWalletCount);
+        mCategoryCount = Math.max(2, builder.mCategoryCount);
+        mPersonCount = builder.mPersonCount;
+        mPlaceCount = builder.mPlaceCount;
+        mEventCount = builder.mEventCount;
+        mDebtCount = mPersonCount > 0 ? builder.mDebtCount : 0;
+        mBudgetCount = builder.mBudgetCount;
+        mSavingCount = builder.mSavingCount;
+        mRecurrentTransactionCount = builder.mRecurrentTransactionCount;
+        mRecurrentTransferCount = mWalletCount > 1 ? builder.mRecurrentTransferCount : 0;
+        mTransactionCount = builder.mTransactionCount;
+        mTransferCount = mWalletCount > 1 ? (builder.mTransferCount >= 0 ? builder.mTransferCount : mTransactionCount / 20) : 0;
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(builder.mEndDate);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        mEndTime = calendar.getTimeInMillis();
+        calendar.add(Calendar.YEAR, -Math.max(1, builder.mYears));
+        mStartTime = calendar.getTimeInMillis();
+    }
+
+    /**
+     * Generate the whole ledger. The writer is not closed by this method.
+     * @param context used to read the names of the system categories.
+     * @param writer that receives the generated objects.
+     */
+    public void generate(Context context, Writer writer) throws ExportException {
+        mWalletCurrencies = new int[mWalletCount];
+        mSystemCategoryIds = new HashMap<>();
+        mDebts = new ArrayList<>();
+        mSavings = new ArrayList<>();
+        mRecurrentTransactions = new ArrayList<>();
+        mRecurrentTransfers = new ArrayList<>();
+        mNextTransactionId = 1L;
+        mNextTransferId = 1L;
+        Random random = newRandom(STREAM_STRUCTURE);
+        generateCurrencies(writer);
+        generateWallets(writer, random);
+        generateCategories(context, writer, random);
+        generateEvents(writer, random);
+        generatePlaces(writer, random);
+        generatePeople(writer, random);
+        generateDebts(writer, random);
+        generateBudgets(writer, random);
+        generateSavings(writer, random);
+        generateRecurrentTransactions(writer, random);
+        generateRecurrentTransfers(writer, random);
+        generateTransactions(writer);
+        generateTransactionPeople(writer);
+        generateTransfers(writer);
+    }
+
+    /**
+     * @return the number of transactions emitted by {@link #generate(Context, Writer)}, including
+     * the ones that belong to debts, savings, recurrences and transfers.
+     */
+    public long getGeneratedTransactionCount() {
+        return mNextTransactionId - 1L;
+    }
+
+    private void generateCurrencies(Writer writer) throws ExportException {
+        for (int i = 0; i < mCurrencyCount; i++) {
+            Currency currency = new Currency();
+            currency.mIso = CURRENCY_ISO[i];
+            currency.mName = CURRENCY_NAME[i];
+            currency.mSymbol = CURRENCY_SYMBOL[i];
+            currency.mDecimals = CURRENCY_DECIMALS[i];
+            currency.mFavourite = i == 0;
+            currency.mUUID = generateUUID("currency", i);
+            currency.mLastEdit = mEndTime;
+            writer.write(currency);
+        }
+    }
+
+    private void generateWallets(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mWalletCount; i++) {
+            // the first wallet always uses the main currency, the others are mixed
+            int currencyIndex = i == 0 ? 0 : random.nextInt(mCurrencyCount);
+            mWalletCurrencies[i] = currencyIndex;
+            Wallet wallet = new Wallet();
+            wallet.mId = (long) (i + 1);
+            wallet.mName = "Wallet " + (i + 1);
+            wallet.mIcon = generateIcon("Wallet " + (i + 1), i);
+            wallet.mCurrency = CURRENCY_ISO[currencyIndex];
+            wallet.mStartMoney = getMoney(random, INCOME_MEDIAN, INCOME_SIGMA, currencyIndex);
+            wallet.mCountInTotal = true;
+            wallet.mArchived = false;
+            wallet.mIndex = i;
+            wallet.mUUID = generateUUID("wallet", wallet.mId);
+            wallet.mLastEdit = mEndTime;
+            writer.write(wallet);
+        }
+    }
+
+    private void generateCategories(Context context, Writer writer, Random random) throws ExportException {
+        long categoryId = 1L;
+        for (SystemCategory systemCategory : SystemCategory.mSystemCategories) {
+            Category category = new Category();
+            category.mId = categoryId++;
+            category.mName = systemCategory.getName(context);
+            category.mIcon = systemCategory.getIcon(context);
+            category.mType = Schema.CategoryType.SYSTEM;
+            category.mShowReport = true;
+            category.mTag = systemCategory.getTag();
+            category.mUUID = systemCategory.getUUID();
+            category.mLastEdit = mEndTime;
+            writer.write(category);
+            mSystemCategoryIds.put(systemCategory.getTag(), category.mId);
+        }
+        int incomeRoots = Math.max(1, Math.min(INCOME_NAMES.length, mCategoryCount / 8));
+        int expenseRoots = Math.max(1, Math.min(EXPENSE_NAMES.length, mCategoryCount / 4));
+        List<Long> incomeIds = new ArrayList<>();
+        List<Long> expenseIds = new ArrayList<>();
+        int generated = 0;
+        for (int i = 0; i < incomeRoots && generated < mCategoryCount; i++, generated++) {
+            incomeIds.add(writeCategory(writer, categoryId++, INCOME_NAMES[i], Schema.CategoryType.INCOME, null, i));
+        }
+        for (int i = 0; i < expenseRoots && generated < mCategoryCount; i++, generated++) {
+            expenseIds.add(writeCategory(writer, categoryId++, EXPENSE_NAMES[i], Schema.CategoryType.EXPENSE, null, i));
+        }
+        int rootIncomes = incomeIds.size();
+        int rootExpenses = expenseIds.size();
+        for (int index = 0; generated < mCategoryCount; index++, generated++) {
+            // most of the children are expenses, like in the real databases
+            if (rootIncomes > 0 && random.nextDouble() < 0.2) {
+                int parent = random.nextInt(rootIncomes);
+                String name = INCOME_NAMES[parent] + " " + (index + 1);
+                incomeIds.add(writeCategory(writer, categoryId++, name, Schema.CategoryType.INCOME, incomeIds.get(parent), index));
+            } else {
+                int parent = random.nextInt(rootExpenses);
+                String name = EXPENSE_NAMES[parent] + " " + (index + 1);
+                expenseIds.add(writeCategory(writer, categoryId++, name, Schema.CategoryType.EXPENSE, expenseIds.get(parent), index));
+            }
+        }
+        mIncomeCategoryIds = toArray(incomeIds);
+        mExpenseCategoryIds = toArray(expenseIds);
+    }
+
+    private long writeCategory(Writer writer, long id, String name, int type, Long parent, int index) throws ExportException {
+        Category category = new Category();
+        category.mId = id;
+        category.mName = name;
+        category.mIcon = generateIcon(name, (int) id);
+        category.mType = type;
+        category.mParent = parent;
+        category.mShowReport = true;
+        category.mIndex = index;
+        category.mUUID = generateUUID("category", id);
+        category.mLastEdit = mEndTime;
+        writer.write(category);
+        return id;
+    }
+
+    private void generateEvents(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mEventCount; i++) {
+            long startTime = getRandomTime(random);
+            Event event = new Event();
+            event.mId = (long) (i + 1);
+            event.mName = "Event " + (i + 1);
+            event.mIcon = generateIcon(event.mName, i);
+            event.mStartDate = DateUtils.getSQLDateString(new Date(startTime));
+            event.mEndDate = DateUtils.getSQLDateString(new Date(startTime + (3 + random.nextInt(12)) * DAY_MILLIS));
+            event.mUUID = generateUUID("event", event.mId);
+            event.mLastEdit = mEndTime;
+            writer.write(event);
+        }
+    }
+
+    private void generatePlaces(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mPlaceCount; i++) {
+            Place place = new Place();
+            place.mId = (long) (i + 1);
+            place.mName = "Place " + (i + 1);
+            place.mIcon = generateIcon(place.mName, i);
+            place.mAddress = (i + 1) + " Main Street";
+            place.mLatitude = 45.46 + random.nextGaussian() * 0.05;
+            place.mLongitude = 9.19 + random.nextGaussian() * 0.05;
+            place.mUUID = generateUUID("place", place.mId);
+            place.mLastEdit = mEndTime;
+            writer.write(place);
+        }
+    }
+
+    private void generatePeople(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mPersonCount; i++) {
+            Person person = new Person();
+            person.mId = (long) (i + 1);
+            person.mName = FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length];
+            person.mIcon = generateIcon(person.mName, i);
+            person.mUUID = generateUUID("person", person.mId);
+            person.mLastEdit = mEndTime;
+            writer.write(person);
+        }
+        if (mPersonCount > 0) {
+            for (int i = 0; i < mEventCount; i++) {
+                int participants = Math.min(mPersonCount, 2 + random.nextInt(3));
+                int firstPerson = random.nextInt(mPersonCount);
+                for (int j = 0; j < participants; j++) {
+                    EventPerson eventPerson = new EventPerson();
+                    eventPerson.mEvent = (long) (i + 1);
+                    eventPerson.mPerson = (long) ((firstPerson + j) % mPersonCount + 1);
+                    eventPerson.mUUID = generateUUID("event_person", i * 31L + j);
+                    eventPerson.mLastEdit = mEndTime;
+                    writer.write(eventPerson);
+                }
+            }
+        }
+    }
+
+    private void generateDebts(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mDebtCount; i++) {
+            int wallet = getSkewedIndex(random, mWalletCount);
+            long time = getRandomTime(random);
+            Debt debt = new Debt();
+            debt.mId = (long) (i + 1);
+            debt.mType = random.nextBoolean() ? Contract.DebtType.DEBT.getValue() : Contract.DebtType.CREDIT.getValue();
+            debt.mIcon = generateIcon("Debt " + (i + 1), i);
+            debt.mDescription = "Debt " + (i + 1);
+            debt.mDate = DateUtils.getSQLDateTimeString(time);
+            debt.mExpirationDate = DateUtils.getSQLDateTimeString(time + (30 + random.nextInt(150)) * DAY_MILLIS);
+            debt.mWallet = (long) (wallet + 1);
+            debt.mMoney = getMoney(random, INCOME_MEDIAN / 4.0, INCOME_SIGMA, mWalletCurrencies[wallet]);
+            // most of the old debts have already been paid back
+            debt.mArchived = time < mEndTime - 365L * DAY_MILLIS && random.nextDouble() < 0.7;
+            debt.mUUID = generateUUID("debt", debt.mId);
+            debt.mLastEdit = mEndTime;
+            writer.write(debt);
+            mDebts.add(debt);
+        }
+        for (Debt debt : mDebts) {
+            DebtPerson debtPerson = new DebtPerson();
+            debtPerson.mDebt = debt.mId;
+            debtPerson.mPerson = (long) (random.nextInt(mPersonCount) + 1);
+            debtPerson.mUUID = generateUUID("debt_person", debt.mId);
+            debtPerson.mLastEdit = mEndTime;
+            writer.write(debtPerson);
+        }
+    }
+
+    private void generateBudgets(Writer writer, Random random) throws ExportException {
+        int[] types = new int[] {Schema.BudgetType.EXPENSES, Schema.BudgetType.CATEGORY, Schema.BudgetType.INCOMES};
+        List<Budget> budgets = new ArrayList<>();
+        for (int i = 0; i < mBudgetCount; i++) {
+            // one budget for each of the last months
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(mEndTime);
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+            calendar.add(Calendar.MONTH, -(i / types.length));
+            Date startDate = calendar.getTime();
+            calendar.add(Calendar.MONTH, 1);
+            calendar.add(Calendar.DAY_OF_MONTH, -1);
+            Budget budget = new Budget();
+            budget.mId = (long) (i + 1);
+            budget.mType = types[i % types.length];
+            if (budget.mType == Schema.BudgetType.CATEGORY) {
+                budget.mCategory = mExpenseCategoryIds[getSkewedIndex(random, mExpenseCategoryIds.length)];
+            }
+            budget.mStartDate = DateUtils.getSQLDateString(startDate);
+            budget.mEndDate = DateUtils.getSQLDateString(calendar.getTime());
+            budget.mMoney = getMoney(random, INCOME_MEDIAN, INCOME_SIGMA, 0);
+            budget.mCurrency = CURRENCY_ISO[0];
+            budget.mUUID = generateUUID("budget", budget.mId);
+            budget.mLastEdit = mEndTime;
+            writer.write(budget);
+            budgets.add(budget);
+        }
+        for (Budget budget : budgets) {
+            for (int wallet = 0; wallet < mWalletCount; wallet++) {
+                if (mWalletCurrencies[wallet] == 0) {
+                    BudgetWallet budgetWallet = new BudgetWallet();
+                    budgetWallet.mBudget = budget.mId;
+                    budgetWallet.mWallet = (long) (wallet + 1);
+                    budgetWallet.mUUID = generateUUID("budget_wallet", budget.mId * 1000L + wallet);
+                    budgetWallet.mLastEdit = mEndTime;
+                    writer.write(budgetWallet);
+                }
+            }
+        }
+    }
+
+    private void generateSavings(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mSavingCount; i++) {
+            int wallet = getSkewedIndex(random, mWalletCount);
+            Saving saving = new Saving();
+            saving.mId = (long) (i + 1);
+            saving.mDescription = "Saving " + (i + 1);
+            saving.mIcon = generateIcon(saving.mDescription, i);
+            saving.mStartMoney = 0L;
+            saving.mEndMoney = getMoney(random, INCOME_MEDIAN * 4.0, INCOME_SIGMA, mWalletCurrencies[wallet]);
+            saving.mWallet = (long) (wallet + 1);
+            saving.mEndDate = DateUtils.getSQLDateString(new Date(mEndTime + (30 + random.nextInt(365)) * DAY_MILLIS));
+            saving.mUUID = generateUUID("saving", saving.mId);
+            saving.mLastEdit = mEndTime;
+            writer.write(saving);
+            mSavings.add(saving);
+        }
+    }
+
+    private void generateRecurrentTransactions(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mRecurrentTransactionCount; i++) {
+            int wallet = getSkewedIndex(random, mWalletCount);
+            boolean income = i % 4 == 0;
+            RecurrentTransaction recurrence = new RecurrentTransaction();
+            recurrence.mId = (long) (i + 1);
+            recurrence.mDescription = income ? "Salary" : "Subscription " + (i + 1);
+            recurrence.mCategory = income ? mIncomeCategoryIds[0] : mExpenseCategoryIds[getSkewedIndex(random, mExpenseCategoryIds.length)];
+            recurrence.mDirection = income ? Schema.Direction.INCOME : Schema.Direction.EXPENSE;
+            recurrence.mMoney = income ? getMoney(random, INCOME_MEDIAN * 2.0, 0.2, mWalletCurrencies[wallet]) :
+                    getMoney(random, EXPENSE_MEDIAN, 0.5, mWalletCurrencies[wallet]);
+            recurrence.mWallet = (long) (wallet + 1);
+            recurrence.mConfirmed = true;
+            recurrence.mCountInTotal = true;
+            setupMonthlyRecurrence(random, recurrence.mId);
+            recurrence.mStartDate = mRecurrenceStartDate;
+            recurrence.mLastOccurrence = mRecurrenceLastOccurrence;
+            recurrence.mNextOccurrence = mRecurrenceNextOccurrence;
+            recurrence.mRule = mRecurrenceRule;
+            recurrence.mUUID = generateUUID("recurrent_transaction", recurrence.mId);
+            recurrence.mLastEdit = mEndTime;
+            writer.write(recurrence);
+            mRecurrentTransactions.add(recurrence);
+        }
+    }
+
+    private void generateRecurrentTransfers(Writer writer, Random random) throws ExportException {
+        for (int i = 0; i < mRecurrentTransferCount; i++) {
+            int fromWallet = i % mWalletCount;
+            int toWallet = (fromWallet + 1) % mWalletCount;
+            RecurrentTransfer recurrence = new RecurrentTransfer();
+            recurrence.mId = (long) (i + 1);
+            recurrence.mDescription = "Monthly transfer " + (i + 1);
+            recurrence.mFromWallet = (long) (fromWallet + 1);
+            recurrence.mToWallet = (long) (toWallet + 1);
+            recurrence.mFromMoney = getMoney(random, INCOME_MEDIAN / 4.0, 0.3, mWalletCurrencies[fromWallet]);
+            recurrence.mToMoney = convert(recurrence.mFromMoney, mWalletCurrencies[fromWallet], mWalletCurrencies[toWallet]);
+            recurrence.mTaxMoney = 0L;
+            recurrence.mConfirmed = true;
+            recurrence.mCountInTotal = true;
+            setupMonthlyRecurrence(random, recurrence.mId);
+            recurrence.mStartDate = mRecurrenceStartDate;
+            recurrence.mLastOccurrence = mRecurrenceLastOccurrence;
+            recurrence.mNextOccurrence = mRecurrenceNextOccurrence;
+            recurrence.mRule = mRecurrenceRule;
+            recurrence.mUUID = generateUUID("recurrent_transfer", recurrence.mId);
+            recurrence.mLastEdit = mEndTime;
+            writer.write(recurrence);
+            mRecurrentTransfers.add(recurrence);
+        }
+    }
+
+    /**
+     * Choose the start date of a monthly recurrence in the generated period and compute the
+     * last occurrence before the end date and the next one.
+     */
+    private void setupMonthlyRecurrence(Random random, long seed) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(mStartTime + (long) (random.nextDouble() * (mEndTime - mStartTime)));
+        // avoid the days that do not exist in every month
+        calendar.set(Calendar.DAY_OF_MONTH, 1 + (int) (seed % 28));
+        Date startDate = calendar.getTime();
+        Date lastOccurrence = startDate;
+        while (true) {
+            calendar.add(Calendar.MONTH, 1);
+            if (calendar.getTimeInMillis() > mEndTime) {
+                break;
+            }
+            lastOccurrence = calendar.getTime();
+        }
+        RecurrenceSetting.Builder builder = new RecurrenceSetting.Builder(startDate, RecurrenceSetting.TYPE_MONTHLY);
+        builder.setRepeatSameMonthDay();
+        mRecurrenceStartDate = DateUtils.getSQLDateString(startDate);
+        mRecurrenceLastOccurrence = DateUtils.getSQLDateString(lastOccurrence);
+        mRecurrenceNextOccurrence = DateUtils.getSQLDateString(calendar.getTime());
+        mRecurrenceRule = builder.build().getRule();
+    }
+
+    private void generateTransactions(Writer writer) throws ExportException {
+        Random random = newRandom(STREAM_TRANSACTIONS);
+        generateDebtTransactions(writer, random);
+        generateSavingTransactions(writer, random);
+        generateRecurrentTransactionOccurrences(writer);
+        long spanMillis = mEndTime - mStartTime;
+        for (int i = 0; i < mTransactionCount; i++) {
+            // the transactions are inserted more or less in chronological order
+            long day = (long) ((i + random.nextDouble()) * spanMillis / mTransactionCount / DAY_MILLIS);
+            long time = mStartTime + day * DAY_MILLIS + getRandomDayTime(random);
+            int wallet = getSkewedIndex(random, mWalletCount);
+            boolean income = random.nextDouble() < INCOME_PROBABILITY;
+            Transaction transaction = newTransaction(time, wallet, Contract.TransactionType.STANDARD);
+            if (income) {
+                transaction.mCategory = mIncomeCategoryIds[getSkewedIndex(random, mIncomeCategoryIds.length)];
+                transaction.mDirection = Schema.Direction.INCOME;
+                transaction.mMoney = getMoney(random, INCOME_MEDIAN, INCOME_SIGMA, mWalletCurrencies[wallet]);
+            } else {
+                transaction.mCategory = mExpenseCategoryIds[getSkewedIndex(random, mExpenseCategoryIds.length)];
+                transaction.mDirection = Schema.Direction.EXPENSE;
+                transaction.mMoney = getMoney(random, EXPENSE_MEDIAN, EXPENSE_SIGMA, mWalletCurrencies[wallet]);
+            }
+            transaction.mDescription = "Transaction " + (i + 1);
+            if (mPlaceCount > 0 && random.nextDouble() < PLACE_PROBABILITY) {
+                transaction.mPlace = (long) (getSkewedIndex(random, mPlaceCount) + 1);
+            }
+            if (mEventCount > 0 && random.nextDouble() < EVENT_PROBABILITY) {
+                transaction.mEvent = (long) (random.nextInt(mEventCount) + 1);
+            }
+            writer.write(transaction);
+        }
+        // the transactions of the transfers are generated again with the same stream
+        // when the transfers are written
+        mFirstTransferTransactionId = mNextTransactionId;
+        Random transferRandom = newRandom(STREAM_TRANSFERS);
+        for (int i = 0; i < mTransferCount; i++) {
+            TransferSpec spec = nextTransferSpec(transferRandom);
+            writer.write(newTransferTransaction(spec.mTime, spec.mFromWallet, Contract.Direction.EXPENSE, spec.mFromMoney, Schema.CategoryTag.TRANSFER));
+            writer.write(newTransferTransaction(spec.mTime, spec.mToWallet, Contract.Direction.INCOME, spec.mToMoney, Schema.CategoryTag.TRANSFER));
+            if (spec.mTaxMoney > 0L) {
+                writer.write(newTransferTransaction(spec.mTime, spec.mFromWallet, Contract.Direction.EXPENSE, spec.mTaxMoney, Schema.CategoryTag.TRANSFER_TAX));
+            }
+        }
+        for (RecurrentTransfer recurrence : mRecurrentTransfers) {
+            for (Date date : getOccurrences(recurrence.mStartDate, recurrence.mLastOccurrence)) {
+                long time = date.getTime();
+                int fromWallet = (int) (recurrence.mFromWallet - 1);
+                int toWallet = (int) (recurrence.mToWallet - 1);
+                writer.write(newTransferTransaction(time, fromWallet, Contract.Direction.EXPENSE, recurrence.mFromMoney, Schema.CategoryTag.TRANSFER));
+                writer.write(newTransferTransaction(time, toWallet, Contract.Direction.INCOME, recurrence.mToMoney, Schema.CategoryTag.TRANSFER));
+            }
+        }
+    }
+
+    private void generateDebtTransactions(Writer writer, Random random) throws ExportException {
+        for (Debt debt : mDebts) {
+            boolean isDebt = debt.mType == Contract.DebtType.DEBT.getValue();
+            int wallet = (int) (debt.mWallet - 1);
+            long time = DateUtils.getDateFromSQLDateTimeString(debt.mDate).getTime();
+            Transaction transaction = newTransaction(time, wallet, Contract.TransactionType.DEBT);
+            transaction.mMoney = debt.mMoney;
+            transaction.mDescription = debt.mDescription;
+            transaction.mCategory = mSystemCategoryIds.get(isDebt ? Schema.CategoryTag.DEBT : Schema.CategoryTag.CREDIT);
+            transaction.mDirection = isDebt ? Schema.Direction.INCOME : Schema.Direction.EXPENSE;
+            transaction.mDebt = debt.mId;
+            writer.write(transaction);
+            // pay back the archived debts completely and the others only partially
+            int payments = 1 + random.nextInt(3);
+            long remaining = debt.mMoney;
+            for (int i = 0; i < payments && time < mEndTime; i++) {
+                time += (7 + random.nextInt(60)) * DAY_MILLIS;
+                long money = debt.mArchived && i == payments - 1 ? remaining : remaining / (payments - i + 1);
+                if (time > mEndTime || money <= 0L) {
+                    break;
+                }
+                remaining -= money;
+                Transaction payment = newTransaction(time, wallet, Contract.TransactionType.DEBT);
+                payment.mMoney = money;
+                payment.mDescription = debt.mDescription;
+                payment.mCategory = mSystemCategoryIds.get(isDebt ? Schema.CategoryTag.PAID_DEBT : Schema.CategoryTag.PAID_CREDIT);
+                payment.mDirection = isDebt ? Schema.Direction.EXPENSE : Schema.Direction.INCOME;
+                payment.mDebt = debt.mId;
+                writer.write(payment);
+            }
+        }
+    }
+
+    private void generateSavingTransactions(Writer writer, Random random) throws ExportException {
+        for (Saving saving : mSavings) {
+            int wallet = (int) (saving.mWallet - 1);
+            int deposits = 3 + random.nextInt(10);
+            long time = mEndTime - deposits * 30L * DAY_MILLIS;
+            for (int i = 0; i < deposits; i++) {
+                Transaction transaction = newTransaction(time + getRandomDayTime(random), wallet, Contract.TransactionType.SAVING);
+                transaction.mMoney = saving.mEndMoney / (deposits + 2);
+                transaction.mDescription = saving.mDescription;
+                transaction.mCategory = mSystemCategoryIds.get(Schema.CategoryTag.SAVING_DEPOSIT);
+                transaction.mDirection = Schema.Direction.EXPENSE;
+                transaction.mSaving = saving.mId;
+                writer.write(transaction);
+                time += 30L * DAY_MILLIS;
+            }
+        }
+    }
+
+    private void generateRecurrentTransactionOccurrences(Writer writer) throws ExportException {
+        for (RecurrentTransaction recurrence : mRecurrentTransactions) {
+            int wallet = (int) (recurrence.mWallet - 1);
+            for (Date date : getOccurrences(recurrence.mStartDate, recurrence.mLastOccurrence)) {
+                Transaction transaction = newTransaction(date.getTime(), wallet, Contract.TransactionType.STANDARD);
+                transaction.mMoney = recurrence.mMoney;
+                transaction.mDescription = recurrence.mDescription;
+                transaction.mCategory = recurrence.mCategory;
+                transaction.mDirection = recurrence.mDirection;
+                transaction.mRecurrence = recurrence.mId;
+                writer.write(transaction);
+            }
+        }
+    }
+
+    private void generateTransactionPeople(Writer writer) throws ExportException {
+        if (mPersonCount == 0) {
+            return;
+        }
+        Random random = newRandom(STREAM_PEOPLE);
+        for (long id = 1L; id < mFirstTransferTransactionId; id++) {
+            if (random.nextDouble() < PERSON_PROBABILITY) {
+                TransactionPerson transactionPerson = new TransactionPerson();
+                transactionPerson.mTransaction = id;
+                transactionPerson.mPerson = (long) (getSkewedIndex(random, mPersonCount) + 1);
+                transactionPerson.mUUID = generateUUID("transaction_person", id);
+                transactionPerson.mLastEdit = mEndTime;
+                writer.write(transactionPerson);
+            }
+        }
+    }
+
+    private void generateTransfers(Writer writer) throws ExportException {
+        long transactionId = mFirstTransferTransactionId;
+        Random transferRandom = newRandom(STREAM_TRANSFERS);
+        for (int i = 0; i < mTransferCount; i++) {
+            TransferSpec spec = nextTransferSpec(transferRandom);
+            Transfer transfer = newTransfer(spec.mTime, "Transfer " + (i + 1));
+            transfer.mTransactionFrom = transactionId++;
+            transfer.mTransactionTo = transactionId++;
+            if (spec.mTaxMoney > 0L) {
+                transfer.mTransactionTax = transactionId++;
+            }
+            writer.write(transfer);
+        }
+        for (RecurrentTransfer recurrence : mRecurrentTransfers) {
+            for (Date date : getOccurrences(recurrence.mStartDate, recurrence.mLastOccurrence)) {
+                Transfer transfer = newTransfer(date.getTime(), recurrence.mDescription);
+                transfer.mTransactionFrom = transactionId++;
+                transfer.mTransactionTo = transactionId++;
+                transfer.mRecurrence = recurrence.mId;
+                writer.write(transfer);
+            }
+        }
+    }
+
+    /**
+     * The values of a transfer are drawn from a dedicated stream in a fixed order: this method
+     * is called with a fresh stream both when the transactions and when the transfers are
+     * written to obtain exactly the same values.
+     */
+    private TransferSpec nextTransferSpec(Random random) {
+        TransferSpec spec = new TransferSpec();
+        spec.mTime = getRandomTime(random);
+        spec.mFromWallet = getSkewedIndex(random, mWalletCount);
+        spec.mToWallet = (spec.mFromWallet + 1 + random.nextInt(mWalletCount - 1)) % mWalletCount;
+        spec.mFromMoney = getMoney(random, INCOME_MEDIAN / 4.0, EXPENSE_SIGMA, mWalletCurrencies[spec.mFromWallet]);
+        spec.mToMoney = convert(spec.mFromMoney, mWalletCurrencies[spec.mFromWallet], mWalletCurrencies[spec.mToWallet]);
+        spec.mTaxMoney = random.nextDouble() < TRANSFER_TAX_PROBABILITY ? Math.max(1L, spec.mFromMoney / 100L) : 0L;
+        return spec;
+    }
+
+    private Transaction newTransaction(long time, int wallet, int type) {
+        Transaction transaction = new Transaction();
+        transaction.mId = mNextTransactionId++;
+        transaction.mDate = DateUtils.getSQLDateTimeString(time);
+        transaction.mType = type;
+        transaction.mWallet = (long) (wallet + 1);
+        transaction.mConfirmed = true;
+        transaction.mCountInTotal = true;
+        transaction.mUUID = generateUUID("transaction", transaction.mId);
+        transaction.mLastEdit = mEndTime;
+        return transaction;
+    }
+
+    private Transaction newTransferTransaction(long time, int wallet, int direction, long money, String categoryTag) {
+        Transaction transaction = newTransaction(time, wallet, Contract.TransactionType.TRANSFER);
+        transaction.mMoney = money;
+        transaction.mCategory = mSystemCategoryIds.get(categoryTag);
+        transaction.mDirection = direction;
+        return transaction;
+    }
+
+    private Transfer newTransfer(long time, String description) {
+        Transfer transfer = new Transfer();
+        transfer.mId = mNextTransferId++;
+        transfer.mDescription = description;
+        transfer.mDate = DateUtils.getSQLDateTimeString(time);
+        transfer.mConfirmed = true;
+        transfer.mCountInTotal = true;
+        transfer.mUUID = generateUUID("transfer", transfer.mId);
+        transfer.mLastEdit = mEndTime;
+        return transfer;
+    }
+
+    private List<Date> getOccurrences(String startDate, String lastOccurrence) {
+        List<Date> occurrences = new ArrayList<>();
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(DateUtils.getDateFromSQLDateString(startDate));
+        calendar.set(Calendar.HOUR_OF_DAY, 9);
+        long lastTime = DateUtils.getDateFromSQLDateString(lastOccurrence).getTime() + DAY_MILLIS;
+        while (calendar.getTimeInMillis() < lastTime) {
+            occurrences.add(calendar.getTime());
+            calendar.add(Calendar.MONTH, 1);
+        }
+        return occurrences;
+    }
+
+    private long getRandomTime(Random random) {
+        long day = (long) (random.nextDouble() * ((mEndTime - mStartTime) / DAY_MILLIS));
+        return mStartTime + day * DAY_MILLIS + getRandomDayTime(random);
+    }
+
+    /**
+     * @return a time of the day between 7:00 and 22:00, more likely around the evening.
+     */
+    private static long getRandomDayTime(Random random) {
+        double hours = 7.0 + 15.0 * Math.sqrt(random.nextDouble());
+        return (long) (hours * 60.0 * 60.0 * 1000.0);
+    }
+
+    /**
+     * @return an index in [0, size) where the lower ones are much more frequent, to reproduce
+     * the usage of the wallets, categories and places where a few of them are used the most.
+     */
+    private static int getSkewedIndex(Random random, int size) {
+        double value = random.nextDouble();
+        return Math.min(size - 1, (int) (size * value * value));
+    }
+
+    /**
+     * @return an amount drawn from a log-normal distribution expressed in the smallest unit of
+     * the given currency.
+     */
+    private static long getMoney(Random random, double median, double sigma, int currencyIndex) {
+        double amount = median * Math.exp(sigma * random.nextGaussian()) * CURRENCY_RATE[currencyIndex];
+        return Math.max(1L, Math.round(amount * Math.pow(10, CURRENCY_DECIMALS[currencyIndex])));
+    }
+
+    private static long convert(long money, int fromCurrency, int toCurrency) {
+        double amount = money / Math.pow(10, CURRENCY_DECIMALS[fromCurrency]) / CURRENCY_RATE[fromCurrency];
+        return Math.max(1L, Math.round(amount * CURRENCY_RATE[toCurrency] * Math.pow(10, CURRENCY_DECIMALS[toCurrency])));
+    }
+
+    private static String generateIcon(String name, int index) {
+        String color = Utils.getHexColor(Utils.getRandomMDColor(index));
+        return new ColorIcon(color, IconPicker.getColorIconString(name)).toString();
+    }
+
+    private String generateUUID(String table, long id) {
+        String name = mSeed + ":" + table + ":" + id;
+        return UUID.nameUUIDFromBytes(name.getBytes(Charset.forName("UTF-8"))).toString();
+    }
+
+    private Random newRandom(int stream) {
+        // mix the seed to obtain independent streams also for consecutive seeds
+        long value = mSeed + stream * 0x9E3779B97F4A7C15L;
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return new Random(value ^ (value >>> 31));
+    }
+
+    private static long[] toArray(List<Long> list) {
+        long[] array = new long[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    private static class TransferSpec {
+
+        private long mTime;
+        private int mFromWallet;
+        private int mToWallet;
+        private long mFromMoney;
+        private long mToMoney;
+        private long mTaxMoney;
+    }
+
+    /**
+     * The destination of the generated objects. The ids of the objects and the references
+     * between them start from 1 for each table: the writer is responsible to map them if the
+     * destination is not empty. The methods are called in the order of the backup sections.
+     */
+    public interface Writer {
+
+        void write(Currency currency) throws ExportException;
+
+        void write(Wallet wallet) throws ExportException;
+
+        void write(Category category) throws ExportException;
+
+        void write(Event event) throws ExportException;
+
+        void write(Place place) throws ExportException;
+
+        void write(Person person) throws ExportException;
+
+        void write(EventPerson eventPerson) throws ExportException;
+
+        void write(Debt debt) throws ExportException;
+
+        void write(DebtPerson debtPerson) throws ExportException;
+
+        void write(Budget budget) throws ExportException;
+
+        void write(BudgetWallet budgetWallet) throws ExportException;
+
+        void write(Saving saving) throws ExportException;
+
+        void write(RecurrentTransaction recurrentTransaction) throws ExportException;
+
+        void write(RecurrentTransfer recurrentTransfer) throws ExportException;
+
+        void write(Transaction transaction) throws ExportException;
+
+        void write(TransactionPerson transactionPerson) throws ExportException;
+
+        void write(Transfer transfer) throws ExportException;
+
+        void close() throws ExportException;
+    }
+
+    public static class Builder {
+
+        private final long mSeed;
+        private int mCurrencyCount = 3;
+        private int mWalletCount = 5;
+        private int mCategoryCount = 40;
+        private int mPersonCount = 30;
+        private int mPlaceCount = 50;
+        private int mEventCount = 10;
+        private int mDebtCount = 20;
+        private int mBudgetCount = 9;
+        private int mSavingCount = 6;
+        private int mRecurrentTransactionCount = 10;
+        private int mRecurrentTransferCount = 4;
+        private int mTransactionCount = 10000;
+        private int mTransferCount = -1;
+        private int mYears = 3;
+        private Date mEndDate = new Date();
+
+        public Builder(long seed) {
+            mSeed = seed;
+        }
+
+        public Builder setCurrencyCount(int count) {
+            mCurrencyCount = count;
+            return this;
+        }
+
+        public Builder setWalletCount(int count) {
+            mWalletCount = count;
+            return this;
+        }
+
+        public Builder setCategoryCount(int count) {
+            mCategoryCount = count;
+            return this;
+        }
+
+        public Builder setPersonCount(int count) {
+            mPersonCount = count;
+            return this;
+        }
+
+        public Builder setPlaceCount(int count) {
+            mPlaceCount = count;
+            return this;
+        }
+
+        public Builder setEventCount(int count) {
+            mEventCount = count;
+            return this;
+        }
+
+        public Builder setDebtCount(int count) {
+            mDebtCount = count;
+            return this;
+        }
+
+        public Builder setBudgetCount(int count) {
+            mBudgetCount = count;
+            return this;
+        }
+
+        public Builder setSavingCount(int count) {
+            mSavingCount = count;
+            return this;
+        }
+
+        public Builder setRecurrenceCount(int transactions, int transfers) {
+            mRecurrentTransactionCount = transactions;
+            mRecurrentTransferCount = transfers;
+            return this;
+        }
+
+        /**
+         * @param count number of standard transactions to generate. The transactions of debts,
+         *              savings, recurrences and transfers are generated in addition.
+         */
+        public Builder setTransactionCount(int count) {
+            mTransactionCount = count;
+            return this;
+        }
+
+        /**
+         * @param count number of transfers or -1 to generate one transfer every twenty
+         *              transactions.
+         */
+        public Builder setTransferCount(int count) {
+            mTransferCount = count;
+            return this;
+        }
+
+        /**
+         * @param years of history to generate before the end date.
+         */
+        public Builder setYears(int years) {
+            mYears = years;
+            return this;
+        }
+
+        /**
+         * @param endDate of the generated period. It must be set to a fixed value to obtain
+         *                the same ledger on different days.
+         */
+        public Builder setEndDate(Date endDate) {
+            mEndDate = endDate;
+            return this;
+        }
+
+        public LedgerGenerator build() {
+            return new LedgerGenerator(this);
+        }
+    }
+}
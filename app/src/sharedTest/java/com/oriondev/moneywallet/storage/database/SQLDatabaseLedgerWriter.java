@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.oriondev.moneywallet.storage.database.model.Budget;
+import com.oriondev.moneywallet.storage.database.model.BudgetWallet;
+import com.oriondev.moneywallet.storage.database.model.Category;
+import com.oriondev.moneywallet.storage.database.model.Currency;
+import com.oriondev.moneywallet.storage.database.model.Debt;
+import com.oriondev.moneywallet.storage.database.model.DebtPerson;
+import com.oriondev.moneywallet.storage.database.model.Event;
+import com.oriondev.moneywallet.storage.database.model.EventPerson;
+import com.oriondev.moneywallet.storage.database.model.Person;
+import com.oriondev.moneywallet.storage.database.model.Place;
+import com.oriondev.moneywallet.storage.database.model.RecurrentTransaction;
+import com.oriondev.moneywallet.storage.database.model.RecurrentTransfer;
+import com.oriondev.moneywallet.storage.database.model.Saving;
+import com.oriondev.moneywallet.storage.database.model.Transaction;
+import com.oriondev.moneywallet.storage.database.model.TransactionPerson;
+import com.oriondev.moneywallet.storage.database.model.Transfer;
+import com.oriondev.moneywallet.storage.database.model.Wallet;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This writer stores the objects created by the {@link LedgerGenerator} directly inside the
+ * tables of the {@link SQLDatabase}, without passing through the content providers. The rows
+ * are written inside transactions of a fixed size and the ids are shifted after the ones that
+ * are already stored, so a ledger can be appended to a database that is not empty.
+ * The providers are notified only once, when the writer is closed.
+ */
+public class SQLDatabaseLedgerWriter implements LedgerGenerator.Writer {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private final Context mContext;
+    private final SQLDatabase mDatabase;
+    private final boolean mOwnDatabase;
+    private final SQLiteDatabase mSQLiteDatabase;
+
+    private final long mWalletOffset;
+    private final long mEventOffset;
+    private final long mPlaceOffset;
+    private final long mPersonOffset;
+    private final long mDebtOffset;
+    private final long mBudgetOffset;
+    private final long mSavingOffset;
+    private final long mRecurrentTransactionOffset;
+    private final long mRecurrentTransferOffset;
+    private final long mTransactionOffset;
+    private final long mTransferOffset;
+    private final long mCategoryOffset;
+    private final Map<Long, Long> mSystemCategoryIds = new HashMap<>();
+
+    private int mPendingRows;
+
+    public SQLDatabaseLedgerWriter(Context context) {
+        this(context, new SQLDatabase(context), true);
+    }
+
+    /*package-local*/ SQLDatabaseLedgerWriter(SQLDatabase database) {
+        this(null, database, false);
+    }
+
+    private SQLDatabaseLedgerWriter(Context context, SQLDatabase database, boolean ownDatabase) {
+        mContext = context;
+        mDatabase = database;
+        mOwnDatabase = ownDatabase;
+        mSQLiteDatabase = database.getWritableDatabase();
+        mWalletOffset = getMaxId(Schema.Wallet.TABLE, Schema.Wallet.ID);
+        mEventOffset = getMaxId(Schema.Event.TABLE, Schema.Event.ID);
+        mPlaceOffset = getMaxId(Schema.Place.TABLE, Schema.Place.ID);
+        mPersonOffset = getMaxId(Schema.Person.TABLE, Schema.Person.ID);
+        mDebtOffset = getMaxId(Schema.Debt.TABLE, Schema.Debt.ID);
+        mBudgetOffset = getMaxId(Schema.Budget.TABLE, Schema.Budget.ID);
+        mSavingOffset = getMaxId(Schema.Saving.TABLE, Schema.Saving.ID);
+        mRecurrentTransactionOffset = getMaxId(Schema.RecurrentTransaction.TABLE, Schema.RecurrentTransaction.ID);
+        mRecurrentTransferOffset = getMaxId(Schema.RecurrentTransfer.TABLE, Schema.RecurrentTransfer.ID);
+        mTransactionOffset = getMaxId(Schema.Transaction.TABLE, Schema.Transaction.ID);
+        mTransferOffset = getMaxId(Schema.Transfer.TABLE, Schema.Transfer.ID);
+        mCategoryOffset = getMaxId(Schema.Category.TABLE, Schema.Category.ID);
+        mSQLiteDatabase.beginTransaction();
+    }
+
+    private long getMaxId(String table, String column) {
+        Cursor cursor = mSQLiteDatabase.rawQuery("SELECT MAX(" + column + ") FROM " + table, null);
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : 0L;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public void write(Currency currency) throws ExportException {
+        // the currencies are identified by the iso code: the existing ones are kept
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(currency);
+        insert(Schema.Currency.TABLE, contentValues, SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    @Override
+    public void write(Wallet wallet) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(wallet);
+        contentValues.put(Schema.Wallet.ID, wallet.mId + mWalletOffset);
+        insert(Schema.Wallet.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Category category) throws ExportException {
+        if (category.mType == Schema.CategoryType.SYSTEM) {
+            // the system categories are created together with the database
+            Long id = getCategoryId(category.mUUID);
+            if (id != null) {
+                mSystemCategoryIds.put(category.mId, id);
+                return;
+            }
+        }
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(category);
+        contentValues.put(Schema.Category.ID, category.mId + mCategoryOffset);
+        contentValues.put(Schema.Category.PARENT, getCategory(category.mParent));
+        insert(Schema.Category.TABLE, contentValues);
+    }
+
+    private Long getCategoryId(String uuid) {
+        String[] projection = new String[] {Schema.Category.ID};
+        String selection = Schema.Category.UUID + " = ?";
+        String[] selectionArgs = new String[] {uuid};
+        Cursor cursor = mSQLiteDatabase.query(Schema.Category.TABLE, projection, selection, selectionArgs, null, null, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public void write(Event event) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(event);
+        contentValues.put(Schema.Event.ID, event.mId + mEventOffset);
+        insert(Schema.Event.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Place place) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(place);
+        contentValues.put(Schema.Place.ID, place.mId + mPlaceOffset);
+        insert(Schema.Place.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Person person) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(person);
+        contentValues.put(Schema.Person.ID, person.mId + mPersonOffset);
+        insert(Schema.Person.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(EventPerson eventPerson) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(eventPerson);
+        contentValues.put(Schema.EventPeople.EVENT, shift(eventPerson.mEvent, mEventOffset));
+        contentValues.put(Schema.EventPeople.PERSON, shift(eventPerson.mPerson, mPersonOffset));
+        insert(Schema.EventPeople.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Debt debt) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(debt);
+        contentValues.put(Schema.Debt.ID, debt.mId + mDebtOffset);
+        contentValues.put(Schema.Debt.WALLET, shift(debt.mWallet, mWalletOffset));
+        contentValues.put(Schema.Debt.PLACE, shift(debt.mPlace, mPlaceOffset));
+        insert(Schema.Debt.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(DebtPerson debtPerson) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(debtPerson);
+        contentValues.put(Schema.DebtPeople.DEBT, shift(debtPerson.mDebt, mDebtOffset));
+        contentValues.put(Schema.DebtPeople.PERSON, shift(debtPerson.mPerson, mPersonOffset));
+        insert(Schema.DebtPeople.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Budget budget) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(budget);
+        contentValues.put(Schema.Budget.ID, budget.mId + mBudgetOffset);
+        contentValues.put(Schema.Budget.CATEGORY, getCategory(budget.mCategory));
+        insert(Schema.Budget.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(BudgetWallet budgetWallet) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(budgetWallet);
+        contentValues.put(Schema.BudgetWallet.BUDGET, shift(budgetWallet.mBudget, mBudgetOffset));
+        contentValues.put(Schema.BudgetWallet.WALLET, shift(budgetWallet.mWallet, mWalletOffset));
+        insert(Schema.BudgetWallet.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Saving saving) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(saving);
+        contentValues.put(Schema.Saving.ID, saving.mId + mSavingOffset);
+        contentValues.put(Schema.Saving.WALLET, shift(saving.mWallet, mWalletOffset));
+        insert(Schema.Saving.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(RecurrentTransaction recurrentTransaction) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(recurrentTransaction);
+        contentValues.put(Schema.RecurrentTransaction.ID, recurrentTransaction.mId + mRecurrentTransactionOffset);
+        contentValues.put(Schema.RecurrentTransaction.CATEGORY, getCategory(recurrentTransaction.mCategory));
+        contentValues.put(Schema.RecurrentTransaction.WALLET, shift(recurrentTransaction.mWallet, mWalletOffset));
+        contentValues.put(Schema.RecurrentTransaction.PLACE, shift(recurrentTransaction.mPlace, mPlaceOffset));
+        contentValues.put(Schema.RecurrentTransaction.EVENT, shift(recurrentTransaction.mEvent, mEventOffset));
+        insert(Schema.RecurrentTransaction.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(RecurrentTransfer recurrentTransfer) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(recurrentTransfer);
+        contentValues.put(Schema.RecurrentTransfer.ID, recurrentTransfer.mId + mRecurrentTransferOffset);
+        contentValues.put(Schema.RecurrentTransfer.WALLET_FROM, shift(recurrentTransfer.mFromWallet, mWalletOffset));
+        contentValues.put(Schema.RecurrentTransfer.WALLET_TO, shift(recurrentTransfer.mToWallet, mWalletOffset));
+        contentValues.put(Schema.RecurrentTransfer.EVENT, shift(recurrentTransfer.mEvent, mEventOffset));
+        contentValues.put(Schema.RecurrentTransfer.PLACE, shift(recurrentTransfer.mPlace, mPlaceOffset));
+        insert(Schema.RecurrentTransfer.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Transaction transaction) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(transaction);
+        contentValues.put(Schema.Transaction.ID, transaction.mId + mTransactionOffset);
+        contentValues.put(Schema.Transaction.CATEGORY, getCategory(transaction.mCategory));
+        contentValues.put(Schema.Transaction.WALLET, shift(transaction.mWallet, mWalletOffset));
+        contentValues.put(Schema.Transaction.PLACE, shift(transaction.mPlace, mPlaceOffset));
+        contentValues.put(Schema.Transaction.SAVING, shift(transaction.mSaving, mSavingOffset));
+        contentValues.put(Schema.Transaction.DEBT, shift(transaction.mDebt, mDebtOffset));
+        contentValues.put(Schema.Transaction.EVENT, shift(transaction.mEvent, mEventOffset));
+        contentValues.put(Schema.Transaction.RECURRENCE, shift(transaction.mRecurrence, mRecurrentTransactionOffset));
+        insert(Schema.Transaction.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(TransactionPerson transactionPerson) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(transactionPerson);
+        contentValues.put(Schema.TransactionPeople.TRANSACTION, shift(transactionPerson.mTransaction, mTransactionOffset));
+        contentValues.put(Schema.TransactionPeople.PERSON, shift(transactionPerson.mPerson, mPersonOffset));
+        insert(Schema.TransactionPeople.TABLE, contentValues);
+    }
+
+    @Override
+    public void write(Transfer transfer) throws ExportException {
+        ContentValues contentValues = SQLDatabaseImporter.getContentValues(transfer);
+        contentValues.put(Schema.Transfer.ID, transfer.mId + mTransferOffset);
+        contentValues.put(Schema.Transfer.TRANSACTION_FROM, shift(transfer.mTransactionFrom, mTransactionOffset));
+        contentValues.put(Schema.Transfer.TRANSACTION_TO, shift(transfer.mTransactionTo, mTransactionOffset));
+        contentValues.put(Schema.Transfer.TRANSACTION_TAX, shift(transfer.mTransactionTax, mTransactionOffset));
+        contentValues.put(Schema.Transfer.PLACE, shift(transfer.mPlace, mPlaceOffset));
+        contentValues.put(Schema.Transfer.EVENT, shift(transfer.mEvent, mEventOffset));
+        contentValues.put(Schema.Transfer.RECURRENCE, shift(transfer.mRecurrence, mRecurrentTransferOffset));
+        insert(Schema.Transfer.TABLE, contentValues);
+    }
+
+    private Long getCategory(Long category) {
+        if (category == null) {
+            return null;
+        }
+        Long systemCategory = mSystemCategoryIds.get(category);
+        return systemCategory != null ? systemCategory : category + mCategoryOffset;
+    }
+
+    private static Long shift(Long id, long offset) {
+        return id != null ? id + offset : null;
+    }
+
+    private void insert(String table, ContentValues contentValues) throws ExportException {
+        insert(table, contentValues, SQLiteDatabase.CONFLICT_ABORT);
+    }
+
+    private void insert(String table, ContentValues contentValues, int conflictAlgorithm) throws ExportException {
+        try {
+            mSQLiteDatabase.insertWithOnConflict(table, null, contentValues, conflictAlgorithm);
+        } catch (SQLException e) {
+            throw new ExportException(e.getMessage());
+        }
+        if (++mPendingRows >= BATCH_SIZE) {
+            mSQLiteDatabase.setTransactionSuccessful();
+            mSQLiteDatabase.endTransaction();
+            mSQLiteDatabase.beginTransaction();
+            mPendingRows = 0;
+        }
+    }
+
+    /**
+     * Commit the last rows and refresh the derived data that is not maintained by the triggers.
+     */
+    @Override
+    public void close() throws ExportException {
+        try {
+            mDatabase.rebuildCategoryClosure(mSQLiteDatabase);
+            mDatabase.rebuildDebtAndSavingProgress(mSQLiteDatabase);
+            mDatabase.refreshBudgetProgress(mSQLiteDatabase);
+            mSQLiteDatabase.setTransactionSuccessful();
+        } catch (SQLException e) {
+            throw new ExportException(e.getMessage());
+        } finally {
+            mSQLiteDatabase.endTransaction();
+            if (mOwnDatabase) {
+                mDatabase.close();
+            }
+        }
+        if (mContext != null) {
+            DataContentProvider.notifyDatabaseIsChanged(mContext);
+            SyncContentProvider.notifyDatabaseIsChanged(mContext);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database.backup;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+
+import com.oriondev.moneywallet.storage.database.ExportException;
+import com.oriondev.moneywallet.storage.database.LedgerGenerator;
+import com.oriondev.moneywallet.storage.database.json.JSONLedgerWriter;
+
+import net.lingala.zip4j.core.ZipFile;
+import net.lingala.zip4j.exception.ZipException;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * This class writes a ledger created by the {@link LedgerGenerator} as a backup file with the
+ * same structure of the ones created by the {@link DefaultBackupExporter}, so it can be used to
+ * test the restore procedure without filling the database of the device first.
+ */
+public class LedgerBackupExporter {
+
+    /**
+     * Generate the ledger and store it inside a new backup file.
+     * @param context used by the generator.
+     * @param generator of the ledger.
+     * @param backupFile where the backup is written. It must not exist.
+     * @param tempFolder used to store the database file before it is compressed.
+     * @param password of the backup or null if the backup is not protected.
+     */
+    public static void export(@NonNull Context context, @NonNull LedgerGenerator generator,
+                              @NonNull File backupFile, @NonNull File tempFolder, String password) throws ExportException {
+        File tempFile = new File(tempFolder, BackupManager.FileStructure.FILE_DATABASE);
+        LedgerGenerator.Writer writer = null;
+        try {
+            if (!tempFile.exists() && !tempFile.createNewFile()) {
+                throw new ExportException("Failed to create temporary file. Probably the internal storage of the device is full.");
+            }
+            writer = new JSONLedgerWriter(new FileOutputStream(tempFile));
+            generator.generate(context, writer);
+            writer.close();
+            writer = null;
+            ZipFile zipFile = new ZipFile(backupFile);
+            zipFile.addFile(tempFile, DefaultBackupExporter.generateZipParameters(BackupManager.FileStructure.FOLDER_DATABASES, password));
+        } catch (IOException | ZipException e) {
+            throw new ExportException(e.getMessage());
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (ExportException ignore) {
+                    // the original exception is more relevant
+                }
+            }
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+}
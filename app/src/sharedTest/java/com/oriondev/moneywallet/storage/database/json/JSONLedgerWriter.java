@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database.json;
+
+import com.oriondev.moneywallet.storage.database.ExportException;
+import com.oriondev.moneywallet.storage.database.LedgerGenerator;
+import com.oriondev.moneywallet.storage.database.model.Budget;
+import com.oriondev.moneywallet.storage.database.model.BudgetWallet;
+import com.oriondev.moneywallet.storage.database.model.Category;
+import com.oriondev.moneywallet.storage.database.model.Currency;
+import com.oriondev.moneywallet.storage.database.model.Debt;
+import com.oriondev.moneywallet.storage.database.model.DebtPerson;
+import com.oriondev.moneywallet.storage.database.model.Event;
+import com.oriondev.moneywallet.storage.database.model.EventPerson;
+import com.oriondev.moneywallet.storage.database.model.Person;
+import com.oriondev.moneywallet.storage.database.model.Place;
+import com.oriondev.moneywallet.storage.database.model.RecurrentTransaction;
+import com.oriondev.moneywallet.storage.database.model.RecurrentTransfer;
+import com.oriondev.moneywallet.storage.database.model.Saving;
+import com.oriondev.moneywallet.storage.database.model.Transaction;
+import com.oriondev.moneywallet.storage.database.model.TransactionPerson;
+import com.oriondev.moneywallet.storage.database.model.Transfer;
+import com.oriondev.moneywallet.storage.database.model.Wallet;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This writer stores the objects created by the {@link LedgerGenerator} inside a json database
+ * file with the same structure written by the {@link JSONDatabaseExporter}. The importer
+ * expects every array in a fixed order, so the arrays that do not receive any object are
+ * written empty.
+ */
+public class JSONLedgerWriter implements LedgerGenerator.Writer {
+
+    private static final String[] ARRAYS = new String[] {
+            JSONDatabase.Currency.ARRAY,
+            JSONDatabase.Wallet.ARRAY,
+            JSONDatabase.Category.ARRAY,
+            JSONDatabase.Event.ARRAY,
+            JSONDatabase.Place.ARRAY,
+            JSONDatabase.Person.ARRAY,
+            JSONDatabase.EventPeople.ARRAY,
+            JSONDatabase.Debt.ARRAY,
+            JSONDatabase.DebtPeople.ARRAY,
+            JSONDatabase.Budget.ARRAY,
+            JSONDatabase.BudgetWallet.ARRAY,
+            JSONDatabase.Saving.ARRAY,
+            JSONDatabase.RecurrentTransaction.ARRAY,
+            JSONDatabase.RecurrentTransfer.ARRAY,
+            JSONDatabase.Transaction.ARRAY,
+            JSONDatabase.TransactionPeople.ARRAY,
+            JSONDatabase.TransactionModel.ARRAY,
+            JSONDatabase.Transfer.ARRAY,
+            JSONDatabase.TransferPeople.ARRAY,
+            JSONDatabase.TransferModel.ARRAY,
+            JSONDatabase.Attachment.ARRAY,
+            JSONDatabase.TransactionAttachment.ARRAY,
+            JSONDatabase.TransferAttachment.ARRAY
+    };
+
+    private final JSONDataStreamWriter mWriter;
+    private final JSONDataOutputFactory mFactory;
+    private int mCurrentArray = -1;
+
+    public JSONLedgerWriter(OutputStream outputStream) throws ExportException {
+        try {
+            mWriter = new JSONDataStreamWriter(outputStream);
+            mFactory = new JSONDataOutputFactory();
+            mWriter.writeName(JSONDatabase.Header.OBJECT);
+            JSONObject object = new JSONObject();
+            object.put(JSONDatabase.Header.VERSION_CODE, JSONDatabase.VERSION);
+            mWriter.writeJSONObject(object);
+        } catch (IOException | JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    /**
+     * Close the array that is currently open and open all the following ones until the
+     * requested array is reached.
+     * @param index of the array in {@link #ARRAYS} or the length of the list to close them all.
+     */
+    private void moveToArray(int index) throws IOException {
+        if (index < mCurrentArray) {
+            throw new IllegalStateException("Array " + ARRAYS[index] + " has already been written");
+        }
+        while (mCurrentArray < index) {
+            if (mCurrentArray >= 0) {
+                mWriter.endArray();
+            }
+            mCurrentArray++;
+            if (mCurrentArray < ARRAYS.length) {
+                mWriter.writeName(ARRAYS[mCurrentArray]);
+                mWriter.beginArray();
+            }
+        }
+    }
+
+    private void write(int index, JSONObject object) throws ExportException {
+        try {
+            moveToArray(index);
+            mWriter.writeJSONObject(object);
+        } catch (IOException | JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Currency currency) throws ExportException {
+        try {
+            write(0, mFactory.getObject(currency));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Wallet wallet) throws ExportException {
+        try {
+            write(1, mFactory.getObject(wallet));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Category category) throws ExportException {
+        try {
+            write(2, mFactory.getObject(category));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Event event) throws ExportException {
+        try {
+            write(3, mFactory.getObject(event));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Place place) throws ExportException {
+        try {
+            write(4, mFactory.getObject(place));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Person person) throws ExportException {
+        try {
+            write(5, mFactory.getObject(person));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(EventPerson eventPerson) throws ExportException {
+        try {
+            write(6, mFactory.getObject(eventPerson));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Debt debt) throws ExportException {
+        try {
+            write(7, mFactory.getObject(debt));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(DebtPerson debtPerson) throws ExportException {
+        try {
+            write(8, mFactory.getObject(debtPerson));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Budget budget) throws ExportException {
+        try {
+            write(9, mFactory.getObject(budget));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(BudgetWallet budgetWallet) throws ExportException {
+        try {
+            write(10, mFactory.getObject(budgetWallet));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Saving saving) throws ExportException {
+        try {
+            write(11, mFactory.getObject(saving));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(RecurrentTransaction recurrentTransaction) throws ExportException {
+        try {
+            write(12, mFactory.getObject(recurrentTransaction));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(RecurrentTransfer recurrentTransfer) throws ExportException {
+        try {
+            write(13, mFactory.getObject(recurrentTransfer));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Transaction transaction) throws ExportException {
+        try {
+            write(14, mFactory.getObject(transaction));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(TransactionPerson transactionPerson) throws ExportException {
+        try {
+            write(15, mFactory.getObject(transactionPerson));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void write(Transfer transfer) throws ExportException {
+        try {
+            write(17, mFactory.getObject(transfer));
+        } catch (JSONException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws ExportException {
+        try {
+            moveToArray(ARRAYS.length);
+            mWriter.close();
+        } catch (IOException e) {
+            throw new ExportException(e.getMessage());
+        }
+    }
+}
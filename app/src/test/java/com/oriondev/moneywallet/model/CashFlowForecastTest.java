@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.model;
+
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The projection of the {@link CashFlowForecast} is checked against values computed by hand,
+ * and its incremental updates must always give the same projection of a new forecast that is
+ * computed from scratch with the same data. The forecast starts on Oct 1, so Oct 27 is the
+ * day 26 and Dec 29 is the last day.
+ */
+public class CashFlowForecastTest {
+
+    private static final int DAY_COUNT = 90;
+
+    private static final long WALLET_1 = 1L;
+    private static final long WALLET_2 = 2L;
+    private static final long WALLET_3 = 5L;
+
+    private static final long[] WALLET_IDS = new long[] {WALLET_3, WALLET_1, WALLET_2};
+
+    private static final Date START_DATE = getDate(2018, Calendar.OCTOBER, 1);
+
+    private static Date getDate(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 10, 30);
+        return calendar.getTime();
+    }
+
+    private static void setBalancesAndAverages(CashFlowForecast forecast) {
+        forecast.setBalance(WALLET_1, 150000L);
+        forecast.setBalance(WALLET_2, -2500L);
+        forecast.setBalance(WALLET_3, 800L);
+        forecast.setAverage(WALLET_1, -9000L, 30);
+        forecast.setAverage(WALLET_3, 700L, 7);
+        forecast.addScheduled(WALLET_2, getDate(2018, Calendar.OCTOBER, 20), 4000L);
+        forecast.addScheduled(WALLET_1, getDate(2018, Calendar.SEPTEMBER, 25), -1200L);
+    }
+
+    private static void setSalary(CashFlowForecast forecast, long money) throws InvalidRecurrenceRuleException {
+        forecast.setRecurrence("transaction/1", "FREQ=MONTHLY", getDate(2018, Calendar.OCTOBER, 27), WALLET_1, money, 0L, 0L);
+    }
+
+    private static void setSaving(CashFlowForecast forecast) throws InvalidRecurrenceRuleException {
+        forecast.setRecurrence("transfer/1", "FREQ=WEEKLY", getDate(2018, Calendar.SEPTEMBER, 28), WALLET_1, -5000L, WALLET_2, 5000L);
+    }
+
+    private static void setCoffee(CashFlowForecast forecast) throws InvalidRecurrenceRuleException {
+        forecast.setRecurrence("transaction/2", "FREQ=DAILY", getDate(2018, Calendar.OCTOBER, 3), WALLET_3, -150L, 0L, 0L);
+    }
+
+    private static long[] getProjection(CashFlowForecast forecast, long walletId) {
+        return forecast.getProjectedBalances(new long[] {walletId});
+    }
+
+    private static void assertSameProjection(CashFlowForecast expected, CashFlowForecast actual) {
+        assertArrayEquals(expected.getProjectedBalances(WALLET_IDS), actual.getProjectedBalances(WALLET_IDS));
+        for (long walletId : WALLET_IDS) {
+            long[] walletIds = new long[] {walletId};
+            assertArrayEquals(expected.getProjectedBalances(walletIds), actual.getProjectedBalances(walletIds));
+        }
+    }
+
+    @Test
+    public void balancesScheduledAndAveragesMatchExpectedValues() {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setBalancesAndAverages(forecast);
+        forecast.endUpdate();
+        // the overdue transaction is added to the first day and the average is -300 per day
+        long[] wallet1 = getProjection(forecast, WALLET_1);
+        assertEquals(148500L, wallet1[0]);
+        assertEquals(121800L, wallet1[DAY_COUNT - 1]);
+        // the transaction of Oct 20 is added to its own day
+        long[] wallet2 = getProjection(forecast, WALLET_2);
+        assertEquals(-2500L, wallet2[18]);
+        assertEquals(1500L, wallet2[19]);
+        assertEquals(1500L, wallet2[DAY_COUNT - 1]);
+        // the average is 100 per day
+        long[] wallet3 = getProjection(forecast, WALLET_3);
+        assertEquals(900L, wallet3[0]);
+        assertEquals(9800L, wallet3[DAY_COUNT - 1]);
+        assertEquals(121800L + 1500L + 9800L, forecast.getProjectedBalances(WALLET_IDS)[DAY_COUNT - 1]);
+    }
+
+    @Test
+    public void recurrencesMatchExpectedValues() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setSalary(forecast, 200000L);
+        setSaving(forecast);
+        setCoffee(forecast);
+        forecast.endUpdate();
+        // the saving of Sep 28 is overdue and is moved on the first day, then it repeats on
+        // Oct 5, 12, 19 and 26: the salary raises the bucket of Oct 27, Nov 27 and Dec 27
+        long[] wallet1 = getProjection(forecast, WALLET_1);
+        assertEquals(-5000L, wallet1[0]);
+        assertEquals(-25000L, wallet1[25]);
+        assertEquals(175000L, wallet1[26]);
+        assertEquals(200000L, wallet1[26] - wallet1[25]);
+        assertEquals(355000L, wallet1[57]);
+        assertEquals(535000L, wallet1[87]);
+        // the last saving is on Dec 28
+        assertEquals(530000L, wallet1[DAY_COUNT - 1]);
+        long[] wallet2 = getProjection(forecast, WALLET_2);
+        assertEquals(5000L, wallet2[0]);
+        assertEquals(70000L, wallet2[DAY_COUNT - 1]);
+        // the coffee starts on Oct 3 and subtracts 150 every day
+        long[] wallet3 = getProjection(forecast, WALLET_3);
+        assertEquals(0L, wallet3[1]);
+        for (int day = 2; day < DAY_COUNT; day++) {
+            assertEquals(-150L, wallet3[day] - wallet3[day - 1]);
+        }
+        assertEquals(-13200L, wallet3[DAY_COUNT - 1]);
+        assertEquals(530000L + 70000L - 13200L, forecast.getProjectedBalances(WALLET_IDS)[DAY_COUNT - 1]);
+    }
+
+    @Test
+    public void changedRecurrenceMatchesFullComputation() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        assertTrue(forecast.beginUpdate(START_DATE, WALLET_IDS));
+        setBalancesAndAverages(forecast);
+        setSalary(forecast, 200000L);
+        setSaving(forecast);
+        setCoffee(forecast);
+        forecast.endUpdate();
+        assertEquals(3, forecast.getRecurrenceCount());
+        // the salary is changed, the saving is the same and the coffee is removed
+        assertFalse(forecast.beginUpdate(START_DATE, WALLET_IDS));
+        setBalancesAndAverages(forecast);
+        setSalary(forecast, 210000L);
+        setSaving(forecast);
+        forecast.endUpdate();
+        assertEquals(2, forecast.getRecurrenceCount());
+        // the new salary is added instead of the old one and the coffee is not subtracted
+        long[] wallet1 = getProjection(forecast, WALLET_1);
+        assertEquals(210000L - 300L, wallet1[26] - wallet1[25]);
+        assertEquals(9800L, getProjection(forecast, WALLET_3)[DAY_COUNT - 1]);
+        CashFlowForecast expected = new CashFlowForecast(DAY_COUNT);
+        assertTrue(expected.beginUpdate(START_DATE, WALLET_IDS));
+        setBalancesAndAverages(expected);
+        setSalary(expected, 210000L);
+        setSaving(expected);
+        expected.endUpdate();
+        assertSameProjection(expected, forecast);
+    }
+
+    @Test
+    public void unchangedRecurrenceIsNotExpandedAgain() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        assertTrue(forecast.setRecurrence("transfer/1", "FREQ=WEEKLY", getDate(2018, Calendar.SEPTEMBER, 28), WALLET_1, -5000L, WALLET_2, 5000L));
+        forecast.endUpdate();
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        assertFalse(forecast.setRecurrence("transfer/1", "FREQ=WEEKLY", getDate(2018, Calendar.SEPTEMBER, 28), WALLET_1, -5000L, WALLET_2, 5000L));
+        assertTrue(forecast.setRecurrence("transfer/1", "FREQ=WEEKLY", getDate(2018, Calendar.OCTOBER, 5), WALLET_1, -5000L, WALLET_2, 5000L));
+        forecast.endUpdate();
+        CashFlowForecast expected = new CashFlowForecast(DAY_COUNT);
+        expected.beginUpdate(START_DATE, WALLET_IDS);
+        expected.setRecurrence("transfer/1", "FREQ=WEEKLY", getDate(2018, Calendar.OCTOBER, 5), WALLET_1, -5000L, WALLET_2, 5000L);
+        expected.endUpdate();
+        assertSameProjection(expected, forecast);
+    }
+
+    @Test
+    public void updateResetsBalancesScheduledAndAverages() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setBalancesAndAverages(forecast);
+        setSalary(forecast, 200000L);
+        forecast.endUpdate();
+        // the second update does not set them again, so only the recurrence is left
+        assertFalse(forecast.beginUpdate(START_DATE, WALLET_IDS));
+        setSalary(forecast, 200000L);
+        forecast.endUpdate();
+        CashFlowForecast expected = new CashFlowForecast(DAY_COUNT);
+        expected.beginUpdate(START_DATE, WALLET_IDS);
+        setSalary(expected, 200000L);
+        expected.endUpdate();
+        assertSameProjection(expected, forecast);
+        // and the data that is set again is not added twice
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setBalancesAndAverages(forecast);
+        setSalary(forecast, 200000L);
+        forecast.endUpdate();
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setBalancesAndAverages(forecast);
+        setSalary(forecast, 200000L);
+        forecast.endUpdate();
+        expected = new CashFlowForecast(DAY_COUNT);
+        expected.beginUpdate(START_DATE, WALLET_IDS);
+        setBalancesAndAverages(expected);
+        setSalary(expected, 200000L);
+        expected.endUpdate();
+        assertSameProjection(expected, forecast);
+    }
+
+    @Test
+    public void newStartDateExpandsAllTheRecurrences() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setSalary(forecast, 200000L);
+        setCoffee(forecast);
+        forecast.endUpdate();
+        Date startDate = getDate(2018, Calendar.OCTOBER, 2);
+        assertTrue(forecast.beginUpdate(startDate, WALLET_IDS));
+        assertEquals(0, forecast.getRecurrenceCount());
+        setBalancesAndAverages(forecast);
+        setSalary(forecast, 200000L);
+        setCoffee(forecast);
+        forecast.endUpdate();
+        CashFlowForecast expected = new CashFlowForecast(DAY_COUNT);
+        expected.beginUpdate(startDate, WALLET_IDS);
+        setBalancesAndAverages(expected);
+        setSalary(expected, 200000L);
+        setCoffee(expected);
+        expected.endUpdate();
+        assertSameProjection(expected, forecast);
+    }
+
+    @Test
+    public void invalidRuleDoesNotChangeTheForecast() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(DAY_COUNT);
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        setSalary(forecast, 200000L);
+        forecast.endUpdate();
+        forecast.beginUpdate(START_DATE, WALLET_IDS);
+        try {
+            forecast.setRecurrence("transaction/1", "FREQ=NEVER", getDate(2018, Calendar.OCTOBER, 27), WALLET_1, 200000L, 0L, 0L);
+            fail("the rule is not valid");
+        } catch (InvalidRecurrenceRuleException e) {
+            // the old salary is still there until the end of the update
+            assertEquals(600000L, getProjection(forecast, WALLET_1)[DAY_COUNT - 1]);
+        }
+        forecast.endUpdate();
+        assertEquals(0, forecast.getRecurrenceCount());
+        assertArrayEquals(new long[DAY_COUNT], forecast.getProjectedBalances(WALLET_IDS));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.service;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.oriondev.moneywallet.BuildConfig;
+import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.database.LedgerGenerator;
+import com.oriondev.moneywallet.storage.database.SQLDatabaseLedgerWriter;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This test checks that, after the recurrence handler has added the missed occurrences, the
+ * upcoming occurrences of all the recurrences are expanded by the provider.
+ *
+ *   ./gradlew :app:testFlossOsmDebugUnitTest --tests '*RecurrenceHandlerIntentServiceTest'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class RecurrenceHandlerIntentServiceTest {
+
+    private static final int RECURRENT_TRANSACTION_COUNT = 15;
+    private static final int RECURRENT_TRANSFER_COUNT = 5;
+
+    private static final String DATABASE_NAME = "database.db";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = ApplicationProvider.getApplicationContext();
+        // the provider stores the time of the last change inside the preferences
+        PreferenceManager.initialize(mContext);
+        mContext.deleteDatabase(DATABASE_NAME);
+        // the ledger ends one year ago: the handler must move all the recurrences to the future
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, -1);
+        LedgerGenerator generator = new LedgerGenerator.Builder(42L)
+                .setWalletCount(2)
+                .setRecurrenceCount(RECURRENT_TRANSACTION_COUNT, RECURRENT_TRANSFER_COUNT)
+                .setTransactionCount(100)
+                .setEndDate(calendar.getTime())
+                .build();
+        SQLDatabaseLedgerWriter writer = new SQLDatabaseLedgerWriter(mContext);
+        generator.generate(mContext, writer);
+        writer.close();
+        Robolectric.setupContentProvider(DataContentProvider.class, BuildConfig.APPLICATION_ID + ".storage.data");
+    }
+
+    @After
+    public void tearDown() {
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void expandUpcomingOccurrences() {
+        RecurrenceHandlerIntentService service = Robolectric.buildService(RecurrenceHandlerIntentService.class).create().get();
+        service.onHandleWork(new Intent());
+        // the monthly recurrences have at least one occurrence in the next two months
+        Calendar calendar = Calendar.getInstance();
+        String startDate = DateUtils.getSQLDateString(calendar.getTime());
+        calendar.add(Calendar.DAY_OF_YEAR, 62);
+        String endDate = DateUtils.getSQLDateString(calendar.getTime());
+        Uri uri = DataContentProvider.CONTENT_RECURRENCE_OCCURRENCES.buildUpon()
+                .appendQueryParameter(DataContentProvider.PARAMETER_OCCURRENCE_START_DATE, startDate)
+                .appendQueryParameter(DataContentProvider.PARAMETER_OCCURRENCE_END_DATE, endDate)
+                .build();
+        Cursor cursor = mContext.getContentResolver().query(uri, null, null, null, Contract.RecurrenceOccurrence.DATE);
+        assertTrue(cursor != null);
+        Set<String> recurrences = new HashSet<>();
+        try {
+            while (cursor.moveToNext()) {
+                String date = cursor.getString(cursor.getColumnIndex(Contract.RecurrenceOccurrence.DATE));
+                assertTrue(date.compareTo(startDate) >= 0 && date.compareTo(endDate) <= 0);
+                assertTrue(cursor.getString(cursor.getColumnIndex(Contract.RecurrenceOccurrence.WALLET_CURRENCY)) != null);
+                recurrences.add(cursor.getInt(cursor.getColumnIndex(Contract.RecurrenceOccurrence.TYPE)) + ":" +
+                        cursor.getLong(cursor.getColumnIndex(Contract.RecurrenceOccurrence.RECURRENCE_ID)));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(RECURRENT_TRANSACTION_COUNT + RECURRENT_TRANSFER_COUNT, recurrences.size());
+    }
+}
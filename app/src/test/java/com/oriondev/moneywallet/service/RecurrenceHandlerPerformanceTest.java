@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.service;
+
+import android.app.Application;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.oriondev.moneywallet.BuildConfig;
+import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.database.LedgerGenerator;
+import com.oriondev.moneywallet.storage.database.SQLDatabaseLedgerWriter;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This test measures the time needed by the recurrence handler to add the occurrences missed
+ * by 200 monthly recurrences (150 transactions and 50 transfers) during two years, like after
+ * the phone has been off for a long time or after the restore of an old backup.
+ *
+ *   ./gradlew :app:testFlossOsmDebugUnitTest --tests '*RecurrenceHandlerPerformanceTest'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class RecurrenceHandlerPerformanceTest {
+
+    private static final int RECURRENT_TRANSACTION_COUNT = 150;
+    private static final int RECURRENT_TRANSFER_COUNT = 50;
+    private static final int MISSED_YEARS = 2;
+
+    private static final String DATABASE_NAME = "database.db";
+
+    private Context mContext;
+    private int mNotificationCount;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = ApplicationProvider.getApplicationContext();
+        // the provider stores the time of the last change inside the preferences
+        PreferenceManager.initialize(mContext);
+        mContext.deleteDatabase(DATABASE_NAME);
+        // the ledger ends two years ago: all the occurrences after that date are missing
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.YEAR, -MISSED_YEARS);
+        LedgerGenerator generator = new LedgerGenerator.Builder(42L)
+                .setWalletCount(5)
+                .setRecurrenceCount(RECURRENT_TRANSACTION_COUNT, RECURRENT_TRANSFER_COUNT)
+                .setTransactionCount(1000)
+                .setEndDate(calendar.getTime())
+                .build();
+        SQLDatabaseLedgerWriter writer = new SQLDatabaseLedgerWriter(mContext);
+        generator.generate(mContext, writer);
+        writer.close();
+        Robolectric.setupContentProvider(DataContentProvider.class, BuildConfig.APPLICATION_ID + ".storage.data");
+    }
+
+    @After
+    public void tearDown() {
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////// INTERNAL METHODS FOR TESTING ///////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    private int count(Uri uri, String selection) {
+        Cursor cursor = mContext.getContentResolver().query(uri, null, selection, null, null);
+        assertTrue(cursor != null);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int countDueRecurrences() {
+        return count(DataContentProvider.CONTENT_RECURRENT_TRANSACTIONS, "DATE(" + Contract.RecurrentTransaction.NEXT_OCCURRENCE +
+                ") <= DATE('now', 'localtime')") + count(DataContentProvider.CONTENT_RECURRENT_TRANSFERS, "DATE(" +
+                Contract.RecurrentTransfer.NEXT_OCCURRENCE + ") <= DATE('now', 'localtime')");
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    /////////////////////////////////// TEST METHODS /////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void addMissingOccurrences() {
+        ContentResolver contentResolver = mContext.getContentResolver();
+        assertEquals(RECURRENT_TRANSACTION_COUNT + RECURRENT_TRANSFER_COUNT, countDueRecurrences());
+        int transactions = count(DataContentProvider.CONTENT_TRANSACTIONS, null);
+        int transfers = count(DataContentProvider.CONTENT_TRANSFERS, null);
+        ContentObserver observer = new ContentObserver(null) {
+
+            @Override
+            public void onChange(boolean selfChange) {
+                mNotificationCount++;
+            }
+
+        };
+        contentResolver.registerContentObserver(DataContentProvider.CONTENT_TRANSACTIONS, true, observer);
+        RecurrenceHandlerIntentService service = Robolectric.buildService(RecurrenceHandlerIntentService.class).create().get();
+        long startTime = System.nanoTime();
+        service.onHandleWork(new Intent());
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000L;
+        contentResolver.unregisterContentObserver(observer);
+        int addedTransactions = count(DataContentProvider.CONTENT_TRANSACTIONS, null) - transactions;
+        int addedTransfers = count(DataContentProvider.CONTENT_TRANSFERS, null) - transfers;
+        int occurrences = addedTransactions + addedTransfers;
+        System.out.println(String.format(Locale.ENGLISH, "%d recurrences: %d occurrences in %d ms (%d occurrences/s, %d notifications)",
+                RECURRENT_TRANSACTION_COUNT + RECURRENT_TRANSFER_COUNT, occurrences, elapsedMillis,
+                occurrences * 1000L / Math.max(1L, elapsedMillis), mNotificationCount));
+        // every recurrence misses about one occurrence per month
+        assertTrue(addedTransactions >= RECURRENT_TRANSACTION_COUNT * MISSED_YEARS * 11);
+        assertTrue(addedTransfers >= RECURRENT_TRANSFER_COUNT * MISSED_YEARS * 11);
+        assertEquals(0, countDueRecurrences());
+        // all the occurrences are written by a single batch
+        assertEquals(1, mNotificationCount);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
+import com.oriondev.moneywallet.storage.database.data.pdf.PDFDataExporter;
+import com.oriondev.moneywallet.storage.database.data.xlsx.XLSXDataExporter;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This test exports a ledger of 100k transactions with the exporters that stream the rows to
+ * the output file, reading them in chunks like the export service does, and checks that the
+ * heap retained during the export does not grow with the number of rows. The retained heap
+ * is the usage of the heap pools measured after each garbage collection, so the short lived
+ * objects of each row are not counted.
+ *
+ *   ./gradlew :app:testFlossOsmDebugUnitTest --tests '*DataExporterMemoryTest'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DataExporterMemoryTest {
+
+    private static final int TRANSACTION_COUNT = 100000;
+    private static final long MAX_RETAINED_HEAP_BYTES = 48L * 1024L * 1024L;
+    private static final long SAMPLE_INTERVAL_MILLIS = 10L;
+
+    private Context mContext;
+    private SQLDatabase mDatabase;
+    private File mFolder;
+
+    @Before
+    public void setUp() throws ExportException {
+        mContext = ApplicationProvider.getApplicationContext();
+        mDatabase = LedgerFixture.createDatabase(mContext, TRANSACTION_COUNT);
+        LedgerFixture.initializeExporters(mContext);
+        mFolder = new File(mContext.getCacheDir(), "exports");
+        assertTrue(mFolder.exists() || mFolder.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        LedgerFixture.deleteDatabase(mContext, mDatabase);
+        FileUtils.deleteQuietly(mFolder);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////// INTERNAL METHODS FOR TESTING ///////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Samples the heap retained after the garbage collections while the export is running.
+     */
+    private static class HeapSampler extends Thread {
+
+        private volatile boolean mRunning = true;
+        private long mPeakRetained;
+
+        private HeapSampler() {
+            super("HeapSampler");
+            setDaemon(true);
+        }
+
+        private static long getRetainedHeap() {
+            long retained = 0L;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()) {
+                    MemoryUsage usage = pool.getCollectionUsage();
+                    if (usage != null) {
+                        retained += usage.getUsed();
+                    }
+                }
+            }
+            return retained;
+        }
+
+        @Override
+        public void run() {
+            while (mRunning) {
+                mPeakRetained = Math.max(mPeakRetained, getRetainedHeap());
+                try {
+                    Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private long finish() throws InterruptedException {
+            mRunning = false;
+            join();
+            return Math.max(mPeakRetained, getRetainedHeap());
+        }
+    }
+
+    private void checkExport(String name, LedgerFixture.Exporter factory) throws Exception {
+        AbstractDataExporter exporter = factory.create(mFolder);
+        String[] columns = exporter.getColumns(true, LedgerFixture.EXPORT_OPTIONAL_COLUMNS);
+        if (exporter.shouldLoadPeople()) {
+            Cursor cursor = mDatabase.getPeople(null, null, null, null);
+            exporter.cachePeople(cursor);
+            cursor.close();
+        }
+        long[] walletIds = LedgerFixture.getWalletIds(mDatabase);
+        System.gc();
+        long baseline = HeapSampler.getRetainedHeap();
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        long startTime = System.nanoTime();
+        // the export cursor reads the transactions in chunks while they are exported
+        Cursor cursor = new ExportCursor(mDatabase, AbstractDataExporter.getProjection(LedgerFixture.EXPORT_OPTIONAL_COLUMNS), walletIds, null, LedgerFixture.END_DATE);
+        int rows = cursor.getCount();
+        exporter.exportData(cursor, columns);
+        exporter.close();
+        long elapsedMillis = (System.nanoTime() - startTime) / 1000000L;
+        long retained = Math.max(0L, sampler.finish() - baseline);
+        cursor.close();
+        System.out.println(String.format(Locale.ENGLISH, "%-12s %8d rows %8d ms %8d KB retained %8d KB file",
+                name, rows, elapsedMillis, retained / 1024L, exporter.getOutputFile().length() / 1024L));
+        assertTrue(name + " retained " + retained / 1024L + " KB", retained < MAX_RETAINED_HEAP_BYTES);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    /////////////////////////////////// TEST METHODS /////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void exportPdf() throws Exception {
+        checkExport("pdf", folder -> new PDFDataExporter(mContext, folder));
+    }
+
+    @Test
+    public void exportXlsx() throws Exception {
+        checkExport("xlsx", folder -> new XLSXDataExporter(mContext, folder));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+import com.oriondev.moneywallet.ui.view.theme.ThemeEngine;
+import com.oriondev.moneywallet.utils.CurrencyManager;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * This class contains the fixture shared by the local tests that run on the synthetic ledger
+ * of the {@link LedgerGenerator}: the database filled with the ledger and the data exporters.
+ */
+/*package-local*/ class LedgerFixture {
+
+    /*package-local*/ static final String END_DATE = "2018-10-31";
+
+    /*package-local*/ static final String[] EXPORT_OPTIONAL_COLUMNS = new String[] {
+            AbstractDataExporter.COLUMN_EVENT,
+            AbstractDataExporter.COLUMN_PEOPLE,
+            AbstractDataExporter.COLUMN_PLACE,
+            AbstractDataExporter.COLUMN_NOTE
+    };
+
+    /*package-local*/ interface Exporter {
+
+        AbstractDataExporter create(File folder) throws IOException;
+    }
+
+    /**
+     * Create a new database that contains the ledger generated with a fixed seed: five wallets
+     * and the given number of transactions, with one transfer every twenty transactions.
+     */
+    /*package-local*/ static SQLDatabase createDatabase(Context context, int transactionCount) throws ExportException {
+        context.deleteDatabase(SQLDatabase.DATABASE_NAME);
+        SQLDatabase database = new SQLDatabase(context);
+        database.setDeletedObjectCacheEnabled(false);
+        LedgerGenerator generator = new LedgerGenerator.Builder(42L)
+                .setWalletCount(5)
+                .setTransactionCount(transactionCount)
+                .setTransferCount(transactionCount / 20)
+                .setEndDate(DateUtils.getDateFromSQLDateString(END_DATE))
+                .build();
+        SQLDatabaseLedgerWriter writer = new SQLDatabaseLedgerWriter(database);
+        generator.generate(context, writer);
+        writer.close();
+        return database;
+    }
+
+    /*package-local*/ static void deleteDatabase(Context context, SQLDatabase database) {
+        database.close();
+        context.deleteDatabase(SQLDatabase.DATABASE_NAME);
+    }
+
+    /*package-local*/ static long[] getWalletIds(SQLDatabase database) {
+        Cursor cursor = database.getWallets(new String[]{Contract.Wallet.ID}, null, null, null);
+        try {
+            long[] ids = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getLong(0);
+            }
+            return ids;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * The exporters format the amounts with the preferences and the currencies of the app.
+     */
+    /*package-local*/ static void initializeExporters(Context context) {
+        PreferenceManager.initialize(context);
+        ThemeEngine.initialize(context);
+        CurrencyManager.initialize(context);
+    }
+}
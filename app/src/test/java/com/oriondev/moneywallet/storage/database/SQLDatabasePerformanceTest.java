@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database;
+
+import android.app.Application;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.oriondev.moneywallet.storage.database.data.AbstractDataExporter;
+import com.oriondev.moneywallet.storage.database.data.csv.CSVDataExporter;
+import com.oriondev.moneywallet.storage.database.data.pdf.PDFDataExporter;
+import com.oriondev.moneywallet.storage.database.data.xls.XLSDataExporter;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import org.apache.commons.io.FileUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.fail;
+
+/**
+ * This test measures the queries and the write operations of the {@link SQLDatabase} on a
+ * synthetic ledger of different sizes. It runs on the jvm with the native sqlite library of
+ * robolectric, so it does not need a device or an emulator.
+ *
+ * The median latency of each operation is written to the results file and compared with the
+ * baseline file: the test fails when an operation is slower than the baseline beyond the
+ * threshold. The hot path queries must also never scan the whole transaction table. The data
+ * exporters are measured on the whole ledger and their speed is reported as rows per second.
+ * The suite is excluded from the unit tests and runs only inside its own gradle task, that
+ * passes the files and the threshold as system properties and shows the report at the end:
+ *
+ *   ./gradlew :app:sqlPerformanceTest
+ *   ./gradlew :app:sqlPerformanceTest -PsqlPerfUpdateBaseline
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class SQLDatabasePerformanceTest {
+
+    private static final String PROPERTY_BASELINE = "sqlperf.baseline";
+    private static final String PROPERTY_RESULTS = "sqlperf.results";
+    private static final String PROPERTY_REPORT = "sqlperf.report";
+    private static final String PROPERTY_THRESHOLD = "sqlperf.threshold";
+    private static final String PROPERTY_UPDATE_BASELINE = "sqlperf.updateBaseline";
+
+    private static final double DEFAULT_THRESHOLD = 0.25d;
+
+    /**
+     * A slowdown smaller than this value is considered noise, whatever the threshold is.
+     */
+    private static final long MIN_REGRESSION_MICROS = 2000L;
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+    private static final int WRITE_OPERATIONS = 20;
+
+    /**
+     * Queries executed by the most used screens: their cost must not depend on the size of the
+     * transaction history.
+     */
+    private static final Set<String> HOT_PATH_QUERIES = new HashSet<>(Arrays.asList(
+            "getWalletBalances", "getWalletBalance", "getCategories", "getDebts", "getSavings",
+            "getBudgets"
+    ));
+
+    private static final Pattern SCAN_PATTERN = Pattern.compile("^SCAN (?:TABLE )?(\\w+).*$");
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "transactions = {0}")
+    public static Collection<Object[]> getLedgerSizes() {
+        return Arrays.asList(new Object[][] {{1000}, {5000}, {20000}});
+    }
+
+    private final int mTransactionCount;
+
+    private Context mContext;
+    private SQLDatabase mDatabase;
+    private Date mEndDate;
+    private final Map<String, Long> mResults = new LinkedHashMap<>();
+    private final List<String> mReport = new ArrayList<>();
+    private final List<String> mFailures = new ArrayList<>();
+
+    public SQLDatabasePerformanceTest(int transactionCount) {
+        mTransactionCount = transactionCount;
+    }
+
+    @Before
+    public void setUp() throws ExportException {
+        mContext = ApplicationProvider.getApplicationContext();
+        mDatabase = LedgerFixture.createDatabase(mContext, mTransactionCount);
+        mEndDate = DateUtils.getDateFromSQLDateString(LedgerFixture.END_DATE);
+        QueryProfiler.reset();
+        QueryProfiler.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        QueryProfiler.setEnabled(false);
+        QueryProfiler.reset();
+        LedgerFixture.deleteDatabase(mContext, mDatabase);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////// INTERNAL METHODS FOR TESTING ///////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    private interface Query {
+
+        Cursor run();
+    }
+
+    private interface Write {
+
+        /**
+         * @param index of the operation: each run must write a different row.
+         */
+        void run(int index);
+    }
+
+    private long getFirstId(String table, String column) {
+        Cursor cursor = mDatabase.getReadableDatabase().rawQuery("SELECT MIN(" + column + ") FROM " + table, null);
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : 1L;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long getExpenseCategory() {
+        String sql = "SELECT " + Schema.Category.ID + " FROM " + Schema.Category.TABLE + " WHERE " +
+                Schema.Category.TYPE + " = " + Schema.CategoryType.EXPENSE + " ORDER BY " +
+                Schema.Category.ID + " LIMIT 1";
+        Cursor cursor = mDatabase.getReadableDatabase().rawQuery(sql, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 1L;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void measureQuery(String name, Query query) {
+        SQLiteDatabase database = mDatabase.getReadableDatabase();
+        Uri uri = Uri.parse("content://sqlperf/" + name);
+        long[] samples = new long[MEASURED_RUNS];
+        String sql = null;
+        for (int i = -WARMUP_RUNS; i < MEASURED_RUNS; i++) {
+            long startTime = System.nanoTime();
+            QueryProfiler.Operation operation = QueryProfiler.begin(QueryProfiler.QUERY, uri);
+            Cursor cursor = query.run();
+            // the count fills the cursor window: the query is really executed here
+            operation.endQuery(database, cursor);
+            long elapsedMicros = (System.nanoTime() - startTime) / 1000L;
+            if (cursor != null) {
+                cursor.close();
+            }
+            if (i >= 0) {
+                samples[i] = elapsedMicros;
+            }
+            sql = operation.getSql();
+        }
+        mResults.put(name, getMedian(samples));
+        if (HOT_PATH_QUERIES.contains(name)) {
+            checkNoTransactionScan(name, database, sql);
+        }
+    }
+
+    private void measureWrite(String name, Write write) {
+        long[] samples = new long[WRITE_OPERATIONS];
+        for (int i = 0; i < WRITE_OPERATIONS; i++) {
+            long startTime = System.nanoTime();
+            write.run(i);
+            samples[i] = (System.nanoTime() - startTime) / 1000L;
+        }
+        mResults.put(name, getMedian(samples));
+    }
+
+    /**
+     * The export is measured together with the chunks read by the export cursor, while the
+     * people are cached before.
+     */
+    private void measureExport(String name, LedgerFixture.Exporter factory) throws IOException {
+        File folder = new File(mContext.getCacheDir(), "sqlperf");
+        if (!folder.exists() && !folder.mkdirs()) {
+            throw new IOException("Failed to create the export folder");
+        }
+        long[] samples = new long[MEASURED_RUNS];
+        long[] walletIds = LedgerFixture.getWalletIds(mDatabase);
+        String endDate = DateUtils.getSQLDateString(mEndDate);
+        int rows = 0;
+        for (int i = -WARMUP_RUNS; i < MEASURED_RUNS; i++) {
+            AbstractDataExporter exporter = factory.create(folder);
+            String[] columns = exporter.getColumns(true, LedgerFixture.EXPORT_OPTIONAL_COLUMNS);
+            if (exporter.shouldLoadPeople()) {
+                Cursor cursor = mDatabase.getPeople(null, null, null, null);
+                exporter.cachePeople(cursor);
+                cursor.close();
+            }
+            long startTime = System.nanoTime();
+            Cursor cursor = new ExportCursor(mDatabase, AbstractDataExporter.getProjection(LedgerFixture.EXPORT_OPTIONAL_COLUMNS), walletIds, null, endDate);
+            rows = cursor.getCount();
+            exporter.exportData(cursor, columns);
+            exporter.close();
+            long elapsedMicros = (System.nanoTime() - startTime) / 1000L;
+            cursor.close();
+            FileUtils.deleteQuietly(exporter.getOutputFile());
+            if (i >= 0) {
+                samples[i] = elapsedMicros;
+            }
+        }
+        long median = getMedian(samples);
+        mResults.put(name, median);
+        mReport.add(String.format(Locale.ENGLISH, "%-40s %10d rows/s", getKey(name), rows * 1000000L / Math.max(1L, median)));
+    }
+
+    private static long getMedian(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    /**
+     * The plan is checked on every step: a scan of the transaction table, even through an
+     * index, makes the cost of the query grow with the history. The table can be scanned
+     * with its name or with any alias declared inside the sql.
+     */
+    private void checkNoTransactionScan(String name, SQLiteDatabase database, String sql) {
+        if (sql == null) {
+            mFailures.add(name + ": sql not captured");
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        names.add(Schema.Transaction.TABLE);
+        Matcher aliasMatcher = Pattern.compile("\\b" + Schema.Transaction.TABLE + "\\s+AS\\s+(\\w+)").matcher(sql);
+        while (aliasMatcher.find()) {
+            names.add(aliasMatcher.group(1));
+        }
+        String plan = QueryProfiler.explainQueryPlan(database, sql);
+        for (String step : plan.split("\n")) {
+            Matcher matcher = SCAN_PATTERN.matcher(step.trim());
+            if (matcher.matches() && names.contains(matcher.group(1))) {
+                mFailures.add(name + ": the transaction table is scanned\n" + plan);
+                return;
+            }
+        }
+    }
+
+    private String getKey(String name) {
+        return mTransactionCount + "/" + name;
+    }
+
+    private static JSONObject readJson(File file) throws IOException, JSONException {
+        if (file != null && file.exists()) {
+            return new JSONObject(FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        }
+        return new JSONObject();
+    }
+
+    /**
+     * The results of the other sizes and of the other tests are preserved because each test
+     * only updates its own keys.
+     */
+    private void mergeResults(File file) throws IOException, JSONException {
+        JSONObject object = readJson(file);
+        for (Map.Entry<String, Long> entry : mResults.entrySet()) {
+            object.put(getKey(entry.getKey()), entry.getValue());
+        }
+        FileUtils.writeStringToFile(file, object.toString(2), StandardCharsets.UTF_8);
+    }
+
+    private void compareWithBaseline() throws IOException, JSONException {
+        String resultsPath = System.getProperty(PROPERTY_RESULTS);
+        if (resultsPath != null) {
+            mergeResults(new File(resultsPath));
+        }
+        for (Map.Entry<String, Long> entry : mResults.entrySet()) {
+            mReport.add(String.format(Locale.ENGLISH, "%-40s %10d us", getKey(entry.getKey()), entry.getValue()));
+        }
+        String reportPath = System.getProperty(PROPERTY_REPORT);
+        if (reportPath != null) {
+            FileUtils.writeLines(new File(reportPath), StandardCharsets.UTF_8.name(), mReport, true);
+        }
+        String baselinePath = System.getProperty(PROPERTY_BASELINE);
+        File baselineFile = baselinePath != null ? new File(baselinePath) : null;
+        if (baselineFile != null && Boolean.parseBoolean(System.getProperty(PROPERTY_UPDATE_BASELINE))) {
+            mergeResults(baselineFile);
+        } else {
+            double threshold = Double.parseDouble(System.getProperty(PROPERTY_THRESHOLD, String.valueOf(DEFAULT_THRESHOLD)));
+            JSONObject baseline = readJson(baselineFile);
+            for (Map.Entry<String, Long> entry : mResults.entrySet()) {
+                String key = getKey(entry.getKey());
+                long current = entry.getValue();
+                if (baseline.has(key)) {
+                    long base = baseline.getLong(key);
+                    if (current > base * (1d + threshold) && current - base > MIN_REGRESSION_MICROS) {
+                        mFailures.add(String.format(Locale.ENGLISH, "%s: %d us, baseline %d us", key, current, base));
+                    }
+                }
+            }
+        }
+        if (!mFailures.isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            for (Iterator<String> iterator = mFailures.iterator(); iterator.hasNext(); ) {
+                builder.append(iterator.next());
+                if (iterator.hasNext()) {
+                    builder.append('\n');
+                }
+            }
+            fail(builder.toString());
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    /////////////////////////////////// TEST METHODS /////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void queries() throws Exception {
+        final long walletId = getFirstId(Schema.Wallet.TABLE, Schema.Wallet.ID);
+        final long transactionId = getFirstId(Schema.Transaction.TABLE, Schema.Transaction.ID);
+        final long transferId = getFirstId(Schema.Transfer.TABLE, Schema.Transfer.ID);
+        final long categoryId = getExpenseCategory();
+        final long debtId = getFirstId(Schema.Debt.TABLE, Schema.Debt.ID);
+        final long budgetId = getFirstId(Schema.Budget.TABLE, Schema.Budget.ID);
+        final long savingId = getFirstId(Schema.Saving.TABLE, Schema.Saving.ID);
+        final long eventId = getFirstId(Schema.Event.TABLE, Schema.Event.ID);
+        final long placeId = getFirstId(Schema.Place.TABLE, Schema.Place.ID);
+        final long personId = getFirstId(Schema.Person.TABLE, Schema.Person.ID);
+        final String date = DateUtils.getSQLDateTimeString(mEndDate);
+        final long[] walletIds = LedgerFixture.getWalletIds(mDatabase);
+        final String[] exportProjection = AbstractDataExporter.getProjection(LedgerFixture.EXPORT_OPTIONAL_COLUMNS);
+        final String exportDate = DateUtils.getSQLDateString(mEndDate);
+        measureQuery("getCurrencies", () -> mDatabase.getCurrencies(null, null, null, null));
+        measureQuery("getWallets", () -> mDatabase.getWallets(null, null, null, null));
+        measureQuery("getWallet", () -> mDatabase.getWallet(walletId, null));
+        measureQuery("getWalletBalances", () -> mDatabase.getWalletBalances(date, null, null, null, null));
+        measureQuery("getWalletBalance", () -> mDatabase.getWalletBalance(walletId, date, null));
+        measureQuery("getTransactions", () -> mDatabase.getTransactions(null, null, null, null));
+        measureQuery("getTransaction", () -> mDatabase.getTransaction(transactionId, null));
+        measureQuery("getExportTransactions", () -> mDatabase.getExportTransactions(exportProjection, walletIds, null, exportDate, null, 0L, ExportCursor.CHUNK_SIZE));
+        measureQuery("getTransactionPeople", () -> mDatabase.getTransactionPeople(transactionId, null, null, null, null));
+        measureQuery("getTransactionAttachments", () -> mDatabase.getTransactionAttachments(transactionId, null, null, null, null));
+        measureQuery("getTransfers", () -> mDatabase.getTransfers(null, null, null, null));
+        measureQuery("getTransfer", () -> mDatabase.getTransfer(transferId, null));
+        measureQuery("getCategories", () -> mDatabase.getCategories(null, null, null, null));
+        measureQuery("getCategory", () -> mDatabase.getCategory(categoryId, null));
+        measureQuery("getCategoryTransactions", () -> mDatabase.getCategoryTransactions(categoryId, null, null, null, null));
+        measureQuery("getDebts", () -> mDatabase.getDebts(null, null, null, null));
+        measureQuery("getDebt", () -> mDatabase.getDebt(debtId, null));
+        measureQuery("getDebtPeople", () -> mDatabase.getDebtPeople(debtId, null, null, null, null));
+        measureQuery("getDebtTransactions", () -> mDatabase.getDebtTransactions(debtId, null, null, null, null));
+        measureQuery("getBudgets", () -> mDatabase.getBudgets(null, null, null, null));
+        measureQuery("getBudget", () -> mDatabase.getBudget(budgetId, null));
+        measureQuery("getBudgetWallets", () -> mDatabase.getBudgetWallets(budgetId, null, null, null, null));
+        measureQuery("getBudgetTransactions", () -> mDatabase.getBudgetTransactions(budgetId, null, null, null, null));
+        measureQuery("getSavings", () -> mDatabase.getSavings(null, null, null, null));
+        measureQuery("getSaving", () -> mDatabase.getSaving(savingId, null));
+        measureQuery("getSavingTransactions", () -> mDatabase.getSavingTransactions(savingId, null, null, null, null));
+        measureQuery("getEvents", () -> mDatabase.getEvents(null, null, null, null));
+        measureQuery("getEvent", () -> mDatabase.getEvent(eventId, null));
+        measureQuery("getEventTransactions", () -> mDatabase.getEventTransactions(eventId, null, null, null, null));
+        measureQuery("getRecurrentTransactions", () -> mDatabase.getRecurrentTransactions(null, null, null, null));
+        measureQuery("getRecurrentTransfers", () -> mDatabase.getRecurrentTransfers(null, null, null, null));
+        measureQuery("getTransactionModels", () -> mDatabase.getTransactionModels(null, null, null, null));
+        measureQuery("getTransferModels", () -> mDatabase.getTransferModels(null, null, null, null));
+        measureQuery("getPlaces", () -> mDatabase.getPlaces(null, null, null, null));
+        measureQuery("getPlace", () -> mDatabase.getPlace(placeId, null));
+        measureQuery("getPlaceTransactions", () -> mDatabase.getPlaceTransactions(placeId, null, null, null, null));
+        measureQuery("getPeople", () -> mDatabase.getPeople(null, null, null, null));
+        measureQuery("getPerson", () -> mDatabase.getPerson(personId, null));
+        measureQuery("getPeopleTransactions", () -> mDatabase.getPeopleTransactions(personId, null, null, null, null));
+        measureQuery("getAttachments", () -> mDatabase.getAttachments(null, null, null, null));
+        compareWithBaseline();
+    }
+
+    @Test
+    public void writes() throws Exception {
+        final long walletFromId = getFirstId(Schema.Wallet.TABLE, Schema.Wallet.ID);
+        final long walletToId = walletFromId + 1;
+        final long categoryId = getExpenseCategory();
+        final String date = DateUtils.getSQLDateTimeString(mEndDate);
+        final long[] transactionIds = new long[WRITE_OPERATIONS];
+        final long[] transferIds = new long[WRITE_OPERATIONS];
+        final long[] categoryIds = new long[WRITE_OPERATIONS];
+        measureWrite("insertTransaction", index -> {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Transaction.MONEY, 1000L + index);
+            contentValues.put(Contract.Transaction.DATE, date);
+            contentValues.put(Contract.Transaction.DESCRIPTION, "sqlperf " + index);
+            contentValues.put(Contract.Transaction.CATEGORY_ID, categoryId);
+            contentValues.put(Contract.Transaction.DIRECTION, Contract.Direction.EXPENSE);
+            contentValues.put(Contract.Transaction.TYPE, Contract.TransactionType.STANDARD);
+            contentValues.put(Contract.Transaction.WALLET_ID, walletFromId);
+            contentValues.put(Contract.Transaction.CONFIRMED, true);
+            contentValues.put(Contract.Transaction.COUNT_IN_TOTAL, true);
+            transactionIds[index] = mDatabase.insertTransaction(contentValues);
+        });
+        measureWrite("updateTransaction", index -> {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Transaction.MONEY, 2000L + index);
+            contentValues.put(Contract.Transaction.DATE, date);
+            contentValues.put(Contract.Transaction.DESCRIPTION, "sqlperf " + index);
+            contentValues.put(Contract.Transaction.CATEGORY_ID, categoryId);
+            contentValues.put(Contract.Transaction.DIRECTION, Contract.Direction.INCOME);
+            contentValues.put(Contract.Transaction.TYPE, Contract.TransactionType.STANDARD);
+            contentValues.put(Contract.Transaction.WALLET_ID, walletToId);
+            contentValues.put(Contract.Transaction.CONFIRMED, true);
+            contentValues.put(Contract.Transaction.COUNT_IN_TOTAL, true);
+            mDatabase.updateTransaction(transactionIds[index], contentValues);
+        });
+        measureWrite("deleteTransaction", index -> mDatabase.deleteTransaction(transactionIds[index]));
+        measureWrite("insertTransfer", index -> {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Transfer.DESCRIPTION, "sqlperf " + index);
+            contentValues.put(Contract.Transfer.DATE, date);
+            contentValues.put(Contract.Transfer.TRANSACTION_FROM_WALLET_ID, walletFromId);
+            contentValues.put(Contract.Transfer.TRANSACTION_TO_WALLET_ID, walletToId);
+            contentValues.put(Contract.Transfer.TRANSACTION_FROM_MONEY, 1000L + index);
+            contentValues.put(Contract.Transfer.TRANSACTION_TO_MONEY, 1000L + index);
+            contentValues.put(Contract.Transfer.TRANSACTION_TAX_MONEY, 0L);
+            contentValues.put(Contract.Transfer.CONFIRMED, true);
+            contentValues.put(Contract.Transfer.COUNT_IN_TOTAL, true);
+            transferIds[index] = mDatabase.insertTransfer(contentValues);
+        });
+        measureWrite("deleteTransfer", index -> mDatabase.deleteTransfer(transferIds[index]));
+        measureWrite("insertCategory", index -> {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Category.NAME, "sqlperf " + index);
+            contentValues.put(Contract.Category.TYPE, Contract.CategoryType.EXPENSE.getValue());
+            contentValues.put(Contract.Category.PARENT, categoryId);
+            contentValues.put(Contract.Category.SHOW_REPORT, true);
+            categoryIds[index] = mDatabase.insertCategory(contentValues);
+        });
+        measureWrite("updateCategory", index -> {
+            ContentValues contentValues = new ContentValues();
+            contentValues.put(Contract.Category.NAME, "sqlperf " + index);
+            contentValues.put(Contract.Category.TYPE, Contract.CategoryType.EXPENSE.getValue());
+            contentValues.putNull(Contract.Category.PARENT);
+            contentValues.put(Contract.Category.SHOW_REPORT, true);
+            mDatabase.updateCategory(categoryIds[index], contentValues);
+        });
+        measureWrite("deleteCategory", index -> mDatabase.deleteCategory(categoryIds[index]));
+        compareWithBaseline();
+    }
+
+    @Test
+    public void exports() throws Exception {
+        LedgerFixture.initializeExporters(mContext);
+        measureExport("exportCsv", folder -> new CSVDataExporter(mContext, folder));
+        measureExport("exportXls", folder -> new XLSDataExporter(mContext, folder));
+        measureExport("exportPdf", folder -> new PDFDataExporter(mContext, folder));
+        compareWithBaseline();
+    }
+}
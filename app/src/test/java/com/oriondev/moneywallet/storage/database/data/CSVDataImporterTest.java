@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database.data;
+
+import android.app.Application;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Color;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.oriondev.moneywallet.model.ColorIcon;
+import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+import com.oriondev.moneywallet.storage.database.data.csv.CSVDataExporter;
+import com.oriondev.moneywallet.storage.database.data.csv.CSVDataImporter;
+import com.oriondev.moneywallet.storage.preference.PreferenceManager;
+import com.oriondev.moneywallet.ui.view.theme.ThemeEngine;
+import com.oriondev.moneywallet.utils.CurrencyManager;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This test exports the transactions to a csv file and imports the file again: the categories
+ * written by the exporter must be matched with the existing ones, system categories included.
+ *
+ *   ./gradlew :app:testFlossOsmDebugUnitTest --tests '*CSVDataImporterTest'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class CSVDataImporterTest {
+
+    private static final String[] NO_OPTIONAL_COLUMNS = new String[0];
+
+    private Context mContext;
+    private ContentResolver mContentResolver;
+    private File mFolder;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mContentResolver = mContext.getContentResolver();
+        // the exporter formats the amounts with the preferences and the currencies of the app
+        PreferenceManager.initialize(mContext);
+        ThemeEngine.initialize(mContext);
+        CurrencyManager.initialize(mContext);
+        CurrencyManager.invalidateCacheAndWait(mContext);
+        mFolder = new File(mContext.getCacheDir(), "csv");
+        assertTrue(mFolder.exists() || mFolder.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(mFolder);
+    }
+
+    private long insertWallet(String name) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Contract.Wallet.NAME, name);
+        contentValues.put(Contract.Wallet.ICON, new ColorIcon(Color.BLUE, name.substring(0, 1)).toString());
+        contentValues.put(Contract.Wallet.CURRENCY, "EUR");
+        contentValues.put(Contract.Wallet.COUNT_IN_TOTAL, true);
+        contentValues.put(Contract.Wallet.START_MONEY, 0L);
+        contentValues.put(Contract.Wallet.ARCHIVED, false);
+        Uri uri = mContentResolver.insert(DataContentProvider.CONTENT_WALLETS, contentValues);
+        return ContentUris.parseId(uri);
+    }
+
+    private void insertTransfer(long walletFromId, long walletToId, long money) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Contract.Transfer.DESCRIPTION, "Savings");
+        contentValues.put(Contract.Transfer.DATE, "2018-10-01 10:00:00");
+        contentValues.put(Contract.Transfer.TRANSACTION_FROM_WALLET_ID, walletFromId);
+        contentValues.put(Contract.Transfer.TRANSACTION_TO_WALLET_ID, walletToId);
+        contentValues.put(Contract.Transfer.TRANSACTION_FROM_MONEY, money);
+        contentValues.put(Contract.Transfer.TRANSACTION_TO_MONEY, money);
+        contentValues.put(Contract.Transfer.TRANSACTION_TAX_MONEY, 0L);
+        contentValues.put(Contract.Transfer.CONFIRMED, true);
+        contentValues.put(Contract.Transfer.COUNT_IN_TOTAL, true);
+        mContentResolver.insert(DataContentProvider.CONTENT_TRANSFERS, contentValues);
+    }
+
+    private int getCategoryCount() {
+        Cursor cursor = mContentResolver.query(DataContentProvider.CONTENT_CATEGORIES, new String[] {Contract.Category.ID}, null, null, null);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private File exportTransactions(long... walletIds) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (long walletId : walletIds) {
+            if (builder.length() > 0) {
+                builder.append(",");
+            }
+            builder.append(walletId);
+        }
+        Uri uri = DataContentProvider.CONTENT_TRANSACTION_EXPORT.buildUpon()
+                .appendQueryParameter(DataContentProvider.PARAMETER_EXPORT_WALLETS, builder.toString())
+                .build();
+        AbstractDataExporter exporter = new CSVDataExporter(mContext, mFolder);
+        Cursor cursor = mContentResolver.query(uri, AbstractDataExporter.getProjection(NO_OPTIONAL_COLUMNS), null, null, null);
+        try {
+            exporter.exportData(cursor, exporter.getColumns(true, NO_OPTIONAL_COLUMNS));
+        } finally {
+            cursor.close();
+            exporter.close();
+        }
+        return exporter.getOutputFile();
+    }
+
+    @Test
+    public void transferRowUsesSystemCategory() throws Exception {
+        long walletFromId = insertWallet("Cash");
+        long walletToId = insertWallet("Bank");
+        insertTransfer(walletFromId, walletToId, 12500L);
+        int categoryCount = getCategoryCount();
+        File file = exportTransactions(walletFromId, walletToId);
+        CSVDataImporter importer = new CSVDataImporter(mContext, file);
+        try {
+            importer.importData();
+        } finally {
+            importer.close();
+        }
+        assertTrue(importer.getErrors().isEmpty());
+        // no user category has been created for the transfer category written by the exporter
+        assertEquals(categoryCount, getCategoryCount());
+        String[] projection = new String[] {Contract.Transaction.CATEGORY_ID, Contract.Transaction.CATEGORY_TYPE};
+        Cursor cursor = mContentResolver.query(DataContentProvider.CONTENT_TRANSACTIONS, projection, null, null, null);
+        try {
+            // the two sides of the transfer and the two imported rows
+            assertEquals(4, cursor.getCount());
+            Long categoryId = null;
+            while (cursor.moveToNext()) {
+                assertEquals(Contract.CategoryType.SYSTEM.getValue(), cursor.getInt(cursor.getColumnIndex(Contract.Transaction.CATEGORY_TYPE)));
+                long id = cursor.getLong(cursor.getColumnIndex(Contract.Transaction.CATEGORY_ID));
+                if (categoryId == null) {
+                    categoryId = id;
+                }
+                assertEquals(categoryId.longValue(), id);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+}
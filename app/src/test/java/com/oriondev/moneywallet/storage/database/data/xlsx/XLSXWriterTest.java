@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database.data.xlsx;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This test writes a small workbook with a row limit of three rows for each sheet, unzips it
+ * and reads back the workbook, the sheets and the shared strings.
+ *
+ *   ./gradlew :app:testFlossOsmDebugUnitTest --tests '*XLSXWriterTest'
+ */
+public class XLSXWriterTest {
+
+    private static final int MAX_ROWS = 3;
+    private static final int[] COLUMN_WIDTHS = new int[] {12, 20};
+    private static final String[] HEADER = new String[] {"Date", "Money"};
+    private static final String LONG_TEXT = "a description that is too long to be stored inside the shared strings";
+
+    private Map<String, Document> mParts;
+
+    @Before
+    public void setUp() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        XLSXWriter writer = new XLSXWriter(outputStream, MAX_ROWS);
+        writer.startSheet("Cash", COLUMN_WIDTHS, HEADER);
+        writer.writeRow(new String[] {"2018-12-01", "10.00"});
+        writer.writeRow(new String[] {"2018-12-02", "10.00"});
+        // the sheet is full: the next rows continue inside a new sheet
+        writer.writeRow(new String[] {"Tom & <Jerry>", null});
+        writer.writeRow(new String[] {LONG_TEXT, "5.00"});
+        writer.startSheet("Bank", COLUMN_WIDTHS, null);
+        writer.writeRow(new String[] {"2018-12-01"});
+        writer.close();
+        mParts = unzip(outputStream.toByteArray());
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    ///////////////////////////// INTERNAL METHODS FOR TESTING ///////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    private static Map<String, Document> unzip(byte[] bytes) throws Exception {
+        Map<String, Document> parts = new HashMap<>();
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        try (ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zipStream.getNextEntry()) != null) {
+                parts.put(entry.getName(), factory.newDocumentBuilder().parse(new ByteArrayInputStream(readEntry(zipStream))));
+            }
+        }
+        return parts;
+    }
+
+    private static byte[] readEntry(ZipInputStream zipStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = zipStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private Document getPart(String name) {
+        Document part = mParts.get(name);
+        assertNotNull("missing part " + name, part);
+        return part;
+    }
+
+    private static List<String> getTexts(Element element, String tagName) {
+        List<String> texts = new ArrayList<>();
+        NodeList nodes = element.getElementsByTagName(tagName);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            texts.add(nodes.item(i).getTextContent());
+        }
+        return texts;
+    }
+
+    private List<String> getSharedStrings() {
+        Element sst = getPart("xl/sharedStrings.xml").getDocumentElement();
+        List<String> sharedStrings = getTexts(sst, "t");
+        assertEquals(String.valueOf(sharedStrings.size()), sst.getAttribute("uniqueCount"));
+        return sharedStrings;
+    }
+
+    /**
+     * Read the values of the cells of a sheet, resolving the shared strings. The cells that
+     * are not written are returned as null.
+     */
+    private List<String[]> readSheet(int index, boolean boldHeader) {
+        List<String> sharedStrings = getSharedStrings();
+        Element worksheet = getPart("xl/worksheets/sheet" + index + ".xml").getDocumentElement();
+        NodeList rows = worksheet.getElementsByTagName("row");
+        List<String[]> values = new ArrayList<>();
+        for (int i = 0; i < rows.getLength(); i++) {
+            Element row = (Element) rows.item(i);
+            assertEquals(String.valueOf(i + 1), row.getAttribute("r"));
+            String[] rowValues = new String[COLUMN_WIDTHS.length];
+            NodeList cells = row.getElementsByTagName("c");
+            for (int j = 0; j < cells.getLength(); j++) {
+                Element cell = (Element) cells.item(j);
+                String reference = cell.getAttribute("r");
+                int column = reference.charAt(0) - 'A';
+                assertEquals(String.valueOf(i + 1), reference.substring(1));
+                assertEquals(boldHeader && i == 0 ? "1" : "", cell.getAttribute("s"));
+                if ("s".equals(cell.getAttribute("t"))) {
+                    int sharedIndex = Integer.parseInt(getTexts(cell, "v").get(0));
+                    rowValues[column] = sharedStrings.get(sharedIndex);
+                } else {
+                    assertEquals("inlineStr", cell.getAttribute("t"));
+                    rowValues[column] = getTexts(cell, "t").get(0);
+                }
+            }
+            values.add(rowValues);
+        }
+        return values;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////////////////
+    /////////////////////////////////// TEST METHODS /////////////////////////////////////////
+    //////////////////////////////////////////////////////////////////////////////////////////
+
+    @Test
+    public void workbookListsTheSheets() {
+        Element workbook = getPart("xl/workbook.xml").getDocumentElement();
+        NodeList sheets = workbook.getElementsByTagName("sheet");
+        String[] expectedNames = new String[] {"Cash", "Cash (2)", "Bank"};
+        assertEquals(expectedNames.length, sheets.getLength());
+        for (int i = 0; i < sheets.getLength(); i++) {
+            Element sheet = (Element) sheets.item(i);
+            assertEquals(expectedNames[i], sheet.getAttribute("name"));
+            assertEquals(String.valueOf(i + 1), sheet.getAttribute("sheetId"));
+        }
+        Element relationships = getPart("xl/_rels/workbook.xml.rels").getDocumentElement();
+        NodeList targets = relationships.getElementsByTagName("Relationship");
+        List<String> targetNames = new ArrayList<>();
+        for (int i = 0; i < targets.getLength(); i++) {
+            targetNames.add(((Element) targets.item(i)).getAttribute("Target"));
+        }
+        for (int i = 1; i <= expectedNames.length; i++) {
+            assertTrue(targetNames.contains("worksheets/sheet" + i + ".xml"));
+        }
+        assertTrue(targetNames.contains("styles.xml"));
+        assertTrue(targetNames.contains("sharedStrings.xml"));
+        getPart("[Content_Types].xml");
+        getPart("_rels/.rels");
+        getPart("xl/styles.xml");
+    }
+
+    @Test
+    public void sharedStringsAreNotRepeated() {
+        List<String> sharedStrings = getSharedStrings();
+        assertEquals(new ArrayList<>(new LinkedHashSet<>(sharedStrings)), sharedStrings);
+        assertTrue(sharedStrings.contains("Tom & <Jerry>"));
+        // the long strings are written inline inside the cells
+        assertFalse(sharedStrings.contains(LONG_TEXT));
+    }
+
+    @Test
+    public void fullSheetContinuesInsideANewSheet() {
+        List<String[]> firstSheet = readSheet(1, true);
+        assertEquals(MAX_ROWS, firstSheet.size());
+        assertArrayEquals(HEADER, firstSheet.get(0));
+        assertArrayEquals(new String[] {"2018-12-01", "10.00"}, firstSheet.get(1));
+        assertArrayEquals(new String[] {"2018-12-02", "10.00"}, firstSheet.get(2));
+        List<String[]> secondSheet = readSheet(2, true);
+        assertEquals(MAX_ROWS, secondSheet.size());
+        assertArrayEquals(HEADER, secondSheet.get(0));
+        assertArrayEquals(new String[] {"Tom & <Jerry>", null}, secondSheet.get(1));
+        assertArrayEquals(new String[] {LONG_TEXT, "5.00"}, secondSheet.get(2));
+        List<String[]> thirdSheet = readSheet(3, false);
+        assertEquals(1, thirdSheet.size());
+        assertArrayEquals(new String[] {"2018-12-01", null}, thirdSheet.get(0));
+    }
+}
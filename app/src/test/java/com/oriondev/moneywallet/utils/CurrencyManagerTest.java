@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.utils;
+
+import android.app.Application;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.oriondev.moneywallet.model.CurrencyUnit;
+import com.oriondev.moneywallet.storage.database.Contract;
+import com.oriondev.moneywallet.storage.database.DataContentProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This test checks that a reload of the currencies replaces the snapshot as a whole, that
+ * the ids of the currencies do not change across the reloads and that the main thread does not
+ * wait for the first loading.
+ *
+ *   ./gradlew :app:testFlossOsmDebugUnitTest --tests '*CurrencyManagerTest'
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class CurrencyManagerTest {
+
+    private static final String ISO = "XTS";
+
+    private Context mContext;
+    private ContentResolver mContentResolver;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mContentResolver = mContext.getContentResolver();
+        CurrencyManager.initialize(mContext);
+        // the manager is a singleton: it must read the database of this test
+        CurrencyManager.invalidateCacheAndWait(mContext);
+    }
+
+    private void insertCurrency(int decimals) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Contract.Currency.ISO, ISO);
+        contentValues.put(Contract.Currency.NAME, "Test currency");
+        contentValues.put(Contract.Currency.SYMBOL, "T");
+        contentValues.put(Contract.Currency.DECIMALS, decimals);
+        mContentResolver.insert(DataContentProvider.CONTENT_CURRENCIES, contentValues);
+    }
+
+    private void updateCurrency(int decimals) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(Contract.Currency.DECIMALS, decimals);
+        contentValues.put(Contract.Currency.FIX_MONEY_DECIMALS, false);
+        mContentResolver.update(Uri.withAppendedPath(DataContentProvider.CONTENT_CURRENCIES, ISO), contentValues, null, null);
+    }
+
+    @Test
+    public void reloadReplacesSnapshot() {
+        insertCurrency(2);
+        CurrencyManager.invalidateCacheAndWait(mContext);
+        CurrencyUnit oldCurrency = CurrencyManager.getCurrency(ISO);
+        Collection<CurrencyUnit> oldCurrencies = CurrencyManager.getCurrencies();
+        assertNotNull(oldCurrency);
+        assertEquals(2, oldCurrency.getDecimals());
+        updateCurrency(3);
+        CurrencyManager.invalidateCacheAndWait(mContext);
+        // the objects of the old snapshot are never modified by the reload
+        assertEquals(2, oldCurrency.getDecimals());
+        assertTrue(oldCurrencies.contains(oldCurrency));
+        assertEquals(3, CurrencyManager.getCurrency(ISO).getDecimals());
+        assertEquals(oldCurrencies.size(), CurrencyManager.getCurrencies().size());
+    }
+
+    @Test
+    public void idsAreKeptAcrossReloads() {
+        assertEquals(-1, CurrencyManager.getCurrencyId(ISO));
+        insertCurrency(2);
+        CurrencyManager.invalidateCacheAndWait(mContext);
+        int id = CurrencyManager.getCurrencyId(ISO);
+        assertTrue(id >= 0);
+        assertSame(CurrencyManager.getCurrency(ISO), CurrencyManager.getCurrency(id));
+        updateCurrency(0);
+        CurrencyManager.invalidateCacheAndWait(mContext);
+        assertEquals(id, CurrencyManager.getCurrencyId(ISO));
+        assertEquals(0, CurrencyManager.getCurrency(id).getDecimals());
+        // the id of a deleted currency is not reused by the other currencies
+        mContentResolver.delete(Uri.withAppendedPath(DataContentProvider.CONTENT_CURRENCIES, ISO), null, null);
+        CurrencyManager.invalidateCacheAndWait(mContext);
+        assertEquals(-1, CurrencyManager.getCurrencyId(ISO));
+        assertNull(CurrencyManager.getCurrency(id));
+        for (CurrencyUnit currencyUnit : CurrencyManager.getCurrencies()) {
+            assertTrue(CurrencyManager.getCurrencyId(currencyUnit.getIso()) != id);
+        }
+    }
+
+    @Test
+    public void mainThreadDoesNotWaitForLoading() throws InterruptedException {
+        CurrencyManager.reset();
+        // the test runs in the main thread: it must not load the currencies by itself
+        assertTrue(CurrencyManager.getCurrencies().isEmpty());
+        assertEquals(-1, CurrencyManager.getCurrencyId("EUR"));
+        CurrencyUnit platformCurrency = CurrencyManager.getCurrency("EUR");
+        assertNotNull(platformCurrency);
+        assertEquals(2, platformCurrency.getDecimals());
+        assertNull(CurrencyManager.getCurrency(ISO));
+        Thread loader = new Thread(() -> CurrencyManager.initialize(mContext));
+        loader.start();
+        loader.join();
+        assertFalse(CurrencyManager.getCurrencies().isEmpty());
+        assertTrue(CurrencyManager.getCurrencyId("EUR") >= 0);
+        assertNotNull(CurrencyManager.getCurrency("EUR"));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.model;
+
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link CashFlowForecast} of a ledger with many recurrences: the full computation
+ * expands all the rules, while the incremental update expands only the rule that changed and
+ * checks the signature of the others, like the forecast loader does after the user edits a
+ * single recurrence.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CashFlowForecastBenchmark {
+
+    private static final String[] RULES = new String[] {
+            "FREQ=DAILY",
+            "FREQ=WEEKLY;BYDAY=MO",
+            "FREQ=WEEKLY;BYDAY=MO,WE,FR",
+            "FREQ=MONTHLY;BYMONTHDAY=1",
+            "FREQ=MONTHLY;BYMONTHDAY=15",
+            "FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=28",
+            "FREQ=YEARLY"
+    };
+
+    private static final int WALLET_COUNT = 10;
+
+    @Param({"500"})
+    public int recurrences;
+
+    @Param({"12"})
+    public int months;
+
+    private Date mStartDate;
+    private long[] mWalletIds;
+    private String[] mRules;
+    private Date[] mNextOccurrences;
+    private long[] mWallets;
+    private long[] mMoney;
+    private long[] mOtherWallets;
+
+    private CashFlowForecast mForecast;
+    private int mIteration;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2018, Calendar.JANUARY, 1, 0, 0, 0);
+        mStartDate = calendar.getTime();
+        mWalletIds = new long[WALLET_COUNT];
+        for (int i = 0; i < WALLET_COUNT; i++) {
+            mWalletIds[i] = i + 1;
+        }
+        mRules = new String[recurrences];
+        mNextOccurrences = new Date[recurrences];
+        mWallets = new long[recurrences];
+        mMoney = new long[recurrences];
+        mOtherWallets = new long[recurrences];
+        for (int i = 0; i < recurrences; i++) {
+            calendar.setTime(mStartDate);
+            calendar.add(Calendar.DAY_OF_MONTH, random.nextInt(30));
+            mRules[i] = RULES[random.nextInt(RULES.length)];
+            mNextOccurrences[i] = calendar.getTime();
+            mWallets[i] = mWalletIds[random.nextInt(WALLET_COUNT)];
+            mMoney[i] = random.nextInt(100000) - 50000;
+            // one recurrence out of five is a transfer between two wallets
+            mOtherWallets[i] = random.nextInt(5) == 0 ? mWalletIds[random.nextInt(WALLET_COUNT)] : 0L;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupForecast() throws InvalidRecurrenceRuleException {
+        mForecast = new CashFlowForecast(months * 31);
+        update(-1, 0L);
+    }
+
+    private void update(int changedIndex, long changedMoney) throws InvalidRecurrenceRuleException {
+        mForecast.beginUpdate(mStartDate, mWalletIds);
+        for (int i = 0; i < recurrences; i++) {
+            mForecast.setBalance(mWallets[i], 1000000L);
+            long money = i == changedIndex ? changedMoney : mMoney[i];
+            mForecast.setRecurrence("t:" + i, mRules[i], mNextOccurrences[i], mWallets[i], money, mOtherWallets[i], -money);
+        }
+        mForecast.endUpdate();
+    }
+
+    @Benchmark
+    public long[] compute() throws InvalidRecurrenceRuleException {
+        CashFlowForecast forecast = new CashFlowForecast(months * 31);
+        forecast.beginUpdate(mStartDate, mWalletIds);
+        for (int i = 0; i < recurrences; i++) {
+            forecast.setRecurrence("t:" + i, mRules[i], mNextOccurrences[i], mWallets[i], mMoney[i], mOtherWallets[i], -mMoney[i]);
+        }
+        forecast.endUpdate();
+        return forecast.getProjectedBalances(mWalletIds);
+    }
+
+    @Benchmark
+    public long[] updateOneRecurrence() throws InvalidRecurrenceRuleException {
+        // the money of the first recurrence alternates, so each invocation expands it again
+        update(0, ++mIteration % 2 == 0 ? mMoney[0] : mMoney[0] + 1L);
+        return mForecast.getProjectedBalances(mWalletIds);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregation of the amounts of a list of transactions, as done by the overview
+ * loaders, and the conversion of the money from and to the string stored inside the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    private static final String[] CURRENCIES = new String[] {"EUR", "USD", "GBP"};
+
+    @Param({"1", "3"})
+    public int currencies;
+
+    @Param({"10000"})
+    public int transactions;
+
+    private String[] mCurrencies;
+    private long[] mAmounts;
+    private Money mMoney;
+    private String mEncodedMoney;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        mCurrencies = new String[transactions];
+        mAmounts = new long[transactions];
+        for (int i = 0; i < transactions; i++) {
+            mCurrencies[i] = CURRENCIES[random.nextInt(currencies)];
+            mAmounts[i] = random.nextInt(200000) - 100000;
+        }
+        Money money = new Money();
+        for (int i = 0; i < currencies; i++) {
+            money.addMoney(CURRENCIES[i], random.nextInt(1000000));
+        }
+        mMoney = money;
+        mEncodedMoney = money.toString();
+    }
+
+    @Benchmark
+    public Money aggregateMoney() {
+        Money money = new Money();
+        for (int i = 0; i < transactions; i++) {
+            money.addMoney(mCurrencies[i], mAmounts[i]);
+        }
+        return money;
+    }
+
+    @Benchmark
+    public PeriodMoney aggregatePeriodMoney() {
+        PeriodMoney periodMoney = new PeriodMoney(new Date(0L), new Date());
+        for (int i = 0; i < transactions; i++) {
+            if (mAmounts[i] >= 0) {
+                periodMoney.addIncome(mCurrencies[i], mAmounts[i]);
+            } else {
+                periodMoney.addExpense(mCurrencies[i], -mAmounts[i]);
+            }
+        }
+        return periodMoney;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Money parseMoney() {
+        return Money.parse(mEncodedMoney);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String encodeMoney() {
+        return mMoney.toString();
+    }
+}
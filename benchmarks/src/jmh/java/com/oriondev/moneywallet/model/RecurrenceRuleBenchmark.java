@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.model;
+
+import com.oriondev.moneywallet.storage.cache.RecurrenceRuleCache;
+import com.oriondev.moneywallet.utils.DateUtils;
+
+import org.dmfs.rfc5545.DateTime;
+import org.dmfs.rfc5545.recur.InvalidRecurrenceRuleException;
+import org.dmfs.rfc5545.recur.RecurrenceRule;
+import org.dmfs.rfc5545.recur.RecurrenceRuleIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the expansion of the recurrence rules of the recurrent transactions. The
+ * {@link RecurrenceSetting} depends on the android framework, so the benchmark replicates the
+ * search of its next occurrence on top of the same library. The parse benchmarks compare the
+ * parsing of the rule with the lookup inside the {@link RecurrenceRuleCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RecurrenceRuleBenchmark {
+
+    @Param({"FREQ=DAILY", "FREQ=WEEKLY;BYDAY=MO,WE,FR", "FREQ=MONTHLY;BYMONTHDAY=15"})
+    public String rule;
+
+    @Param({"5"})
+    public int years;
+
+    private RecurrenceRule mRecurrenceRule;
+    private DateTime mStartDateTime;
+    private DateTime mEndDateTime;
+
+    @Setup
+    public void setup() throws InvalidRecurrenceRuleException {
+        mRecurrenceRule = new RecurrenceRule(rule);
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2018, Calendar.JANUARY, 1, 0, 0, 0);
+        Date startDate = calendar.getTime();
+        calendar.add(Calendar.YEAR, years);
+        mStartDateTime = DateUtils.getFixedDateTime(startDate);
+        mEndDateTime = DateUtils.getFixedDateTime(calendar.getTime());
+    }
+
+    @Benchmark
+    public void expand(Blackhole blackhole) {
+        RecurrenceRuleIterator iterator = mRecurrenceRule.iterator(mStartDateTime);
+        while (iterator.hasNext()) {
+            DateTime instance = iterator.nextDateTime();
+            if (instance.after(mEndDateTime)) {
+                break;
+            }
+            blackhole.consume(instance);
+        }
+    }
+
+    @Benchmark
+    public Date nextOccurrence() {
+        RecurrenceRuleIterator iterator = mRecurrenceRule.iterator(mStartDateTime);
+        while (iterator.hasNext()) {
+            DateTime nextInstance = iterator.nextDateTime();
+            if (nextInstance.after(mEndDateTime)) {
+                return DateUtils.getFixedDate(nextInstance);
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public RecurrenceRule parse() throws InvalidRecurrenceRuleException {
+        return new RecurrenceRule(rule);
+    }
+
+    @Benchmark
+    public RecurrenceRule parseCached() throws InvalidRecurrenceRuleException {
+        return RecurrenceRuleCache.get(rule);
+    }
+}
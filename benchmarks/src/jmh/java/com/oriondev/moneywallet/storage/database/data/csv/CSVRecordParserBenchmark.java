@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database.data.csv;
+
+import com.oriondev.moneywallet.storage.database.data.ImportError;
+import com.oriondev.moneywallet.storage.database.data.ImportRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parser thread of the csv import on a file with the columns written by the csv
+ * exporter. One row every hundred is not valid, so the cost of the skipped rows is included.
+ * The benchmark lives in the package of the parser because it is not visible outside of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+public class CSVRecordParserBenchmark {
+
+    private static final String[] WALLETS = new String[] {"Cash", "Bank", "Credit card"};
+    private static final String[] CURRENCIES = new String[] {"EUR", "USD", "JPY"};
+    private static final String[] CATEGORIES = new String[] {"Food", "Salary", "Transport", "Bills", "Shopping"};
+
+    @Param({"500000"})
+    public int rows;
+
+    private Map<String, Integer> mCurrencyDecimals;
+    private byte[] mFile;
+
+    @Setup
+    public void setup() {
+        mCurrencyDecimals = new HashMap<>();
+        mCurrencyDecimals.put("EUR", 2);
+        mCurrencyDecimals.put("USD", 2);
+        mCurrencyDecimals.put("JPY", 0);
+        StringBuilder builder = new StringBuilder(rows * 96);
+        builder.append(Constants.COLUMN_WALLET).append(',')
+                .append(Constants.COLUMN_CURRENCY).append(',')
+                .append(Constants.COLUMN_CATEGORY).append(',')
+                .append(Constants.COLUMN_DATETIME).append(',')
+                .append(Constants.COLUMN_MONEY).append(',')
+                .append(Constants.COLUMN_DESCRIPTION).append(',')
+                .append(Constants.COLUMN_PEOPLE).append(',')
+                .append(Constants.COLUMN_NOTE).append('\n');
+        for (int i = 0; i < rows; i++) {
+            int wallet = i % WALLETS.length;
+            String money = i % 100 == 99 ? "n/a" : String.format(Locale.ENGLISH, "%s%d.%02d", i % 3 == 0 ? "" : "-", i % 500, i % 100);
+            builder.append(WALLETS[wallet]).append(',')
+                    .append(CURRENCIES[wallet]).append(',')
+                    .append(CATEGORIES[i % CATEGORIES.length]).append(',')
+                    .append(String.format(Locale.ENGLISH, "2018-%02d-%02d %02d:%02d:00", i % 12 + 1, i % 28 + 1, i % 24, i % 60)).append(',')
+                    .append(money).append(',')
+                    .append("\"Transaction ").append(i).append(", imported\"").append(',')
+                    .append(i % 7 == 0 ? "\"Alice, Bob\"" : "").append(',')
+                    .append('\n');
+        }
+        mFile = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int parse(Blackhole blackhole) throws IOException {
+        List<ImportError> errors = new ArrayList<>();
+        CSVRecordParser parser = new CSVRecordParser(new InputStreamReader(new ByteArrayInputStream(mFile), StandardCharsets.UTF_8), mCurrencyDecimals);
+        try {
+            ImportRecord record = parser.next(errors);
+            while (record != null) {
+                blackhole.consume(record);
+                record = parser.next(errors);
+            }
+        } finally {
+            parser.close();
+        }
+        return errors.size();
+    }
+}
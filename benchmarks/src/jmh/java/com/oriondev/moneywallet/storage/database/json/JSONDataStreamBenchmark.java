@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.database.json;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the json streams used by the backups with objects shaped as the
+ * rows of the transaction table. The benchmark lives in the package of the streams because
+ * they are not visible outside of it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class JSONDataStreamBenchmark {
+
+    private static final String ARRAY = "transactions";
+
+    @Param({"10000"})
+    public int rows;
+
+    private JSONObject[] mObjects;
+    private byte[] mEncoded;
+
+    @Setup
+    public void setup() throws IOException, JSONException {
+        mObjects = new JSONObject[rows];
+        for (int i = 0; i < rows; i++) {
+            JSONObject object = new JSONObject();
+            object.put("id", UUID.randomUUID().toString());
+            object.put("money", (long) (i * 137 % 100000));
+            object.put("date", "2018-10-28 12:00:00");
+            object.put("description", "Transaction " + i);
+            object.put("category", UUID.randomUUID().toString());
+            object.put("direction", (long) (i % 2));
+            object.put("wallet", UUID.randomUUID().toString());
+            object.put("confirmed", true);
+            object.put("count_in_total", true);
+            object.put("last_edit", (long) i);
+            object.put("deleted", false);
+            mObjects[i] = object;
+        }
+        mEncoded = write().toByteArray();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write() throws IOException, JSONException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JSONDataStreamWriter writer = new JSONDataStreamWriter(outputStream);
+        writer.writeName(ARRAY);
+        writer.beginArray();
+        for (JSONObject object : mObjects) {
+            writer.writeJSONObject(object);
+        }
+        writer.endArray();
+        writer.close();
+        return outputStream;
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws IOException, JSONException {
+        JSONDataStreamReader reader = new JSONDataStreamReader(new ByteArrayInputStream(mEncoded));
+        blackhole.consume(reader.readName());
+        reader.beginArray();
+        while (reader.hasArrayAnotherObject()) {
+            blackhole.consume(reader.readObject());
+        }
+        reader.endArray();
+        reader.close();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.storage.wrapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Calendar;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of the index of a header cursor that groups the transactions by
+ * month, as done by the transaction list, and a full scroll of the resulting rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HeaderIndexBenchmark {
+
+    @Param({"1000", "50000"})
+    public int rows;
+
+    private long[] mDates;
+    private HeaderIndex<Integer> mIndex;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        mDates = new long[rows];
+        long date = System.currentTimeMillis();
+        for (int i = 0; i < rows; i++) {
+            date -= random.nextInt(12 * 60 * 60 * 1000);
+            mDates[i] = date;
+        }
+        mIndex = buildIndex();
+    }
+
+    @Benchmark
+    public HeaderIndex<Integer> buildIndex() {
+        HeaderIndex<Integer> index = new HeaderIndex<>(rows);
+        Calendar calendar = Calendar.getInstance();
+        int lastMonth = -1;
+        for (int i = 0; i < rows; i++) {
+            calendar.setTimeInMillis(mDates[i]);
+            int month = calendar.get(Calendar.YEAR) * 12 + calendar.get(Calendar.MONTH);
+            if (month != lastMonth) {
+                index.addHeader(month);
+                lastMonth = month;
+            }
+            index.addItem(i);
+        }
+        return index;
+    }
+
+    @Benchmark
+    public void scrollIndex(Blackhole blackhole) {
+        for (int row = 0; row < mIndex.size(); row++) {
+            if (mIndex.isHeader(row)) {
+                blackhole.consume(mIndex.getHeader(row));
+            } else {
+                blackhole.consume(mIndex.getItemPosition(row));
+            }
+        }
+    }
+}
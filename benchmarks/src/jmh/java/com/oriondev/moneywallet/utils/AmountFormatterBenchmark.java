@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the formatting of the amounts done by the {@link MoneyFormatter} for each bound row.
+ * The mixed case alternates two currencies with a different number of decimals.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AmountFormatterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean groupDigits;
+
+    private AmountFormatter mFormatter;
+    private long mMoney;
+
+    @Setup
+    public void setup() {
+        mFormatter = new AmountFormatter();
+        mFormatter.setGroupDigitEnabled(groupDigits);
+        mMoney = 1234567L;
+    }
+
+    @Benchmark
+    public String formatTwoDecimals() {
+        return mFormatter.format("€", 2, mMoney, false, false);
+    }
+
+    @Benchmark
+    public String formatNoDecimals() {
+        return mFormatter.format("¥", 0, mMoney, true, false);
+    }
+
+    @Benchmark
+    public String formatMixedDecimals() {
+        mFormatter.format("€", 2, mMoney, false, true);
+        return mFormatter.format("¥", 0, mMoney, true, false);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of the dates from and to the strings stored inside the database,
+ * executed for each row read by the cursors and the exporters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class DateUtilsBenchmark {
+
+    private Date mDate;
+    private String mDateString;
+    private String mDateTimeString;
+
+    @Setup
+    public void setup() {
+        mDate = new Date(1540000000000L);
+        mDateString = DateUtils.getSQLDateString(mDate);
+        mDateTimeString = DateUtils.getSQLDateTimeString(mDate);
+    }
+
+    @Benchmark
+    public Date parseSQLDateString() {
+        return DateUtils.getDateFromSQLDateString(mDateString);
+    }
+
+    @Benchmark
+    public Date parseSQLDateTimeString() {
+        return DateUtils.getDateFromSQLDateTimeString(mDateTimeString);
+    }
+
+    @Benchmark
+    public String formatSQLDateTimeString() {
+        return DateUtils.getSQLDateTimeString(mDate);
+    }
+}
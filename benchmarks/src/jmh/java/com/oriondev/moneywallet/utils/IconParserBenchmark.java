@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.oriondev.moneywallet.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decoding of the icons stored inside the database, executed by the adapters
+ * for each bound row.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class IconParserBenchmark {
+
+    private static final String RESOURCE_ICON = "{\"type\":\"resource\",\"resource\":\"ic_shopping_cart_black_24dp\"}";
+    private static final String COLOR_ICON = "{\"type\":\"color\",\"color\":\"#FF9800\",\"name\":\"Bank\"}";
+
+    @Benchmark
+    public IconParser.Result parseResourceIcon() {
+        return IconParser.parse(RESOURCE_ICON);
+    }
+
+    @Benchmark
+    public IconParser.Result parseColorIcon() {
+        return IconParser.parse(COLOR_ICON);
+    }
+}
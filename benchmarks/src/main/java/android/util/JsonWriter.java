@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018.
+ *
+ * This file is part of MoneyWallet.
+ *
+ * MoneyWallet is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MoneyWallet is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MoneyWallet.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package android.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Jvm replacement of the android class with the same name, used only by the benchmarks.
+ * The android implementation is derived from the gson one, so this class simply delegates
+ * to gson.
+ */
+public final class JsonWriter implements Closeable {
+
+    private final com.google.gson.stream.JsonWriter mWriter;
+
+    public JsonWriter(Writer writer) {
+        mWriter = new com.google.gson.stream.JsonWriter(writer);
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        mWriter.beginArray();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        mWriter.endArray();
+        return this;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        mWriter.beginObject();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        mWriter.endObject();
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        mWriter.name(name);
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        mWriter.value(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        mWriter.value(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        mWriter.value(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        mWriter.value(value);
+        return this;
+    }
+
+    public JsonWriter value(Number value) throws IOException {
+        mWriter.value(value);
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        mWriter.nullValue();
+        return this;
+    }
+
+    public void flush() throws IOException {
+        mWriter.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriter.close();
+    }
+}